@@ -9,6 +9,8 @@ package vavi.net.fuse;
 import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.FileSystem;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.ServiceLoader;
@@ -25,9 +27,145 @@ public interface Fuse extends Closeable {
     /**  */
     String ENV_SINGLE_THREAD = "single_thread";
 
+    /** key for env, attribute cache ttl in milliseconds, 0 (default) means disabled */
+    String ENV_ATTRIBUTE_CACHE_TTL = "attr_cache_ttl";
+
+    /** key for env, max entries of the attribute cache */
+    String ENV_ATTRIBUTE_CACHE_SIZE = "attr_cache_size";
+
+    /** key for env, negative lookup (ENOENT) cache ttl in milliseconds, 0 (default) means disabled */
+    String ENV_NEGATIVE_CACHE_TTL = "negative_cache_ttl";
+
+    /** key for env, max entries of the negative lookup cache */
+    String ENV_NEGATIVE_CACHE_SIZE = "negative_cache_size";
+
+    /** key for env, directory listing cache ttl in milliseconds, 0 (default) means disabled */
+    String ENV_DIRECTORY_CACHE_TTL = "dir_cache_ttl";
+
+    /** key for env, max directories of the listing cache */
+    String ENV_DIRECTORY_CACHE_SIZE = "dir_cache_size";
+
+    /** key for env, prefetches child attributes while listing a directory, no need to specify value */
+    String ENV_READDIR_PLUS = "readdir_plus";
+
+    /** key for env, max parallel attribute fetches of readdir-plus */
+    String ENV_READDIR_PLUS_PARALLELISM = "readdir_plus_parallelism";
+
+    /** key for env, max bytes of off-heap memory for the read block cache, 0 (default) means disabled */
+    String ENV_BLOCK_CACHE_SIZE = "block_cache_size";
+
+    /** key for env, bytes of a block of the read block cache */
+    String ENV_BLOCK_CACHE_BLOCK_SIZE = "block_cache_block_size";
+
+    /** key for env, enables sequential read-ahead per file handle, no need to specify value */
+    String ENV_READ_AHEAD = "readahead";
+
+    /** key for env, initial read-ahead window in bytes */
+    String ENV_READ_AHEAD_MIN = "readahead_min";
+
+    /** key for env, max read-ahead window in bytes */
+    String ENV_READ_AHEAD_MAX = "readahead_max";
+
+    /** key for env, number of read-ahead prefetch threads */
+    String ENV_READ_AHEAD_THREADS = "readahead_threads";
+
+    /** key for env, max backend channels per file handle for parallel positional reads */
+    String ENV_READ_CHANNELS = "read_channels";
+
+    /** key for env, enables write-back buffering, no need to specify value */
+    String ENV_WRITE_BACK = "writeback";
+
+    /** key for env, write-back coalescing buffer bytes per file handle */
+    String ENV_WRITE_BACK_BUFFER_SIZE = "writeback_buffer_size";
+
+    /** key for env, max write-back buffered bytes of a mount */
+    String ENV_WRITE_BACK_MAX_DIRTY = "writeback_max_dirty";
+
+    /** key for env, max age of write-back buffered bytes in milliseconds */
+    String ENV_WRITE_BACK_MAX_AGE = "writeback_max_age";
+
+    /** key for env, read only opens of the same path share a backend channel, no need to specify value */
+    String ENV_SHARED_CHANNELS = "shared_channels";
+
+    /** key for env, milliseconds to keep an unreferenced shared channel open */
+    String ENV_SHARED_CHANNELS_LINGER = "shared_channels_linger";
+
+    /** key for env, read only opens don't open the backend until the first read, no need to specify value */
+    String ENV_LAZY_OPEN = "lazy_open";
+
+    /** key for env, number of lanes which run callbacks striped by path, 0 (default) means not striped */
+    String ENV_STRIPED_LANES = "striped_lanes";
+
+    /** key for env, runs callbacks on virtual threads (jdk 21+), no need to specify value */
+    String ENV_VIRTUAL_THREADS = "virtual_threads";
+
+    /** key for env, max in flight callbacks per operation on virtual threads */
+    String ENV_VIRTUAL_THREADS_PERMITS = "virtual_threads_permits";
+
+    /** key for env, records per operation metrics and publishes them as an mxbean, no need to specify value */
+    String ENV_METRICS = "metrics";
+
+    /** key for env, emits jfr events of callbacks and backend calls, no need to specify value */
+    String ENV_JFR = "jfr";
+
+    /** key for env, statfs cache ttl in milliseconds, an expired one is refreshed in the background, 0 (default) means disabled */
+    String ENV_STATFS_TTL = "statfs_ttl";
+
+    /** key for env, path of a file which callbacks are written into, see {@code vavi.net.fuse.trace.TraceWriter} */
+    String ENV_TRACE = "trace";
+
+    /** key for env, directory of the disk block cache under the block cache, see {@code vavi.net.fuse.cache.DiskBlockCache} */
+    String ENV_DISK_CACHE = "disk_cache";
+
+    /** key for env, max bytes of the disk block cache */
+    String ENV_DISK_CACHE_SIZE = "disk_cache_size";
+
+    /** key for env, writes are spooled in a local file and uploaded sequentially at fsync and release, a directory of spool files or null for the temporary directory */
+    String ENV_SPOOL = "spool";
+
+    /** key for env, threads uploading spools after release, 0 (default) means release waits for the upload */
+    String ENV_SPOOL_UPLOAD_THREADS = "spool_upload_threads";
+
+    /** key for env, max spools queued or uploading, release waits when it is full */
+    String ENV_SPOOL_UPLOAD_QUEUE = "spool_upload_queue";
+
+    /** key for env, a {@code vavi.net.fuse.cache.BlockCache} shared by mounts, overrides the block cache size */
+    String ENV_BLOCK_CACHE = "block_cache";
+
+    /** key for env, a {@code vavi.net.fuse.io.ReadAheadPool} shared by mounts, not closed by a mount */
+    String ENV_READ_AHEAD_POOL = "readahead_pool";
+
+    /** key for env, an {@link java.util.concurrent.ExecutorService} which runs mount loops (jnr-fuse), not shut down by a mount */
+    String ENV_MOUNT_EXECUTOR = "mount_executor";
+
+    /**
+     * key for env, a callback dispatcher shared by mounts, not closed by a mount.
+     * the threading mode is chosen by the type, an {@link java.util.concurrent.ExecutorService} for {@link #ENV_SINGLE_THREAD},
+     * a {@code vavi.net.fuse.io.StripedExecutor} or a {@code vavi.net.fuse.io.VirtualThreadExecutor}
+     */
+    String ENV_DISPATCHER = "dispatcher";
+
+    /** key for env, a mount doesn't add its own shutdown hook, no need to specify value */
+    String ENV_NO_SHUTDOWN_HOOK = "no_shutdown_hook";
+
+    /** key for env, a {@link MountOptions} which engines translate into libfuse options */
+    String ENV_MOUNT_OPTIONS = "mount_options";
+
     /** should be non-blocking */
     void mount(FileSystem fs, String mountPoint, Map<String, Object> env) throws IOException;
 
+    /** mounts with libfuse options, should be non-blocking */
+    default void mount(FileSystem fs, String mountPoint, MountOptions options, Map<String, Object> env) throws IOException {
+        Map<String, Object> map = new HashMap<>(env);
+        map.put(ENV_MOUNT_OPTIONS, options);
+        mount(fs, mountPoint, map);
+    }
+
+    /** @return statistics of the current mount, never null */
+    default Map<String, Object> getStatistics() {
+        return Collections.emptyMap();
+    }
+
     /**  */
     ServiceLoader<FuseProvider> serviceLoader = ServiceLoader.load(FuseProvider.class);
 
@@ -46,4 +184,20 @@ public interface Fuse extends Closeable {
     static boolean isEnabled(String key, Map<String, Object> map) {
         return map.containsKey(key) && (map.get(key) == null || (boolean) map.get(key));
     }
+
+    /**
+     * @param map a value is a {@link Number} or a numeric string
+     * @return the default value when the key is absent or the value is null
+     * @throws NumberFormatException the value is not a number
+     */
+    static long getLong(String key, Map<String, Object> map, long defaultValue) {
+        Object value = map.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value != null) {
+            return Long.parseLong(String.valueOf(value));
+        } else {
+            return defaultValue;
+        }
+    }
 }
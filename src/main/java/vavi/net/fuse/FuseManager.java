@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.file.FileSystem;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import vavi.net.fuse.cache.BlockCache;
+import vavi.net.fuse.io.ReadAheadPool;
+import vavi.net.fuse.io.StripedExecutor;
+import vavi.net.fuse.io.VirtualThreadExecutor;
+
+import static java.lang.System.getLogger;
+
+
+/**
+ * FuseManager. mounts many file systems in a jvm.
+ * <p>
+ * mounts share a block cache as one memory budget, read-ahead threads, the callback dispatcher,
+ * threads running mount loops, and one shutdown hook which unmounts them in parallel with a deadline.
+ * shared resources are configured by the env of the manager with the same keys as a mount,
+ * e.g. {@link Fuse#ENV_BLOCK_CACHE_SIZE} is the budget for all mounts and {@link Fuse#ENV_STRIPED_LANES}
+ * is the number of lanes for all mounts.
+ * <p>
+ * a mount loop blocks in libfuse until unmount, so a thread per mount is inherent.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+public class FuseManager implements Closeable {
+
+    private static final Logger logger = getLogger(FuseManager.class.getName());
+
+    /** milliseconds to wait for unmounts at close */
+    public static final long DEFAULT_SHUTDOWN_TIMEOUT = 30000;
+
+    /** null when not shared */
+    private final BlockCache blockCache;
+
+    /** null when not shared */
+    private final ReadAheadPool readAheadPool;
+
+    /** runs mount loops, non-daemon threads keep the jvm alive as a mount does */
+    private final ExecutorService executor;
+
+    /** null when mounts use the default threading */
+    private final Object dispatcher;
+
+    /** <mount point, fuse>, guarded by this */
+    private final Map<String, Fuse> mounts = new LinkedHashMap<>();
+
+    /** */
+    private final Thread hook = new Thread(() -> shutdown(DEFAULT_SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS), "fuse-manager-shutdown");
+
+    /** guarded by this */
+    private boolean closed;
+
+    /** @param env shared resources, block cache and read-ahead keys of a mount env */
+    public FuseManager(Map<String, Object> env) {
+        BlockCache blockCache = BlockCache.of(env);
+        this.blockCache = blockCache.isEnabled() ? blockCache : null;
+        ReadAheadPool readAheadPool = ReadAheadPool.of(env);
+        this.readAheadPool = readAheadPool.isEnabled() ? readAheadPool : null;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> new Thread(r, "fuse-mount-" + count.incrementAndGet()));
+        this.dispatcher = dispatcher(env);
+        Runtime.getRuntime().addShutdownHook(hook);
+    }
+
+    /** @return a dispatcher by the same keys and priority as a mount, null for the default threading */
+    private static Object dispatcher(Map<String, Object> env) {
+        if (env.containsKey(Fuse.ENV_SINGLE_THREAD) && (Boolean) env.get(Fuse.ENV_SINGLE_THREAD)) {
+            return Executors.newSingleThreadExecutor(r -> new Thread(r, "fuse-dispatcher"));
+        } else if (Fuse.getLong(Fuse.ENV_STRIPED_LANES, env, 0) > 0) {
+            return new StripedExecutor((int) Fuse.getLong(Fuse.ENV_STRIPED_LANES, env, 0));
+        } else if (Fuse.isEnabled(Fuse.ENV_VIRTUAL_THREADS, env)) {
+            return new VirtualThreadExecutor((int) Fuse.getLong(Fuse.ENV_VIRTUAL_THREADS_PERMITS, env, 256));
+        } else {
+            return null;
+        }
+    }
+
+    /** mounts by the default engine, see {@link Fuse#getFuse()} */
+    public Fuse mount(FileSystem fs, String mountPoint, Map<String, Object> env) throws IOException {
+        return mount(Fuse.getFuse(), fs, mountPoint, env);
+    }
+
+    /**
+     * @param fuse a new engine instance, owned by this manager
+     * @param env a mount env, shared resources of this manager are added
+     * @return the fuse
+     * @throws IllegalStateException the mount point is used or this manager is closed
+     */
+    public Fuse mount(Fuse fuse, FileSystem fs, String mountPoint, Map<String, Object> env) throws IOException {
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("closed");
+            }
+            if (mounts.containsKey(mountPoint)) {
+                throw new IllegalStateException("already mounted: " + mountPoint);
+            }
+            // reserves the mount point while mounting
+            mounts.put(mountPoint, fuse);
+        }
+        Map<String, Object> map = new HashMap<>(env);
+        if (blockCache != null) {
+            map.put(Fuse.ENV_BLOCK_CACHE, blockCache);
+        }
+        if (readAheadPool != null) {
+            map.put(Fuse.ENV_READ_AHEAD_POOL, readAheadPool);
+        }
+        if (dispatcher != null) {
+            map.put(Fuse.ENV_DISPATCHER, dispatcher);
+        }
+        map.put(Fuse.ENV_MOUNT_EXECUTOR, executor);
+        map.put(Fuse.ENV_NO_SHUTDOWN_HOOK, null);
+        try {
+            fuse.mount(fs, mountPoint, map);
+logger.log(Level.INFO, "mounted: " + mountPoint);
+            return fuse;
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                mounts.remove(mountPoint);
+            }
+            throw e;
+        }
+    }
+
+    /** unmounts the mount point, does nothing when not mounted */
+    public void unmount(String mountPoint) throws IOException {
+        Fuse fuse;
+        synchronized (this) {
+            fuse = mounts.remove(mountPoint);
+        }
+        if (fuse != null) {
+            fuse.close();
+logger.log(Level.INFO, "unmounted: " + mountPoint);
+        }
+    }
+
+    /** @return live mounts, mount point to its statistics */
+    public Map<String, Map<String, Object>> getMounts() {
+        Map<String, Fuse> mounts;
+        synchronized (this) {
+            mounts = new LinkedHashMap<>(this.mounts);
+        }
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        mounts.forEach((mountPoint, fuse) -> result.put(mountPoint, fuse.getStatistics()));
+        return result;
+    }
+
+    /** @return statistics of shared resources */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        synchronized (this) {
+            statistics.put("mounts", mounts.size());
+        }
+        if (blockCache != null) {
+            blockCache.putStatistics(statistics, "block");
+        }
+        if (readAheadPool != null) {
+            readAheadPool.putStatistics(statistics, "readahead");
+        }
+        if (dispatcher instanceof StripedExecutor) {
+            ((StripedExecutor) dispatcher).putStatistics(statistics, "lanes");
+        } else if (dispatcher instanceof VirtualThreadExecutor) {
+            ((VirtualThreadExecutor) dispatcher).putStatistics(statistics, "threads");
+        }
+        return statistics;
+    }
+
+    /**
+     * unmounts all in parallel and releases shared resources, no more mount is accepted.
+     * @return false when some mounts are not unmounted until the timeout
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) {
+        List<Map.Entry<String, Fuse>> closing;
+        synchronized (this) {
+            closed = true;
+            closing = new ArrayList<>(mounts.entrySet());
+            mounts.clear();
+        }
+        CountDownLatch done = new CountDownLatch(closing.size());
+        for (Map.Entry<String, Fuse> entry : closing) {
+            Thread thread = new Thread(() -> {
+                try {
+                    entry.getValue().close();
+logger.log(Level.INFO, "unmounted: " + entry.getKey());
+                } catch (IOException | RuntimeException e) {
+logger.log(Level.WARNING, "unmount: " + entry.getKey() + ": " + e);
+                } finally {
+                    done.countDown();
+                }
+            }, "fuse-unmount-" + entry.getKey());
+            thread.setDaemon(true);
+            thread.start();
+        }
+        boolean completed;
+        try {
+            completed = done.await(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            completed = false;
+        }
+        if (!completed) {
+logger.log(Level.WARNING, "unmount timed out, " + done.getCount() + " mounts are left");
+            executor.shutdownNow();
+        } else {
+            executor.shutdown();
+        }
+        if (readAheadPool != null) {
+            readAheadPool.close();
+        }
+        if (dispatcher instanceof ExecutorService) {
+            ((ExecutorService) dispatcher).shutdown();
+        } else if (dispatcher instanceof Closeable) {
+            try {
+                ((Closeable) dispatcher).close();
+            } catch (IOException e) {
+logger.log(Level.WARNING, "dispatcher: " + e);
+            }
+        }
+        return completed;
+    }
+
+    /** {@link #shutdown(long, TimeUnit)} with {@link #DEFAULT_SHUTDOWN_TIMEOUT} */
+    @Override
+    public void close() throws IOException {
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException e) {
+            // in shutdown
+        }
+        if (!shutdown(DEFAULT_SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+            throw new IOException("unmount timed out");
+        }
+    }
+}
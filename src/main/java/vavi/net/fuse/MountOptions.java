@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static java.lang.System.getLogger;
+
+
+/**
+ * MountOptions. typed libfuse mount options, engines translate them into their libfuse arguments.
+ * <p>
+ * an option not set is not passed, libfuse defaults are used. an option the platform's fuse
+ * doesn't support is logged and not passed, or fails the mount when {@link Builder#strict()}.
+ * <pre>
+ * MountOptions options = MountOptions.builder()
+ *     .attrTimeout(60).entryTimeout(60).kernelCache(true).maxWrite(128 * 1024)
+ *     .build();
+ * fuse.mount(fs, mountPoint, options, env);
+ * </pre>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see Fuse#ENV_MOUNT_OPTIONS
+ */
+public final class MountOptions {
+
+    private static final Logger logger = getLogger(MountOptions.class.getName());
+
+    public static final String ATTR_TIMEOUT = "attr_timeout";
+    public static final String ENTRY_TIMEOUT = "entry_timeout";
+    public static final String NEGATIVE_TIMEOUT = "negative_timeout";
+    public static final String KERNEL_CACHE = "kernel_cache";
+    public static final String AUTO_CACHE = "auto_cache";
+    public static final String MAX_READ = "max_read";
+    public static final String MAX_WRITE = "max_write";
+    public static final String BIG_WRITES = "big_writes";
+    public static final String MAX_BACKGROUND = "max_background";
+    public static final String ASYNC_READ = "async_read";
+    public static final String SYNC_READ = "sync_read";
+
+    /** options of libfuse 2.9 on linux */
+    public static final Set<String> LIBFUSE_OPTIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            ATTR_TIMEOUT, ENTRY_TIMEOUT, NEGATIVE_TIMEOUT, KERNEL_CACHE, AUTO_CACHE,
+            MAX_READ, MAX_WRITE, BIG_WRITES, MAX_BACKGROUND, ASYNC_READ, SYNC_READ)));
+
+    /** options of macfuse, i/o sizes are decided by its {@code iosize} */
+    public static final Set<String> MACFUSE_OPTIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            ATTR_TIMEOUT, ENTRY_TIMEOUT, NEGATIVE_TIMEOUT, KERNEL_CACHE, AUTO_CACHE)));
+
+    /** writes larger than this need {@link #BIG_WRITES} on libfuse 2 */
+    private static final int SMALL_WRITE = 4096;
+
+    /** seconds */
+    private final Double attrTimeout;
+    /** seconds */
+    private final Double entryTimeout;
+    /** seconds */
+    private final Double negativeTimeout;
+    private final Boolean kernelCache;
+    private final Boolean autoCache;
+    private final Integer maxRead;
+    private final Integer maxWrite;
+    private final Boolean bigWrites;
+    private final Integer maxBackground;
+    private final Boolean asyncRead;
+    private final boolean strict;
+
+    /** */
+    private MountOptions(Builder builder) {
+        this.attrTimeout = builder.attrTimeout;
+        this.entryTimeout = builder.entryTimeout;
+        this.negativeTimeout = builder.negativeTimeout;
+        this.kernelCache = builder.kernelCache;
+        this.autoCache = builder.autoCache;
+        this.maxRead = builder.maxRead;
+        this.maxWrite = builder.maxWrite;
+        this.bigWrites = builder.bigWrites;
+        this.maxBackground = builder.maxBackground;
+        this.asyncRead = builder.asyncRead;
+        this.strict = builder.strict;
+    }
+
+    /** */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** */
+    public static final class Builder {
+        private Double attrTimeout;
+        private Double entryTimeout;
+        private Double negativeTimeout;
+        private Boolean kernelCache;
+        private Boolean autoCache;
+        private Integer maxRead;
+        private Integer maxWrite;
+        private Boolean bigWrites;
+        private Integer maxBackground;
+        private Boolean asyncRead;
+        private boolean strict;
+
+        private Builder() {
+        }
+
+        /** @param seconds the kernel caches attributes for */
+        public Builder attrTimeout(double seconds) {
+            this.attrTimeout = nonNegative(ATTR_TIMEOUT, seconds);
+            return this;
+        }
+
+        /** @param seconds the kernel caches name lookups for */
+        public Builder entryTimeout(double seconds) {
+            this.entryTimeout = nonNegative(ENTRY_TIMEOUT, seconds);
+            return this;
+        }
+
+        /** @param seconds the kernel caches failed name lookups for */
+        public Builder negativeTimeout(double seconds) {
+            this.negativeTimeout = nonNegative(NEGATIVE_TIMEOUT, seconds);
+            return this;
+        }
+
+        /** the kernel keeps the page cache of a file across opens */
+        public Builder kernelCache(boolean kernelCache) {
+            this.kernelCache = kernelCache;
+            return this;
+        }
+
+        /** the kernel keeps the page cache of a file while its modification time and size are unchanged */
+        public Builder autoCache(boolean autoCache) {
+            this.autoCache = autoCache;
+            return this;
+        }
+
+        /** @param bytes max size of a read request */
+        public Builder maxRead(int bytes) {
+            this.maxRead = (int) positive(MAX_READ, bytes);
+            return this;
+        }
+
+        /** @param bytes max size of a write request, over 4k enables {@link #bigWrites(boolean)} unless specified */
+        public Builder maxWrite(int bytes) {
+            this.maxWrite = (int) positive(MAX_WRITE, bytes);
+            return this;
+        }
+
+        /** writes larger than 4k (libfuse 2) */
+        public Builder bigWrites(boolean bigWrites) {
+            this.bigWrites = bigWrites;
+            return this;
+        }
+
+        /** @param requests max pending background requests, e.g. read ahead */
+        public Builder maxBackground(int requests) {
+            this.maxBackground = (int) positive(MAX_BACKGROUND, requests);
+            return this;
+        }
+
+        /** @param asyncRead true for {@code async_read}, false for {@code sync_read} */
+        public Builder asyncRead(boolean asyncRead) {
+            this.asyncRead = asyncRead;
+            return this;
+        }
+
+        /** an unsupported option fails the mount instead of being logged */
+        public Builder strict() {
+            this.strict = true;
+            return this;
+        }
+
+        /** */
+        public MountOptions build() {
+            return new MountOptions(this);
+        }
+
+        /** */
+        private static double nonNegative(String name, double value) {
+            if (value < 0 || Double.isNaN(value)) {
+                throw new IllegalArgumentException(name + ": " + value);
+            }
+            return value;
+        }
+
+        /** */
+        private static long positive(String name, long value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + ": " + value);
+            }
+            return value;
+        }
+    }
+
+    /** @return null when {@link Fuse#ENV_MOUNT_OPTIONS} is not specified */
+    public static MountOptions of(Map<String, Object> env) {
+        Object options = env != null ? env.get(Fuse.ENV_MOUNT_OPTIONS) : null;
+        if (options != null && !(options instanceof MountOptions)) {
+            throw new IllegalArgumentException(Fuse.ENV_MOUNT_OPTIONS + " is not " + MountOptions.class.getName() + ": " + options.getClass().getName());
+        }
+        return (MountOptions) options;
+    }
+
+    /** @return options supported by the fuse of this platform */
+    public static Set<String> supportedOptions() {
+        return System.getProperty("os.name").toLowerCase().startsWith("mac") ? MACFUSE_OPTIONS : LIBFUSE_OPTIONS;
+    }
+
+    /** @return options of the fuse of this platform, see {@link #toOptions(Set, List)} */
+    public Map<String, String> toOptions() {
+        List<String> unsupported = new ArrayList<>();
+        Map<String, String> options = toOptions(supportedOptions(), unsupported);
+        for (String option : unsupported) {
+logger.log(Level.WARNING, "unsupported mount option, ignored: " + option);
+        }
+        return options;
+    }
+
+    /**
+     * @param supported option names the fuse supports
+     * @param unsupported option names set but not supported are added
+     * @return libfuse options, a value is null for a flag
+     * @throws IllegalArgumentException an option is not supported when {@link Builder#strict()}
+     */
+    public Map<String, String> toOptions(Set<String> supported, List<String> unsupported) {
+        Map<String, String> options = new LinkedHashMap<>();
+        if (attrTimeout != null) {
+            options.put(ATTR_TIMEOUT, format(attrTimeout));
+        }
+        if (entryTimeout != null) {
+            options.put(ENTRY_TIMEOUT, format(entryTimeout));
+        }
+        if (negativeTimeout != null) {
+            options.put(NEGATIVE_TIMEOUT, format(negativeTimeout));
+        }
+        if (Boolean.TRUE.equals(kernelCache)) {
+            options.put(KERNEL_CACHE, null);
+        }
+        if (Boolean.TRUE.equals(autoCache)) {
+            options.put(AUTO_CACHE, null);
+        }
+        if (maxRead != null) {
+            options.put(MAX_READ, String.valueOf(maxRead));
+        }
+        if (maxWrite != null) {
+            options.put(MAX_WRITE, String.valueOf(maxWrite));
+        }
+        if (Boolean.TRUE.equals(bigWrites) || (bigWrites == null && maxWrite != null && maxWrite > SMALL_WRITE)) {
+            options.put(BIG_WRITES, null);
+        }
+        if (maxBackground != null) {
+            options.put(MAX_BACKGROUND, String.valueOf(maxBackground));
+        }
+        if (asyncRead != null) {
+            options.put(asyncRead ? ASYNC_READ : SYNC_READ, null);
+        }
+        List<String> dropped = options.keySet().stream().filter(o -> !supported.contains(o)).collect(Collectors.toList());
+        if (strict && !dropped.isEmpty()) {
+            throw new IllegalArgumentException("unsupported mount options: " + dropped);
+        }
+        dropped.forEach(options::remove);
+        unsupported.addAll(dropped);
+        return options;
+    }
+
+    /** @return {@code -o} arguments of libfuse, empty when no option */
+    public static String[] toArguments(Map<String, String> options) {
+        if (options.isEmpty()) {
+            return new String[0];
+        }
+        String joined = options.entrySet().stream()
+                .map(e -> e.getValue() != null ? e.getKey() + "=" + e.getValue() : e.getKey())
+                .collect(Collectors.joining(","));
+        return new String[] {"-o", joined};
+    }
+
+    /** seconds without a useless fraction */
+    private static String format(double seconds) {
+        return seconds == Math.rint(seconds) ? String.valueOf((long) seconds) : String.valueOf(seconds);
+    }
+
+    @Override
+    public String toString() {
+        return String.join(" ", toArguments(toOptions(LIBFUSE_OPTIONS, new ArrayList<>())));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.cache;
+
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import vavi.net.fuse.Fuse;
+
+
+/**
+ * AttributeCache. caches {@link BasicFileAttributes} for getattr per mount.
+ * <p>
+ * invalidations count up generations of paths, attributes fetched in the background are
+ * put only when the generation of the path is not changed since the fetch started.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see Fuse#ENV_ATTRIBUTE_CACHE_TTL
+ * @see Fuse#ENV_ATTRIBUTE_CACHE_SIZE
+ */
+public class AttributeCache extends PathCache<BasicFileAttributes> {
+
+    /** */
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    /** ttl in milliseconds used when readdir-plus is enabled without an explicit ttl */
+    public static final long DEFAULT_READDIR_PLUS_TTL = 1000;
+
+    /** number of generation counters, paths share them by hash */
+    private static final int GENERATIONS = 64;
+
+    /** */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATIONS);
+
+    /** */
+    public AttributeCache(long ttl, TimeUnit unit, int maxEntries) {
+        super(ttl, unit, maxEntries);
+    }
+
+    /** creates a cache from mount env */
+    public static AttributeCache of(Map<String, Object> env) {
+        long ttl = Fuse.getLong(Fuse.ENV_ATTRIBUTE_CACHE_TTL, env, 0);
+        if (ttl == 0 && Fuse.isEnabled(Fuse.ENV_READDIR_PLUS, env)) {
+            ttl = DEFAULT_READDIR_PLUS_TTL;
+        }
+        int maxEntries = (int) Fuse.getLong(Fuse.ENV_ATTRIBUTE_CACHE_SIZE, env, DEFAULT_MAX_ENTRIES);
+        return new AttributeCache(ttl, TimeUnit.MILLISECONDS, maxEntries);
+    }
+
+    /** */
+    private static int indexOf(String path) {
+        int h = path.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATIONS - 1);
+    }
+
+    /** @return the generation of the path, taken before fetching attributes to put later */
+    public long generation(String path) {
+        return generations.get(indexOf(path));
+    }
+
+    /**
+     * puts attributes fetched by readdir-plus, the first hit of them is counted as a saved getattr.
+     * @param generation of the path when the fetch started
+     * @return false when the path is invalidated since then, the attributes are stale
+     */
+    public boolean putPrefetched(String path, BasicFileAttributes attributes, long generation) {
+        return putIf(path, attributes, true, () -> generations.get(indexOf(path)) == generation);
+    }
+
+    /**
+     * puts attributes fetched by a callback.
+     * @param generation of the path when the fetch started
+     * @return false when the path is invalidated since then, the attributes are stale
+     */
+    public boolean put(String path, BasicFileAttributes attributes, long generation) {
+        return putIf(path, attributes, false, () -> generations.get(indexOf(path)) == generation);
+    }
+
+    /** counts up the generation before removing, see {@link #putPrefetched} */
+    @Override
+    public void invalidate(String path) {
+        generations.incrementAndGet(indexOf(path));
+        super.invalidate(path);
+    }
+
+    /** descendants may use any counter */
+    @Override
+    public void invalidateTree(String path) {
+        for (int i = 0; i < GENERATIONS; i++) {
+            generations.incrementAndGet(i);
+        }
+        super.invalidateTree(path);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < GENERATIONS; i++) {
+            generations.incrementAndGet(i);
+        }
+        super.clear();
+    }
+
+    /** for the path itself is changed and the parent directory's time stamps also */
+    public void invalidateEntry(String path) {
+        invalidate(path);
+        invalidateParent(path);
+    }
+}
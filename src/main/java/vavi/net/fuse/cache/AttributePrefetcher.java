@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.file.FileSystem;
+import java.nio.file.LinkOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import vavi.net.fuse.Fuse;
+
+import static java.lang.System.getLogger;
+
+
+/**
+ * AttributePrefetcher. readdir-plus, fetches attributes of directory entries
+ * in bounded parallel and loads them into an {@link AttributeCache}.
+ * <p>
+ * a getattr for an entry which is being fetched waits for the fetch instead of
+ * calling the backend again. attributes of an entry invalidated while being fetched are
+ * dropped. fetches are queued up to {@link #MAX_QUEUED}, entries over it are left to getattr.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see Fuse#ENV_READDIR_PLUS
+ * @see Fuse#ENV_READDIR_PLUS_PARALLELISM
+ */
+public class AttributePrefetcher implements Closeable {
+
+    private static final Logger logger = getLogger(AttributePrefetcher.class.getName());
+
+    /** */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    /** max fetches waiting for a thread */
+    public static final int MAX_QUEUED = 1024;
+
+    /** */
+    private final FileSystem fileSystem;
+
+    /** the provider of the mount, e.g. recording backend events */
+    private final FileSystemProvider provider;
+
+    /** */
+    private final AttributeCache attributeCache;
+
+    /** null when disabled */
+    private final ExecutorService executor;
+
+    /** <path, fetching attributes> */
+    private final ConcurrentMap<String, CompletableFuture<BasicFileAttributes>> inflight = new ConcurrentHashMap<>();
+
+    private final LongAdder prefetched = new LongAdder();
+    private final LongAdder awaited = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * @param parallelism 0 means disabled
+     */
+    public AttributePrefetcher(FileSystem fileSystem, AttributeCache attributeCache, int parallelism) {
+        this(fileSystem, fileSystem.provider(), attributeCache, parallelism);
+    }
+
+    /**
+     * @param provider reads attributes instead of the file system's one
+     * @param parallelism 0 means disabled
+     */
+    public AttributePrefetcher(FileSystem fileSystem, FileSystemProvider provider, AttributeCache attributeCache, int parallelism) {
+        this.fileSystem = fileSystem;
+        this.provider = provider;
+        this.attributeCache = attributeCache;
+        if (parallelism > 0 && attributeCache.isEnabled()) {
+            AtomicInteger count = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(MAX_QUEUED), r -> {
+                Thread thread = new Thread(r, "readdir-plus-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /** creates a prefetcher from mount env */
+    public static AttributePrefetcher of(FileSystem fileSystem, AttributeCache attributeCache, Map<String, Object> env) {
+        return of(fileSystem, fileSystem.provider(), attributeCache, env);
+    }
+
+    /** creates a prefetcher from mount env, reads attributes by the provider of the mount */
+    public static AttributePrefetcher of(FileSystem fileSystem, FileSystemProvider provider, AttributeCache attributeCache, Map<String, Object> env) {
+        int parallelism = Fuse.isEnabled(Fuse.ENV_READDIR_PLUS, env) ? (int) Fuse.getLong(Fuse.ENV_READDIR_PLUS_PARALLELISM, env, DEFAULT_PARALLELISM) : 0;
+        return new AttributePrefetcher(fileSystem, provider, attributeCache, parallelism);
+    }
+
+    /** */
+    public boolean isEnabled() {
+        return executor != null;
+    }
+
+    /**
+     * starts fetching attributes of the entries asynchronously.
+     * @param directory fuse path of the directory
+     * @param names file names in the directory
+     */
+    public void prefetch(String directory, List<String> names) {
+        if (!isEnabled()) {
+            return;
+        }
+        String prefix = directory.endsWith("/") ? directory : directory + "/";
+        for (int i = 0; i < names.size(); i++) {
+            String path = prefix + names.get(i);
+            if (attributeCache.peek(path) != null) {
+                continue;
+            }
+            try {
+                inflight.computeIfAbsent(path, p -> fetch(p, attributeCache.generation(p)));
+            } catch (RejectedExecutionException e) {
+                skipped.add(names.size() - i);
+logger.log(Level.DEBUG, "prefetch: queue is full, skipped: " + (names.size() - i) + " in " + directory);
+                break;
+            }
+        }
+    }
+
+    /**
+     * @param generation of the path before reading the attributes
+     * @throws RejectedExecutionException the queue is full or closed
+     */
+    private CompletableFuture<BasicFileAttributes> fetch(String path, long generation) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                BasicFileAttributes attributes = provider.readAttributes(fileSystem.getPath(path), BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                if (!attributeCache.putPrefetched(path, attributes, generation)) {
+                    // changed while reading, getattr reads again
+                    stale.increment();
+                    return null;
+                }
+                prefetched.increment();
+                return attributes;
+            } catch (IOException e) {
+logger.log(Level.DEBUG, "prefetch: " + path + ": " + e);
+                return null;
+            } finally {
+                inflight.remove(path);
+            }
+        }, executor);
+    }
+
+    /**
+     * @return attributes when the path is being fetched, otherwise or when the fetch failed null
+     */
+    public BasicFileAttributes await(String path) {
+        CompletableFuture<BasicFileAttributes> future = inflight.get(path);
+        if (future == null) {
+            return null;
+        }
+        try {
+            BasicFileAttributes attributes = future.get();
+            if (attributes == null || attributeCache.peek(path) != attributes) {
+                // failed, or invalidated after the fetch
+                return null;
+            }
+            awaited.increment();
+            return attributes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /** count of attributes fetched by readdir-plus */
+    public long getPrefetchCount() {
+        return prefetched.sum();
+    }
+
+    /** count of getattr calls served by readdir-plus instead of the backend */
+    public long getSavedCount() {
+        return attributeCache.getMarkedHitCount() + awaited.sum();
+    }
+
+    /** puts statistics into the map with keys prefixed by {@code prefix} */
+    public void putStatistics(Map<String, Object> statistics, String prefix) {
+        statistics.put(prefix + ".prefetched", getPrefetchCount());
+        statistics.put(prefix + ".saved", getSavedCount());
+        statistics.put(prefix + ".stale", stale.sum());
+        statistics.put(prefix + ".skipped", skipped.sum());
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,489 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import vavi.net.fuse.Fuse;
+
+
+/**
+ * BlockCache. a file data cache for read, blocks are kept in off-heap direct memory.
+ * <p>
+ * a block is keyed by (path, file version, generation, block index). the file version is the size and
+ * the last modified time at open, so blocks of a file changed by another client are not served to
+ * handles opened after the change is seen. the generation is bumped by {@link #invalidate(String)}
+ * so blocks loaded before an invalidation through this mount are never served, a block loaded while
+ * a tree is invalidated by {@link #invalidateTree(String)} is not cached.
+ * slots are indexed by path also, an invalidation frees only the slots of the path.
+ * <p>
+ * a hit pins the slot and copies the block outside the lock, a pinned slot is not reused.
+ * the number of blocks is limited by the byte budget and evicted by the CLOCK algorithm.
+ * <p>
+ * direct memory is limited by {@code -XX:MaxDirectMemorySize} also.
+ * <p>
+ * mounts can share one budget by {@link #view()}s of a cache, paths of a view are namespaced.
+ * statistics of a view are of its own reads and blocks, the shared cache counts all.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see Fuse#ENV_BLOCK_CACHE_SIZE
+ * @see Fuse#ENV_BLOCK_CACHE_BLOCK_SIZE
+ * @see Fuse#ENV_BLOCK_CACHE
+ */
+public class BlockCache {
+
+    /** */
+    public static final int DEFAULT_BLOCK_SIZE = 0x20000;
+
+    /** reads a block from the backend */
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * @param dst fill until full or eof
+         * @param position file position
+         * @return bytes read, 0 at eof
+         */
+        int load(ByteBuffer dst, long position) throws IOException;
+    }
+
+    /** */
+    private static final class Key {
+        final String path;
+        /** null when unknown */
+        final DiskBlockCache.Version file;
+        final long version;
+        final long index;
+        Key(String path, DiskBlockCache.Version file, long version, long index) {
+            this.path = path;
+            this.file = file;
+            this.version = version;
+            this.index = index;
+        }
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return version == key.version && index == key.index && path.equals(key.path) && Objects.equals(file, key.file);
+        }
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, file, version, index);
+        }
+    }
+
+    /** versions are striped by path hash to keep memory bounded */
+    private static final int VERSION_STRIPES = 1024;
+
+    /** */
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    /** bumped by tree invalidations, a block loaded over a bump is not cached */
+    private final AtomicLong trees = new AtomicLong();
+
+    /** */
+    private final int blockSize;
+
+    /** number of slots */
+    private final int capacity;
+
+    // following are guarded by this
+
+    /** lazily allocated */
+    private final ByteBuffer[] blocks;
+    /** valid bytes of each block, less than block size means eof */
+    private final int[] lengths;
+    private final Key[] keys;
+    private final boolean[] referenced;
+    /** readers copying from each slot */
+    private final int[] pins;
+    /** the cache or the view which put each block */
+    private final BlockCache[] owners;
+    private final Map<Key, Integer> index = new HashMap<>();
+    /** slots of each path */
+    private final Map<String, Set<Integer>> paths = new HashMap<>();
+    private int used;
+    private int hand;
+
+    /** load buffers, not per thread for virtual threads */
+    private final BufferPool loadBuffers;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    /** blocks put by this, for a view */
+    private final LongAdder blocksHeld = new LongAdder();
+
+    /** for namespaces of views */
+    private final AtomicInteger views = new AtomicInteger();
+
+    /**
+     * @param budget max bytes of direct memory, 0 means disabled
+     * @param blockSize bytes of a block
+     */
+    public BlockCache(long budget, int blockSize) {
+        this.blockSize = blockSize;
+        this.capacity = (int) Math.min(Integer.MAX_VALUE - 8, budget / blockSize);
+        this.blocks = new ByteBuffer[capacity];
+        this.lengths = new int[capacity];
+        this.keys = new Key[capacity];
+        this.referenced = new boolean[capacity];
+        this.pins = new int[capacity];
+        this.owners = new BlockCache[capacity];
+        this.loadBuffers = new BufferPool(blockSize, true);
+    }
+
+    /** creates a cache from mount env, a view when a shared cache is given */
+    public static BlockCache of(Map<String, Object> env) {
+        Object shared = env.get(Fuse.ENV_BLOCK_CACHE);
+        if (shared instanceof BlockCache) {
+            return ((BlockCache) shared).view();
+        }
+        long budget = Fuse.getLong(Fuse.ENV_BLOCK_CACHE_SIZE, env, 0);
+        int blockSize = (int) Fuse.getLong(Fuse.ENV_BLOCK_CACHE_BLOCK_SIZE, env, DEFAULT_BLOCK_SIZE);
+        return new BlockCache(budget, blockSize);
+    }
+
+    /** */
+    public boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /** @return a cache for a mount which shares blocks and the budget of this cache */
+    public BlockCache view() {
+        return new View(this, "#" + views.incrementAndGet());
+    }
+
+    /** paths are prefixed by the namespace, statistics are of this view */
+    private static final class View extends BlockCache {
+        final BlockCache shared;
+        final String namespace;
+        View(BlockCache shared, String namespace) {
+            super(0, shared.getBlockSize());
+            this.shared = shared;
+            this.namespace = namespace;
+        }
+        @Override
+        public boolean isEnabled() {
+            return shared.isEnabled();
+        }
+        @Override
+        public BlockCache view() {
+            return shared.view();
+        }
+        @Override
+        public void invalidate(String path) {
+            shared.invalidate(namespace + path);
+        }
+        @Override
+        public void invalidateTree(String path) {
+            shared.invalidateTree(namespace + path);
+        }
+        @Override
+        public int read(String path, DiskBlockCache.Version file, ByteBuffer dst, long offset, Loader loader) throws IOException {
+            return shared.read(namespace + path, file, dst, offset, loader, this);
+        }
+        /** drops blocks of this view only */
+        @Override
+        public void close() {
+            shared.invalidateTree(namespace);
+        }
+        /** bytes of blocks of this view */
+        @Override
+        public long getAllocatedBytes() {
+            return super.blocksHeld.sum() * getBlockSize();
+        }
+    }
+
+    /** */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /** */
+    private long version(String path) {
+        return versions.get(path.hashCode() & (VERSION_STRIPES - 1));
+    }
+
+    /** drops cached blocks of the file, costs the number of its blocks */
+    public void invalidate(String path) {
+        if (!isEnabled()) {
+            return;
+        }
+        versions.incrementAndGet(path.hashCode() & (VERSION_STRIPES - 1));
+        synchronized (this) {
+            free(paths.remove(path));
+        }
+    }
+
+    /** drops all cached blocks of the path and its descendants, e.g. for rename of a directory */
+    public void invalidateTree(String path) {
+        if (!isEnabled()) {
+            return;
+        }
+        // descendants being loaded may be of any stripe
+        trees.incrementAndGet();
+        String prefix = path.endsWith("/") ? path : path + "/";
+        synchronized (this) {
+            Iterator<Map.Entry<String, Set<Integer>>> i = paths.entrySet().iterator();
+            while (i.hasNext()) {
+                Map.Entry<String, Set<Integer>> entry = i.next();
+                if (entry.getKey().equals(path) || entry.getKey().startsWith(prefix)) {
+                    free(entry.getValue());
+                    i.remove();
+                }
+            }
+        }
+    }
+
+    /** drops all cached blocks, a view drops blocks of its mount, e.g. at unmount */
+    public void close() {
+        if (!isEnabled()) {
+            return;
+        }
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        synchronized (this) {
+            paths.values().forEach(this::free);
+            paths.clear();
+        }
+    }
+
+    /** guarded by this */
+    private void free(Set<Integer> slots) {
+        if (slots == null) {
+            return;
+        }
+        for (int slot : slots) {
+            index.remove(keys[slot]);
+            keys[slot] = null;
+            referenced[slot] = false;
+            release(slot);
+        }
+    }
+
+    /**
+     * reads through the cache, blocks are not distinguished by file versions.
+     * @see #read(String, DiskBlockCache.Version, ByteBuffer, long, Loader)
+     */
+    public int read(String path, ByteBuffer dst, long offset, Loader loader) throws IOException {
+        return read(path, null, dst, offset, loader);
+    }
+
+    /**
+     * reads through the cache.
+     *
+     * @param file the version of the file at open, null when unknown
+     * @param dst read until full or eof
+     * @param offset file position
+     * @param loader used when blocks are not cached
+     * @return bytes read, 0 at eof
+     */
+    public int read(String path, DiskBlockCache.Version file, ByteBuffer dst, long offset, Loader loader) throws IOException {
+        return read(path, file, dst, offset, loader, this);
+    }
+
+    /** @param counted this or a view of this, counts statistics also */
+    private int read(String path, DiskBlockCache.Version file, ByteBuffer dst, long offset, Loader loader, BlockCache counted) throws IOException {
+        long version = version(path);
+        long tree = trees.get();
+        int total = 0;
+        while (dst.hasRemaining()) {
+            long position = offset + total;
+            Key key = new Key(path, file, version, position / blockSize);
+            int inBlock = (int) (position % blockSize);
+            int n = copy(key, inBlock, dst);
+            if (n < 0) {
+                misses.increment();
+                if (counted != this) {
+                    counted.misses.increment();
+                }
+                ByteBuffer block = loadBuffers.acquire();
+                try {
+                    loader.load(block, key.index * blockSize);
+                    block.flip();
+                    put(key, tree, block, counted);
+                    n = copy(block, inBlock, dst);
+                } finally {
+                    loadBuffers.release(block);
+                }
+            } else {
+                hits.increment();
+                if (counted != this) {
+                    counted.hits.increment();
+                }
+            }
+            if (n == 0) {
+                break; // eof
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    /** @return bytes copied, -1 when not cached */
+    private int copy(Key key, int inBlock, ByteBuffer dst) {
+        int slot;
+        ByteBuffer block;
+        synchronized (this) {
+            Integer s = index.get(key);
+            if (s == null) {
+                return -1;
+            }
+            slot = s;
+            referenced[slot] = true;
+            pins[slot]++;
+            block = blocks[slot].duplicate();
+            block.position(0).limit(lengths[slot]);
+        }
+        try {
+            // the slot is not reused while pinned
+            return copy(block, inBlock, dst);
+        } finally {
+            synchronized (this) {
+                pins[slot]--;
+            }
+        }
+    }
+
+    /** @param block position 0, limit valid length */
+    private static int copy(ByteBuffer block, int inBlock, ByteBuffer dst) {
+        if (inBlock >= block.limit()) {
+            return 0;
+        }
+        int n = Math.min(block.limit() - inBlock, dst.remaining());
+        ByteBuffer src = block.duplicate();
+        src.position(inBlock).limit(inBlock + n);
+        dst.put(src);
+        return n;
+    }
+
+    /**
+     * @param tree {@link #trees} before loading
+     * @param block position 0, limit valid length
+     * @param owner this or a view of this
+     */
+    private synchronized void put(Key key, long tree, ByteBuffer block, BlockCache owner) {
+        if (key.version != version(key.path) || tree != trees.get()) {
+            return; // invalidated while loading
+        }
+        if (index.containsKey(key)) {
+            return; // loaded by another thread
+        }
+        int slot = allocate(owner);
+        if (slot < 0) {
+            return; // all slots are pinned
+        }
+        index.put(key, slot);
+        keys[slot] = key;
+        owners[slot] = owner;
+        owner.blocksHeld.increment();
+        paths.computeIfAbsent(key.path, k -> new HashSet<>()).add(slot);
+        ByteBuffer b = blocks[slot];
+        b.clear();
+        b.put(block.duplicate());
+        lengths[slot] = block.limit();
+        referenced[slot] = true;
+    }
+
+    /**
+     * @param owner this or a view of this, counts an eviction also
+     * @return a slot, -1 when all slots are pinned, guarded by this
+     */
+    private int allocate(BlockCache owner) {
+        if (used < capacity) {
+            blocks[used] = ByteBuffer.allocateDirect(blockSize);
+            return used++;
+        }
+        // the second round evicts unless pinned
+        for (long n = 0; n < capacity * 2L; n++) {
+            int slot = hand;
+            hand = (hand + 1) % capacity;
+            if (pins[slot] > 0) {
+                continue;
+            }
+            if (keys[slot] == null) {
+                return slot;
+            }
+            if (referenced[slot]) {
+                referenced[slot] = false;
+            } else {
+                index.remove(keys[slot]);
+                Set<Integer> slots = paths.get(keys[slot].path);
+                slots.remove(slot);
+                if (slots.isEmpty()) {
+                    paths.remove(keys[slot].path);
+                }
+                keys[slot] = null;
+                release(slot);
+                evictions.increment();
+                if (owner != this) {
+                    owner.evictions.increment();
+                }
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /** guarded by this */
+    private void release(int slot) {
+        if (owners[slot] != null) {
+            owners[slot].blocksHeld.decrement();
+            owners[slot] = null;
+        }
+    }
+
+    /** */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /** */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /** */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /** */
+    public double getHitRatio() {
+        long h = getHitCount();
+        long total = h + getMissCount();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /** bytes of direct memory allocated */
+    public synchronized long getAllocatedBytes() {
+        return (long) used * blockSize;
+    }
+
+    /** puts statistics into the map with keys prefixed by {@code prefix} */
+    public void putStatistics(Map<String, Object> statistics, String prefix) {
+        statistics.put(prefix + ".allocated", getAllocatedBytes());
+        statistics.put(prefix + ".hits", getHitCount());
+        statistics.put(prefix + ".misses", getMissCount());
+        statistics.put(prefix + ".hitRatio", getHitRatio());
+        statistics.put(prefix + ".evictions", getEvictionCount());
+    }
+}
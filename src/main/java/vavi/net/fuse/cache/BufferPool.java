@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.cache;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * BufferPool. a bounded pool of temporary byte buffers.
+ * <p>
+ * the number of buffers doesn't follow the number of threads unlike per thread buffers,
+ * so it works with virtual threads which are created per callback.
+ * a buffer is allocated when the pool is empty, and dropped when the pool is full.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+public class BufferPool {
+
+    /** max free buffers by default */
+    public static final int DEFAULT_MAX = Runtime.getRuntime().availableProcessors() * 2;
+
+    /** bytes of a buffer */
+    private final int size;
+
+    /** */
+    private final boolean direct;
+
+    /** */
+    private final BlockingQueue<ByteBuffer> free;
+
+    private final LongAdder allocations = new LongAdder();
+
+    /**
+     * @param size bytes of a buffer
+     * @param direct allocates direct buffers
+     * @param max max free buffers kept
+     */
+    public BufferPool(int size, boolean direct, int max) {
+        this.size = size;
+        this.direct = direct;
+        this.free = new ArrayBlockingQueue<>(Math.max(1, max));
+    }
+
+    /** keeps {@link #DEFAULT_MAX} free buffers */
+    public BufferPool(int size, boolean direct) {
+        this(size, direct, DEFAULT_MAX);
+    }
+
+    /** @return a buffer of the pool size, position 0 and limit size */
+    public ByteBuffer acquire() {
+        return acquire(size);
+    }
+
+    /**
+     * @param size bytes needed, a buffer larger than the pool size is allocated as needed
+     * @return a buffer, position 0 and limit size. give it back by {@link #release(ByteBuffer)}
+     */
+    public ByteBuffer acquire(int size) {
+        ByteBuffer buffer = free.poll();
+        if (buffer == null || buffer.capacity() < size) {
+            allocations.increment();
+            int capacity = Math.max(size, this.size);
+            buffer = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        }
+        buffer.clear().limit(size);
+        return buffer;
+    }
+
+    /** @param buffer acquired from this pool, must not be used after this */
+    public void release(ByteBuffer buffer) {
+        if (buffer != null) {
+            free.offer(buffer);
+        }
+    }
+
+    /** number of buffers allocated */
+    public long getAllocationCount() {
+        return allocations.sum();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import vavi.net.fuse.Fuse;
+
+
+/**
+ * DirectoryCache. caches directory listing snapshots (file names) for readdir per mount.
+ * <p>
+ * a snapshot is served by offset in pages, see {@link #fill(List, long, Filler)}.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see Fuse#ENV_DIRECTORY_CACHE_TTL
+ * @see Fuse#ENV_DIRECTORY_CACHE_SIZE
+ */
+public class DirectoryCache extends PathCache<List<String>> {
+
+    /** */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    /** adds a directory entry to a readdir buffer */
+    @FunctionalInterface
+    public interface Filler {
+        /**
+         * @param offset the offset of the next entry
+         * @return true when the buffer is full
+         */
+        boolean fill(String name, long offset);
+    }
+
+    /** */
+    public DirectoryCache(long ttl, TimeUnit unit, int maxEntries) {
+        super(ttl, unit, maxEntries);
+    }
+
+    /** creates a cache from mount env */
+    public static DirectoryCache of(Map<String, Object> env) {
+        long ttl = Fuse.getLong(Fuse.ENV_DIRECTORY_CACHE_TTL, env, 0);
+        int maxEntries = (int) Fuse.getLong(Fuse.ENV_DIRECTORY_CACHE_SIZE, env, DEFAULT_MAX_ENTRIES);
+        return new DirectoryCache(ttl, TimeUnit.MILLISECONDS, maxEntries);
+    }
+
+    /**
+     * fills the names from the offset until the filler is full.
+     * the offset of each entry is its index + 1, so a next readdir resumes after it.
+     * @return the number of names filled
+     */
+    public static int fill(List<String> names, long offset, Filler filler) {
+        int count = 0;
+        for (int i = (int) Math.max(offset, 0); i < names.size(); i++) {
+            if (filler.fill(names.get(i), i + 1)) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,669 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.cache;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+import vavi.net.fuse.Fuse;
+import vavi.net.fuse.cache.BlockCache.Loader;
+
+import static java.lang.System.getLogger;
+
+
+/**
+ * DiskBlockCache. a file data cache for read on the local disk, survives restarts.
+ * <p>
+ * blocks are kept in slots of a sparse local file ({@code blocks}), the number of slots is limited
+ * by the byte quota and evicted in LRU order. a block is keyed by (path, version, block index),
+ * the version is the size and the last modified time of the file, so blocks of a changed file are never served.
+ * blocks are indexed by path also, an invalidation costs only the blocks of the path.
+ * <p>
+ * the index is an append-only journal ({@code journal}) replayed at start and compacted when it grows.
+ * blocks restored from the journal are validated by their crc at the first use, a torn write
+ * before a crash is dropped and loaded again.
+ * <p>
+ * a directory is used by one process, a locked directory disables the cache.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see Fuse#ENV_DISK_CACHE
+ * @see Fuse#ENV_DISK_CACHE_SIZE
+ */
+public class DiskBlockCache implements Closeable {
+
+    private static final Logger logger = getLogger(DiskBlockCache.class.getName());
+
+    /** bytes */
+    public static final long DEFAULT_SIZE = 1L << 30;
+
+    /** "VDBC" */
+    private static final int MAGIC = 0x56444243;
+
+    /** journal format */
+    private static final int FORMAT = 1;
+
+    /** journal record types */
+    private static final byte PUT = 1, FREE = 2;
+
+    /** the journal is compacted when its records exceed live blocks by this ratio */
+    private static final int COMPACTION_RATIO = 4;
+
+    /** min records before compaction */
+    private static final int COMPACTION_MIN = 1024;
+
+    /** a version of a file, cached blocks are valid while the size and the last modified time are the same */
+    public static final class Version {
+        final long size;
+        /** milliseconds */
+        final long modified;
+        /** */
+        public Version(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+        /** */
+        public static Version of(BasicFileAttributes attributes) {
+            return new Version(attributes.size(), attributes.lastModifiedTime().toMillis());
+        }
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Version)) return false;
+            Version version = (Version) o;
+            return size == version.size && modified == version.modified;
+        }
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, modified);
+        }
+    }
+
+    /** */
+    private static final class Key {
+        final String path;
+        final Version version;
+        final long index;
+        Key(String path, Version version, long index) {
+            this.path = path;
+            this.version = version;
+            this.index = index;
+        }
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return index == key.index && path.equals(key.path) && version.equals(key.version);
+        }
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, version, index);
+        }
+    }
+
+    /** a block in a slot */
+    private static final class Entry {
+        final Key key;
+        final int slot;
+        /** valid bytes, less than block size means eof */
+        final int length;
+        final int crc;
+        /** false for a block restored from the journal until its crc is checked */
+        boolean verified;
+        Entry(Key key, int slot, int length, int crc, boolean verified) {
+            this.key = key;
+            this.slot = slot;
+            this.length = length;
+            this.crc = crc;
+            this.verified = verified;
+        }
+    }
+
+    /** */
+    private final int blockSize;
+
+    /** number of slots */
+    private final int capacity;
+
+    /** null when disabled */
+    private final Path directory;
+
+    // following are guarded by this
+
+    /** slot file */
+    private FileChannel data;
+    /** index journal */
+    private FileChannel journal;
+    /** the directory lock */
+    private FileLock lock;
+    /** LRU order */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /** blocks of each path, sorted for descendants of a directory */
+    private final NavigableMap<String, Set<Entry>> paths = new TreeMap<>();
+    /** the last version read per path, bounded by the number of slots */
+    private final Map<String, Version> versions = new LinkedHashMap<>();
+    /** */
+    private final Deque<Integer> free = new ArrayDeque<>();
+    /** records in the journal */
+    private int records;
+
+    /** load buffers, not per thread for virtual threads */
+    private final BufferPool loadBuffers;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalids = new LongAdder();
+
+    /**
+     * @param directory null means disabled
+     * @param size max bytes on the disk, less than a block means disabled
+     * @param blockSize bytes of a block, a cache of another block size in the directory is discarded
+     */
+    public DiskBlockCache(Path directory, long size, int blockSize) throws IOException {
+        this.blockSize = blockSize;
+        this.capacity = directory != null ? (int) Math.min(Integer.MAX_VALUE - 8, size / blockSize) : 0;
+        this.directory = capacity > 0 ? directory : null;
+        this.loadBuffers = new BufferPool(blockSize, false);
+        if (this.directory != null) {
+            open();
+        }
+    }
+
+    /** creates a cache from mount env, a disabled one when the directory is not usable */
+    public static DiskBlockCache of(Map<String, Object> env) {
+        Object directory = env.get(Fuse.ENV_DISK_CACHE);
+        long size = Fuse.getLong(Fuse.ENV_DISK_CACHE_SIZE, env, DEFAULT_SIZE);
+        int blockSize = (int) Fuse.getLong(Fuse.ENV_BLOCK_CACHE_BLOCK_SIZE, env, BlockCache.DEFAULT_BLOCK_SIZE);
+        try {
+            return new DiskBlockCache(directory != null ? Paths.get(directory.toString()) : null, size, blockSize);
+        } catch (IOException e) {
+logger.log(Level.WARNING, "disk cache is disabled: " + directory + ": " + e);
+            try {
+                return new DiskBlockCache(null, 0, blockSize);
+            } catch (IOException f) {
+                throw new IllegalStateException(f);
+            }
+        }
+    }
+
+    /** */
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /** */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /** locks the directory, replays and compacts the journal */
+    private synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        FileChannel lockChannel = FileChannel.open(directory.resolve("lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // used by this process
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("locked by another cache: " + directory);
+        }
+        try {
+            long t = System.nanoTime();
+            Path journalPath = directory.resolve("journal");
+            if (Files.exists(journalPath) && !replay(journalPath)) {
+logger.log(Level.INFO, "disk cache is discarded: " + directory);
+                entries.clear();
+                Files.deleteIfExists(directory.resolve("blocks"));
+            }
+            boolean[] used = new boolean[capacity];
+            entries.values().forEach(e -> used[e.slot] = true);
+            entries.values().forEach(this::index);
+            for (int i = 0; i < capacity; i++) {
+                if (!used[i]) {
+                    free.add(i);
+                }
+            }
+            data = FileChannel.open(directory.resolve("blocks"), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // the quota may be smaller than the last time
+            data.truncate((long) capacity * blockSize);
+            compact();
+logger.log(Level.DEBUG, "disk cache: " + entries.size() + " blocks restored in " + (System.nanoTime() - t) / 1_000_000 + " ms");
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /** @return false when the journal is of another format or block size */
+    private boolean replay(Path journalPath) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalPath)))) {
+            if (dis.readInt() != MAGIC || dis.readInt() != FORMAT || dis.readInt() != blockSize) {
+                return false;
+            }
+            Entry[] slots = new Entry[capacity];
+            while (true) {
+                int type = dis.read();
+                if (type < 0) {
+                    break;
+                }
+                int slot = dis.readInt();
+                if (type == PUT) {
+                    Key key = new Key(dis.readUTF(), new Version(dis.readLong(), dis.readLong()), dis.readLong());
+                    int length = dis.readInt();
+                    int crc = dis.readInt();
+                    if (slot < capacity) {
+                        remove(slots[slot]);
+                        slots[slot] = new Entry(key, slot, length, crc, false);
+                        Entry old = entries.put(key, slots[slot]);
+                        if (old != null && old.slot != slot) {
+                            slots[old.slot] = null;
+                        }
+                        versions.put(key.path, key.version);
+                    }
+                } else if (type == FREE) {
+                    if (slot < capacity) {
+                        remove(slots[slot]);
+                        slots[slot] = null;
+                    }
+                } else {
+logger.log(Level.WARNING, "disk cache journal is broken at a record type: " + type);
+                    break;
+                }
+            }
+        } catch (EOFException e) {
+logger.log(Level.DEBUG, "disk cache journal is truncated, a crash while writing");
+        }
+        return true;
+    }
+
+    /** guarded by this */
+    private void remove(Entry entry) {
+        if (entry != null && entries.get(entry.key) == entry) {
+            entries.remove(entry.key);
+        }
+    }
+
+    /** rewrites the journal by live blocks, guarded by this */
+    private void compact() throws IOException {
+        Path journalPath = directory.resolve("journal");
+        Path tmp = directory.resolve("journal.tmp");
+        try (DataOutputStream dos = new DataOutputStream(Files.newOutputStream(tmp))) {
+            dos.writeInt(MAGIC);
+            dos.writeInt(FORMAT);
+            dos.writeInt(blockSize);
+            for (Entry entry : entries.values()) {
+                writePut(dos, entry);
+            }
+        }
+        if (journal != null) {
+            journal.close();
+        }
+        Files.move(tmp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal = FileChannel.open(journalPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        records = entries.size();
+    }
+
+    /** */
+    private static void writePut(DataOutputStream dos, Entry entry) throws IOException {
+        dos.writeByte(PUT);
+        dos.writeInt(entry.slot);
+        dos.writeUTF(entry.key.path);
+        dos.writeLong(entry.key.version.size);
+        dos.writeLong(entry.key.version.modified);
+        dos.writeLong(entry.key.index);
+        dos.writeInt(entry.length);
+        dos.writeInt(entry.crc);
+    }
+
+    /** appends a record, guarded by this */
+    private void append(Entry put, int freed) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        if (put != null) {
+            writePut(dos, put);
+        } else {
+            dos.writeByte(FREE);
+            dos.writeInt(freed);
+        }
+        dos.flush();
+        ByteBuffer bb = ByteBuffer.wrap(baos.toByteArray());
+        while (bb.hasRemaining()) {
+            journal.write(bb);
+        }
+        if (++records > Math.max(COMPACTION_MIN, entries.size() * COMPACTION_RATIO)) {
+            compact();
+        }
+    }
+
+    /** guarded by this */
+    private void index(Entry entry) {
+        paths.computeIfAbsent(entry.key.path, k -> new HashSet<>()).add(entry);
+    }
+
+    /** guarded by this */
+    private void unindex(Entry entry) {
+        Set<Entry> blocks = paths.get(entry.key.path);
+        if (blocks != null && blocks.remove(entry) && blocks.isEmpty()) {
+            paths.remove(entry.key.path);
+        }
+    }
+
+    /** drops blocks of the file, costs the number of its blocks, e.g. for a write */
+    public void invalidate(String path) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (this) {
+            versions.remove(path);
+            Set<Entry> blocks = paths.get(path);
+            if (blocks != null) {
+                new ArrayList<>(blocks).forEach(this::free);
+            }
+        }
+    }
+
+    /** drops blocks of the path and its descendants, e.g. for rename of a directory */
+    public void invalidateTree(String path) {
+        if (!isEnabled()) {
+            return;
+        }
+        String prefix = path.endsWith("/") ? path : path + "/";
+        synchronized (this) {
+            versions.keySet().removeIf(p -> p.equals(path) || p.startsWith(prefix));
+            List<Entry> removing = new ArrayList<>();
+            Set<Entry> blocks = paths.get(path);
+            if (blocks != null) {
+                removing.addAll(blocks);
+            }
+            paths.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values().forEach(removing::addAll);
+            removing.forEach(this::free);
+        }
+    }
+
+    /** frees the slot of the entry, guarded by this */
+    private void free(Entry entry) {
+        if (entries.remove(entry.key) == null) {
+            return;
+        }
+        unindex(entry);
+        free.add(entry.slot);
+        try {
+            append(null, entry.slot);
+        } catch (IOException e) {
+logger.log(Level.WARNING, "disk cache journal: " + e);
+        }
+    }
+
+    /** drops blocks of other versions at the first use of the version, guarded by this */
+    private void validate(String path, Version version) {
+        Version current = versions.put(path, version);
+        if (versions.size() > capacity) {
+            // blocks of a forgotten path are left to eviction
+            Iterator<String> i = versions.keySet().iterator();
+            i.next();
+            i.remove();
+        }
+        if (current != null && !current.equals(version)) {
+            Set<Entry> blocks = paths.get(path);
+            if (blocks != null) {
+                List<Entry> removing = new ArrayList<>();
+                for (Entry entry : blocks) {
+                    if (!entry.key.version.equals(version)) {
+                        removing.add(entry);
+                    }
+                }
+                removing.forEach(this::free);
+            }
+        }
+    }
+
+    /**
+     * reads through the cache.
+     *
+     * @param version of the file at open
+     * @param dst read until full or eof
+     * @param offset file position
+     * @param loader used when blocks are not cached
+     * @return bytes read, 0 at eof
+     */
+    public int read(String path, Version version, ByteBuffer dst, long offset, Loader loader) throws IOException {
+        synchronized (this) {
+            validate(path, version);
+        }
+        int total = 0;
+        ByteBuffer block = loadBuffers.acquire();
+        try {
+            while (dst.hasRemaining()) {
+                long position = offset + total;
+                Key key = new Key(path, version, position / blockSize);
+                int inBlock = (int) (position % blockSize);
+                if (!get(key, block)) {
+                    misses.increment();
+                    block.clear();
+                    loader.load(block, key.index * blockSize);
+                    block.flip();
+                    put(key, block);
+                } else {
+                    hits.increment();
+                }
+                int n = copy(block, inBlock, dst);
+                if (n == 0) {
+                    break; // eof
+                }
+                total += n;
+            }
+        } finally {
+            loadBuffers.release(block);
+        }
+        return total;
+    }
+
+    /** @param block position 0, limit valid length */
+    private static int copy(ByteBuffer block, int inBlock, ByteBuffer dst) {
+        if (inBlock >= block.limit()) {
+            return 0;
+        }
+        int n = Math.min(block.limit() - inBlock, dst.remaining());
+        ByteBuffer src = block.duplicate();
+        src.position(inBlock).limit(inBlock + n);
+        dst.put(src);
+        return n;
+    }
+
+    /**
+     * @param block a load buffer, filled with the block, position 0 and limit valid length
+     * @return false when not cached or not valid
+     */
+    private boolean get(Key key, ByteBuffer block) {
+        Entry entry;
+        FileChannel data;
+        synchronized (this) {
+            entry = entries.get(key);
+            data = this.data;
+        }
+        if (entry == null || data == null) {
+            return false;
+        }
+        block.clear().limit(entry.length);
+        try {
+            while (block.hasRemaining()) {
+                if (data.read(block, (long) entry.slot * blockSize + block.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+logger.log(Level.WARNING, "disk cache read: " + e);
+            return false;
+        }
+        block.flip();
+        synchronized (this) {
+            if (entries.get(key) != entry) {
+                return false; // evicted while reading, the slot may be reused
+            }
+            if (!entry.verified) {
+                if (block.limit() != entry.length || crc(block) != entry.crc) {
+                    invalids.increment();
+logger.log(Level.DEBUG, "disk cache block is invalid: " + key.path + ", " + key.index);
+                    free(entry);
+                    return false;
+                }
+                entry.verified = true;
+            }
+        }
+        return true;
+    }
+
+    /** */
+    private static int crc(ByteBuffer block) {
+        CRC32 crc = new CRC32();
+        crc.update(block.duplicate());
+        return (int) crc.getValue();
+    }
+
+    /** stores a loaded block, i/o errors only disable caching of the block */
+    private void put(Key key, ByteBuffer block) {
+        int slot;
+        FileChannel data;
+        synchronized (this) {
+            if (this.data == null || !key.version.equals(versions.get(key.path)) || entries.containsKey(key)) {
+                return; // invalidated while loading or loaded by another thread
+            }
+            slot = allocate();
+            data = this.data;
+        }
+        try {
+            ByteBuffer src = block.duplicate();
+            while (src.hasRemaining()) {
+                data.write(src, (long) slot * blockSize + src.position());
+            }
+        } catch (IOException e) {
+logger.log(Level.WARNING, "disk cache write: " + e);
+            synchronized (this) {
+                free.add(slot);
+            }
+            return;
+        }
+        Entry entry = new Entry(key, slot, block.limit(), crc(block), true);
+        synchronized (this) {
+            if (!key.version.equals(versions.get(key.path)) || entries.containsKey(key)) {
+                free.add(slot);
+                return;
+            }
+            entries.put(key, entry);
+            index(entry);
+            try {
+                append(entry, -1);
+            } catch (IOException e) {
+logger.log(Level.WARNING, "disk cache journal: " + e);
+            }
+        }
+    }
+
+    /** @return a slot reserved for writing, guarded by this */
+    private int allocate() {
+        Integer slot = free.poll();
+        if (slot != null) {
+            return slot;
+        }
+        Iterator<Entry> i = entries.values().iterator();
+        Entry eldest = i.next();
+        i.remove();
+        unindex(eldest);
+        evictions.increment();
+        // a put record of the new block overrides the slot in the journal
+        return eldest.slot;
+    }
+
+    /** */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /** */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /** */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /** blocks failed validation */
+    public long getInvalidCount() {
+        return invalids.sum();
+    }
+
+    /** bytes of cached blocks */
+    public synchronized long getUsedBytes() {
+        return entries.values().stream().mapToLong(e -> e.length).sum();
+    }
+
+    /** puts statistics into the map with keys prefixed by {@code prefix} */
+    public void putStatistics(Map<String, Object> statistics, String prefix) {
+        statistics.put(prefix + ".used", getUsedBytes());
+        statistics.put(prefix + ".hits", getHitCount());
+        statistics.put(prefix + ".misses", getMissCount());
+        statistics.put(prefix + ".evictions", getEvictionCount());
+        statistics.put(prefix + ".invalids", getInvalidCount());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+            if (data != null) {
+                data.close();
+            }
+        } finally {
+            if (lock != null) {
+                lock.release();
+                lock.channel().close();
+            }
+            journal = null;
+            data = null;
+            lock = null;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.cache;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import vavi.net.fuse.Fuse;
+
+
+/**
+ * NegativeCache. remembers paths which do not exist (ENOENT) per mount.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see Fuse#ENV_NEGATIVE_CACHE_TTL
+ * @see Fuse#ENV_NEGATIVE_CACHE_SIZE
+ */
+public class NegativeCache extends PathCache<Boolean> {
+
+    /** */
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    /** */
+    public NegativeCache(long ttl, TimeUnit unit, int maxEntries) {
+        super(ttl, unit, maxEntries);
+    }
+
+    /** creates a cache from mount env */
+    public static NegativeCache of(Map<String, Object> env) {
+        long ttl = Fuse.getLong(Fuse.ENV_NEGATIVE_CACHE_TTL, env, 0);
+        int maxEntries = (int) Fuse.getLong(Fuse.ENV_NEGATIVE_CACHE_SIZE, env, DEFAULT_MAX_ENTRIES);
+        return new NegativeCache(ttl, TimeUnit.MILLISECONDS, maxEntries);
+    }
+
+    /** @return true when the path is known as not existing */
+    public boolean contains(String path) {
+        return get(path) != null;
+    }
+
+    /** marks the path as not existing */
+    public void add(String path) {
+        put(path, Boolean.TRUE);
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+
+/**
+ * PathCache. a bounded, ttl limited lru cache keyed by a fuse path.
+ * <p>
+ * ttl {@code 0} or max entries {@code 0} means disabled, then {@link #get(String)}
+ * always returns null and {@link #put(String, Object)} does nothing.
+ *
+ * @param <V> cached value type
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+public class PathCache<V> {
+
+    /** */
+    private static class Item<V> {
+        final V value;
+        final long expires;
+        /** guarded by entries */
+        boolean marked;
+        Item(V value, long expires, boolean marked) {
+            this.value = value;
+            this.expires = expires;
+            this.marked = marked;
+        }
+    }
+
+    /** nano seconds */
+    private final long ttl;
+
+    /** */
+    private final int maxEntries;
+
+    /** access ordered, guarded by itself */
+    private final LinkedHashMap<String, Item<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder markedHits = new LongAdder();
+
+    /**
+     * @param ttl time to live, 0 means disabled
+     * @param maxEntries max number of entries, 0 means disabled
+     */
+    public PathCache(long ttl, TimeUnit unit, int maxEntries) {
+        this.ttl = unit.toNanos(ttl);
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Item<V>> eldest) {
+                if (size() > PathCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                } else {
+                    return false;
+                }
+            }
+        };
+    }
+
+    /** */
+    public boolean isEnabled() {
+        return ttl > 0 && maxEntries > 0;
+    }
+
+    /** @return null when not cached or expired */
+    public V get(String path) {
+        if (!isEnabled()) {
+            return null;
+        }
+        synchronized (entries) {
+            Item<V> entry = entries.get(path);
+            if (entry != null) {
+                if (entry.expires - System.nanoTime() > 0) {
+                    hits.increment();
+                    if (entry.marked) {
+                        entry.marked = false;
+                        markedHits.increment();
+                    }
+                    return entry.value;
+                }
+                entries.remove(path);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /** @return a value even if it is expired, statistics are not counted */
+    public V peek(String path) {
+        if (!isEnabled()) {
+            return null;
+        }
+        synchronized (entries) {
+            Item<V> entry = entries.get(path);
+            return entry != null ? entry.value : null;
+        }
+    }
+
+    /** */
+    public void put(String path, V value) {
+        put(path, value, false);
+    }
+
+    /**
+     * @param marked when true, the first hit of this entry is counted as {@link #getMarkedHitCount()}
+     */
+    public void put(String path, V value, boolean marked) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(path, new Item<>(value, System.nanoTime() + ttl, marked));
+        }
+    }
+
+    /**
+     * puts the value when the condition holds, the condition is tested under the lock of puts.
+     * @return false when not put
+     */
+    protected boolean putIf(String path, V value, boolean marked, BooleanSupplier condition) {
+        if (!isEnabled()) {
+            return false;
+        }
+        synchronized (entries) {
+            if (!condition.getAsBoolean()) {
+                return false;
+            }
+            entries.put(path, new Item<>(value, System.nanoTime() + ttl, marked));
+            return true;
+        }
+    }
+
+    /** removes only the path */
+    public void invalidate(String path) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (entries) {
+            entries.remove(path);
+        }
+    }
+
+    /** removes the parent directory of the path */
+    public void invalidateParent(String path) {
+        String parent = parentOf(path);
+        if (parent != null) {
+            invalidate(parent);
+        }
+    }
+
+    /** removes the path and all descendants of it */
+    public void invalidateTree(String path) {
+        if (!isEnabled()) {
+            return;
+        }
+        String prefix = path.endsWith("/") ? path : path + "/";
+        synchronized (entries) {
+            Iterator<String> i = entries.keySet().iterator();
+            while (i.hasNext()) {
+                String key = i.next();
+                if (key.equals(path) || key.startsWith(prefix)) {
+                    i.remove();
+                }
+            }
+        }
+    }
+
+    /** */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /** */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /** */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /** */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /** */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /** count of first hits of entries put as marked */
+    public long getMarkedHitCount() {
+        return markedHits.sum();
+    }
+
+    /** puts statistics into the map with keys prefixed by {@code prefix} */
+    public void putStatistics(Map<String, Object> statistics, String prefix) {
+        statistics.put(prefix + ".size", size());
+        statistics.put(prefix + ".hits", getHitCount());
+        statistics.put(prefix + ".misses", getMissCount());
+        statistics.put(prefix + ".evictions", getEvictionCount());
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+    }
+
+    /** @return null when the path is root */
+    public static String parentOf(String path) {
+        int p = path.lastIndexOf('/');
+        if (p < 0 || path.length() == 1) {
+            return null;
+        } else if (p == 0) {
+            return "/";
+        } else {
+            return path.substring(0, p);
+        }
+    }
+}
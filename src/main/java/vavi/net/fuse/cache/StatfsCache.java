@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import vavi.net.fuse.Fuse;
+
+import static java.lang.System.getLogger;
+
+
+/**
+ * StatfsCache. caches the total and usable space of the file store for statfs per mount.
+ * <p>
+ * only the first statfs waits for the backend, an expired snapshot is returned as is
+ * and refreshed in the background. bytes files grew by writes and deleted through the mount
+ * are applied to the usable space until the next refresh.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see Fuse#ENV_STATFS_TTL
+ */
+public class StatfsCache implements Closeable {
+
+    private static final Logger logger = getLogger(StatfsCache.class.getName());
+
+    /** total and usable bytes */
+    public static final class Space {
+        private final long total;
+        private final long usable;
+        /** bytes */
+        public Space(long total, long usable) {
+            this.total = total;
+            this.usable = usable;
+        }
+        /** bytes */
+        public long getTotal() {
+            return total;
+        }
+        /** bytes */
+        public long getUsable() {
+            return usable;
+        }
+    }
+
+    /** asks the backend */
+    @FunctionalInterface
+    public interface Fetcher {
+        /** @return the current space */
+        Space fetch() throws IOException;
+    }
+
+    /** a space fetched from the backend */
+    private static final class Snapshot {
+        final Space space;
+        /** nano time */
+        final long time;
+        Snapshot(Space space, long time) {
+            this.space = space;
+            this.time = time;
+        }
+    }
+
+    /** */
+    private final Fetcher fetcher;
+
+    /** nanoseconds */
+    private final long ttl;
+
+    /** null when disabled */
+    private final ExecutorService refresher;
+
+    /** null until the first statfs */
+    private volatile Snapshot snapshot;
+
+    /** bytes used since the snapshot */
+    private final LongAdder used = new LongAdder();
+
+    /** true while a refresh is queued or running */
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /** @param ttl 0 means disabled, statfs always asks the backend */
+    public StatfsCache(Fetcher fetcher, long ttl, TimeUnit unit) {
+        this.fetcher = fetcher;
+        this.ttl = unit.toNanos(ttl);
+        if (ttl > 0) {
+            this.refresher = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "statfs-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.refresher = null;
+        }
+    }
+
+    /** creates a cache from mount env */
+    public static StatfsCache of(FileSystem fileSystem, Map<String, Object> env) {
+        long ttl = Fuse.getLong(Fuse.ENV_STATFS_TTL, env, 0);
+        return new StatfsCache(() -> {
+            FileStore fileStore = fileSystem.getFileStores().iterator().next();
+            return new Space(fileStore.getTotalSpace(), fileStore.getUsableSpace());
+        }, ttl, TimeUnit.MILLISECONDS);
+    }
+
+    /** */
+    public boolean isEnabled() {
+        return refresher != null;
+    }
+
+    /** updates the snapshot, bytes used while fetching are counted twice until the next refresh */
+    private void refresh() throws IOException {
+        long used = this.used.sum();
+        Space space = fetcher.fetch();
+        snapshot = new Snapshot(space, System.nanoTime());
+        this.used.add(-used);
+        refreshes.increment();
+logger.log(Level.DEBUG, "statfs refreshed: " + space.total + ", " + space.usable);
+    }
+
+    /** @return the space, waits for the backend only at the first time */
+    public Space get() throws IOException {
+        if (!isEnabled()) {
+            return fetcher.fetch();
+        }
+        Snapshot snapshot = this.snapshot;
+        if (snapshot == null) {
+            synchronized (this) {
+                if (this.snapshot == null) {
+                    refresh();
+                }
+            }
+            snapshot = this.snapshot;
+        } else {
+            hits.increment();
+            if (System.nanoTime() - snapshot.time > ttl && refreshing.compareAndSet(false, true)) {
+                refresher.execute(() -> {
+                    try {
+                        refresh();
+                    } catch (IOException | RuntimeException e) {
+                        failures.increment();
+logger.log(Level.WARNING, "statfs refresh: " + e);
+                    } finally {
+                        refreshing.set(false);
+                    }
+                });
+            }
+        }
+        long usable = Math.max(0, Math.min(snapshot.space.total, snapshot.space.usable - used.sum()));
+        return new Space(snapshot.space.total, usable);
+    }
+
+    /** @param bytes a file grew by writes through the mount, overwrites are not counted */
+    public void written(long bytes) {
+        if (isEnabled() && bytes > 0) {
+            used.add(bytes);
+        }
+    }
+
+    /** @param bytes the size of a file deleted through the mount */
+    public void deleted(long bytes) {
+        if (isEnabled() && bytes > 0) {
+            used.add(-bytes);
+        }
+    }
+
+    /** puts statistics into the map with keys prefixed by {@code prefix} */
+    public void putStatistics(Map<String, Object> statistics, String prefix) {
+        statistics.put(prefix + ".hits", hits.sum());
+        statistics.put(prefix + ".refreshes", refreshes.sum());
+        statistics.put(prefix + ".failures", failures.sum());
+    }
+
+    @Override
+    public void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+}
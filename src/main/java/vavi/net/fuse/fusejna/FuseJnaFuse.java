@@ -12,11 +12,16 @@ import java.lang.System.Logger.Level;
 import java.nio.file.FileSystem;
 import java.nio.file.Paths;
 import java.nio.file.attribute.PosixFilePermission;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import vavi.net.fuse.Fuse;
+import vavi.net.fuse.MountOptions;
+import vavi.net.fuse.io.StripedExecutor;
+import vavi.net.fuse.io.VirtualThreadExecutor;
 
 import co.paralleluniverse.fuse.TypeMode;
 import net.fusejna.FuseException;
@@ -48,15 +53,32 @@ public class FuseJnaFuse implements Fuse {
 
     @Override
     public void mount(FileSystem fs, String mountPoint, Map<String, Object> env) throws IOException {
+        MountOptions options = MountOptions.of(env);
+        String[] arguments = options != null ? MountOptions.toArguments(options.toOptions()) : new String[0];
+logger.log(Level.DEBUG, "mount options: " + String.join(" ", arguments));
         try {
-            if (env.containsKey(ENV_SINGLE_THREAD) && (Boolean) env.get(ENV_SINGLE_THREAD)) {
+            // a shared dispatcher decides the mode
+            Object dispatcher = env.get(ENV_DISPATCHER);
+            if (dispatcher != null ? dispatcher instanceof ExecutorService : env.containsKey(ENV_SINGLE_THREAD) && (Boolean) env.get(ENV_SINGLE_THREAD)) {
                 fuse = new SingleThreadJavaNioFileFS(fs, env);
 logger.log(Level.INFO, "use single thread");
+            } else if (dispatcher != null ? dispatcher instanceof StripedExecutor : Fuse.getLong(ENV_STRIPED_LANES, env, 0) > 0) {
+                int lanes = dispatcher != null ? ((StripedExecutor) dispatcher).getLanes() : (int) Fuse.getLong(ENV_STRIPED_LANES, env, 0);
+                fuse = new StripedJavaNioFileFS(fs, env, lanes);
+logger.log(Level.INFO, "use striped lanes: " + lanes);
+            } else if (dispatcher != null ? dispatcher instanceof VirtualThreadExecutor : isEnabled(ENV_VIRTUAL_THREADS, env)) {
+                int permits = (int) Fuse.getLong(ENV_VIRTUAL_THREADS_PERMITS, env, 256);
+                fuse = new VirtualThreadJavaNioFileFS(fs, env, permits);
+logger.log(Level.INFO, "use virtual threads: " + permits);
             } else {
-                fuse = new JavaNioFileFS(fs, env);
+                fuse = new MeteredJavaNioFileFS(fs, env);
             }
+            ((MeteredJavaNioFileFS) fuse).register(mountPoint);
+            ((JavaNioFileFS) fuse).setArguments(arguments);
             fuse.mount(Paths.get(mountPoint).toFile(), false);
-            Runtime.getRuntime().addShutdownHook(new Thread(() -> { try { close(); } catch (Exception e) { e.printStackTrace(); }}));
+            if (!isEnabled(ENV_NO_SHUTDOWN_HOOK, env)) {
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> { try { close(); } catch (Exception e) { e.printStackTrace(); }}));
+            }
         } catch (FuseException e) {
             throw new IOException(e);
         }
@@ -68,6 +90,9 @@ logger.log(Level.INFO, "use single thread");
             if (fuse != null) {
 logger.log(Level.INFO, "unmount...");
                 fuse.unmount();
+                if (fuse instanceof JavaNioFileFS) {
+                    ((JavaNioFileFS) fuse).dispose();
+                }
                 fuse = null;
 logger.log(Level.INFO, "unmount done");
             }
@@ -77,6 +102,15 @@ logger.log(Level.WARNING, "unmount: " + e);
         }
     }
 
+    @Override
+    public Map<String, Object> getStatistics() {
+        if (fuse instanceof JavaNioFileFS) {
+            return ((JavaNioFileFS) fuse).getStatistics();
+        } else {
+            return Collections.emptyMap();
+        }
+    }
+
     /** */
     static boolean[] permissionsToMode(Set<PosixFilePermission> permissions) {
         boolean[] mode = new boolean[9];
@@ -10,27 +10,52 @@ import java.io.IOException;
 import java.lang.System.Logger;
 import java.lang.System.Logger.Level;
 import java.nio.ByteBuffer;
-import java.nio.channels.Channel;
+import java.nio.channels.FileChannel;
 import java.nio.channels.NonWritableChannelException;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.AccessDeniedException;
-import java.nio.file.FileStore;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystem;
 import java.nio.file.LinkOption;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.OpenOption;
+import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.PosixFileAttributeView;
 import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
-
+import java.util.concurrent.atomic.LongAdder;
+
+import vavi.net.fuse.Fuse;
+import vavi.net.fuse.cache.AttributeCache;
+import vavi.net.fuse.cache.AttributePrefetcher;
+import vavi.net.fuse.cache.BlockCache;
+import vavi.net.fuse.cache.BlockCache.Loader;
+import vavi.net.fuse.cache.DirectoryCache;
+import vavi.net.fuse.cache.DiskBlockCache;
+import vavi.net.fuse.cache.NegativeCache;
+import vavi.net.fuse.cache.StatfsCache;
+import vavi.net.fuse.io.ChannelPool;
+import vavi.net.fuse.io.ChannelUtil;
+import vavi.net.fuse.io.FileHandle;
+import vavi.net.fuse.io.HandleTable;
+import vavi.net.fuse.io.OpenOptions;
+import vavi.net.fuse.io.ReadAhead;
+import vavi.net.fuse.io.ReadAheadPool;
+import vavi.net.fuse.io.SharedChannels;
+import vavi.net.fuse.io.Spool;
+import vavi.net.fuse.io.SpoolPool;
+import vavi.net.fuse.io.WriteBack;
+import vavi.net.fuse.io.WriteBackPool;
+import vavi.net.fuse.jfr.EventFileSystemProvider;
 import vavi.nio.file.Util;
 
 import jnr.constants.platform.Errno;
@@ -57,24 +82,149 @@ class JavaNioFileFS extends FuseFilesystemAdapterAssumeImplemented {
     /** */
     protected transient FileSystem fileSystem;
 
+    /** the provider of the file system, emits jfr events of backend calls when enabled */
+    protected transient FileSystemProvider provider;
+
     /** key for env, no need to specify value */
     static final String ENV_IGNORE_APPLE_DOUBLE = "noappledouble";
 
-    /** */
-    private final AtomicLong fileHandle = new AtomicLong(0);
-
-    /** <file handle, channel> */
-    private final ConcurrentMap<Long, SeekableByteChannel> fileHandles = new ConcurrentHashMap<>();
+    /** open files */
+    private final HandleTable<FileHandle> fileHandles = new HandleTable<>();
 
     protected boolean ignoreAppleDouble;
 
+    /** libfuse arguments, null for none */
+    private String[] arguments;
+
+    /** getattr cache */
+    private final AttributeCache attributeCache;
+
+    /** getattr ENOENT cache */
+    private final NegativeCache negativeCache;
+
+    /** readdir cache */
+    private final DirectoryCache directoryCache;
+
+    /** readdir-plus */
+    private final AttributePrefetcher attributePrefetcher;
+
+    /** read data cache */
+    private final BlockCache blockCache;
+
+    /** read data cache on the local disk, under the block cache */
+    private final DiskBlockCache diskBlockCache;
+
+    /** read-ahead threads */
+    private final ReadAheadPool readAheadPool;
+
+    /** the read-ahead pool is shared by mounts */
+    private final boolean sharedReadAheadPool;
+
+    /** max backend channels per file handle */
+    private final int readChannels;
+
+    /** write-back buffering */
+    private final WriteBackPool writeBackPool;
+
+    /** local spools of writes */
+    private final SpoolPool spoolPool;
+
+    /** read only channels shared by opens of the same path */
+    private final SharedChannels sharedChannels;
+
+    /** read only opens don't open the backend until the first read */
+    private final boolean lazyOpen;
+
+    /** statfs cache */
+    private final StatfsCache statfsCache;
+
+    private final LongAdder lazyOpens = new LongAdder();
+    private final LongAdder untouchedOpens = new LongAdder();
+
     /**
      * @param fileSystem a file system to wrap by fuse
      */
     public JavaNioFileFS(FileSystem fileSystem, Map<String, Object> env) {
         this.fileSystem = fileSystem;
+        this.provider = Fuse.isEnabled(Fuse.ENV_JFR, env) ? new EventFileSystemProvider(fileSystem.provider()) : fileSystem.provider();
         ignoreAppleDouble = FuseJnaFuse.isEnabled(ENV_IGNORE_APPLE_DOUBLE, env);
 logger.log(Level.DEBUG, "ENV_IGNORE_APPLE_DOUBLE: " + ignoreAppleDouble);
+        attributeCache = AttributeCache.of(env);
+logger.log(Level.DEBUG, "attribute cache: " + attributeCache.isEnabled());
+        negativeCache = NegativeCache.of(env);
+logger.log(Level.DEBUG, "negative cache: " + negativeCache.isEnabled());
+        directoryCache = DirectoryCache.of(env);
+logger.log(Level.DEBUG, "directory cache: " + directoryCache.isEnabled());
+        attributePrefetcher = AttributePrefetcher.of(fileSystem, provider, attributeCache, env);
+logger.log(Level.DEBUG, "readdir plus: " + attributePrefetcher.isEnabled());
+        blockCache = BlockCache.of(env);
+logger.log(Level.DEBUG, "block cache: " + blockCache.isEnabled());
+        diskBlockCache = DiskBlockCache.of(env);
+logger.log(Level.DEBUG, "disk cache: " + diskBlockCache.isEnabled());
+        readAheadPool = ReadAheadPool.of(env);
+        sharedReadAheadPool = env.containsKey(Fuse.ENV_READ_AHEAD_POOL);
+logger.log(Level.DEBUG, "read ahead: " + readAheadPool.isEnabled());
+        readChannels = ChannelPool.maxChannels(env);
+logger.log(Level.DEBUG, "read channels: " + readChannels);
+        writeBackPool = WriteBackPool.of(env);
+logger.log(Level.DEBUG, "write back: " + writeBackPool.isEnabled());
+        spoolPool = SpoolPool.of(env);
+logger.log(Level.DEBUG, "spool: " + spoolPool.isEnabled());
+        sharedChannels = SharedChannels.of(env);
+logger.log(Level.DEBUG, "shared channels: " + sharedChannels.isEnabled());
+        lazyOpen = Fuse.isEnabled(Fuse.ENV_LAZY_OPEN, env);
+logger.log(Level.DEBUG, "lazy open: " + lazyOpen);
+        statfsCache = StatfsCache.of(fileSystem, env);
+logger.log(Level.DEBUG, "statfs cache: " + statfsCache.isEnabled());
+    }
+
+    /** @param arguments libfuse arguments given at mount */
+    void setArguments(String[] arguments) {
+        this.arguments = arguments.length > 0 ? arguments : null;
+    }
+
+    @Override
+    protected String[] getOptions() {
+        return arguments;
+    }
+
+    /** releases resources of this mount */
+    void dispose() {
+        writeBackPool.close();
+        spoolPool.close();
+        attributePrefetcher.close();
+        if (!sharedReadAheadPool) {
+            readAheadPool.close();
+        }
+        sharedChannels.close();
+        statfsCache.close();
+        // a view of a shared cache drops blocks of this mount
+        blockCache.close();
+        try {
+            diskBlockCache.close();
+        } catch (IOException e) {
+logger.log(Level.WARNING, "disk cache: " + e);
+        }
+    }
+
+    /** statistics of this mount */
+    Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("handles.open", fileHandles.size());
+        attributeCache.putStatistics(statistics, "attr");
+        negativeCache.putStatistics(statistics, "negative");
+        directoryCache.putStatistics(statistics, "dir");
+        attributePrefetcher.putStatistics(statistics, "readdirplus");
+        blockCache.putStatistics(statistics, "block");
+        diskBlockCache.putStatistics(statistics, "disk");
+        readAheadPool.putStatistics(statistics, "readahead");
+        writeBackPool.putStatistics(statistics, "writeback");
+        spoolPool.putStatistics(statistics, "spool");
+        sharedChannels.putStatistics(statistics, "shared");
+        statfsCache.putStatistics(statistics, "statfs");
+        statistics.put("lazy.opens", lazyOpens.sum());
+        statistics.put("lazy.untouched", untouchedOpens.sum());
+        return statistics;
     }
 
     @Override
@@ -82,7 +232,7 @@ logger.log(Level.DEBUG, "ENV_IGNORE_APPLE_DOUBLE: " + ignoreAppleDouble);
 logger.log(Level.TRACE, "access: " + path);
         try {
             // TODO access
-            fileSystem.provider().checkAccess(fileSystem.getPath(path));
+            provider.checkAccess(fileSystem.getPath(path));
             return 0;
         } catch (NoSuchFileException e) {
             return -ErrorCodes.ENOENT();
@@ -102,9 +252,22 @@ logger.log(Level.DEBUG, "create: " + path);
             Set<OpenOption> options = new HashSet<>();
             options.add(StandardOpenOption.WRITE);
             options.add(StandardOpenOption.CREATE_NEW);
-            SeekableByteChannel channel = fileSystem.provider().newByteChannel(fileSystem.getPath(path), options);
-            long fh = fileHandle.incrementAndGet();
-            fileHandles.put(fh, channel);
+            SeekableByteChannel channel = provider.newByteChannel(fileSystem.getPath(path), options);
+            attributeCache.invalidateEntry(path);
+            negativeCache.invalidate(path);
+            directoryCache.invalidateParent(path);
+            blockCache.invalidate(path);
+            diskBlockCache.invalidate(path);
+            sharedChannels.invalidate(path);
+            if (spoolPool.isEnabled()) {
+                // created empty, the content is uploaded from the spool
+                channel.close();
+                long fh = fileHandles.add(newSpool(path, null));
+                info.fh(fh);
+                return 0;
+            }
+            WriteBack writeBack = writeBackPool.isEnabled() ? newWriteBack(path, channel) : null;
+            long fh = fileHandles.add(new FileHandle(path, channel, new ChannelPool(channel, null, 1, isRecorded()), null, writeBack));
             info.fh(fh);
 
             return 0;
@@ -117,29 +280,35 @@ logger.log(Level.ERROR, e.getMessage(), e);
     @Override
     public int getattr(final String path, final StatWrapper stat) {
 logger.log(Level.TRACE, "getattr: " + path);
+        return getattr0(path, stat);
+    }
+
+    /** getattr which is not overridden, for other callbacks not to be metered twice */
+    private int getattr0(final String path, final StatWrapper stat) {
+        if (ignoreAppleDouble && Util.isAppleDouble(path)) {
+logger.log(Level.TRACE, "getattr: ignore apple double: " + path);
+            return -ErrorCodes.ENOENT();
+        }
+        if (negativeCache.contains(path)) {
+            return -ErrorCodes.ENOENT();
+        }
         try {
-            BasicFileAttributes attributes =
-                    fileSystem.provider().readAttributes(fileSystem.getPath(path), BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
-
-            if (attributes instanceof PosixFileAttributes) {
-                boolean[] m = FuseJnaFuse.permissionsToMode(((PosixFileAttributes) attributes).permissions());
-                if (attributes.isDirectory()) {
-                    stat.setMode(NodeType.DIRECTORY, m[0], m[1], m[2], m[3], m[4], m[5], m[6], m[7], m[8])
-                        .setAllTimesSec(attributes.lastModifiedTime().to(TimeUnit.SECONDS));
-                } else {
-                    stat.setMode(NodeType.FILE, m[0], m[1], m[2], m[3], m[4], m[5], m[6], m[7], m[8])
-                        .setAllTimesSec(attributes.lastModifiedTime().to(TimeUnit.SECONDS))
-                        .size(attributes.size());
-                }
-            } else {
-                if (attributes.isDirectory()) {
-                    stat.setMode(NodeType.DIRECTORY, true, true, true, true, false, true, true, false, true)
-                        .setAllTimesSec(attributes.lastModifiedTime().to(TimeUnit.SECONDS));
-                } else {
-                    stat.setMode(NodeType.FILE, true, true, false, true, false, false, true, false, false)
-                        .setAllTimesSec(attributes.lastModifiedTime().to(TimeUnit.SECONDS))
-                        .size(attributes.size());
-                }
+            BasicFileAttributes attributes = attributeCache.get(path);
+            if (attributes == null) {
+                attributes = attributePrefetcher.await(path);
+            }
+            if (attributes == null) {
+                attributes = readAttributes(path);
+            }
+
+            fillStat(attributes, stat);
+            long dirtyEnd = writeBackPool.getDirtyEnd(path);
+            if (dirtyEnd > attributes.size()) {
+                stat.size(dirtyEnd);
+            }
+            long spooled = spoolPool.getSize(path);
+            if (spooled >= 0) {
+                stat.size(spooled);
             }
             return 0;
         } catch (NoSuchFileException e) {
@@ -148,12 +317,9 @@ logger.log(Level.DEBUG, e.getMessage());
                 return 0;
             } else {
                 if (ignoreAppleDouble) {
-                    if (Util.isAppleDouble(path)) {
-logger.log(Level.TRACE, e.getMessage());
-                    } else {
 logger.log(Level.DEBUG, e);
-                    }
                 }
+                negativeCache.add(path);
                 return -ErrorCodes.ENOENT();
             }
         } catch (IOException e) {
@@ -162,18 +328,45 @@ logger.log(Level.ERROR, e.getMessage(), e);
         }
     }
 
+    /** */
+    private static void fillStat(BasicFileAttributes attributes, StatWrapper stat) {
+        if (attributes instanceof PosixFileAttributes) {
+            boolean[] m = FuseJnaFuse.permissionsToMode(((PosixFileAttributes) attributes).permissions());
+            if (attributes.isDirectory()) {
+                stat.setMode(NodeType.DIRECTORY, m[0], m[1], m[2], m[3], m[4], m[5], m[6], m[7], m[8])
+                    .setAllTimesSec(attributes.lastModifiedTime().to(TimeUnit.SECONDS));
+            } else {
+                stat.setMode(NodeType.FILE, m[0], m[1], m[2], m[3], m[4], m[5], m[6], m[7], m[8])
+                    .setAllTimesSec(attributes.lastModifiedTime().to(TimeUnit.SECONDS))
+                    .size(attributes.size());
+            }
+        } else {
+            if (attributes.isDirectory()) {
+                stat.setMode(NodeType.DIRECTORY, true, true, true, true, false, true, true, false, true)
+                    .setAllTimesSec(attributes.lastModifiedTime().to(TimeUnit.SECONDS));
+            } else {
+                stat.setMode(NodeType.FILE, true, true, false, true, false, false, true, false, false)
+                    .setAllTimesSec(attributes.lastModifiedTime().to(TimeUnit.SECONDS))
+                    .size(attributes.size());
+            }
+        }
+    }
+
     @Override
     public int fgetattr(final String path, final StatWrapper stat, final FileInfoWrapper info)
     {
 logger.log(Level.DEBUG, "fgetattr: " + path);
-        return getattr(path, stat);
+        return getattr0(path, stat);
     }
 
     @Override
     public int mkdir(final String path, final ModeWrapper mode) {
 logger.log(Level.DEBUG, "mkdir: " + path);
         try {
-            fileSystem.provider().createDirectory(fileSystem.getPath(path));
+            provider.createDirectory(fileSystem.getPath(path));
+            attributeCache.invalidateEntry(path);
+            negativeCache.invalidate(path);
+            directoryCache.invalidateParent(path);
             return 0;
         } catch (IOException e) {
 logger.log(Level.ERROR, e.getMessage(), e);
@@ -185,11 +378,37 @@ logger.log(Level.ERROR, e.getMessage(), e);
     public int open(final String path, final FileInfoWrapper info) {
 logger.log(Level.DEBUG, "open: " + path);
         try {
-            Set<OpenOption> options = new HashSet<>();
-            options.add(StandardOpenOption.READ);
-            SeekableByteChannel channel = fileSystem.provider().newByteChannel(fileSystem.getPath(path), options);
-            long fh = fileHandle.incrementAndGet();
-            fileHandles.put(fh, channel);
+            int flags = info.flags();
+            boolean writable = OpenOptions.isWritable(flags);
+            Set<OpenOption> options = OpenOptions.of(flags);
+            if (writable) {
+                writeBackPool.flush(path);
+                spoolPool.await(path);
+            }
+            FileHandle handle;
+            if (writable && spoolPool.isEnabled()) {
+                handle = openSpool(path, options);
+            } else if (writable) {
+                SeekableByteChannel channel = provider.newByteChannel(fileSystem.getPath(path), options);
+                // other handles may not see writes through this handle's channel
+                ChannelPool channels = new ChannelPool(channel, null, 1, isRecorded());
+                attributeCache.invalidate(path);
+                blockCache.invalidate(path);
+                diskBlockCache.invalidate(path);
+                sharedChannels.invalidate(path);
+                WriteBack writeBack = writeBackPool.isEnabled() && !options.contains(StandardOpenOption.APPEND) ? newWriteBack(path, channel) : null;
+                handle = new FileHandle(path, channel, channels, null, writeBack);
+            } else if (lazyOpen) {
+                // fails here when the file doesn't exist
+                if (attributeCache.get(path) == null) {
+                    readAttributes(path);
+                }
+                handle = FileHandle.lazy(path, () -> openForRead(path, options));
+                lazyOpens.increment();
+            } else {
+                handle = openForRead(path, options);
+            }
+            long fh = fileHandles.add(handle);
             info.fh(fh);
 
             return 0;
@@ -202,17 +421,110 @@ logger.log(Level.ERROR, e.getMessage(), e);
     /** why not defined? */
     private static final int O_NONBLOCK = 04000;
 
+    /** backend i/o is recorded as jfr events */
+    private boolean isRecorded() {
+        return provider instanceof EventFileSystemProvider;
+    }
+
+    /** @return a read only handle */
+    private FileHandle openForRead(String path, Set<OpenOption> options) throws IOException {
+        FileChannel pending = spoolPool.openPending(path);
+        if (pending != null) {
+            // the local copy until its upload is committed
+            ChannelPool channels = new ChannelPool(pending, null, 1);
+            return new FileHandle(path, pending, channels, null, null, pending, channels::read);
+        }
+        SharedChannels.Lease lease = sharedChannels.acquire(path, () -> provider.newByteChannel(fileSystem.getPath(path), options), readChannels);
+        Loader loader = loader(path, lease.getChannels(), blockCache.isEnabled() || diskBlockCache.isEnabled() ? version(path) : null);
+        ReadAhead readAhead = readAheadPool.isEnabled() ? readAheadPool.newReadAhead(loader) : null;
+        return new FileHandle(path, lease.getChannel(), lease.getChannels(), readAhead, null, lease, loader);
+    }
+
+    /** @return the version of the file at open for the block cache and the disk cache, as fresh as the attribute cache */
+    private DiskBlockCache.Version version(String path) throws IOException {
+        BasicFileAttributes attributes = attributeCache.get(path);
+        if (attributes == null) {
+            attributes = readAttributes(path);
+        }
+        return DiskBlockCache.Version.of(attributes);
+    }
+
+    /** reads attributes from the backend and caches them unless the path is changed while reading */
+    private BasicFileAttributes readAttributes(String path) throws IOException {
+        long generation = attributeCache.generation(path);
+        BasicFileAttributes attributes = provider.readAttributes(fileSystem.getPath(path), BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        attributeCache.put(path, attributes, generation);
+        return attributes;
+    }
+
+    /** @return a write-back of the channel which invalidates caches of the path when flushed */
+    private WriteBack newWriteBack(String path, SeekableByteChannel channel) {
+        return writeBackPool.newWriteBack(path, channel, () -> {
+            attributeCache.invalidate(path);
+            blockCache.invalidate(path);
+            diskBlockCache.invalidate(path);
+            sharedChannels.invalidate(path);
+        });
+    }
+
+    /** @return a handle writing into a local spool, uploaded at fsync and release */
+    private FileHandle openSpool(String path, Set<OpenOption> options) throws IOException {
+        // fails here when the file doesn't exist, not cached since an empty spool replaces the content
+        BasicFileAttributes attributes = provider.readAttributes(fileSystem.getPath(path), BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        boolean empty = options.contains(StandardOpenOption.TRUNCATE_EXISTING) || attributes.size() == 0;
+        return newSpool(path, empty ? null : p -> provider.newByteChannel(fileSystem.getPath(p), Set.of(StandardOpenOption.READ)));
+    }
+
+    /** @param source the existing content, null for an empty file */
+    private FileHandle newSpool(String path, Spool.Opener source) throws IOException {
+        Spool spool = spoolPool.newSpool(path, source,
+                // the current path, a spool follows rename
+                p -> provider.newByteChannel(fileSystem.getPath(p), Set.of(StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)),
+                p -> {
+                    attributeCache.invalidate(p);
+                    blockCache.invalidate(p);
+                    diskBlockCache.invalidate(p);
+                    sharedChannels.invalidate(p);
+                });
+        // reads of the handle see its own writes, not through caches
+        return new FileHandle(path, spool, new ChannelPool(spool, null, 1), null, null, () -> spoolPool.release(spool), spool::read);
+    }
+
+    /**
+     * @param version of the file at open, null reads the channels without caches
+     * @return a positional reader of the channels through the block cache and the disk cache if enabled
+     */
+    private Loader loader(String path, ChannelPool channels, DiskBlockCache.Version version) {
+        Loader channelLoader = channels::read;
+        if (version == null) {
+            // blocks of other versions may be cached
+            return channelLoader;
+        }
+        Loader diskLoader = diskBlockCache.isEnabled() ? (dst, position) -> diskBlockCache.read(path, version, dst, position, channelLoader) : channelLoader;
+        if (blockCache.isEnabled()) {
+            return (dst, position) -> blockCache.read(path, version, dst, position, diskLoader);
+        } else {
+            return diskLoader;
+        }
+    }
+
     @Override
     public int read(final String path, final ByteBuffer buffer, final long size, final long offset, final FileInfoWrapper info) {
 logger.log(Level.DEBUG, "read: " + path + ", " + offset + ", " + size + ", " + info.fh());
         try {
-            if (fileHandles.containsKey(info.fh())) {
-                SeekableByteChannel channel = fileHandles.get(info.fh());
-                if (info.nonseekable()) {
-                    assert offset == channel.position();
-                } else {
-                    channel.position(offset);
+            FileHandle handle = fileHandles.get(info.fh());
+            if (handle != null) {
+                SeekableByteChannel channel = handle.getChannel();
+                writeBackPool.flush(path);
+                ChannelPool channels = handle.getChannels();
+                if (!info.nonseekable()) {
+                    ReadAhead readAhead = handle.getReadAhead();
+                    Loader loader = handle.getLoader() != null ? handle.getLoader() : loader(path, channels, null);
+                    int n = readAhead != null ? readAhead.read(buffer, offset) : loader.load(buffer, offset);
+logger.log(Level.DEBUG, "read: " + n);
+                    return n;
                 }
+                assert offset == channel.position();
                 int n = channel.read(buffer);
                 if (n > 0) {
                     if ((info.flags() & O_NONBLOCK) != 0) {
@@ -244,14 +556,9 @@ logger.log(Level.ERROR, e.getMessage(), e);
     public int readdir(final String path, final DirectoryFiller filler) {
 logger.log(Level.DEBUG, "readdir: " + path);
         try {
-            fileSystem.provider().newDirectoryStream(fileSystem.getPath(path), p -> true)
-                .forEach(p -> {
-                    try {
-                        filler.add(Util.toFilenameString(p));
-                    } catch (IOException e) {
-                        throw new IllegalStateException(e);
-                    }
-                });
+            for (String name : list(path)) {
+                filler.add(name);
+            }
             return 0;
         } catch (IOException e) {
 logger.log(Level.ERROR, e.getMessage(), e);
@@ -259,11 +566,47 @@ logger.log(Level.ERROR, e.getMessage(), e);
         }
     }
 
+    /** @return a listing snapshot of the directory, from the cache if possible */
+    private List<String> list(String path) throws IOException {
+        List<String> names = directoryCache.get(path);
+        if (names == null) {
+            names = new ArrayList<>();
+            try (DirectoryStream<Path> stream = provider.newDirectoryStream(fileSystem.getPath(path), p -> true)) {
+                for (Path p : stream) {
+logger.log(Level.TRACE, "p: " + p);
+                    names.add(Util.toFilenameString(p));
+                }
+            }
+            directoryCache.put(path, names);
+            attributePrefetcher.prefetch(path, names);
+        }
+        return names;
+    }
+
     @Override
     public int rename(final String path, final String newName) {
 logger.log(Level.DEBUG, "rename: " + path);
         try {
-            fileSystem.provider().move(fileSystem.getPath(path), fileSystem.getPath(newName));
+            spoolPool.await(path);
+            spoolPool.await(newName);
+            provider.move(fileSystem.getPath(path), fileSystem.getPath(newName));
+            // open spools upload to the new path
+            spoolPool.rename(path, newName);
+            attributeCache.invalidateTree(path);
+            attributeCache.invalidateParent(path);
+            attributeCache.invalidateTree(newName);
+            attributeCache.invalidateParent(newName);
+            negativeCache.invalidateTree(newName);
+            directoryCache.invalidateTree(path);
+            directoryCache.invalidateParent(path);
+            directoryCache.invalidateTree(newName);
+            directoryCache.invalidateParent(newName);
+            blockCache.invalidateTree(path);
+            diskBlockCache.invalidateTree(path);
+            sharedChannels.invalidateTree(path);
+            blockCache.invalidateTree(newName);
+            diskBlockCache.invalidateTree(newName);
+            sharedChannels.invalidateTree(newName);
             return 0;
         } catch (IOException e) {
 logger.log(Level.ERROR, e.getMessage(), e);
@@ -275,7 +618,15 @@ logger.log(Level.ERROR, e.getMessage(), e);
     public int rmdir(final String path) {
 logger.log(Level.DEBUG, "rmdir: " + path);
         try {
-            fileSystem.provider().delete(fileSystem.getPath(path));
+            spoolPool.await(path);
+            provider.delete(fileSystem.getPath(path));
+            spoolPool.deleted(path);
+            attributeCache.invalidateEntry(path);
+            directoryCache.invalidate(path);
+            directoryCache.invalidateParent(path);
+            blockCache.invalidateTree(path);
+            diskBlockCache.invalidateTree(path);
+            sharedChannels.invalidateTree(path);
             return 0;
         } catch (IOException e) {
 logger.log(Level.ERROR, e.getMessage(), e);
@@ -285,16 +636,73 @@ logger.log(Level.ERROR, e.getMessage(), e);
 
     @Override
     public int truncate(final String path, final long offset) {
-logger.log(Level.DEBUG, "truncate: " + path);
-        // TODO
-        return -ErrorCodes.ENOSYS();
+logger.log(Level.DEBUG, "truncate: " + path + ", " + offset);
+        return truncate0(path, offset);
+    }
+
+    /** truncate which is not overridden, for other callbacks not to be metered twice */
+    private int truncate0(final String path, final long offset) {
+        try {
+            writeBackPool.flush(path);
+            spoolPool.await(path);
+            try (SeekableByteChannel channel = provider.newByteChannel(fileSystem.getPath(path), Set.of(StandardOpenOption.WRITE))) {
+                ChannelUtil.truncate(channel, offset);
+            }
+            attributeCache.invalidate(path);
+            blockCache.invalidate(path);
+            diskBlockCache.invalidate(path);
+            sharedChannels.invalidate(path);
+            return 0;
+        } catch (NoSuchFileException e) {
+            return -ErrorCodes.ENOENT();
+        } catch (IOException e) {
+logger.log(Level.ERROR, e.getMessage(), e);
+            return -ErrorCodes.EIO();
+        }
+    }
+
+    @Override
+    public int ftruncate(final String path, final long offset, final FileInfoWrapper info) {
+logger.log(Level.DEBUG, "ftruncate: " + path + ", " + offset + ", fh: " + info.fh());
+        FileHandle handle = fileHandles.get(info.fh());
+        if (handle == null) {
+            return truncate0(path, offset);
+        }
+        try {
+            writeBackPool.flush(path);
+            ChannelUtil.truncate(handle.getChannel(), offset);
+            handle.truncated(offset);
+            attributeCache.invalidate(path);
+            blockCache.invalidate(path);
+            diskBlockCache.invalidate(path);
+            sharedChannels.invalidate(path);
+            return 0;
+        } catch (NonWritableChannelException e) {
+logger.log(Level.DEBUG, "ftruncate: not writable fh: " + info.fh());
+            return truncate0(path, offset);
+        } catch (IOException e) {
+logger.log(Level.ERROR, e.getMessage(), e);
+            return -ErrorCodes.EIO();
+        }
     }
 
     @Override
     public int unlink(final String path) {
 logger.log(Level.DEBUG, "unlink: " + path);
         try {
-            fileSystem.provider().delete(fileSystem.getPath(path));
+            spoolPool.await(path);
+            BasicFileAttributes attributes = attributeCache.peek(path);
+            provider.delete(fileSystem.getPath(path));
+            spoolPool.deleted(path);
+            if (attributes != null) {
+                statfsCache.deleted(attributes.size());
+            }
+            attributeCache.invalidateEntry(path);
+            directoryCache.invalidate(path);
+            directoryCache.invalidateParent(path);
+            blockCache.invalidate(path);
+            diskBlockCache.invalidate(path);
+            sharedChannels.invalidate(path);
             return 0;
         } catch (IOException e) {
 logger.log(Level.ERROR, e.getMessage(), e);
@@ -310,40 +718,76 @@ logger.log(Level.ERROR, e.getMessage(), e);
                      final FileInfoWrapper info) {
 logger.log(Level.DEBUG, "write: " + path + ", " + offset + ", " + size + ", " + info.fh());
         try {
-            if (fileHandles.containsKey(info.fh())) {
-                SeekableByteChannel channel = fileHandles.get(info.fh());
-                if (!info.append() && !info.nonseekable()) {
-                    try { // TODO ad-hoc
-                        channel.position(offset);
-                    } catch (IOException e) {
-                        if (e.getMessage().contains("@vavi")) {
-                            long o = Long.parseLong(e.getMessage().substring(9, e.getMessage().length() - 1));
-                            if (offset > o) {
-                                logger.log(Level.ERROR, "write: skip bad position: " + offset);
-                                throw new IOException("cannot skip last bytes send", e);
+            FileHandle handle = fileHandles.get(info.fh());
+            if (handle != null) {
+                if (statfsCache.isEnabled()) {
+                    handle.getSize(); // before the first write, statfs counts growth of the file
+                }
+                WriteBack writeBack = handle.getWriteBack();
+                if (writeBack != null && !info.append() && !info.nonseekable()) {
+                    int n = writeBack.write(buf, offset);
+                    attributeCache.invalidate(path);
+                    blockCache.invalidate(path);
+                    diskBlockCache.invalidate(path);
+                    sharedChannels.invalidate(path);
+                    statfsCache.written(handle.written(offset + n));
+                    return n;
+                }
+                SeekableByteChannel channel = handle.getChannel();
+                if (channel instanceof Spool) {
+                    Spool spool = (Spool) channel;
+                    long position = info.append() ? spool.size() : offset;
+                    int n = spool.write(buf, position);
+                    statfsCache.written(handle.written(position + n));
+                    return n;
+                }
+                int n;
+                long end;
+                // the position is guarded by the channel as reads of the handle do
+                synchronized (channel) {
+                    if (!info.append() && !info.nonseekable()) {
+                        try { // TODO ad-hoc
+                            channel.position(offset);
+                        } catch (IOException e) {
+                            if (e.getMessage().contains("@vavi")) {
+                                long o = Long.parseLong(e.getMessage().substring(9, e.getMessage().length() - 1));
+                                if (offset > o) {
+                                    logger.log(Level.ERROR, "write: skip bad position: " + offset);
+                                    throw new IOException("cannot skip last bytes send", e);
+                                } else {
+                                    logger.log(Level.WARNING, "write: correct bad position: " + offset + " -> " + o);
+                                    return Math.min((int) (o - offset), (int) size);
+                                }
                             } else {
-                                logger.log(Level.WARNING, "write: correct bad position: " + offset + " -> " + o);
-                                return Math.min((int) (o - offset), (int) size);
+                                throw e;
                             }
-                        } else {
-                            throw e;
                         }
-                    }
-                }
-                int n = channel.write(buf);
-                if (n > 0) {
-                    if ((info.flags() & O_NONBLOCK) != 0) {
-                        assert n <= 0 || n == size;
+                        n = ChannelUtil.write(channel, buf, offset, isRecorded());
+                        end = offset + n;
                     } else {
-                        int c;
-                        while (n < size) {
-                            if ((c = channel.write(buf)) <= 0) {
-                                break;
+                        n = channel.write(buf);
+                        if (n > 0) {
+                            if ((info.flags() & O_NONBLOCK) != 0) {
+                                assert n <= 0 || n == size;
+                            } else {
+                                int c;
+                                while (n < size) {
+                                    if ((c = channel.write(buf)) <= 0) {
+                                        break;
+                                    }
+                                    n += c;
+                                }
                             }
-                            n += c;
                         }
+                        // an appending channel is at the end
+                        end = statfsCache.isEnabled() && info.append() ? channel.position() : offset + n;
                     }
                 }
+                attributeCache.invalidate(path);
+                blockCache.invalidate(path);
+                diskBlockCache.invalidate(path);
+                sharedChannels.invalidate(path);
+                statfsCache.written(handle.written(end));
                 return n;
             } else {
                 return -ErrorCodes.EEXIST();
@@ -361,14 +805,14 @@ logger.log(Level.ERROR, e.getMessage(), e);
     public int statfs(final String path, final StatvfsWrapper stat) {
 logger.log(Level.TRACE, "statfs: " + path);
         try {
-            FileStore fileStore = fileSystem.getFileStores().iterator().next();
-//logger.log(Level.INFO, "total: " + fileStore.getTotalSpace());
-//logger.log(Level.INFO, "free: " + fileStore.getUsableSpace());
+            StatfsCache.Space space = statfsCache.get();
+//logger.log(Level.INFO, "total: " + space.getTotal());
+//logger.log(Level.INFO, "free: " + space.getUsable());
 
             long blockSize = 512;
 
-            long total = fileStore.getTotalSpace() / blockSize;
-            long free = fileStore.getUsableSpace() / blockSize;
+            long total = space.getTotal() / blockSize;
+            long free = space.getUsable() / blockSize;
             long used = total - free;
 
             stat.bavail(used);
@@ -387,13 +831,58 @@ logger.log(Level.ERROR, e.getMessage(), e);
         }
     }
 
+    @Override
+    public int flush(final String path, final FileInfoWrapper info) {
+logger.log(Level.DEBUG, "flush: " + path + ", fh: " + info.fh());
+        try {
+            FileHandle handle = fileHandles.get(info.fh());
+            if (handle != null && handle.isOpened() && handle.getWriteBack() != null) {
+                handle.getWriteBack().flush();
+            }
+            return 0;
+        } catch (IOException e) {
+logger.log(Level.ERROR, e.getMessage(), e);
+            return -ErrorCodes.EIO();
+        }
+    }
+
+    @Override
+    public int fsync(final String path, final int datasync, final FileInfoWrapper info) {
+logger.log(Level.DEBUG, "fsync: " + path + ", fh: " + info.fh());
+        try {
+            FileHandle handle = fileHandles.get(info.fh());
+            if (handle == null) {
+                return -ErrorCodes.EBADF();
+            }
+            if (!handle.isOpened()) {
+                return 0;
+            }
+            if (handle.getWriteBack() != null) {
+                handle.getWriteBack().flush();
+            }
+            if (handle.getChannel() instanceof Spool) {
+                ((Spool) handle.getChannel()).upload();
+            }
+            if (handle.getChannel() instanceof FileChannel) {
+                ((FileChannel) handle.getChannel()).force(datasync == 0);
+            }
+            return 0;
+        } catch (IOException e) {
+logger.log(Level.ERROR, e.getMessage(), e);
+            return -ErrorCodes.EIO();
+        }
+    }
+
     @Override
     public int release(final String path, final FileInfoWrapper info) {
 logger.log(Level.DEBUG, "release: " + path);
         try {
-            if (fileHandles.containsKey(info.fh())) {
-                Channel channel = fileHandles.get(info.fh());
-                channel.close();
+            FileHandle handle = fileHandles.remove(info.fh());
+            if (handle != null) {
+                if (!handle.isOpened()) {
+                    untouchedOpens.increment();
+                }
+                handle.close();
                 return 0;
             } else {
                 return -ErrorCodes.EEXIST();
@@ -402,7 +891,7 @@ logger.log(Level.DEBUG, "release: " + path);
 logger.log(Level.INFO, e);
             return -ErrorCodes.EIO();
         } finally {
-            fileHandles.remove(info.fh());
+            attributeCache.invalidate(path);
         }
     }
 
@@ -410,9 +899,10 @@ logger.log(Level.INFO, e);
     public int chmod(String path, ModeWrapper mode) {
 logger.log(Level.DEBUG, "chmod: " + path);
         try {
-            if (fileSystem.provider().getFileStore(fileSystem.getPath(path)).supportsFileAttributeView(PosixFileAttributeView.class)) {
-                PosixFileAttributeView attrs = fileSystem.provider().getFileAttributeView(fileSystem.getPath(path), PosixFileAttributeView.class);
+            if (provider.getFileStore(fileSystem.getPath(path)).supportsFileAttributeView(PosixFileAttributeView.class)) {
+                PosixFileAttributeView attrs = provider.getFileAttributeView(fileSystem.getPath(path), PosixFileAttributeView.class);
                 attrs.setPermissions(FuseJnaFuse.modeToPermissions(mode.mode()));
+                attributeCache.invalidate(path);
                 return 0;
             } else {
                 return -Errno.EAFNOSUPPORT.ordinal();
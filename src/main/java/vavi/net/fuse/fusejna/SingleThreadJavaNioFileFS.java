@@ -19,6 +19,7 @@ import net.fusejna.DirectoryFiller;
 import net.fusejna.StructFuseFileInfo.FileInfoWrapper;
 import net.fusejna.StructStat.StatWrapper;
 import net.fusejna.types.TypeMode.ModeWrapper;
+import vavi.net.fuse.Fuse;
 
 
 /**
@@ -27,19 +28,35 @@ import net.fusejna.types.TypeMode.ModeWrapper;
  * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
  * @version 0.00 2016/02/29 umjammer initial version <br>
  */
-class SingleThreadJavaNioFileFS extends JavaNioFileFS {
+class SingleThreadJavaNioFileFS extends MeteredJavaNioFileFS {
 
     /** */
-    private ExecutorService singleService = Executors.newSingleThreadExecutor();
+    private final ExecutorService singleService;
+
+    /** the single thread is shared by mounts */
+    private final boolean sharedService;
 
     /** */
     private ExecutorService multiService = Executors.newCachedThreadPool();
 
     /**
      * @param fileSystem
+     * @param env the single thread is shared when {@link Fuse#ENV_DISPATCHER} is an executor service
      */
     public SingleThreadJavaNioFileFS(FileSystem fileSystem, Map<String, Object> env) throws IOException {
         super(fileSystem, env);
+        Object dispatcher = env.get(Fuse.ENV_DISPATCHER);
+        this.sharedService = dispatcher instanceof ExecutorService;
+        this.singleService = sharedService ? (ExecutorService) dispatcher : Executors.newSingleThreadExecutor();
+    }
+
+    @Override
+    void dispose() {
+        if (!sharedService) {
+            singleService.shutdown();
+        }
+        multiService.shutdown();
+        super.dispose();
     }
 
     @Override
@@ -106,6 +123,26 @@ class SingleThreadJavaNioFileFS extends JavaNioFileFS {
         }
     }
 
+    @Override
+    public int flush(final String path, final FileInfoWrapper info) {
+        Future<Integer> f = singleService.submit(() -> super.flush(path, info));
+        try {
+            return f.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public int fsync(final String path, final int datasync, final FileInfoWrapper info) {
+        Future<Integer> f = singleService.submit(() -> super.fsync(path, datasync, info));
+        try {
+            return f.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Override
     public int release(final String path, final FileInfoWrapper info) {
         Future<Integer> f = singleService.submit(() -> super.release(path, info));
@@ -176,6 +213,16 @@ class SingleThreadJavaNioFileFS extends JavaNioFileFS {
         }
     }
 
+    @Override
+    public int ftruncate(final String path, final long offset, final FileInfoWrapper info) {
+        Future<Integer> f = singleService.submit(() -> super.ftruncate(path, offset, info));
+        try {
+            return f.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Override
     public int unlink(final String path) {
         Future<Integer> f = singleService.submit(() -> super.unlink(path));
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.fusejna;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystem;
+import java.util.Map;
+
+import net.fusejna.DirectoryFiller;
+import net.fusejna.StructFuseFileInfo.FileInfoWrapper;
+import net.fusejna.StructStat.StatWrapper;
+import net.fusejna.StructStatvfs.StatvfsWrapper;
+import net.fusejna.types.TypeMode.ModeWrapper;
+import vavi.net.fuse.Fuse;
+import vavi.net.fuse.io.StripedExecutor;
+
+
+/**
+ * StripedJavaNioFileFS. (fuse-jna)
+ * <p>
+ * runs callbacks on lanes chosen by the path instead of one thread of the mount,
+ * callbacks of a file are serialized and unrelated files proceed in parallel.
+ * handle based callbacks use the path too, fuse gives the current path of the handle.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see StripedExecutor
+ */
+class StripedJavaNioFileFS extends MeteredJavaNioFileFS {
+
+    /** */
+    private final StripedExecutor lanes;
+
+    /** the lanes are shared by mounts */
+    private final boolean sharedLanes;
+
+    /** @param lanes number of lanes, not used when lanes are shared by {@link Fuse#ENV_DISPATCHER} */
+    public StripedJavaNioFileFS(FileSystem fileSystem, Map<String, Object> env, int lanes) throws IOException {
+        super(fileSystem, env);
+        Object dispatcher = env.get(Fuse.ENV_DISPATCHER);
+        this.sharedLanes = dispatcher instanceof StripedExecutor;
+        this.lanes = sharedLanes ? (StripedExecutor) dispatcher : new StripedExecutor(lanes);
+    }
+
+    @Override
+    void dispose() {
+        if (!sharedLanes) {
+            lanes.close();
+        }
+        super.dispose();
+    }
+
+    @Override
+    Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = super.getStatistics();
+        lanes.putStatistics(statistics, "lanes");
+        return statistics;
+    }
+
+    @Override
+    public int access(final String path, final int access) {
+        return lanes.execute(path, () -> super.access(path, access));
+    }
+
+    @Override
+    public int create(final String path, final ModeWrapper mode, final FileInfoWrapper info) {
+        return lanes.execute(path, () -> super.create(path, mode, info));
+    }
+
+    @Override
+    public int getattr(final String path, final StatWrapper stat) {
+        return lanes.execute(path, () -> super.getattr(path, stat));
+    }
+
+    @Override
+    public int fgetattr(final String path, final StatWrapper stat, final FileInfoWrapper info) {
+        return lanes.execute(path, () -> super.fgetattr(path, stat, info));
+    }
+
+    @Override
+    public int mkdir(final String path, final ModeWrapper mode) {
+        return lanes.execute(path, () -> super.mkdir(path, mode));
+    }
+
+    @Override
+    public int open(final String path, final FileInfoWrapper info) {
+        return lanes.execute(path, () -> super.open(path, info));
+    }
+
+    @Override
+    public int read(final String path, final ByteBuffer buffer, final long size, final long offset, final FileInfoWrapper info) {
+        return lanes.execute(path, () -> super.read(path, buffer, size, offset, info));
+    }
+
+    @Override
+    public int readdir(final String path, final DirectoryFiller filler) {
+        return lanes.execute(path, () -> super.readdir(path, filler));
+    }
+
+    @Override
+    public int rename(final String path, final String newName) {
+        return lanes.execute(path, newName, () -> super.rename(path, newName));
+    }
+
+    @Override
+    public int rmdir(final String path) {
+        return lanes.execute(path, () -> super.rmdir(path));
+    }
+
+    @Override
+    public int truncate(final String path, final long offset) {
+        return lanes.execute(path, () -> super.truncate(path, offset));
+    }
+
+    @Override
+    public int ftruncate(final String path, final long offset, final FileInfoWrapper info) {
+        return lanes.execute(path, () -> super.ftruncate(path, offset, info));
+    }
+
+    @Override
+    public int unlink(final String path) {
+        return lanes.execute(path, () -> super.unlink(path));
+    }
+
+    @Override
+    public int write(final String path, final ByteBuffer buf, final long size, final long offset, final FileInfoWrapper info) {
+        return lanes.execute(path, () -> super.write(path, buf, size, offset, info));
+    }
+
+    @Override
+    public int statfs(final String path, final StatvfsWrapper stat) {
+        return lanes.execute(path, () -> super.statfs(path, stat));
+    }
+
+    @Override
+    public int flush(final String path, final FileInfoWrapper info) {
+        return lanes.execute(path, () -> super.flush(path, info));
+    }
+
+    @Override
+    public int fsync(final String path, final int datasync, final FileInfoWrapper info) {
+        return lanes.execute(path, () -> super.fsync(path, datasync, info));
+    }
+
+    @Override
+    public int release(final String path, final FileInfoWrapper info) {
+        return lanes.execute(path, () -> super.release(path, info));
+    }
+
+    @Override
+    public int chmod(String path, ModeWrapper mode) {
+        return lanes.execute(path, () -> super.chmod(path, mode));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.fusejna;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystem;
+import java.util.Map;
+
+import net.fusejna.DirectoryFiller;
+import net.fusejna.StructFuseFileInfo.FileInfoWrapper;
+import net.fusejna.StructStat.StatWrapper;
+import net.fusejna.StructStatvfs.StatvfsWrapper;
+import net.fusejna.types.TypeMode.ModeWrapper;
+import vavi.net.fuse.Fuse;
+import vavi.net.fuse.io.VirtualThreadExecutor;
+
+
+/**
+ * VirtualThreadJavaNioFileFS. (fuse-jna)
+ * <p>
+ * runs each callback on a virtual thread, in flight callbacks are bounded per operation.
+ * the fuse thread still waits for the result because the callbacks are synchronous.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see VirtualThreadExecutor
+ */
+class VirtualThreadJavaNioFileFS extends MeteredJavaNioFileFS {
+
+    /** */
+    private final VirtualThreadExecutor threads;
+
+    /** the threads are shared by mounts */
+    private final boolean sharedThreads;
+
+    /** @param permits max in flight callbacks per operation, not used when threads are shared by {@link Fuse#ENV_DISPATCHER} */
+    public VirtualThreadJavaNioFileFS(FileSystem fileSystem, Map<String, Object> env, int permits) throws IOException {
+        super(fileSystem, env);
+        Object dispatcher = env.get(Fuse.ENV_DISPATCHER);
+        this.sharedThreads = dispatcher instanceof VirtualThreadExecutor;
+        this.threads = sharedThreads ? (VirtualThreadExecutor) dispatcher : new VirtualThreadExecutor(permits);
+    }
+
+    @Override
+    void dispose() {
+        if (!sharedThreads) {
+            threads.close();
+        }
+        super.dispose();
+    }
+
+    @Override
+    Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = super.getStatistics();
+        threads.putStatistics(statistics, "threads");
+        return statistics;
+    }
+
+    @Override
+    public int access(final String path, final int access) {
+        return threads.execute("access", () -> super.access(path, access));
+    }
+
+    @Override
+    public int create(final String path, final ModeWrapper mode, final FileInfoWrapper info) {
+        return threads.execute("create", () -> super.create(path, mode, info));
+    }
+
+    @Override
+    public int getattr(final String path, final StatWrapper stat) {
+        return threads.execute("getattr", () -> super.getattr(path, stat));
+    }
+
+    @Override
+    public int fgetattr(final String path, final StatWrapper stat, final FileInfoWrapper info) {
+        return threads.execute("fgetattr", () -> super.fgetattr(path, stat, info));
+    }
+
+    @Override
+    public int mkdir(final String path, final ModeWrapper mode) {
+        return threads.execute("mkdir", () -> super.mkdir(path, mode));
+    }
+
+    @Override
+    public int open(final String path, final FileInfoWrapper info) {
+        return threads.execute("open", () -> super.open(path, info));
+    }
+
+    @Override
+    public int read(final String path, final ByteBuffer buffer, final long size, final long offset, final FileInfoWrapper info) {
+        return threads.execute("read", () -> super.read(path, buffer, size, offset, info));
+    }
+
+    @Override
+    public int readdir(final String path, final DirectoryFiller filler) {
+        return threads.execute("readdir", () -> super.readdir(path, filler));
+    }
+
+    @Override
+    public int rename(final String path, final String newName) {
+        return threads.execute("rename", () -> super.rename(path, newName));
+    }
+
+    @Override
+    public int rmdir(final String path) {
+        return threads.execute("rmdir", () -> super.rmdir(path));
+    }
+
+    @Override
+    public int truncate(final String path, final long offset) {
+        return threads.execute("truncate", () -> super.truncate(path, offset));
+    }
+
+    @Override
+    public int ftruncate(final String path, final long offset, final FileInfoWrapper info) {
+        return threads.execute("ftruncate", () -> super.ftruncate(path, offset, info));
+    }
+
+    @Override
+    public int unlink(final String path) {
+        return threads.execute("unlink", () -> super.unlink(path));
+    }
+
+    @Override
+    public int write(final String path, final ByteBuffer buf, final long size, final long offset, final FileInfoWrapper info) {
+        return threads.execute("write", () -> super.write(path, buf, size, offset, info));
+    }
+
+    @Override
+    public int statfs(final String path, final StatvfsWrapper stat) {
+        return threads.execute("statfs", () -> super.statfs(path, stat));
+    }
+
+    @Override
+    public int flush(final String path, final FileInfoWrapper info) {
+        return threads.execute("flush", () -> super.flush(path, info));
+    }
+
+    @Override
+    public int fsync(final String path, final int datasync, final FileInfoWrapper info) {
+        return threads.execute("fsync", () -> super.fsync(path, datasync, info));
+    }
+
+    @Override
+    public int release(final String path, final FileInfoWrapper info) {
+        return threads.execute("release", () -> super.release(path, info));
+    }
+
+    @Override
+    public int chmod(String path, ModeWrapper mode) {
+        return threads.execute("chmod", () -> super.chmod(path, mode));
+    }
+}
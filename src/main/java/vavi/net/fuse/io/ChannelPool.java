@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+
+import vavi.net.fuse.Fuse;
+
+import static java.lang.System.getLogger;
+
+
+/**
+ * ChannelPool. positional reads (pread semantics) on a file handle.
+ * <p>
+ * when the backend channel is a {@link FileChannel}, {@link FileChannel#read(ByteBuffer, long)}
+ * is used without any lock. otherwise a channel is borrowed exclusively for a position and read,
+ * additional channels are opened on demand up to the max so that parallel readers don't collide.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see Fuse#ENV_READ_CHANNELS
+ */
+public class ChannelPool implements Closeable {
+
+    private static final Logger logger = getLogger(ChannelPool.class.getName());
+
+    /** opens an additional channel for the same file */
+    @FunctionalInterface
+    public interface Opener {
+        SeekableByteChannel open() throws IOException;
+    }
+
+    /** */
+    public static final int DEFAULT_MAX_CHANNELS = 1;
+
+    /** the handle's channel, not owned by this pool */
+    private final SeekableByteChannel primary;
+
+    /** null means no additional channels */
+    private final Opener opener;
+
+    /** */
+    private final Semaphore permits;
+
+    /** */
+    private final ConcurrentLinkedDeque<SeekableByteChannel> idle = new ConcurrentLinkedDeque<>();
+
+    /** channels opened by this pool, guarded by itself */
+    private final List<SeekableByteChannel> opened = new ArrayList<>();
+
+    /** reads are recorded as jfr events */
+    private final boolean recorded;
+
+    /**
+     * @param primary the file handle's channel
+     * @param opener null means no additional channels
+     * @param maxChannels max channels including the primary
+     * @param recorded reads are recorded as jfr events, for backend channels
+     */
+    public ChannelPool(SeekableByteChannel primary, Opener opener, int maxChannels, boolean recorded) {
+        this.primary = primary;
+        this.opener = opener;
+        this.permits = new Semaphore(opener != null ? Math.max(1, maxChannels) : 1);
+        this.recorded = recorded;
+        idle.push(primary);
+    }
+
+    /** reads are not recorded, for local channels */
+    public ChannelPool(SeekableByteChannel primary, Opener opener, int maxChannels) {
+        this(primary, opener, maxChannels, false);
+    }
+
+    /** @return max channels per handle from mount env */
+    public static int maxChannels(Map<String, Object> env) {
+        return (int) Fuse.getLong(Fuse.ENV_READ_CHANNELS, env, DEFAULT_MAX_CHANNELS);
+    }
+
+    /**
+     * reads bytes at the position until dst is full or eof, the primary channel position is not preserved.
+     *
+     * @return bytes read, 0 when the position is at or after eof
+     */
+    public int read(ByteBuffer dst, long position) throws IOException {
+        if (primary instanceof FileChannel) {
+            return ChannelUtil.read(primary, dst, position, recorded);
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        SeekableByteChannel channel = idle.poll();
+        try {
+            if (channel == null) {
+                channel = opener.open();
+                synchronized (opened) {
+                    opened.add(channel);
+logger.log(Level.DEBUG, "open additional channel: " + opened.size());
+                }
+            }
+            return ChannelUtil.read(channel, dst, position, recorded);
+        } finally {
+            if (channel != null) {
+                idle.push(channel);
+            }
+            permits.release();
+        }
+    }
+
+    /** closes additional channels, the primary channel is not closed */
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        synchronized (opened) {
+            for (SeekableByteChannel channel : opened) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    if (exception == null) {
+                        exception = e;
+                    } else {
+                        exception.addSuppressed(e);
+                    }
+                }
+            }
+            opened.clear();
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+
+import vavi.net.fuse.jfr.BackendEvent;
+import vavi.net.fuse.jfr.FuseEvents;
+
+
+/**
+ * ChannelUtil.
+ * <p>
+ * reads and writes of backend channels are recorded as {@link BackendEvent}s when it is requested,
+ * i.e. {@link vavi.net.fuse.Fuse#ENV_JFR} is enabled. local channels like spools are not recorded.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+public final class ChannelUtil {
+
+    private ChannelUtil() {
+    }
+
+    /**
+     * reads bytes at the position until dst is full or eof.
+     * a {@link FileChannel} is read positionally without lock, otherwise the channel position
+     * is changed, and it is guarded by the channel itself.
+     *
+     * @return bytes read, 0 when the position is at or after eof
+     */
+    public static int read(SeekableByteChannel channel, ByteBuffer dst, long position) throws IOException {
+        return readFully(channel, dst, position);
+    }
+
+    /**
+     * @param recorded emits a {@link BackendEvent}
+     * @see #read(SeekableByteChannel, ByteBuffer, long)
+     */
+    public static int read(SeekableByteChannel channel, ByteBuffer dst, long position, boolean recorded) throws IOException {
+        if (!recorded) {
+            return readFully(channel, dst, position);
+        }
+        BackendEvent event = FuseEvents.startBackend();
+        int n = 0;
+        try {
+            n = readFully(channel, dst, position);
+            return n;
+        } finally {
+            event.complete("read", null, n);
+        }
+    }
+
+    /** */
+    private static int readFully(SeekableByteChannel channel, ByteBuffer dst, long position) throws IOException {
+        if (channel instanceof FileChannel) {
+            FileChannel fileChannel = (FileChannel) channel;
+            int total = 0;
+            while (dst.hasRemaining()) {
+                int n = fileChannel.read(dst, position + total);
+                if (n <= 0) {
+                    break;
+                }
+                total += n;
+            }
+            return total;
+        }
+        synchronized (channel) {
+            channel.position(position);
+            int total = 0;
+            while (dst.hasRemaining()) {
+                int n = channel.read(dst);
+                if (n <= 0) {
+                    break;
+                }
+                total += n;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * writes all bytes of src at the position.
+     * a {@link FileChannel} is written positionally without lock, otherwise the channel position
+     * is changed, and it is guarded by the channel itself.
+     *
+     * @return bytes written
+     */
+    public static int write(SeekableByteChannel channel, ByteBuffer src, long position) throws IOException {
+        return writeFully(channel, src, position);
+    }
+
+    /**
+     * @param recorded emits a {@link BackendEvent}
+     * @see #write(SeekableByteChannel, ByteBuffer, long)
+     */
+    public static int write(SeekableByteChannel channel, ByteBuffer src, long position, boolean recorded) throws IOException {
+        if (!recorded) {
+            return writeFully(channel, src, position);
+        }
+        BackendEvent event = FuseEvents.startBackend();
+        int n = 0;
+        try {
+            n = writeFully(channel, src, position);
+            return n;
+        } finally {
+            event.complete("write", null, n);
+        }
+    }
+
+    /** */
+    private static int writeFully(SeekableByteChannel channel, ByteBuffer src, long position) throws IOException {
+        if (channel instanceof FileChannel) {
+            FileChannel fileChannel = (FileChannel) channel;
+            int total = 0;
+            while (src.hasRemaining()) {
+                total += fileChannel.write(src, position + total);
+            }
+            return total;
+        }
+        synchronized (channel) {
+            channel.position(position);
+            int total = 0;
+            while (src.hasRemaining()) {
+                total += channel.write(src);
+            }
+            return total;
+        }
+    }
+
+    /**
+     * truncates or extends the file to the size, extended bytes are zero.
+     * {@link SeekableByteChannel#truncate(long)} doesn't extend a file.
+     */
+    public static void truncate(SeekableByteChannel channel, long size) throws IOException {
+        synchronized (channel) {
+            long current = channel.size();
+            if (size < current) {
+                channel.truncate(size);
+            } else if (size > current) {
+                write(channel, ByteBuffer.allocate(1), size - 1);
+            }
+        }
+    }
+}
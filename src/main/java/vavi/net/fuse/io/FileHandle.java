@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+
+import vavi.net.fuse.cache.BlockCache.Loader;
+
+
+/**
+ * FileHandle. states of an open file.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see HandleTable
+ */
+public class FileHandle implements Closeable {
+
+    /** opens the backend of a lazy handle */
+    @FunctionalInterface
+    public interface Opener {
+        /** @return an opened handle whose backend is taken over */
+        FileHandle open() throws IOException;
+    }
+
+    /** fuse path at open */
+    private final String path;
+
+    /** null when opened */
+    private Opener opener;
+
+    /** fields of the backend are visible after this is set */
+    private volatile boolean opened;
+
+    /** the backend channel */
+    private SeekableByteChannel channel;
+
+    /** positional reader */
+    private ChannelPool channels;
+
+    /** null when not used */
+    private ReadAhead readAhead;
+
+    /** null when not used */
+    private WriteBack writeBack;
+
+    /** null when the caller makes one */
+    private Loader loader;
+
+    /** closes the channel and the channels */
+    private Closeable backend;
+
+    /** the file size seen through this handle, -1 until it is needed, guarded by this */
+    private long size = -1;
+
+    /**
+     * the channel and the channels are owned by this handle.
+     * @param readAhead nullable
+     * @param writeBack nullable
+     */
+    public FileHandle(String path, SeekableByteChannel channel, ChannelPool channels, ReadAhead readAhead, WriteBack writeBack) {
+        this(path, channel, channels, readAhead, writeBack, () -> {
+            try {
+                channels.close();
+            } finally {
+                channel.close();
+            }
+        });
+    }
+
+    /**
+     * @param readAhead nullable
+     * @param writeBack nullable
+     * @param backend closes or releases the channel and the channels
+     */
+    public FileHandle(String path, SeekableByteChannel channel, ChannelPool channels, ReadAhead readAhead, WriteBack writeBack, Closeable backend) {
+        this(path, channel, channels, readAhead, writeBack, backend, null);
+    }
+
+    /**
+     * @param readAhead nullable
+     * @param writeBack nullable
+     * @param backend closes or releases the channel and the channels
+     * @param loader a positional reader through caches, nullable
+     */
+    public FileHandle(String path, SeekableByteChannel channel, ChannelPool channels, ReadAhead readAhead, WriteBack writeBack, Closeable backend, Loader loader) {
+        this.path = path;
+        this.channel = channel;
+        this.channels = channels;
+        this.readAhead = readAhead;
+        this.writeBack = writeBack;
+        this.backend = backend;
+        this.loader = loader;
+        this.opened = true;
+    }
+
+    /** */
+    private FileHandle(String path, Opener opener) {
+        this.path = path;
+        this.opener = opener;
+    }
+
+    /**
+     * @param opener called at the first access to the backend
+     * @return a handle which doesn't open the backend until it is needed
+     */
+    public static FileHandle lazy(String path, Opener opener) {
+        return new FileHandle(path, opener);
+    }
+
+    /** */
+    private void ensureOpened() throws IOException {
+        if (!opened) {
+            synchronized (this) {
+                if (!opened) {
+                    FileHandle handle = opener.open();
+                    this.channel = handle.channel;
+                    this.channels = handle.channels;
+                    this.readAhead = handle.readAhead;
+                    this.writeBack = handle.writeBack;
+                    this.backend = handle.backend;
+                    this.loader = handle.loader;
+                    this.opener = null;
+                    this.opened = true;
+                }
+            }
+        }
+    }
+
+    /** @return false when the backend is not opened yet */
+    public boolean isOpened() {
+        return opened;
+    }
+
+    /** */
+    public String getPath() {
+        return path;
+    }
+
+    /** opens the backend if not yet */
+    public SeekableByteChannel getChannel() throws IOException {
+        ensureOpened();
+        return channel;
+    }
+
+    /** opens the backend if not yet */
+    public ChannelPool getChannels() throws IOException {
+        ensureOpened();
+        return channels;
+    }
+
+    /** opens the backend if not yet, @return null when not used */
+    public ReadAhead getReadAhead() throws IOException {
+        ensureOpened();
+        return readAhead;
+    }
+
+    /** opens the backend if not yet, @return null when not given */
+    public Loader getLoader() throws IOException {
+        ensureOpened();
+        return loader;
+    }
+
+    /** opens the backend if not yet, @return null when not used */
+    public WriteBack getWriteBack() throws IOException {
+        ensureOpened();
+        return writeBack;
+    }
+
+    /**
+     * call this before the first write to know growth of the file by writes.
+     * @return the file size seen through this handle, the channel size at the first call
+     */
+    public synchronized long getSize() throws IOException {
+        if (size < 0) {
+            size = getChannel().size();
+        }
+        return size;
+    }
+
+    /**
+     * @param end the file position after a write through this handle
+     * @return bytes the file grew, 0 for an overwrite or when {@link #getSize()} is not called yet
+     */
+    public synchronized long written(long end) {
+        if (size < 0 || end <= size) {
+            return 0;
+        }
+        long grown = end - size;
+        size = end;
+        return grown;
+    }
+
+    /** @param size truncated or extended through this handle */
+    public synchronized void truncated(long size) {
+        if (this.size >= 0) {
+            this.size = size;
+        }
+    }
+
+    /** flushes buffered bytes, then closes everything even if flushing failed. a lazy handle not opened does nothing */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!opened) {
+            return;
+        }
+        try {
+            if (writeBack != null) {
+                writeBack.close();
+            }
+        } finally {
+            if (readAhead != null) {
+                readAhead.close();
+            }
+            backend.close();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ * HandleTable. a per mount table of open handles.
+ * <p>
+ * a handle ({@code fh}) is a slot index in the lower 32 bits and a generation of the slot
+ * in the upper 32 bits, so a freed slot is reused with a different {@code fh} and a stale handle
+ * is detected. {@link #get(long)} is lock free and doesn't box the handle.
+ * {@code fh} is never 0.
+ *
+ * @param <T> handle object type
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+public class HandleTable<T> {
+
+    /** */
+    private static final class Slot<T> {
+        final int generation;
+        final T value;
+        Slot(int generation, T value) {
+            this.generation = generation;
+            this.value = value;
+        }
+    }
+
+    /** replaced when growing */
+    private volatile AtomicReferenceArray<Slot<T>> slots;
+
+    // following are guarded by this
+
+    /** next generation of each slot */
+    private int[] generations;
+
+    /** stack of free slot indices */
+    private int[] free;
+    private int freeCount;
+
+    /** number of slots ever used */
+    private int used;
+
+    /** */
+    private int open;
+
+    /** */
+    public HandleTable() {
+        this(64);
+    }
+
+    /** @param capacity initial number of slots */
+    public HandleTable(int capacity) {
+        capacity = Math.max(1, capacity);
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.generations = new int[capacity];
+        this.free = new int[capacity];
+    }
+
+    /** @return a new handle for the value */
+    public synchronized long add(T value) {
+        int index;
+        if (freeCount > 0) {
+            index = free[--freeCount];
+        } else {
+            if (used == slots.length()) {
+                grow();
+            }
+            index = used++;
+        }
+        int generation = ++generations[index];
+        if (generation == 0) {
+            generation = ++generations[index]; // wrapped, 0 is not used
+        }
+        slots.set(index, new Slot<>(generation, value));
+        open++;
+        return ((long) generation << 32) | index;
+    }
+
+    /** guarded by this */
+    private void grow() {
+        AtomicReferenceArray<Slot<T>> current = slots;
+        int capacity = current.length() * 2;
+        AtomicReferenceArray<Slot<T>> grown = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < current.length(); i++) {
+            grown.set(i, current.get(i));
+        }
+        generations = Arrays.copyOf(generations, capacity);
+        free = Arrays.copyOf(free, capacity);
+        slots = grown;
+    }
+
+    /** @return null when the handle is not open or stale */
+    public T get(long fh) {
+        int index = (int) fh;
+        AtomicReferenceArray<Slot<T>> slots = this.slots;
+        if (index < 0 || index >= slots.length()) {
+            return null;
+        }
+        Slot<T> slot = slots.get(index);
+        return slot != null && slot.generation == (int) (fh >>> 32) ? slot.value : null;
+    }
+
+    /** @return the removed value, null when the handle is not open or stale */
+    public synchronized T remove(long fh) {
+        T value = get(fh);
+        if (value != null) {
+            int index = (int) fh;
+            slots.set(index, null);
+            free[freeCount++] = index;
+            open--;
+        }
+        return value;
+    }
+
+    /** number of open handles */
+    public synchronized int size() {
+        return open;
+    }
+}
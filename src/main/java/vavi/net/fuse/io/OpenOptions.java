@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+import jnr.constants.platform.OpenFlags;
+
+
+/**
+ * OpenOptions. maps open(2) flags given by fuse to nio {@link OpenOption}s.
+ * <p>
+ * flag values are platform dependent, so they are taken from jnr-constants.
+ * {@link StandardOpenOption#APPEND} is used only for write only, because nio doesn't allow
+ * reading with it. for read write the kernel gives the end of file as the write offset.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+public final class OpenOptions {
+
+    private OpenOptions() {
+    }
+
+    private static final int O_ACCMODE = OpenFlags.O_ACCMODE.intValue();
+    private static final int O_WRONLY = OpenFlags.O_WRONLY.intValue();
+    private static final int O_RDWR = OpenFlags.O_RDWR.intValue();
+    private static final int O_APPEND = OpenFlags.O_APPEND.intValue();
+    private static final int O_TRUNC = OpenFlags.O_TRUNC.intValue();
+
+    /** @param flags open(2) flags */
+    public static Set<OpenOption> of(int flags) {
+        Set<OpenOption> options = new HashSet<>();
+        int mode = flags & O_ACCMODE;
+        if (mode == O_WRONLY) {
+            options.add(StandardOpenOption.WRITE);
+            if ((flags & O_APPEND) != 0) {
+                options.add(StandardOpenOption.APPEND);
+            }
+        } else if (mode == O_RDWR) {
+            options.add(StandardOpenOption.READ);
+            options.add(StandardOpenOption.WRITE);
+        } else {
+            options.add(StandardOpenOption.READ);
+        }
+        if ((flags & O_TRUNC) != 0 && options.contains(StandardOpenOption.WRITE)) {
+            options.add(StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        return options;
+    }
+
+    /** @return true when the flags open for writing */
+    public static boolean isWritable(int flags) {
+        int mode = flags & O_ACCMODE;
+        return mode == O_WRONLY || mode == O_RDWR;
+    }
+}
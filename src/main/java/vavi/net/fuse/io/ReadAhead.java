@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import vavi.net.fuse.cache.BlockCache.Loader;
+
+import static java.lang.System.getLogger;
+
+
+/**
+ * ReadAhead. sequential access detection and asynchronous prefetch for a file handle.
+ * <p>
+ * when reads are sequential, the next window is prefetched in the background,
+ * the window starts from the min size and is doubled up to the max size like linux readahead.
+ * a random access cancels prefetching and resets the window.
+ * <p>
+ * the lock is held only for window bookkeeping, concurrent reads of a handle wait for
+ * prefetches and load from the backend in parallel. buffers of dropped windows are reused.
+ * <p>
+ * after the pool is shut down, prefetches not run are cancelled and reads load from the backend
+ * synchronously without prefetching.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see ReadAheadPool
+ */
+public class ReadAhead implements Closeable {
+
+    private static final Logger logger = getLogger(ReadAhead.class.getName());
+
+    /** max free window buffers kept */
+    private static final int MAX_FREE_BUFFERS = 2;
+
+    /** a prefetched range */
+    private static final class Window {
+        final long start;
+        final int size;
+        /** filled by the prefetch */
+        final ByteBuffer buffer;
+        /** the buffer flipped, or cancelled */
+        final CompletableFuture<ByteBuffer> data = new CompletableFuture<>();
+        // following are guarded by the read-ahead
+        /** reads copying from the buffer */
+        int readers;
+        /** the prefetch is finished or will not run */
+        boolean done;
+        /** removed from windows */
+        boolean dropped;
+        /** the buffer is given back */
+        boolean recycled;
+        Window(long start, int size, ByteBuffer buffer) {
+            this.start = start;
+            this.size = size;
+            this.buffer = buffer;
+        }
+        long end() {
+            return start + size;
+        }
+    }
+
+    /** */
+    private final Loader loader;
+
+    /** */
+    private final Executor executor;
+
+    /** */
+    private final int minWindow;
+
+    /** */
+    private final int maxWindow;
+
+    // following are guarded by this
+
+    /** next window size */
+    private int window;
+
+    /** expected next offset, -1 means unknown */
+    private long nextOffset = -1;
+
+    /** prefetching windows in order */
+    private final Deque<Window> windows = new ArrayDeque<>();
+
+    /** buffers of dropped windows */
+    private final Deque<ByteBuffer> buffers = new ArrayDeque<>();
+
+    /** eof is detected by a prefetch */
+    private boolean eof;
+
+    /** the executor rejected a prefetch */
+    private boolean rejected;
+
+    /** */
+    private final ReadAheadPool pool;
+
+    /** */
+    ReadAhead(Loader loader, ReadAheadPool pool) {
+        this.loader = loader;
+        this.pool = pool;
+        this.executor = pool.executor();
+        this.minWindow = pool.getMinWindow();
+        this.maxWindow = pool.getMaxWindow();
+        this.window = minWindow;
+    }
+
+    /**
+     * @param dst read until full or eof
+     * @param offset file position
+     * @return bytes read, 0 at eof
+     */
+    public int read(ByteBuffer dst, long offset) throws IOException {
+        long end = offset + dst.remaining();
+        boolean sequential;
+        List<Window> using = new ArrayList<>(2);
+        synchronized (this) {
+            sequential = offset == nextOffset || (nextOffset < 0 && offset == 0);
+            if (!sequential) {
+                if (!windows.isEmpty()) {
+logger.log(Level.TRACE, "random access: " + offset + ", expected: " + nextOffset);
+                    pool.cancelled();
+                }
+                cancel();
+            }
+            while (!windows.isEmpty() && windows.peekFirst().end() <= offset) {
+                drop(windows.removeFirst());
+            }
+            for (Window w : windows) {
+                if (w.start >= end) {
+                    break;
+                }
+                w.readers++;
+                using.add(w);
+            }
+            // a concurrent read of the next range is sequential
+            nextOffset = end;
+        }
+
+        int total = 0;
+        boolean atEof = false;
+        boolean shortWindow = false;
+        try {
+            for (Window w : using) {
+                long position = offset + total;
+                if (!dst.hasRemaining() || position < w.start) {
+                    break;
+                }
+                ByteBuffer data = await(w);
+                if (data == null) {
+                    break; // cancelled by another read
+                }
+                if (data.limit() < w.size) {
+                    shortWindow = true;
+                }
+                int inWindow = (int) (position - w.start);
+                if (inWindow >= data.limit()) {
+                    atEof = true; // a short window means eof
+                    break;
+                }
+                int n = Math.min(data.limit() - inWindow, dst.remaining());
+                ByteBuffer src = data.duplicate();
+                src.position(inWindow).limit(inWindow + n);
+                dst.put(src);
+                total += n;
+                pool.hit(n);
+            }
+            if (dst.hasRemaining() && !atEof) {
+                total += loader.load(dst, offset + total);
+            }
+        } finally {
+            synchronized (this) {
+                for (Window w : using) {
+                    w.readers--;
+                    recycle(w);
+                }
+            }
+        }
+
+        synchronized (this) {
+            if (shortWindow) {
+                eof = true;
+            }
+            if (nextOffset == end) {
+                nextOffset = offset + total;
+            }
+            if (sequential && !eof && !rejected && windows.size() < 2) {
+                long start = windows.isEmpty() ? nextOffset : windows.peekLast().end();
+                prefetch(start, window);
+                window = Math.min(window * 2, maxWindow);
+            }
+        }
+        return total;
+    }
+
+    /** @return the window data, null when it is cancelled */
+    private ByteBuffer await(Window w) throws IOException {
+        try {
+            return w.data.get();
+        } catch (CancellationException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            synchronized (this) {
+                cancel();
+            }
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /** guarded by this */
+    private void prefetch(long start, int size) {
+logger.log(Level.TRACE, "prefetch: " + start + ", " + size);
+        Window w = new Window(start, size, buffer(size));
+        windows.addLast(w);
+        try {
+            executor.execute(new Prefetch(w, start, size));
+        } catch (RejectedExecutionException e) {
+logger.log(Level.DEBUG, "prefetch rejected, read synchronously: " + e.getMessage());
+            rejected = true;
+            windows.removeLast();
+            w.done = true;
+            w.data.cancel(false);
+            drop(w);
+        }
+    }
+
+    /** a prefetch task, cancelled when the pool drops it not run */
+    final class Prefetch implements Runnable {
+        final Window w;
+        final long start;
+        final int size;
+        Prefetch(Window w, long start, int size) {
+            this.w = w;
+            this.start = start;
+            this.size = size;
+        }
+        @Override
+        public void run() {
+            synchronized (ReadAhead.this) {
+                if (w.dropped) {
+                    w.done = true;
+                    recycle(w);
+                    return;
+                }
+            }
+            try {
+                ByteBuffer buffer = w.buffer;
+                buffer.clear().limit(size);
+                loader.load(buffer, start);
+                buffer.flip();
+                pool.prefetched(buffer.limit());
+                w.data.complete(buffer);
+            } catch (IOException | RuntimeException e) {
+                w.data.completeExceptionally(e);
+            } finally {
+                synchronized (ReadAhead.this) {
+                    w.done = true;
+                    recycle(w);
+                }
+            }
+        }
+        /** readers waiting for the window load from the backend */
+        void cancel() {
+            w.data.cancel(false);
+            synchronized (ReadAhead.this) {
+                rejected = true;
+                w.done = true;
+                recycle(w);
+            }
+        }
+    }
+
+    /** guarded by this */
+    private ByteBuffer buffer(int size) {
+        ByteBuffer buffer = buffers.pollFirst();
+        if (buffer == null || buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(size);
+        }
+        return buffer;
+    }
+
+    /** guarded by this */
+    private void drop(Window w) {
+        w.dropped = true;
+        recycle(w);
+    }
+
+    /** gives the buffer back when no one uses it, guarded by this */
+    private void recycle(Window w) {
+        if (w.dropped && w.done && w.readers == 0 && !w.recycled) {
+            w.recycled = true;
+            if (buffers.size() < MAX_FREE_BUFFERS) {
+                buffers.addFirst(w.buffer);
+            }
+        }
+    }
+
+    /** guarded by this */
+    private void cancel() {
+        for (Window w : windows) {
+            // don't interrupt, an interrupted channel will be closed
+            w.data.cancel(false);
+            drop(w);
+        }
+        windows.clear();
+        window = minWindow;
+        eof = false;
+    }
+
+    /**
+     * cancels prefetching, a running prefetch may fail after the backend channel is closed,
+     * the result is just discarded.
+     */
+    @Override
+    public synchronized void close() {
+        cancel();
+        buffers.clear();
+    }
+}
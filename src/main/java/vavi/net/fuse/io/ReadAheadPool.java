@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import vavi.net.fuse.Fuse;
+import vavi.net.fuse.cache.BlockCache.Loader;
+
+
+/**
+ * ReadAheadPool. prefetch threads and configuration of {@link ReadAhead}s per mount.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see Fuse#ENV_READ_AHEAD
+ * @see Fuse#ENV_READ_AHEAD_MIN
+ * @see Fuse#ENV_READ_AHEAD_MAX
+ * @see Fuse#ENV_READ_AHEAD_THREADS
+ */
+public class ReadAheadPool implements Closeable {
+
+    /** */
+    public static final int DEFAULT_MIN_WINDOW = 0x20000;
+
+    /** */
+    public static final int DEFAULT_MAX_WINDOW = 0x200000;
+
+    /** */
+    public static final int DEFAULT_THREADS = 2;
+
+    /** null when disabled */
+    private final ExecutorService executor;
+
+    /** */
+    private final int minWindow;
+
+    /** */
+    private final int maxWindow;
+
+    private final LongAdder prefetchedBytes = new LongAdder();
+    private final LongAdder hitBytes = new LongAdder();
+    private final LongAdder cancels = new LongAdder();
+
+    /**
+     * @param threads 0 means disabled
+     */
+    public ReadAheadPool(int threads, int minWindow, int maxWindow) {
+        this.minWindow = minWindow;
+        this.maxWindow = Math.max(minWindow, maxWindow);
+        if (threads > 0) {
+            AtomicInteger count = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "readahead-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /** creates a pool from mount env, or returns the shared pool */
+    public static ReadAheadPool of(Map<String, Object> env) {
+        Object shared = env.get(Fuse.ENV_READ_AHEAD_POOL);
+        if (shared instanceof ReadAheadPool) {
+            return (ReadAheadPool) shared;
+        }
+        int threads = Fuse.isEnabled(Fuse.ENV_READ_AHEAD, env) ? (int) Fuse.getLong(Fuse.ENV_READ_AHEAD_THREADS, env, DEFAULT_THREADS) : 0;
+        int minWindow = (int) Fuse.getLong(Fuse.ENV_READ_AHEAD_MIN, env, DEFAULT_MIN_WINDOW);
+        int maxWindow = (int) Fuse.getLong(Fuse.ENV_READ_AHEAD_MAX, env, DEFAULT_MAX_WINDOW);
+        return new ReadAheadPool(threads, minWindow, maxWindow);
+    }
+
+    /** */
+    public boolean isEnabled() {
+        return executor != null;
+    }
+
+    /**
+     * @param loader a positional reader of the file handle, must be thread safe
+     */
+    public ReadAhead newReadAhead(Loader loader) {
+        return new ReadAhead(loader, this);
+    }
+
+    /** */
+    Executor executor() {
+        return executor;
+    }
+
+    /** */
+    public int getMinWindow() {
+        return minWindow;
+    }
+
+    /** */
+    public int getMaxWindow() {
+        return maxWindow;
+    }
+
+    /** */
+    void prefetched(int bytes) {
+        prefetchedBytes.add(bytes);
+    }
+
+    /** */
+    void hit(int bytes) {
+        hitBytes.add(bytes);
+    }
+
+    /** */
+    void cancelled() {
+        cancels.increment();
+    }
+
+    /** puts statistics into the map with keys prefixed by {@code prefix} */
+    public void putStatistics(Map<String, Object> statistics, String prefix) {
+        statistics.put(prefix + ".prefetchedBytes", prefetchedBytes.sum());
+        statistics.put(prefix + ".hitBytes", hitBytes.sum());
+        statistics.put(prefix + ".cancels", cancels.sum());
+    }
+
+    /** prefetches not run are cancelled, their readers load from the backend */
+    @Override
+    public void close() {
+        if (executor != null) {
+            for (Runnable r : executor.shutdownNow()) {
+                if (r instanceof ReadAhead.Prefetch) {
+                    ((ReadAhead.Prefetch) r).cancel();
+                }
+            }
+        }
+    }
+}
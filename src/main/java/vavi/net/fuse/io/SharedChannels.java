@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import vavi.net.fuse.Fuse;
+
+import static java.lang.System.getLogger;
+
+
+/**
+ * SharedChannels. read only backend channels shared by concurrent opens of the same path.
+ * <p>
+ * a channel is reference counted by {@link Lease}s and closed when the last lease is closed,
+ * or after the linger time so that a quick reopen doesn't open the backend again.
+ * reads through a shared channel must be positional, i.e. through {@link Lease#getChannels()}.
+ * <p>
+ * {@link #invalidate(String)} detaches the channel of the path, the next open gets a new channel
+ * and the old one is closed when its leases are closed.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see Fuse#ENV_SHARED_CHANNELS
+ * @see Fuse#ENV_SHARED_CHANNELS_LINGER
+ */
+public class SharedChannels implements Closeable {
+
+    private static final Logger logger = getLogger(SharedChannels.class.getName());
+
+    /** */
+    private final boolean enabled;
+
+    /** milliseconds */
+    private final long linger;
+
+    /** reads are recorded as jfr events */
+    private final boolean recorded;
+
+    /** null when no linger */
+    private final ScheduledExecutorService closer;
+
+    /** guarded by itself */
+    private final Map<String, Shared> shareds = new HashMap<>();
+
+    private final LongAdder opens = new LongAdder();
+    private final LongAdder reuses = new LongAdder();
+
+    /** a shared channel, guarded by {@link #shareds} */
+    private final class Shared {
+        final String path;
+        final SeekableByteChannel channel;
+        final ChannelPool channels;
+        int references;
+        boolean detached;
+        ScheduledFuture<?> lingering;
+        Shared(String path, SeekableByteChannel channel, ChannelPool channels) {
+            this.path = path;
+            this.channel = channel;
+            this.channels = channels;
+        }
+        /** guarded by shareds, @return true when the channel should be closed */
+        boolean release() {
+            if (--references == 0) {
+                if (detached || closer == null) {
+                    detach();
+                    return true;
+                } else {
+                    lingering = closer.schedule(this::expire, linger, TimeUnit.MILLISECONDS);
+                }
+            }
+            return false;
+        }
+        void expire() {
+            synchronized (shareds) {
+                if (references > 0 || lingering == null) {
+                    return;
+                }
+                lingering = null;
+                detach();
+            }
+            close();
+        }
+        /** guarded by shareds */
+        void detach() {
+            if (!detached) {
+                detached = true;
+                shareds.remove(path, this);
+            }
+        }
+        void close() {
+logger.log(Level.DEBUG, "close shared: " + path);
+            try {
+                try {
+                    channels.close();
+                } finally {
+                    channel.close();
+                }
+            } catch (IOException e) {
+logger.log(Level.WARNING, "close shared: " + path + ": " + e);
+            }
+        }
+    }
+
+    /** a reference to a shared channel */
+    public final class Lease implements Closeable {
+        private final Shared shared;
+        private boolean closed;
+        private Lease(Shared shared) {
+            this.shared = shared;
+        }
+        /** */
+        public SeekableByteChannel getChannel() {
+            return shared.channel;
+        }
+        /** */
+        public ChannelPool getChannels() {
+            return shared.channels;
+        }
+        /** releases the reference */
+        @Override
+        public void close() {
+            boolean last = false;
+            synchronized (shareds) {
+                if (!closed) {
+                    closed = true;
+                    last = shared.release();
+                }
+            }
+            if (last) {
+                shared.close();
+            }
+        }
+    }
+
+    /**
+     * @param enabled false means every acquire opens a new channel
+     * @param linger milliseconds to keep an unreferenced channel open, 0 means closing immediately
+     * @param recorded reads are recorded as jfr events
+     */
+    public SharedChannels(boolean enabled, long linger, boolean recorded) {
+        this.enabled = enabled;
+        this.linger = linger;
+        this.recorded = recorded;
+        if (enabled && linger > 0) {
+            this.closer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "shared-channels");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.closer = null;
+        }
+    }
+
+    /** creates shared channels from mount env */
+    public static SharedChannels of(Map<String, Object> env) {
+        boolean enabled = Fuse.isEnabled(Fuse.ENV_SHARED_CHANNELS, env);
+        long linger = Fuse.getLong(Fuse.ENV_SHARED_CHANNELS_LINGER, env, 0);
+        return new SharedChannels(enabled, linger, Fuse.isEnabled(Fuse.ENV_JFR, env));
+    }
+
+    /** */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param path fuse path
+     * @param opener opens the backend channel, also used for additional channels of the pool
+     * @param maxChannels max channels of the pool
+     * @return a new reference, must be closed
+     */
+    public Lease acquire(String path, ChannelPool.Opener opener, int maxChannels) throws IOException {
+        if (!enabled) {
+            SeekableByteChannel channel = opener.open();
+            opens.increment();
+            Shared shared = new Shared(path, channel, new ChannelPool(channel, opener, maxChannels, recorded));
+            shared.detached = true;
+            shared.references = 1;
+            return new Lease(shared);
+        }
+        synchronized (shareds) {
+            Shared shared = shareds.get(path);
+            if (shared != null) {
+                if (shared.lingering != null) {
+                    shared.lingering.cancel(false);
+                    shared.lingering = null;
+                }
+                shared.references++;
+                reuses.increment();
+logger.log(Level.TRACE, "reuse shared: " + path + ", " + shared.references);
+                return new Lease(shared);
+            }
+        }
+        // opens outside the lock, a slow backend doesn't block other paths
+        SeekableByteChannel channel = opener.open();
+        opens.increment();
+        Shared opened = new Shared(path, channel, new ChannelPool(channel, opener, maxChannels, recorded));
+        Shared shared;
+        synchronized (shareds) {
+            shared = shareds.get(path);
+            if (shared == null) {
+                shared = opened;
+                shareds.put(path, shared);
+            } else if (shared.lingering != null) {
+                shared.lingering.cancel(false);
+                shared.lingering = null;
+            }
+            shared.references++;
+        }
+        if (shared != opened) {
+logger.log(Level.DEBUG, "lost open race: " + path);
+            opened.close();
+            reuses.increment();
+        }
+        return new Lease(shared);
+    }
+
+    /** detaches the channel of the path, e.g. the file is modified */
+    public void invalidate(String path) {
+        if (!enabled) {
+            return;
+        }
+        Shared closing = null;
+        synchronized (shareds) {
+            Shared shared = shareds.get(path);
+            if (shared != null && detach(shared)) {
+                closing = shared;
+            }
+        }
+        if (closing != null) {
+            closing.close();
+        }
+    }
+
+    /** detaches channels of the path and its descendants, e.g. the directory is moved */
+    public void invalidateTree(String path) {
+        if (!enabled) {
+            return;
+        }
+        String prefix = path.endsWith("/") ? path : path + "/";
+        List<Shared> closing = new ArrayList<>();
+        synchronized (shareds) {
+            for (Shared shared : shareds.values().toArray(Shared[]::new)) {
+                if ((shared.path.equals(path) || shared.path.startsWith(prefix)) && detach(shared)) {
+                    closing.add(shared);
+                }
+            }
+        }
+        closing.forEach(Shared::close);
+    }
+
+    /** guarded by shareds, @return true when the channel should be closed */
+    private boolean detach(Shared shared) {
+        shared.detach();
+        if (shared.references == 0) {
+            if (shared.lingering != null) {
+                shared.lingering.cancel(false);
+                shared.lingering = null;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /** number of shared channels */
+    public int size() {
+        synchronized (shareds) {
+            return shareds.size();
+        }
+    }
+
+    /** puts statistics into the map with keys prefixed by {@code prefix} */
+    public void putStatistics(Map<String, Object> statistics, String prefix) {
+        statistics.put(prefix + ".size", size());
+        statistics.put(prefix + ".opens", opens.sum());
+        statistics.put(prefix + ".reuses", reuses.sum());
+    }
+
+    /** closes unreferenced channels */
+    @Override
+    public void close() {
+        if (closer != null) {
+            closer.shutdownNow();
+        }
+        List<Shared> closing = new ArrayList<>();
+        synchronized (shareds) {
+            for (Shared shared : shareds.values().toArray(Shared[]::new)) {
+                if (detach(shared)) {
+                    closing.add(shared);
+                }
+            }
+        }
+        closing.forEach(Shared::close);
+    }
+}
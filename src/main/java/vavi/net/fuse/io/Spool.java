@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+import static java.lang.System.getLogger;
+
+
+/**
+ * Spool. a channel of a handle on a local sparse file, uploaded to the backend in one sequential pass.
+ * <p>
+ * writes at any offsets, reads and truncation are done on the local file, {@link #upload()}
+ * writes the whole file to a new backend channel from the start, so a backend which cannot
+ * seek while writing accepts random writes. the existing content is copied into the local file
+ * at the first access unless the file is opened as empty.
+ * <p>
+ * the channel position is guarded by this object as {@link ChannelUtil} expects.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+public class Spool implements SeekableByteChannel {
+
+    private static final Logger logger = getLogger(Spool.class.getName());
+
+    /** bytes of an upload buffer */
+    private static final int BUFFER_SIZE = 0x100000;
+
+    /** opens a backend channel */
+    @FunctionalInterface
+    public interface Opener {
+        /** @param path the current fuse path of the spool, a renamed spool gives the new path */
+        SeekableByteChannel open(String path) throws IOException;
+    }
+
+    /** fuse path, changed by rename */
+    private volatile String path;
+
+    /** */
+    private final SpoolPool pool;
+
+    /** the local file */
+    private final Path file;
+
+    /** */
+    private final FileChannel local;
+
+    /** reads the existing content, null when loaded or empty */
+    private Opener source;
+
+    /** writes the whole content */
+    private final Opener target;
+
+    /** called with the path after uploaded */
+    private final Consumer<String> uploaded;
+
+    /** */
+    private long position;
+
+    /** true when the local file differs from the backend, read without lock by getattr */
+    private volatile boolean dirty;
+
+    /** */
+    private volatile boolean open = true;
+
+    /** the file is deleted on the backend, never uploaded */
+    private volatile boolean deleted;
+
+    /**
+     * @param source the existing content, null for an empty file
+     * @param target opened from the start and truncated
+     */
+    Spool(String path, SpoolPool pool, Path file, Opener source, Opener target, Consumer<String> uploaded) throws IOException {
+        this.path = path;
+        this.pool = pool;
+        this.file = file;
+        this.local = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.source = source;
+        this.target = target;
+        this.uploaded = uploaded;
+    }
+
+    /** */
+    public String getPath() {
+        return path;
+    }
+
+    /** the file is moved on the backend, following loads and uploads use the new path */
+    synchronized void moved(String path) {
+logger.log(Level.DEBUG, "spool moved: " + this.path + " -> " + path);
+        this.path = path;
+    }
+
+    /** the file is deleted on the backend, the spool stays usable until closed but is not uploaded */
+    synchronized void deleted() {
+logger.log(Level.DEBUG, "spool deleted: " + path);
+        deleted = true;
+    }
+
+    /** copies the existing content at the first access, guarded by this */
+    private void ensureLoaded() throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        if (source != null) {
+            long t = System.nanoTime();
+            long position = 0;
+            try (SeekableByteChannel channel = source.open(path)) {
+                long n;
+                while ((n = local.transferFrom(channel, position, BUFFER_SIZE)) > 0) {
+                    position += n;
+                }
+            }
+            source = null;
+logger.log(Level.DEBUG, "spool loaded: " + path + ", " + position + " bytes in " + (System.nanoTime() - t) / 1_000_000 + " ms");
+        }
+    }
+
+    /**
+     * reads at the offset until dst is full or eof.
+     * @return bytes read, 0 at eof
+     */
+    public synchronized int read(ByteBuffer dst, long offset) throws IOException {
+        ensureLoaded();
+        int total = 0;
+        while (dst.hasRemaining()) {
+            int n = local.read(dst, offset + total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    /** @return bytes written, all of src */
+    public synchronized int write(ByteBuffer src, long offset) throws IOException {
+        ensureLoaded();
+        int total = 0;
+        while (src.hasRemaining()) {
+            total += local.write(src, offset + total);
+        }
+        dirty = true;
+        pool.spooled(total);
+        return total;
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        ensureLoaded();
+        int n = local.read(dst, position);
+        if (n > 0) {
+            position += n;
+        }
+        return n;
+    }
+
+    @Override
+    public synchronized int write(ByteBuffer src) throws IOException {
+        int n = write(src, position);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        return position;
+    }
+
+    @Override
+    public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+        if (newPosition < 0) {
+            throw new IllegalArgumentException(String.valueOf(newPosition));
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public synchronized long size() throws IOException {
+        ensureLoaded();
+        return local.size();
+    }
+
+    @Override
+    public synchronized SeekableByteChannel truncate(long size) throws IOException {
+        ensureLoaded();
+        if (size < local.size()) {
+            local.truncate(size);
+            dirty = true;
+        }
+        position = Math.min(position, size);
+        return this;
+    }
+
+    /** the local file */
+    Path getFile() {
+        return file;
+    }
+
+    /** @return the size of the local file, -1 when not dirty or deleted, doesn't wait for an upload */
+    public long getDirtySize() throws IOException {
+        return open && dirty && !deleted ? local.size() : -1;
+    }
+
+    /** writes the whole local file to the backend if dirty and not deleted */
+    public synchronized void upload() throws IOException {
+        if (!open || !dirty || deleted) {
+            return;
+        }
+        long t = System.nanoTime();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long position = 0;
+        try (SeekableByteChannel channel = target.open(path)) {
+            int n;
+            while ((n = local.read(buffer, position)) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+                position += n;
+            }
+        } catch (IOException e) {
+            pool.failed();
+            throw e;
+        }
+        dirty = false;
+        pool.uploaded(position, System.nanoTime() - t);
+        uploaded.accept(path);
+logger.log(Level.DEBUG, "spool uploaded: " + path + ", " + position + " bytes in " + (System.nanoTime() - t) / 1_000_000 + " ms");
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * uploads if dirty and not deleted, then deletes the local file.
+     * when uploading failed, the spool stays open and keeps the local file for a retry.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        upload();
+        discard();
+    }
+
+    /**
+     * moves the local file into the directory without uploading, e.g. for a failed upload.
+     * @return the moved file, null when already closed
+     */
+    synchronized Path quarantine(Path directory) throws IOException {
+        if (!open) {
+            return null;
+        }
+        open = false;
+        try {
+            local.close();
+            Files.createDirectories(directory);
+            return Files.move(file, directory.resolve(file.getFileName()));
+        } finally {
+            pool.closed(this);
+        }
+    }
+
+    /** deletes the local file without uploading */
+    synchronized void discard() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        try {
+            local.close();
+        } finally {
+            Files.deleteIfExists(file);
+            pool.closed(this);
+        }
+    }
+}
@@ -0,0 +1,415 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import vavi.net.fuse.Fuse;
+
+import static java.lang.System.getLogger;
+
+
+/**
+ * SpoolPool. the directory and statistics of {@link Spool}s per mount.
+ * <p>
+ * other handles see spooled bytes after they are uploaded at fsync or release,
+ * getattr reports the size of a spool while it is dirty.
+ * <p>
+ * with upload threads, release queues a dirty spool and returns, the queue is bounded and
+ * release waits when it is full. until the upload is committed, opens for read are served
+ * by the local copy, and opens for write, truncate, unlink and rename of the path wait for it.
+ * a failed upload is retried, then the local copy is moved to the quarantine directory under
+ * the spool directory. close drains the queue until the deadline, uploads spools still open
+ * and deletes their local copies.
+ * <p>
+ * a release which failed to upload keeps the spool open with its local copy, close retries it
+ * and quarantines it when it fails again. quarantined files are never deleted by this pool.
+ * spools still open when the file or a parent directory is renamed follow the new path,
+ * those of a deleted file or directory are not uploaded, so the deleted file doesn't come back.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see Fuse#ENV_SPOOL
+ * @see Fuse#ENV_SPOOL_UPLOAD_THREADS
+ * @see Fuse#ENV_SPOOL_UPLOAD_QUEUE
+ */
+public class SpoolPool implements Closeable {
+
+    private static final Logger logger = getLogger(SpoolPool.class.getName());
+
+    /** */
+    public static final int DEFAULT_UPLOAD_QUEUE = 16;
+
+    /** attempts of a queued upload */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /** milliseconds, multiplied by the attempt */
+    private static final long RETRY_DELAY = 500;
+
+    /** milliseconds to wait for queued uploads at close, then they are interrupted and quarantined */
+    public static final long DEFAULT_CLOSE_TIMEOUT = 60000;
+
+    /** a directory under the spool directory */
+    public static final String QUARANTINE = "spool-quarantine";
+
+    /** null when disabled */
+    private final Path directory;
+
+    /** open spools */
+    private final Set<Spool> spools = ConcurrentHashMap.newKeySet();
+
+    /** null when uploads are done by release */
+    private final ExecutorService uploader;
+
+    /** milliseconds */
+    private final long closeTimeout;
+
+    /** permits of the upload queue */
+    private final Semaphore queue;
+
+    /** released spools queued or uploading, guarded by itself for waiting */
+    private final Set<Spool> pending = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder spooledBytes = new LongAdder();
+    private final LongAdder uploads = new LongAdder();
+    private final LongAdder uploadedBytes = new LongAdder();
+    private final LongAdder uploadNanos = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder quarantines = new LongAdder();
+
+    /** @param directory of local files, null means disabled */
+    public SpoolPool(Path directory) {
+        this(directory, 0, 0);
+    }
+
+    /**
+     * @param directory of local files, null means disabled
+     * @param threads of background uploads, 0 means release uploads
+     * @param depth max spools queued or uploading
+     */
+    public SpoolPool(Path directory, int threads, int depth) {
+        this(directory, threads, depth, DEFAULT_CLOSE_TIMEOUT);
+    }
+
+    /**
+     * @param directory of local files, null means disabled
+     * @param threads of background uploads, 0 means release uploads
+     * @param depth max spools queued or uploading
+     * @param closeTimeout milliseconds to wait for queued uploads at close
+     */
+    public SpoolPool(Path directory, int threads, int depth, long closeTimeout) {
+        this.directory = directory;
+        this.closeTimeout = closeTimeout;
+        if (directory != null && threads > 0) {
+            AtomicInteger count = new AtomicInteger();
+            this.uploader = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "spool-upload-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.queue = new Semaphore(Math.max(threads, depth));
+        } else {
+            this.uploader = null;
+            this.queue = null;
+        }
+    }
+
+    /** creates a pool from mount env, the value is a directory or null for the temporary directory */
+    public static SpoolPool of(Map<String, Object> env) {
+        if (!env.containsKey(Fuse.ENV_SPOOL)) {
+            return new SpoolPool(null);
+        }
+        Object value = env.get(Fuse.ENV_SPOOL);
+        int threads = (int) Fuse.getLong(Fuse.ENV_SPOOL_UPLOAD_THREADS, env, 0);
+        int depth = (int) Fuse.getLong(Fuse.ENV_SPOOL_UPLOAD_QUEUE, env, DEFAULT_UPLOAD_QUEUE);
+        if (value == null || Boolean.TRUE.equals(value)) {
+            return new SpoolPool(Paths.get(System.getProperty("java.io.tmpdir")), threads, depth);
+        } else if (Boolean.FALSE.equals(value)) {
+            return new SpoolPool(null);
+        } else {
+            return new SpoolPool(Paths.get(value.toString()), threads, depth);
+        }
+    }
+
+    /** */
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * @param path fuse path
+     * @param source reads the existing content at the first access, null for an empty file
+     * @param target a backend channel written from the start, e.g. opened with truncation
+     * @param uploaded called with the path after bytes are written to the backend, e.g. invalidating caches
+     */
+    public Spool newSpool(String path, Spool.Opener source, Spool.Opener target, Consumer<String> uploaded) throws IOException {
+        Files.createDirectories(directory);
+        Path file = Files.createTempFile(directory, "spool", ".tmp");
+        try {
+            Spool spool = new Spool(path, this, file, source, target, uploaded);
+            spools.add(spool);
+            return spool;
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /** @return true when release returns before uploading */
+    public boolean isAsync() {
+        return uploader != null;
+    }
+
+    /** closes a spool of a released handle, a dirty one is uploaded in the background when {@link #isAsync()} */
+    public void release(Spool spool) throws IOException {
+        if (uploader == null || spool.getDirtySize() < 0) {
+            spool.close();
+            return;
+        }
+        try {
+            queue.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        pending.add(spool);
+        uploader.execute(() -> {
+            try {
+                commit(spool);
+            } finally {
+                synchronized (pending) {
+                    pending.remove(spool);
+                    pending.notifyAll();
+                }
+                queue.release();
+            }
+        });
+    }
+
+    /** uploads with retries and deletes the local copy, quarantines it when all attempts failed */
+    private void commit(Spool spool) {
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    spool.close();
+                    return;
+                } catch (IOException e) {
+                    if (attempt == MAX_ATTEMPTS) {
+                        quarantine(spool, "upload failed: " + e);
+                        return;
+                    }
+logger.log(Level.WARNING, "upload failed, retry " + attempt + ": " + spool.getPath() + ": " + e);
+                    Thread.sleep(RETRY_DELAY * attempt);
+                }
+            }
+        } catch (InterruptedException e) {
+            quarantine(spool, "upload interrupted");
+        }
+    }
+
+    /** moves the local copy under the quarantine directory, it is left in place when moving failed */
+    private void quarantine(Spool spool, String reason) {
+        try {
+            Path file = spool.quarantine(directory.resolve(QUARANTINE));
+            if (file != null) {
+                quarantines.increment();
+logger.log(Level.ERROR, reason + ", quarantined: " + spool.getPath() + " -> " + file);
+            }
+        } catch (IOException e) {
+logger.log(Level.ERROR, reason + ", quarantine failed, left: " + spool.getPath() + " -> " + spool.getFile() + ": " + e);
+        }
+    }
+
+    /** @return the path is the base or a descendant of it */
+    private static boolean isUnder(String path, String base) {
+        return path.equals(base) || path.startsWith(base.endsWith("/") ? base : base + "/");
+    }
+
+    /** waits for queued uploads of the path and its descendants */
+    public void await(String path) throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        synchronized (pending) {
+            while (pending.stream().anyMatch(spool -> isUnder(spool.getPath(), path))) {
+                try {
+                    pending.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+    }
+
+    /**
+     * moves open spools of the path and its descendants to the new path, call after the backend is renamed.
+     * queued uploads should be waited by {@link #await(String)} before the rename.
+     */
+    public void rename(String path, String newName) {
+        if (spools.isEmpty()) {
+            return;
+        }
+        for (Spool spool : spools) {
+            String p = spool.getPath();
+            if (isUnder(p, path)) {
+                spool.moved(newName + p.substring(path.length()));
+            }
+        }
+    }
+
+    /**
+     * marks open spools of the path and its descendants as deleted, call after the backend is deleted.
+     * queued uploads should be waited by {@link #await(String)} before the deletion.
+     */
+    public void deleted(String path) {
+        if (spools.isEmpty()) {
+            return;
+        }
+        for (Spool spool : spools) {
+            if (isUnder(spool.getPath(), path)) {
+                spool.deleted();
+            }
+        }
+    }
+
+    /** @return a read only channel of the local copy of the path waiting for upload, null when none */
+    public FileChannel openPending(String path) throws IOException {
+        if (pending.isEmpty()) {
+            return null;
+        }
+        for (Spool spool : pending) {
+            if (spool.getPath().equals(path)) {
+                try {
+                    // stays readable after the upload deletes it
+                    return FileChannel.open(spool.getFile(), StandardOpenOption.READ);
+                } catch (NoSuchFileException e) {
+logger.log(Level.DEBUG, "uploaded while opening: " + path);
+                }
+            }
+        }
+        return null;
+    }
+
+    /** @return the size of dirty spools of the path, -1 when none */
+    public long getSize(String path) {
+        long size = -1;
+        if (spools.isEmpty()) {
+            return size;
+        }
+        for (Spool spool : spools) {
+            if (spool.getPath().equals(path)) {
+                try {
+                    size = Math.max(size, spool.getDirtySize());
+                } catch (IOException e) {
+logger.log(Level.DEBUG, "spool size: " + path + ": " + e);
+                }
+            }
+        }
+        return size;
+    }
+
+    /** */
+    void spooled(int bytes) {
+        spooledBytes.add(bytes);
+    }
+
+    /** */
+    void uploaded(long bytes, long nanos) {
+        uploads.increment();
+        uploadedBytes.add(bytes);
+        uploadNanos.add(nanos);
+    }
+
+    /** */
+    void failed() {
+        failures.increment();
+    }
+
+    /** */
+    void closed(Spool spool) {
+        spools.remove(spool);
+    }
+
+    /** puts statistics into the map with keys prefixed by {@code prefix} */
+    public void putStatistics(Map<String, Object> statistics, String prefix) {
+        statistics.put(prefix + ".open", spools.size());
+        statistics.put(prefix + ".queued", pending.size());
+        statistics.put(prefix + ".spooledBytes", spooledBytes.sum());
+        statistics.put(prefix + ".uploads", uploads.sum());
+        statistics.put(prefix + ".uploadedBytes", uploadedBytes.sum());
+        long nanos = uploadNanos.sum();
+        statistics.put(prefix + ".uploadBytesPerSecond", nanos == 0 ? 0 : uploadedBytes.sum() * 1_000_000_000L / nanos);
+        statistics.put(prefix + ".failures", failures.sum());
+        statistics.put(prefix + ".quarantined", quarantines.sum());
+    }
+
+    /**
+     * drains the upload queue until the close timeout, then interrupts uploads left, they are quarantined.
+     * spools still open are uploaded and deleted, or quarantined when uploading failed, e.g. at unmount.
+     */
+    @Override
+    public void close() {
+        if (uploader != null) {
+            uploader.shutdown();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(closeTimeout);
+            try {
+                long remaining;
+                while ((remaining = deadline - System.nanoTime()) > 0 &&
+                       !uploader.awaitTermination(Math.min(remaining, TimeUnit.SECONDS.toNanos(10)), TimeUnit.NANOSECONDS)) {
+logger.log(Level.INFO, "waiting for uploads: " + pending.size());
+                }
+                if (!uploader.isTerminated()) {
+logger.log(Level.WARNING, "uploads timed out, interrupted: " + pending.size());
+                    uploader.shutdownNow();
+                    uploader.awaitTermination(RETRY_DELAY, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                uploader.shutdownNow();
+logger.log(Level.WARNING, "interrupted, uploads left: " + pending.size());
+            }
+        }
+        for (Spool spool : spools) {
+            if (pending.contains(spool) && !uploader.isTerminated()) {
+                // an upload which ignored the interruption holds the spool, the local copy is left
+logger.log(Level.ERROR, "upload is not finished, left: " + spool.getPath() + " -> " + spool.getFile());
+                continue;
+            }
+            try {
+                spool.close();
+            } catch (IOException e) {
+                quarantine(spool, "upload on close failed: " + e);
+            }
+        }
+        // uploads dropped by the interruption
+        synchronized (pending) {
+            pending.removeIf(spool -> !spool.isOpen());
+            pending.notifyAll();
+        }
+    }
+}
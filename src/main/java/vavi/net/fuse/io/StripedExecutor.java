@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import vavi.net.fuse.Fuse;
+
+
+/**
+ * StripedExecutor. runs callbacks on lanes chosen by hashing the path.
+ * <p>
+ * each lane is a single thread, so callbacks of the same path are executed one by one
+ * in arrival order, and callbacks of unrelated paths proceed in parallel on other lanes.
+ * a callback of two paths (e.g. rename) holds both lanes, they are taken in lane order
+ * so that it doesn't deadlock. the caller runs it as on the lanes while holding them.
+ * <p>
+ * ordering is per path, a directory and its children may be on different lanes.
+ * a callback called from a running callback (e.g. fgetattr calls getattr) runs inline,
+ * it is already ordered by the outer one and waiting for a lane there would deadlock.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see Fuse#ENV_STRIPED_LANES
+ */
+public class StripedExecutor implements Closeable {
+
+    /** */
+    private final ThreadPoolExecutor[] lanes;
+
+    /** non null on lane threads and callers holding lanes */
+    private final ThreadLocal<Boolean> onLane = new ThreadLocal<>();
+
+    private final LongAdder dispatches = new LongAdder();
+    private final LongAdder holds = new LongAdder();
+
+    /** @param lanes number of lanes */
+    public StripedExecutor(int lanes) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("lanes: " + lanes);
+        }
+        this.lanes = new ThreadPoolExecutor[lanes];
+        for (int i = 0; i < lanes; i++) {
+            String name = "fuse-lane-" + i;
+            this.lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(() -> {
+                    onLane.set(Boolean.TRUE);
+                    r.run();
+                }, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /** @return the lane index of the path */
+    public int lane(String path) {
+        int h = path.hashCode();
+        h ^= h >>> 16;
+        return Math.floorMod(h, lanes.length);
+    }
+
+    /**
+     * runs the callback on the lane of the path and waits for it.
+     * @throws IllegalStateException when interrupted or the callback threw
+     */
+    public int execute(String path, IntSupplier callback) {
+        if (onLane.get() != null) {
+            return callback.getAsInt();
+        }
+        dispatches.increment();
+        Future<Integer> f = lanes[lane(path)].submit(callback::getAsInt);
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * runs the callback in the caller thread while holding the lanes of both paths,
+     * callbacks called from it run inline.
+     * @throws IllegalStateException when interrupted
+     */
+    public int execute(String path1, String path2, IntSupplier callback) {
+        if (onLane.get() != null) {
+            return callback.getAsInt();
+        }
+        int lane1 = lane(path1);
+        int lane2 = lane(path2);
+        if (lane1 == lane2) {
+            return execute(path1, callback);
+        }
+        dispatches.increment();
+        holds.increment();
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            hold(Math.min(lane1, lane2), done);
+            hold(Math.max(lane1, lane2), done);
+            onLane.set(Boolean.TRUE);
+            try {
+                return callback.getAsInt();
+            } finally {
+                onLane.remove();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            done.countDown();
+        }
+    }
+
+    /** blocks the lane until done, returns when the lane is held */
+    private void hold(int lane, CountDownLatch done) throws InterruptedException {
+        CountDownLatch held = new CountDownLatch(1);
+        lanes[lane].execute(() -> {
+            held.countDown();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        held.await();
+    }
+
+    /** number of lanes */
+    public int getLanes() {
+        return lanes.length;
+    }
+
+    /** @return callbacks waiting on the lane, not including the running one */
+    public int getQueueDepth(int lane) {
+        return lanes[lane].getQueue().size();
+    }
+
+    /** puts statistics into the map with keys prefixed by {@code prefix} */
+    public void putStatistics(Map<String, Object> statistics, String prefix) {
+        statistics.put(prefix + ".lanes", lanes.length);
+        statistics.put(prefix + ".dispatches", dispatches.sum());
+        statistics.put(prefix + ".holds", holds.sum());
+        for (int i = 0; i < lanes.length; i++) {
+            statistics.put(prefix + ".lane." + i + ".depth", getQueueDepth(i));
+        }
+    }
+
+    /** */
+    @Override
+    public void close() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+}
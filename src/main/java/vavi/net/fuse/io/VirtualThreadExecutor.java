@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.io.Closeable;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import vavi.net.fuse.Fuse;
+
+import static java.lang.System.getLogger;
+
+
+/**
+ * VirtualThreadExecutor. runs callbacks on virtual threads, bounded by a semaphore per operation.
+ * <p>
+ * virtual threads are available on jdk 21+, they are created by reflection because this library
+ * is built for an older release. on older runtimes a cached thread pool is used instead.
+ * a callback waits for a permit of its operation on its own thread, so waiting doesn't pin
+ * a platform thread. a callback called from a running callback (e.g. fgetattr calls getattr) runs inline.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see Fuse#ENV_VIRTUAL_THREADS
+ * @see Fuse#ENV_VIRTUAL_THREADS_PERMITS
+ */
+public class VirtualThreadExecutor implements Closeable {
+
+    private static final Logger logger = getLogger(VirtualThreadExecutor.class.getName());
+
+    /** */
+    private final ExecutorService executor;
+
+    /** */
+    private final boolean virtual;
+
+    /** max in flight callbacks per operation */
+    private final int permits;
+
+    /** non null on a thread running a callback */
+    private final ThreadLocal<Boolean> inCallback = new ThreadLocal<>();
+
+    /** key is an operation */
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    /** */
+    private final class Operation {
+        final Semaphore semaphore = new Semaphore(permits);
+        final LongAdder calls = new LongAdder();
+        final LongAdder waits = new LongAdder();
+    }
+
+    /** @param permits max in flight callbacks per operation */
+    public VirtualThreadExecutor(int permits) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("permits: " + permits);
+        }
+        this.permits = permits;
+        ExecutorService executor;
+        boolean virtual;
+        try {
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            virtual = true;
+        } catch (ReflectiveOperationException e) {
+logger.log(Level.WARNING, "virtual threads are not available, use platform threads: " + e);
+            executor = Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "fuse-callback");
+                thread.setDaemon(true);
+                return thread;
+            });
+            virtual = false;
+        }
+        this.executor = executor;
+        this.virtual = virtual;
+    }
+
+    /** @return false when platform threads are used */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * runs the callback on a new thread after getting a permit of the operation, and waits for it.
+     * @param operation e.g. "read", permits are counted per operation
+     * @throws IllegalStateException when interrupted or the callback threw
+     */
+    public int execute(String operation, IntSupplier callback) {
+        if (inCallback.get() != null) {
+            return callback.getAsInt();
+        }
+        Operation op = operations.computeIfAbsent(operation, k -> new Operation());
+        op.calls.increment();
+        Future<Integer> f = executor.submit(() -> {
+            if (!op.semaphore.tryAcquire()) {
+                op.waits.increment();
+                op.semaphore.acquire();
+            }
+            inCallback.set(Boolean.TRUE);
+            try {
+                return callback.getAsInt();
+            } finally {
+                inCallback.remove();
+                op.semaphore.release();
+            }
+        });
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            f.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** @return callbacks running or waiting for a permit of the operation */
+    public int getInFlight(String operation) {
+        Operation op = operations.get(operation);
+        return op != null ? permits - op.semaphore.availablePermits() + op.semaphore.getQueueLength() : 0;
+    }
+
+    /** puts statistics into the map with keys prefixed by {@code prefix} */
+    public void putStatistics(Map<String, Object> statistics, String prefix) {
+        statistics.put(prefix + ".virtual", virtual);
+        statistics.put(prefix + ".permits", permits);
+        new TreeMap<>(operations).forEach((name, op) -> {
+            statistics.put(prefix + "." + name + ".calls", op.calls.sum());
+            statistics.put(prefix + "." + name + ".waits", op.waits.sum());
+            statistics.put(prefix + "." + name + ".inflight", getInFlight(name));
+        });
+    }
+
+    /** */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+
+import static java.lang.System.getLogger;
+
+
+/**
+ * WriteBack. coalesces contiguous writes of a file handle and writes them to the backend at once.
+ * <p>
+ * buffered bytes are written when the buffer is full, a write is not contiguous,
+ * {@link #flush()} is called (fuse flush, fsync and release) or they are older than the max age.
+ * when the dirty bytes of the mount exceed the cap, the write goes to the backend directly.
+ * <p>
+ * an error of a background flush is reported by the next {@link #write} or {@link #flush()}.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see WriteBackPool
+ */
+public class WriteBack {
+
+    private static final Logger logger = getLogger(WriteBack.class.getName());
+
+    /** fuse path */
+    private final String path;
+
+    /** the handle's channel */
+    private final SeekableByteChannel channel;
+
+    /** called after buffered bytes are written to the backend */
+    private final Runnable flushed;
+
+    /** */
+    private final WriteBackPool pool;
+
+    // following are guarded by this
+
+    /** lazily allocated */
+    private ByteBuffer buffer;
+
+    /** file position of the buffer */
+    private long start;
+
+    /** nano time of the first buffered write */
+    private long dirtySince;
+
+    /** an error of a background flush */
+    private IOException pending;
+
+    /** */
+    WriteBack(String path, SeekableByteChannel channel, Runnable flushed, WriteBackPool pool) {
+        this.path = path;
+        this.channel = channel;
+        this.flushed = flushed;
+        this.pool = pool;
+    }
+
+    /** */
+    String getPath() {
+        return path;
+    }
+
+    /**
+     * @param src all remaining bytes are written or buffered
+     * @param offset file position
+     * @return bytes accepted
+     */
+    public synchronized int write(ByteBuffer src, long offset) throws IOException {
+        throwPending();
+        int total = src.remaining();
+        pool.written();
+        if (isDirty() && offset != start + buffer.position()) {
+logger.log(Level.TRACE, "not contiguous: " + offset + ", expected: " + (start + buffer.position()));
+            flushInternal();
+        }
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(pool.getBufferSize());
+        }
+        while (src.hasRemaining()) {
+            long position = offset + total - src.remaining();
+            int n = Math.min(src.remaining(), buffer.remaining());
+            if (!pool.reserve(n)) {
+                if (isDirty()) {
+                    flushInternal();
+                    continue;
+                }
+                // over the cap of the mount, write through
+                pool.throttled();
+                ChannelUtil.write(channel, src, position, pool.isRecorded());
+                flushed.run();
+                break;
+            }
+            if (!isDirty()) {
+                start = position;
+                dirtySince = System.nanoTime();
+                pool.dirty(this);
+            }
+            ByteBuffer slice = src.duplicate();
+            slice.limit(slice.position() + n);
+            buffer.put(slice);
+            src.position(src.position() + n);
+            if (!buffer.hasRemaining()) {
+                flushInternal();
+            }
+        }
+        return total;
+    }
+
+    /** guarded by this */
+    private boolean isDirty() {
+        return buffer != null && buffer.position() > 0;
+    }
+
+    /** @return end of buffered bytes in the file, -1 when not dirty */
+    public synchronized long getDirtyEnd() {
+        return isDirty() ? start + buffer.position() : -1;
+    }
+
+    /** writes buffered bytes to the backend */
+    public synchronized void flush() throws IOException {
+        throwPending();
+        flushInternal();
+    }
+
+    /** flushes when buffered bytes are older than the max age, called by the pool */
+    synchronized void expire(long now, long maxAge) {
+        if (isDirty() && now - dirtySince >= maxAge) {
+            try {
+logger.log(Level.TRACE, "expired: " + path);
+                flushInternal();
+            } catch (IOException e) {
+logger.log(Level.WARNING, "background flush: " + path + ": " + e);
+                pending = e;
+            }
+        }
+    }
+
+    /** guarded by this */
+    private void flushInternal() throws IOException {
+        if (!isDirty()) {
+            return;
+        }
+        int n = buffer.position();
+        buffer.flip();
+        try {
+            ChannelUtil.write(channel, buffer, start, pool.isRecorded());
+            pool.flushed(n);
+        } finally {
+            buffer.clear();
+            pool.clean(this, n);
+            flushed.run();
+        }
+    }
+
+    /** guarded by this */
+    private void throwPending() throws IOException {
+        if (pending != null) {
+            IOException e = pending;
+            pending = null;
+            throw e;
+        }
+    }
+
+    /** flushes buffered bytes and detaches from the pool, the channel is not closed */
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            pool.clean(this, 0);
+            buffer = null;
+        }
+    }
+}
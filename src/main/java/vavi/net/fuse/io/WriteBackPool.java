@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import vavi.net.fuse.Fuse;
+
+import static java.lang.System.getLogger;
+
+
+/**
+ * WriteBackPool. configuration, the dirty bytes cap and the max age flusher of {@link WriteBack}s per mount.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see Fuse#ENV_WRITE_BACK
+ * @see Fuse#ENV_WRITE_BACK_BUFFER_SIZE
+ * @see Fuse#ENV_WRITE_BACK_MAX_DIRTY
+ * @see Fuse#ENV_WRITE_BACK_MAX_AGE
+ */
+public class WriteBackPool implements Closeable {
+
+    private static final Logger logger = getLogger(WriteBackPool.class.getName());
+
+    /** */
+    public static final int DEFAULT_BUFFER_SIZE = 0x100000;
+
+    /** */
+    public static final long DEFAULT_MAX_DIRTY = 0x4000000;
+
+    /** milliseconds */
+    public static final long DEFAULT_MAX_AGE = 1000;
+
+    /** */
+    private final boolean enabled;
+
+    /** */
+    private final int bufferSize;
+
+    /** */
+    private final long maxDirty;
+
+    /** nano seconds */
+    private final long maxAge;
+
+    /** */
+    private final boolean recorded;
+
+    /** null when disabled */
+    private final ScheduledExecutorService flusher;
+
+    /** */
+    private final AtomicLong dirtyBytes = new AtomicLong();
+
+    /** write-backs which have buffered bytes */
+    private final Set<WriteBack> dirties = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedBytes = new LongAdder();
+    private final LongAdder throttles = new LongAdder();
+
+    /**
+     * @param bufferSize coalescing buffer bytes per file handle, 0 means disabled
+     * @param maxDirty max buffered bytes of the mount
+     * @param maxAge max age of buffered bytes in milliseconds
+     * @param recorded writes to the backend are recorded as jfr events
+     */
+    public WriteBackPool(int bufferSize, long maxDirty, long maxAge, boolean recorded) {
+        this.enabled = bufferSize > 0 && maxDirty > 0;
+        this.recorded = recorded;
+        this.bufferSize = bufferSize;
+        this.maxDirty = maxDirty;
+        this.maxAge = TimeUnit.MILLISECONDS.toNanos(maxAge);
+        if (enabled && maxAge > 0) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "writeback");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(1, maxAge / 2);
+            flusher.scheduleWithFixedDelay(this::expire, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /** creates a pool from mount env */
+    public static WriteBackPool of(Map<String, Object> env) {
+        int bufferSize = Fuse.isEnabled(Fuse.ENV_WRITE_BACK, env) ? (int) Fuse.getLong(Fuse.ENV_WRITE_BACK_BUFFER_SIZE, env, DEFAULT_BUFFER_SIZE) : 0;
+        long maxDirty = Fuse.getLong(Fuse.ENV_WRITE_BACK_MAX_DIRTY, env, DEFAULT_MAX_DIRTY);
+        long maxAge = Fuse.getLong(Fuse.ENV_WRITE_BACK_MAX_AGE, env, DEFAULT_MAX_AGE);
+        return new WriteBackPool(bufferSize, maxDirty, maxAge, Fuse.isEnabled(Fuse.ENV_JFR, env));
+    }
+
+    /** */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param path fuse path
+     * @param channel a writable channel of the file handle
+     * @param flushed called after bytes are written to the backend, e.g. invalidating caches
+     */
+    public WriteBack newWriteBack(String path, SeekableByteChannel channel, Runnable flushed) {
+        return new WriteBack(path, channel, flushed, this);
+    }
+
+    /** writes to the backend are recorded as jfr events */
+    boolean isRecorded() {
+        return recorded;
+    }
+
+    /** */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /** @return end of buffered bytes of the path, -1 when not dirty */
+    public long getDirtyEnd(String path) {
+        long end = -1;
+        if (dirties.isEmpty()) {
+            return end;
+        }
+        for (WriteBack writeBack : dirties) {
+            if (writeBack.getPath().equals(path)) {
+                end = Math.max(end, writeBack.getDirtyEnd());
+            }
+        }
+        return end;
+    }
+
+    /** writes buffered bytes of the path to the backend, for reading after writing by an other handle */
+    public void flush(String path) throws IOException {
+        if (dirties.isEmpty()) {
+            return;
+        }
+        for (WriteBack writeBack : dirties) {
+            if (writeBack.getPath().equals(path)) {
+                writeBack.flush();
+            }
+        }
+    }
+
+    /** @return false when the bytes exceed the cap */
+    boolean reserve(int bytes) {
+        while (true) {
+            long current = dirtyBytes.get();
+            if (current + bytes > maxDirty) {
+                return false;
+            }
+            if (dirtyBytes.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    /** */
+    void dirty(WriteBack writeBack) {
+        dirties.add(writeBack);
+    }
+
+    /** @param bytes reserved bytes to release */
+    void clean(WriteBack writeBack, int bytes) {
+        dirties.remove(writeBack);
+        dirtyBytes.addAndGet(-bytes);
+    }
+
+    /** */
+    void written() {
+        writes.increment();
+    }
+
+    /** */
+    void flushed(int bytes) {
+        flushes.increment();
+        flushedBytes.add(bytes);
+    }
+
+    /** */
+    void throttled() {
+        throttles.increment();
+    }
+
+    /** */
+    private void expire() {
+        long now = System.nanoTime();
+        for (WriteBack writeBack : dirties) {
+            writeBack.expire(now, maxAge);
+        }
+    }
+
+    /** puts statistics into the map with keys prefixed by {@code prefix} */
+    public void putStatistics(Map<String, Object> statistics, String prefix) {
+        statistics.put(prefix + ".dirtyBytes", dirtyBytes.get());
+        statistics.put(prefix + ".writes", writes.sum());
+        statistics.put(prefix + ".flushes", flushes.sum());
+        statistics.put(prefix + ".flushedBytes", flushedBytes.sum());
+        statistics.put(prefix + ".throttles", throttles.sum());
+    }
+
+    /** flushes all buffered bytes */
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        for (WriteBack writeBack : dirties) {
+            try {
+                writeBack.flush();
+            } catch (IOException e) {
+logger.log(Level.WARNING, "flush on close: " + writeBack.getPath() + ": " + e);
+            }
+        }
+    }
+}
@@ -15,6 +15,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import vavi.net.fuse.Fuse;
+import vavi.net.fuse.MountOptions;
 
 import co.paralleluniverse.javafs.JavaFS;
 
@@ -55,13 +56,24 @@ public class JavaFSFuse implements Fuse {
             }
             env_ = new HashMap<>();
             for (Map.Entry<String, Object> e : env.entrySet()) {
+                // not libfuse options
+                if (e.getKey().equals(ENV_MOUNT_OPTIONS) || e.getKey().equals(ENV_NO_SHUTDOWN_HOOK) ||
+                        !(e.getValue() == null || e.getValue() instanceof String || e.getValue() instanceof Number || e.getValue() instanceof Boolean)) {
+                    continue;
+                }
                 env_.put(e.getKey(), e.getValue() == null ? null : String.valueOf(e.getValue()));
             }
+            MountOptions options = MountOptions.of(env);
+            if (options != null) {
+                env_.putAll(options.toOptions());
+            }
         }
 //logger.log(Level.INFO, "debug: " + debug);
 //logger.log(Level.INFO, "readonly: " + debug);
         JavaFS.mount(fs, Paths.get(mountPoint), readOnly, debug, env_);
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> { try { close(); } catch (IOException e) { e.printStackTrace(); }}));
+        if (env == null || !Fuse.isEnabled(ENV_NO_SHUTDOWN_HOOK, env)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> { try { close(); } catch (IOException e) { e.printStackTrace(); }}));
+        }
     }
 
     @Override
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * BackendEvent. a jfr event of time spent in the backend file system, nested in a fuse event
+ * of the same thread.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+@Name("vavi.net.fuse.Backend")
+@Label("FUSE Backend")
+@Category("FUSE")
+@StackTrace(false)
+public class BackendEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Path")
+    String path;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    /**
+     * ends and commits the event if it is recorded.
+     * @param path nullable
+     * @param bytes bytes moved, 0 for metadata
+     */
+    public void complete(String operation, Object path, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.path = path != null ? path.toString() : null;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
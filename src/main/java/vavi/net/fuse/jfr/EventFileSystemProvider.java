@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.jfr;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AccessMode;
+import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * EventFileSystemProvider. emits a {@link BackendEvent} for each call to the wrapped provider.
+ * <p>
+ * paths are of the wrapped provider, and returned channels and streams are not wrapped,
+ * i/o through channels is recorded by {@link vavi.net.fuse.io.ChannelUtil}.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+public class EventFileSystemProvider extends FileSystemProvider {
+
+    /** */
+    private final FileSystemProvider provider;
+
+    /** */
+    public EventFileSystemProvider(FileSystemProvider provider) {
+        this.provider = provider;
+    }
+
+    @Override
+    public String getScheme() {
+        return provider.getScheme();
+    }
+
+    @Override
+    public FileSystem newFileSystem(URI uri, Map<String, ?> env) throws IOException {
+        return provider.newFileSystem(uri, env);
+    }
+
+    @Override
+    public FileSystem getFileSystem(URI uri) {
+        return provider.getFileSystem(uri);
+    }
+
+    @Override
+    public Path getPath(URI uri) {
+        return provider.getPath(uri);
+    }
+
+    @Override
+    public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+        BackendEvent event = FuseEvents.startBackend();
+        try {
+            return provider.newByteChannel(path, options, attrs);
+        } finally {
+            event.complete("newByteChannel", path, 0);
+        }
+    }
+
+    @Override
+    public FileChannel newFileChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+        BackendEvent event = FuseEvents.startBackend();
+        try {
+            return provider.newFileChannel(path, options, attrs);
+        } finally {
+            event.complete("newFileChannel", path, 0);
+        }
+    }
+
+    @Override
+    public DirectoryStream<Path> newDirectoryStream(Path dir, DirectoryStream.Filter<? super Path> filter) throws IOException {
+        BackendEvent event = FuseEvents.startBackend();
+        try {
+            return provider.newDirectoryStream(dir, filter);
+        } finally {
+            event.complete("newDirectoryStream", dir, 0);
+        }
+    }
+
+    @Override
+    public void createDirectory(Path dir, FileAttribute<?>... attrs) throws IOException {
+        BackendEvent event = FuseEvents.startBackend();
+        try {
+            provider.createDirectory(dir, attrs);
+        } finally {
+            event.complete("createDirectory", dir, 0);
+        }
+    }
+
+    @Override
+    public void delete(Path path) throws IOException {
+        BackendEvent event = FuseEvents.startBackend();
+        try {
+            provider.delete(path);
+        } finally {
+            event.complete("delete", path, 0);
+        }
+    }
+
+    @Override
+    public void copy(Path source, Path target, CopyOption... options) throws IOException {
+        BackendEvent event = FuseEvents.startBackend();
+        try {
+            provider.copy(source, target, options);
+        } finally {
+            event.complete("copy", source, 0);
+        }
+    }
+
+    @Override
+    public void move(Path source, Path target, CopyOption... options) throws IOException {
+        BackendEvent event = FuseEvents.startBackend();
+        try {
+            provider.move(source, target, options);
+        } finally {
+            event.complete("move", source, 0);
+        }
+    }
+
+    @Override
+    public boolean isSameFile(Path path, Path path2) throws IOException {
+        return provider.isSameFile(path, path2);
+    }
+
+    @Override
+    public boolean isHidden(Path path) throws IOException {
+        return provider.isHidden(path);
+    }
+
+    @Override
+    public FileStore getFileStore(Path path) throws IOException {
+        BackendEvent event = FuseEvents.startBackend();
+        try {
+            return provider.getFileStore(path);
+        } finally {
+            event.complete("getFileStore", path, 0);
+        }
+    }
+
+    @Override
+    public void checkAccess(Path path, AccessMode... modes) throws IOException {
+        BackendEvent event = FuseEvents.startBackend();
+        try {
+            provider.checkAccess(path, modes);
+        } finally {
+            event.complete("checkAccess", path, 0);
+        }
+    }
+
+    @Override
+    public <V extends FileAttributeView> V getFileAttributeView(Path path, Class<V> type, LinkOption... options) {
+        return provider.getFileAttributeView(path, type, options);
+    }
+
+    @Override
+    public <A extends BasicFileAttributes> A readAttributes(Path path, Class<A> type, LinkOption... options) throws IOException {
+        BackendEvent event = FuseEvents.startBackend();
+        try {
+            return provider.readAttributes(path, type, options);
+        } finally {
+            event.complete("readAttributes", path, 0);
+        }
+    }
+
+    @Override
+    public Map<String, Object> readAttributes(Path path, String attributes, LinkOption... options) throws IOException {
+        BackendEvent event = FuseEvents.startBackend();
+        try {
+            return provider.readAttributes(path, attributes, options);
+        } finally {
+            event.complete("readAttributes", path, 0);
+        }
+    }
+
+    @Override
+    public void setAttribute(Path path, String attribute, Object value, LinkOption... options) throws IOException {
+        BackendEvent event = FuseEvents.startBackend();
+        try {
+            provider.setAttribute(path, attribute, value, options);
+        } finally {
+            event.complete("setAttribute", path, 0);
+        }
+    }
+}
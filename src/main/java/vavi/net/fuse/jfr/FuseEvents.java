@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.jfr;
+
+
+/**
+ * FuseEvents. starts jfr events.
+ * <p>
+ * event classes must not refer their subclasses, the jdk 17 jfr fails to instrument
+ * an event class which loads its subclasses while being verified, so factories are here.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see vavi.net.fuse.Fuse#ENV_JFR
+ */
+public final class FuseEvents {
+
+    private FuseEvents() {
+    }
+
+    /** @return a begun event of the fuse operation */
+    public static FuseOperationEvent start(String operation) {
+        FuseOperationEvent event;
+        switch (operation) {
+        case "getattr": event = new FuseGetattrEvent(); break;
+        case "readdir": event = new FuseReaddirEvent(); break;
+        case "open": event = new FuseOpenEvent(); break;
+        case "read": event = new FuseReadEvent(); break;
+        case "write": event = new FuseWriteEvent(); break;
+        case "release": event = new FuseReleaseEvent(); break;
+        default:
+            FuseOtherEvent other = new FuseOtherEvent();
+            other.operation = operation;
+            event = other;
+            break;
+        }
+        event.begin();
+        return event;
+    }
+
+    /** @return a begun event of a backend call */
+    public static BackendEvent startBackend() {
+        BackendEvent event = new BackendEvent();
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * FuseOperationEvent. a jfr event of a fuse callback.
+ * <p>
+ * usage
+ * <pre>
+ * FuseOperationEvent event = FuseEvents.start("read");
+ * int result = ...;
+ * event.complete(path, fh, offset, size, result);
+ * </pre>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see FuseEvents
+ */
+@Category("FUSE")
+@StackTrace(false)
+public abstract class FuseOperationEvent extends Event {
+
+    @Label("Path")
+    String path;
+
+    @Label("File Handle")
+    long fh;
+
+    @Label("Offset")
+    long offset;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+
+    @Label("Errno")
+    int errno;
+
+    /**
+     * ends and commits the event if it is recorded.
+     * @param result the result of the callback, a negative value is an errno
+     */
+    public void complete(String path, long fh, long offset, long size, int result) {
+        end();
+        if (shouldCommit()) {
+            this.path = path;
+            this.fh = fh;
+            this.offset = offset;
+            this.size = size;
+            this.errno = result < 0 ? -result : 0;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * FuseOtherEvent. a jfr event of fuse operations which don't have their own event.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+@Name("vavi.net.fuse.FuseOperation")
+@Label("FUSE Operation")
+class FuseOtherEvent extends FuseOperationEvent {
+
+    @Label("Operation")
+    String operation;
+}
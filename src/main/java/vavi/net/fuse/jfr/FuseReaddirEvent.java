@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * FuseReaddirEvent. a jfr event of fuse readdir.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+@Name("vavi.net.fuse.FuseReaddir")
+@Label("FUSE Readdir")
+class FuseReaddirEvent extends FuseOperationEvent {
+}
@@ -10,23 +10,28 @@ import java.io.IOException;
 import java.lang.System.Logger;
 import java.lang.System.Logger.Level;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
 import java.nio.channels.SeekableByteChannel;
-import java.nio.file.FileStore;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystem;
 import java.nio.file.LinkOption;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.OpenOption;
+import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.PosixFileAttributeView;
 import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import jnr.constants.platform.Errno;
 import jnr.ffi.Pointer;
@@ -40,6 +45,28 @@ import ru.serce.jnrfuse.struct.FileStat;
 import ru.serce.jnrfuse.struct.Flock;
 import ru.serce.jnrfuse.struct.FuseFileInfo;
 import ru.serce.jnrfuse.struct.Statvfs;
+import vavi.net.fuse.Fuse;
+import vavi.net.fuse.cache.AttributeCache;
+import vavi.net.fuse.cache.AttributePrefetcher;
+import vavi.net.fuse.cache.BlockCache;
+import vavi.net.fuse.cache.BlockCache.Loader;
+import vavi.net.fuse.cache.DirectoryCache;
+import vavi.net.fuse.cache.DiskBlockCache;
+import vavi.net.fuse.cache.NegativeCache;
+import vavi.net.fuse.cache.StatfsCache;
+import vavi.net.fuse.io.ChannelPool;
+import vavi.net.fuse.io.ChannelUtil;
+import vavi.net.fuse.io.FileHandle;
+import vavi.net.fuse.io.HandleTable;
+import vavi.net.fuse.io.OpenOptions;
+import vavi.net.fuse.io.ReadAhead;
+import vavi.net.fuse.io.ReadAheadPool;
+import vavi.net.fuse.io.SharedChannels;
+import vavi.net.fuse.io.Spool;
+import vavi.net.fuse.io.SpoolPool;
+import vavi.net.fuse.io.WriteBack;
+import vavi.net.fuse.io.WriteBackPool;
+import vavi.net.fuse.jfr.EventFileSystemProvider;
 import vavi.nio.file.Util;
 
 import static java.lang.System.getLogger;
@@ -55,29 +82,142 @@ class JavaNioFileFS extends FuseStubFS {
 
     private static final Logger logger = getLogger(JavaNioFileFS.class.getName());
 
-    private static final int BUFFER_SIZE = 0x10000;
-
     /** */
     private transient FileSystem fileSystem;
 
+    /** the provider of the file system, emits jfr events of backend calls when enabled */
+    private transient FileSystemProvider provider;
+
     /** key for env, no need to specify value */
     static final String ENV_IGNORE_APPLE_DOUBLE = "noappledouble";
 
-    /** */
-    private final AtomicLong fileHandle = new AtomicLong(0);
+    /** open files */
+    private final HandleTable<FileHandle> fileHandles = new HandleTable<>();
 
-    /** <file handle, channel> */
-    private static final ConcurrentMap<Long, SeekableByteChannel> fileHandles = new ConcurrentHashMap<>();
+    /** listing snapshots of open directories */
+    private final HandleTable<List<String>> dirHandles = new HandleTable<>();
 
     protected boolean ignoreAppleDouble;
 
+    /** getattr cache */
+    private final AttributeCache attributeCache;
+
+    /** getattr ENOENT cache */
+    private final NegativeCache negativeCache;
+
+    /** readdir cache */
+    private final DirectoryCache directoryCache;
+
+    /** readdir-plus */
+    private final AttributePrefetcher attributePrefetcher;
+
+    /** read data cache */
+    private final BlockCache blockCache;
+
+    /** read data cache on the local disk, under the block cache */
+    private final DiskBlockCache diskBlockCache;
+
+    /** read-ahead threads */
+    private final ReadAheadPool readAheadPool;
+
+    /** the read-ahead pool is shared by mounts */
+    private final boolean sharedReadAheadPool;
+
+    /** max backend channels per file handle */
+    private final int readChannels;
+
+    /** write-back buffering */
+    private final WriteBackPool writeBackPool;
+
+    /** local spools of writes */
+    private final SpoolPool spoolPool;
+
+    /** read only channels shared by opens of the same path */
+    private final SharedChannels sharedChannels;
+
+    /** read only opens don't open the backend until the first read */
+    private final boolean lazyOpen;
+
+    /** statfs cache */
+    private final StatfsCache statfsCache;
+
+    private final LongAdder lazyOpens = new LongAdder();
+    private final LongAdder untouchedOpens = new LongAdder();
+
     /**
      * @param fileSystem a file system to wrap by fuse
      */
     public JavaNioFileFS(FileSystem fileSystem, Map<String, Object> env) {
         this.fileSystem = fileSystem;
+        this.provider = Fuse.isEnabled(Fuse.ENV_JFR, env) ? new EventFileSystemProvider(fileSystem.provider()) : fileSystem.provider();
         ignoreAppleDouble = JnrFuseFuse.isEnabled(ENV_IGNORE_APPLE_DOUBLE, env);
 logger.log(Level.DEBUG, "ENV_IGNORE_APPLE_DOUBLE: " + ignoreAppleDouble);
+        attributeCache = AttributeCache.of(env);
+logger.log(Level.DEBUG, "attribute cache: " + attributeCache.isEnabled());
+        negativeCache = NegativeCache.of(env);
+logger.log(Level.DEBUG, "negative cache: " + negativeCache.isEnabled());
+        directoryCache = DirectoryCache.of(env);
+logger.log(Level.DEBUG, "directory cache: " + directoryCache.isEnabled());
+        attributePrefetcher = AttributePrefetcher.of(fileSystem, provider, attributeCache, env);
+logger.log(Level.DEBUG, "readdir plus: " + attributePrefetcher.isEnabled());
+        blockCache = BlockCache.of(env);
+logger.log(Level.DEBUG, "block cache: " + blockCache.isEnabled());
+        diskBlockCache = DiskBlockCache.of(env);
+logger.log(Level.DEBUG, "disk cache: " + diskBlockCache.isEnabled());
+        readAheadPool = ReadAheadPool.of(env);
+        sharedReadAheadPool = env.containsKey(Fuse.ENV_READ_AHEAD_POOL);
+logger.log(Level.DEBUG, "read ahead: " + readAheadPool.isEnabled());
+        readChannels = ChannelPool.maxChannels(env);
+logger.log(Level.DEBUG, "read channels: " + readChannels);
+        writeBackPool = WriteBackPool.of(env);
+logger.log(Level.DEBUG, "write back: " + writeBackPool.isEnabled());
+        spoolPool = SpoolPool.of(env);
+logger.log(Level.DEBUG, "spool: " + spoolPool.isEnabled());
+        sharedChannels = SharedChannels.of(env);
+logger.log(Level.DEBUG, "shared channels: " + sharedChannels.isEnabled());
+        lazyOpen = Fuse.isEnabled(Fuse.ENV_LAZY_OPEN, env);
+logger.log(Level.DEBUG, "lazy open: " + lazyOpen);
+        statfsCache = StatfsCache.of(fileSystem, env);
+logger.log(Level.DEBUG, "statfs cache: " + statfsCache.isEnabled());
+    }
+
+    /** releases resources of this mount */
+    void dispose() {
+        writeBackPool.close();
+        spoolPool.close();
+        attributePrefetcher.close();
+        if (!sharedReadAheadPool) {
+            readAheadPool.close();
+        }
+        sharedChannels.close();
+        statfsCache.close();
+        // a view of a shared cache drops blocks of this mount
+        blockCache.close();
+        try {
+            diskBlockCache.close();
+        } catch (IOException e) {
+logger.log(Level.WARNING, "disk cache: " + e);
+        }
+    }
+
+    /** statistics of this mount */
+    Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("handles.open", fileHandles.size());
+        attributeCache.putStatistics(statistics, "attr");
+        negativeCache.putStatistics(statistics, "negative");
+        directoryCache.putStatistics(statistics, "dir");
+        attributePrefetcher.putStatistics(statistics, "readdirplus");
+        blockCache.putStatistics(statistics, "block");
+        diskBlockCache.putStatistics(statistics, "disk");
+        readAheadPool.putStatistics(statistics, "readahead");
+        writeBackPool.putStatistics(statistics, "writeback");
+        spoolPool.putStatistics(statistics, "spool");
+        sharedChannels.putStatistics(statistics, "shared");
+        statfsCache.putStatistics(statistics, "statfs");
+        statistics.put("lazy.opens", lazyOpens.sum());
+        statistics.put("lazy.untouched", untouchedOpens.sum());
+        return statistics;
     }
 
     @Override
@@ -85,7 +225,7 @@ logger.log(Level.DEBUG, "ENV_IGNORE_APPLE_DOUBLE: " + ignoreAppleDouble);
 logger.log(Level.TRACE, "access: " + path);
         try {
             // TODO access
-            fileSystem.provider().checkAccess(fileSystem.getPath(path));
+            provider.checkAccess(fileSystem.getPath(path));
             return 0;
         } catch (NoSuchFileException e) {
 logger.log(Level.INFO, e);
@@ -103,9 +243,22 @@ logger.log(Level.DEBUG, "create: " + path);
             Set<OpenOption> options = new HashSet<>();
             options.add(StandardOpenOption.WRITE);
             options.add(StandardOpenOption.CREATE_NEW);
-            SeekableByteChannel channel = fileSystem.provider().newByteChannel(fileSystem.getPath(path), options);
-            long fh = fileHandle.incrementAndGet();
-            fileHandles.put(fh, channel);
+            SeekableByteChannel channel = provider.newByteChannel(fileSystem.getPath(path), options);
+            attributeCache.invalidateEntry(path);
+            negativeCache.invalidate(path);
+            directoryCache.invalidateParent(path);
+            blockCache.invalidate(path);
+            diskBlockCache.invalidate(path);
+            sharedChannels.invalidate(path);
+            if (spoolPool.isEnabled()) {
+                // created empty, the content is uploaded from the spool
+                channel.close();
+                long fh = fileHandles.add(newSpool(path, null));
+                info.fh.set(fh);
+                return 0;
+            }
+            WriteBack writeBack = writeBackPool.isEnabled() ? newWriteBack(path, channel) : null;
+            long fh = fileHandles.add(new FileHandle(path, channel, new ChannelPool(channel, null, 1, isRecorded()), null, writeBack));
             info.fh.set(fh);
 
             return 0;
@@ -118,33 +271,35 @@ logger.log(Level.ERROR, e.getMessage(), e);
     @Override
     public int getattr(String path, FileStat stat) {
 logger.log(Level.TRACE, "getattr: " + path);
+        return getattr0(path, stat);
+    }
+
+    /** getattr which is not overridden, for other callbacks not to be metered twice */
+    private int getattr0(String path, FileStat stat) {
+        if (ignoreAppleDouble && Util.isAppleDouble(path)) {
+logger.log(Level.TRACE, "getattr: ignore apple double: " + path);
+            return -ErrorCodes.ENOENT();
+        }
+        if (negativeCache.contains(path)) {
+            return -ErrorCodes.ENOENT();
+        }
         try {
-            BasicFileAttributes attributes =
-                    fileSystem.provider().readAttributes(fileSystem.getPath(path), BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
-
-            if (attributes instanceof PosixFileAttributes) {
-                long mode = JnrFuseFuse.permissionsToMode(((PosixFileAttributes) attributes).permissions());
-                if (attributes.isDirectory()) {
-                    stat.st_mode.set(FileStat.S_IFDIR | mode);
-                    stat.st_mtim.tv_sec.set(attributes.lastModifiedTime().to(TimeUnit.SECONDS));
-                    stat.st_ctim.tv_sec.set(attributes.creationTime().to(TimeUnit.SECONDS));
-                } else {
-                    stat.st_mode.set(FileStat.S_IFREG | mode);
-                    stat.st_mtim.tv_sec.set(attributes.lastModifiedTime().to(TimeUnit.SECONDS));
-                    stat.st_ctim.tv_sec.set(attributes.creationTime().to(TimeUnit.SECONDS));
-                    stat.st_size.set(attributes.size());
-                }
-            } else {
-                if (attributes.isDirectory()) {
-                    stat.st_mode.set(FileStat.S_IFDIR | 0755);
-                    stat.st_mtim.tv_sec.set(attributes.lastModifiedTime().to(TimeUnit.SECONDS));
-                    stat.st_ctim.tv_sec.set(attributes.creationTime().to(TimeUnit.SECONDS));
-                } else {
-                    stat.st_mode.set(FileStat.S_IFREG | 0644);
-                    stat.st_mtim.tv_sec.set(attributes.lastModifiedTime().to(TimeUnit.SECONDS));
-                    stat.st_ctim.tv_sec.set(attributes.creationTime().to(TimeUnit.SECONDS));
-                    stat.st_size.set(attributes.size());
-                }
+            BasicFileAttributes attributes = attributeCache.get(path);
+            if (attributes == null) {
+                attributes = attributePrefetcher.await(path);
+            }
+            if (attributes == null) {
+                attributes = readAttributes(path);
+            }
+
+            fillStat(attributes, stat);
+            long dirtyEnd = writeBackPool.getDirtyEnd(path);
+            if (dirtyEnd > attributes.size()) {
+                stat.st_size.set(dirtyEnd);
+            }
+            long spooled = spoolPool.getSize(path);
+            if (spooled >= 0) {
+                stat.st_size.set(spooled);
             }
             return 0;
         } catch (NoSuchFileException e) {
@@ -153,12 +308,9 @@ logger.log(Level.TRACE, e.getMessage());
                 return 0;
             } else {
                 if (ignoreAppleDouble) {
-                    if (Util.isAppleDouble(path)) {
-logger.log(Level.TRACE, e.getMessage());
-                    } else {
 logger.log(Level.DEBUG, e);
-                    }
                 }
+                negativeCache.add(path);
                 return -ErrorCodes.ENOENT();
             }
         } catch (IOException e) {
@@ -167,18 +319,49 @@ logger.log(Level.ERROR, e.getMessage(), e);
         }
     }
 
+    /** */
+    private static void fillStat(BasicFileAttributes attributes, FileStat stat) {
+        if (attributes instanceof PosixFileAttributes) {
+            long mode = JnrFuseFuse.permissionsToMode(((PosixFileAttributes) attributes).permissions());
+            if (attributes.isDirectory()) {
+                stat.st_mode.set(FileStat.S_IFDIR | mode);
+                stat.st_mtim.tv_sec.set(attributes.lastModifiedTime().to(TimeUnit.SECONDS));
+                stat.st_ctim.tv_sec.set(attributes.creationTime().to(TimeUnit.SECONDS));
+            } else {
+                stat.st_mode.set(FileStat.S_IFREG | mode);
+                stat.st_mtim.tv_sec.set(attributes.lastModifiedTime().to(TimeUnit.SECONDS));
+                stat.st_ctim.tv_sec.set(attributes.creationTime().to(TimeUnit.SECONDS));
+                stat.st_size.set(attributes.size());
+            }
+        } else {
+            if (attributes.isDirectory()) {
+                stat.st_mode.set(FileStat.S_IFDIR | 0755);
+                stat.st_mtim.tv_sec.set(attributes.lastModifiedTime().to(TimeUnit.SECONDS));
+                stat.st_ctim.tv_sec.set(attributes.creationTime().to(TimeUnit.SECONDS));
+            } else {
+                stat.st_mode.set(FileStat.S_IFREG | 0644);
+                stat.st_mtim.tv_sec.set(attributes.lastModifiedTime().to(TimeUnit.SECONDS));
+                stat.st_ctim.tv_sec.set(attributes.creationTime().to(TimeUnit.SECONDS));
+                stat.st_size.set(attributes.size());
+            }
+        }
+    }
+
     @Override
     public int fgetattr(String path, FileStat stat, FuseFileInfo info)
     {
 logger.log(Level.DEBUG, "fgetattr: " + path);
-        return getattr(path, stat);
+        return getattr0(path, stat);
     }
 
     @Override
     public int mkdir(String path, @mode_t long mode) {
 logger.log(Level.DEBUG, "mkdir: " + path);
         try {
-            fileSystem.provider().createDirectory(fileSystem.getPath(path));
+            provider.createDirectory(fileSystem.getPath(path));
+            attributeCache.invalidateEntry(path);
+            negativeCache.invalidate(path);
+            directoryCache.invalidateParent(path);
             return 0;
         } catch (IOException e) {
 logger.log(Level.ERROR, e.getMessage(), e);
@@ -189,11 +372,37 @@ logger.log(Level.ERROR, e.getMessage(), e);
     @Override
     public int open(String path, FuseFileInfo info) {
         try {
-            Set<OpenOption> options = new HashSet<>();
-            options.add(StandardOpenOption.READ);
-            SeekableByteChannel channel = fileSystem.provider().newByteChannel(fileSystem.getPath(path), options);
-            long fh = fileHandle.incrementAndGet();
-            fileHandles.put(fh, channel);
+            int flags = (int) info.flags.get();
+            boolean writable = OpenOptions.isWritable(flags);
+            Set<OpenOption> options = OpenOptions.of(flags);
+            if (writable) {
+                writeBackPool.flush(path);
+                spoolPool.await(path);
+            }
+            FileHandle handle;
+            if (writable && spoolPool.isEnabled()) {
+                handle = openSpool(path, options);
+            } else if (writable) {
+                SeekableByteChannel channel = provider.newByteChannel(fileSystem.getPath(path), options);
+                // other handles may not see writes through this handle's channel
+                ChannelPool channels = new ChannelPool(channel, null, 1, isRecorded());
+                attributeCache.invalidate(path);
+                blockCache.invalidate(path);
+                diskBlockCache.invalidate(path);
+                sharedChannels.invalidate(path);
+                WriteBack writeBack = writeBackPool.isEnabled() && !options.contains(StandardOpenOption.APPEND) ? newWriteBack(path, channel) : null;
+                handle = new FileHandle(path, channel, channels, null, writeBack);
+            } else if (lazyOpen) {
+                // fails here when the file doesn't exist
+                if (attributeCache.get(path) == null) {
+                    readAttributes(path);
+                }
+                handle = FileHandle.lazy(path, () -> openForRead(path, options));
+                lazyOpens.increment();
+            } else {
+                handle = openForRead(path, options);
+            }
+            long fh = fileHandles.add(handle);
             info.fh.set(fh);
 logger.log(Level.DEBUG, "open: " + path + ", fh: " + fh);
 
@@ -204,30 +413,112 @@ logger.log(Level.ERROR, e.getMessage(), e);
         }
     }
 
+    /** backend i/o is recorded as jfr events */
+    private boolean isRecorded() {
+        return provider instanceof EventFileSystemProvider;
+    }
+
+    /** @return a read only handle */
+    private FileHandle openForRead(String path, Set<OpenOption> options) throws IOException {
+        FileChannel pending = spoolPool.openPending(path);
+        if (pending != null) {
+            // the local copy until its upload is committed
+            ChannelPool channels = new ChannelPool(pending, null, 1);
+            return new FileHandle(path, pending, channels, null, null, pending, channels::read);
+        }
+        SharedChannels.Lease lease = sharedChannels.acquire(path, () -> provider.newByteChannel(fileSystem.getPath(path), options), readChannels);
+        Loader loader = loader(path, lease.getChannels(), blockCache.isEnabled() || diskBlockCache.isEnabled() ? version(path) : null);
+        ReadAhead readAhead = readAheadPool.isEnabled() ? readAheadPool.newReadAhead(loader) : null;
+        return new FileHandle(path, lease.getChannel(), lease.getChannels(), readAhead, null, lease, loader);
+    }
+
+    /** @return the version of the file at open for the block cache and the disk cache, as fresh as the attribute cache */
+    private DiskBlockCache.Version version(String path) throws IOException {
+        BasicFileAttributes attributes = attributeCache.get(path);
+        if (attributes == null) {
+            attributes = readAttributes(path);
+        }
+        return DiskBlockCache.Version.of(attributes);
+    }
+
+    /** reads attributes from the backend and caches them unless the path is changed while reading */
+    private BasicFileAttributes readAttributes(String path) throws IOException {
+        long generation = attributeCache.generation(path);
+        BasicFileAttributes attributes = provider.readAttributes(fileSystem.getPath(path), BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        attributeCache.put(path, attributes, generation);
+        return attributes;
+    }
+
+    /** @return a write-back of the channel which invalidates caches of the path when flushed */
+    private WriteBack newWriteBack(String path, SeekableByteChannel channel) {
+        return writeBackPool.newWriteBack(path, channel, () -> {
+            attributeCache.invalidate(path);
+            blockCache.invalidate(path);
+            diskBlockCache.invalidate(path);
+            sharedChannels.invalidate(path);
+        });
+    }
+
+    /** @return a handle writing into a local spool, uploaded at fsync and release */
+    private FileHandle openSpool(String path, Set<OpenOption> options) throws IOException {
+        // fails here when the file doesn't exist, not cached since an empty spool replaces the content
+        BasicFileAttributes attributes = provider.readAttributes(fileSystem.getPath(path), BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        boolean empty = options.contains(StandardOpenOption.TRUNCATE_EXISTING) || attributes.size() == 0;
+        return newSpool(path, empty ? null : p -> provider.newByteChannel(fileSystem.getPath(p), Set.of(StandardOpenOption.READ)));
+    }
+
+    /** @param source the existing content, null for an empty file */
+    private FileHandle newSpool(String path, Spool.Opener source) throws IOException {
+        Spool spool = spoolPool.newSpool(path, source,
+                // the current path, a spool follows rename
+                p -> provider.newByteChannel(fileSystem.getPath(p), Set.of(StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)),
+                p -> {
+                    attributeCache.invalidate(p);
+                    blockCache.invalidate(p);
+                    diskBlockCache.invalidate(p);
+                    sharedChannels.invalidate(p);
+                });
+        // reads of the handle see its own writes, not through caches
+        return new FileHandle(path, spool, new ChannelPool(spool, null, 1), null, null, () -> spoolPool.release(spool), spool::read);
+    }
+
+    /**
+     * @param version of the file at open, null reads the channels without caches
+     * @return a positional reader of the channels through the block cache and the disk cache if enabled
+     */
+    private Loader loader(String path, ChannelPool channels, DiskBlockCache.Version version) {
+        Loader channelLoader = channels::read;
+        if (version == null) {
+            // blocks of other versions may be cached
+            return channelLoader;
+        }
+        Loader diskLoader = diskBlockCache.isEnabled() ? (dst, position) -> diskBlockCache.read(path, version, dst, position, channelLoader) : channelLoader;
+        if (blockCache.isEnabled()) {
+            return (dst, position) -> blockCache.read(path, version, dst, position, diskLoader);
+        } else {
+            return diskLoader;
+        }
+    }
+
     @Override
     public int read(String path, Pointer buf, long size, long offset, FuseFileInfo info) {
 logger.log(Level.DEBUG, "read: " + path + ", " + offset + ", " + size + ", fh: " + info.fh.get());
         try {
-            if (fileHandles.containsKey(info.fh.get())) {
-                SeekableByteChannel channel = fileHandles.get(info.fh.get());
-                channel.position(offset);
-                ByteBuffer bb = ByteBuffer.allocate(BUFFER_SIZE);
-                long pos = 0;
+            writeBackPool.flush(path);
+            FileHandle handle = fileHandles.get(info.fh.get());
+            if (handle != null) {
+                ChannelPool channels = handle.getChannels();
+                ReadAhead readAhead = handle.getReadAhead();
+                Loader loader = handle.getLoader() != null ? handle.getLoader() : loader(path, channels, null);
+                ByteBuffer bb = PointerBuffers.forRead(buf, size);
+                try {
 logger.log(Level.TRACE, "Attempting to read %d-%d:".formatted(offset, offset + size));
-                do {
-                    bb.clear();
-                    bb.limit((int) Math.min(bb.capacity(), size - pos));
-                    int read = channel.read(bb);
-                    if (read == -1) {
-logger.log(Level.TRACE, "Reached EOF");
-                        return (int) pos; // reached EOF TODO: wtf cast
-                    } else {
-logger.log(Level.TRACE, "Reading %d-%d".formatted(offset + pos, offset + pos + read));
-                        buf.put(pos, bb.array(), 0, read);
-                        pos += read;
-                    }
-                } while (pos < size);
-                return (int) pos;
+                    int n = readAhead != null ? readAhead.read(bb, offset) : loader.load(bb, offset);
+                    PointerBuffers.flush(bb, buf, n);
+                    return n;
+                } finally {
+                    PointerBuffers.release(bb, buf);
+                }
             } else {
 logger.log(Level.DEBUG, "read: no fh: " + path);
                 return -ErrorCodes.EEXIST();
@@ -238,19 +529,32 @@ logger.log(Level.ERROR, e.getMessage(), e);
         }
     }
 
+    @Override
+    public int opendir(String path, FuseFileInfo info) {
+logger.log(Level.TRACE, "opendir: " + path);
+        try {
+            long fh = dirHandles.add(list(path));
+            info.fh.set(fh);
+            return 0;
+        } catch (NoSuchFileException e) {
+            return -ErrorCodes.ENOENT();
+        } catch (IOException e) {
+logger.log(Level.ERROR, e.getMessage(), e);
+            return -ErrorCodes.EIO();
+        }
+    }
+
+    /** serves the listing snapshot taken at opendir in pages, see {@link DirectoryCache#fill} */
     @Override
     public int readdir(String path, Pointer buf, FuseFillDir filler, @off_t long offset, FuseFileInfo info) {
-logger.log(Level.TRACE, "readdir: " + path);
+logger.log(Level.TRACE, "readdir: " + path + ", offset: " + offset);
         try {
-            fileSystem.provider().newDirectoryStream(fileSystem.getPath(path), p -> true)
-                .forEach(p -> {
-logger.log(Level.TRACE, "p: " + p);
-                    try {
-                        filler.apply(buf, Util.toFilenameString(p), null, 0);
-                    } catch (IOException e) {
-                        throw new IllegalStateException(e);
-                    }
-                });
+            List<String> names = dirHandles.get(info.fh.get());
+            if (names == null) {
+                names = list(path);
+            }
+            int n = DirectoryCache.fill(names, offset, (name, next) -> filler.apply(buf, name, null, next) != 0);
+logger.log(Level.TRACE, "readdir: filled: " + n + "/" + names.size());
             return 0;
         } catch (IOException e) {
 logger.log(Level.ERROR, e.getMessage(), e);
@@ -258,11 +562,54 @@ logger.log(Level.ERROR, e.getMessage(), e);
         }
     }
 
+    @Override
+    public int releasedir(String path, FuseFileInfo info) {
+logger.log(Level.TRACE, "releasedir: " + path);
+        dirHandles.remove(info.fh.get());
+        return 0;
+    }
+
+    /** @return a listing snapshot of the directory, from the cache if possible */
+    private List<String> list(String path) throws IOException {
+        List<String> names = directoryCache.get(path);
+        if (names == null) {
+            names = new ArrayList<>();
+            try (DirectoryStream<Path> stream = provider.newDirectoryStream(fileSystem.getPath(path), p -> true)) {
+                for (Path p : stream) {
+logger.log(Level.TRACE, "p: " + p);
+                    names.add(Util.toFilenameString(p));
+                }
+            }
+            directoryCache.put(path, names);
+            attributePrefetcher.prefetch(path, names);
+        }
+        return names;
+    }
+
     @Override
     public int rename(String path, String newName) {
 logger.log(Level.DEBUG, "rename: " + path);
         try {
-            fileSystem.provider().move(fileSystem.getPath(path), fileSystem.getPath(newName));
+            spoolPool.await(path);
+            spoolPool.await(newName);
+            provider.move(fileSystem.getPath(path), fileSystem.getPath(newName));
+            // open spools upload to the new path
+            spoolPool.rename(path, newName);
+            attributeCache.invalidateTree(path);
+            attributeCache.invalidateParent(path);
+            attributeCache.invalidateTree(newName);
+            attributeCache.invalidateParent(newName);
+            negativeCache.invalidateTree(newName);
+            directoryCache.invalidateTree(path);
+            directoryCache.invalidateParent(path);
+            directoryCache.invalidateTree(newName);
+            directoryCache.invalidateParent(newName);
+            blockCache.invalidateTree(path);
+            diskBlockCache.invalidateTree(path);
+            sharedChannels.invalidateTree(path);
+            blockCache.invalidateTree(newName);
+            diskBlockCache.invalidateTree(newName);
+            sharedChannels.invalidateTree(newName);
             return 0;
         } catch (IOException e) {
 logger.log(Level.ERROR, e.getMessage(), e);
@@ -274,7 +621,15 @@ logger.log(Level.ERROR, e.getMessage(), e);
     public int rmdir(String path) {
 logger.log(Level.DEBUG, "rmdir: " + path);
         try {
-            fileSystem.provider().delete(fileSystem.getPath(path));
+            spoolPool.await(path);
+            provider.delete(fileSystem.getPath(path));
+            spoolPool.deleted(path);
+            attributeCache.invalidateEntry(path);
+            directoryCache.invalidate(path);
+            directoryCache.invalidateParent(path);
+            blockCache.invalidateTree(path);
+            diskBlockCache.invalidateTree(path);
+            sharedChannels.invalidateTree(path);
             return 0;
         } catch (IOException e) {
 logger.log(Level.ERROR, e.getMessage(), e);
@@ -284,16 +639,73 @@ logger.log(Level.ERROR, e.getMessage(), e);
 
     @Override
     public int truncate(String path, long offset) {
-logger.log(Level.DEBUG, "truncate: " + path);
-        // TODO
-        return -ErrorCodes.ENOSYS();
+logger.log(Level.DEBUG, "truncate: " + path + ", " + offset);
+        return truncate0(path, offset);
+    }
+
+    /** truncate which is not overridden, for other callbacks not to be metered twice */
+    private int truncate0(String path, long offset) {
+        try {
+            writeBackPool.flush(path);
+            spoolPool.await(path);
+            try (SeekableByteChannel channel = provider.newByteChannel(fileSystem.getPath(path), Set.of(StandardOpenOption.WRITE))) {
+                ChannelUtil.truncate(channel, offset);
+            }
+            attributeCache.invalidate(path);
+            blockCache.invalidate(path);
+            diskBlockCache.invalidate(path);
+            sharedChannels.invalidate(path);
+            return 0;
+        } catch (NoSuchFileException e) {
+            return -ErrorCodes.ENOENT();
+        } catch (IOException e) {
+logger.log(Level.ERROR, e.getMessage(), e);
+            return -ErrorCodes.EIO();
+        }
+    }
+
+    @Override
+    public int ftruncate(String path, long offset, FuseFileInfo info) {
+logger.log(Level.DEBUG, "ftruncate: " + path + ", " + offset + ", fh: " + info.fh.get());
+        FileHandle handle = fileHandles.get(info.fh.get());
+        if (handle == null) {
+            return truncate0(path, offset);
+        }
+        try {
+            writeBackPool.flush(path);
+            ChannelUtil.truncate(handle.getChannel(), offset);
+            handle.truncated(offset);
+            attributeCache.invalidate(path);
+            blockCache.invalidate(path);
+            diskBlockCache.invalidate(path);
+            sharedChannels.invalidate(path);
+            return 0;
+        } catch (NonWritableChannelException e) {
+logger.log(Level.DEBUG, "ftruncate: not writable fh: " + info.fh.get());
+            return truncate0(path, offset);
+        } catch (IOException e) {
+logger.log(Level.ERROR, e.getMessage(), e);
+            return -ErrorCodes.EIO();
+        }
     }
 
     @Override
     public int unlink(String path) {
 logger.log(Level.DEBUG, "unlink: " + path);
         try {
-            fileSystem.provider().delete(fileSystem.getPath(path));
+            spoolPool.await(path);
+            BasicFileAttributes attributes = attributeCache.peek(path);
+            provider.delete(fileSystem.getPath(path));
+            spoolPool.deleted(path);
+            if (attributes != null) {
+                statfsCache.deleted(attributes.size());
+            }
+            attributeCache.invalidateEntry(path);
+            directoryCache.invalidate(path);
+            directoryCache.invalidateParent(path);
+            blockCache.invalidate(path);
+            diskBlockCache.invalidate(path);
+            sharedChannels.invalidate(path);
             return 0;
         } catch (IOException e) {
 logger.log(Level.ERROR, e.getMessage(), e);
@@ -304,13 +716,35 @@ logger.log(Level.ERROR, e.getMessage(), e);
     @Override
     public int write(String path, Pointer buf, @size_t long size, @off_t long offset, FuseFileInfo info) {
 logger.log(Level.DEBUG, "write: " + path + ", " + offset + ", " + size + ", fh: " + info.fh.get());
+        ByteBuffer bb = null;
         try {
-            if (fileHandles.containsKey(info.fh.get())) {
-                ByteBuffer bb = ByteBuffer.allocate(BUFFER_SIZE);
-                long written = 0;
-                SeekableByteChannel channel = fileHandles.get(info.fh.get());
+            FileHandle handle = fileHandles.get(info.fh.get());
+            if (handle != null) {
+                bb = PointerBuffers.forWrite(buf, size);
+                if (statfsCache.isEnabled()) {
+                    handle.getSize(); // before the first write, statfs counts growth of the file
+                }
+                WriteBack writeBack = handle.getWriteBack();
+                if (writeBack != null) {
+                    int n = writeBack.write(bb, offset);
+                    attributeCache.invalidate(path);
+                    blockCache.invalidate(path);
+                    diskBlockCache.invalidate(path);
+                    sharedChannels.invalidate(path);
+                    statfsCache.written(handle.written(offset + n));
+                    return n;
+                }
+                SeekableByteChannel channel = handle.getChannel();
+                if (channel instanceof Spool) {
+                    int n = ((Spool) channel).write(bb, offset);
+                    statfsCache.written(handle.written(offset + n));
+                    return n;
+                }
+                long written;
+                // the position is guarded by the channel as reads of the handle do
+                synchronized (channel) {
 try { // TODO ad-hoc
-                channel.position(offset);
+                    channel.position(offset);
 } catch (IOException e) {
  if (e.getMessage().contains("@vavi")) {
   long o = Long.parseLong(e.getMessage().substring(9, e.getMessage().length() - 1));
@@ -325,15 +759,13 @@ try { // TODO ad-hoc
   throw e;
  }
 }
-                do {
-                    long remaining = size - written;
-                    bb.clear();
-                    int len = (int) Math.min(remaining, bb.capacity());
-                    buf.get(written, bb.array(), 0, len);
-                    bb.limit(len);
-                    int r = channel.write(bb);
-                    written += r;
-                } while (written < size);
+                    written = ChannelUtil.write(channel, bb, offset, isRecorded());
+                }
+                attributeCache.invalidate(path);
+                blockCache.invalidate(path);
+                diskBlockCache.invalidate(path);
+                sharedChannels.invalidate(path);
+                statfsCache.written(handle.written(offset + written));
                 return (int) written;
             } else {
                 return -ErrorCodes.EEXIST();
@@ -341,6 +773,10 @@ try { // TODO ad-hoc
         } catch (IOException e) {
 logger.log(Level.ERROR, e.getMessage(), e);
             return -ErrorCodes.EIO();
+        } finally {
+            if (bb != null) {
+                PointerBuffers.release(bb, buf);
+            }
         }
     }
 
@@ -348,14 +784,14 @@ logger.log(Level.ERROR, e.getMessage(), e);
     public int statfs(String path, Statvfs stbuf) {
 logger.log(Level.TRACE, "statfs: " + path);
         try {
-            FileStore fileStore = fileSystem.getFileStores().iterator().next();
-//logger.log(Level.INFO, "total: " + fileStore.getTotalSpace());
-//logger.log(Level.INFO, "free: " + fileStore.getUsableSpace());
+            StatfsCache.Space space = statfsCache.get();
+//logger.log(Level.INFO, "total: " + space.getTotal());
+//logger.log(Level.INFO, "free: " + space.getUsable());
 
             long blockSize = 512;
 
-            long total = fileStore.getTotalSpace() / blockSize;
-            long free = fileStore.getUsableSpace() / blockSize;
+            long total = space.getTotal() / blockSize;
+            long free = space.getUsable() / blockSize;
             long used = total - free;
 
             stbuf.f_bavail.set(used);
@@ -378,9 +814,10 @@ logger.log(Level.ERROR, e.getMessage(), e);
     public int chmod(String path, @mode_t long mode) {
 logger.log(Level.DEBUG, "chmod: " + path);
         try {
-            if (fileSystem.provider().getFileStore(fileSystem.getPath(path)).supportsFileAttributeView(PosixFileAttributeView.class)) {
-                PosixFileAttributeView attrs = fileSystem.provider().getFileAttributeView(fileSystem.getPath(path), PosixFileAttributeView.class);
+            if (provider.getFileStore(fileSystem.getPath(path)).supportsFileAttributeView(PosixFileAttributeView.class)) {
+                PosixFileAttributeView attrs = provider.getFileAttributeView(fileSystem.getPath(path), PosixFileAttributeView.class);
                 attrs.setPermissions(JnrFuseFuse.modeToPermissions(mode));
+                attributeCache.invalidate(path);
                 return 0;
             } else {
                 return -Errno.EAFNOSUPPORT.ordinal();
@@ -391,13 +828,58 @@ logger.log(Level.ERROR, e.getMessage(), e);
         }
     }
 
+    @Override
+    public int flush(String path, FuseFileInfo info) {
+logger.log(Level.DEBUG, "flush: " + path + ", fh: " + info.fh.get());
+        try {
+            FileHandle handle = fileHandles.get(info.fh.get());
+            if (handle != null && handle.isOpened() && handle.getWriteBack() != null) {
+                handle.getWriteBack().flush();
+            }
+            return 0;
+        } catch (IOException e) {
+logger.log(Level.ERROR, e.getMessage(), e);
+            return -ErrorCodes.EIO();
+        }
+    }
+
+    @Override
+    public int fsync(String path, int isdatasync, FuseFileInfo info) {
+logger.log(Level.DEBUG, "fsync: " + path + ", fh: " + info.fh.get());
+        try {
+            FileHandle handle = fileHandles.get(info.fh.get());
+            if (handle == null) {
+                return -ErrorCodes.EBADF();
+            }
+            if (!handle.isOpened()) {
+                return 0;
+            }
+            if (handle.getWriteBack() != null) {
+                handle.getWriteBack().flush();
+            }
+            if (handle.getChannel() instanceof Spool) {
+                ((Spool) handle.getChannel()).upload();
+            }
+            if (handle.getChannel() instanceof FileChannel) {
+                ((FileChannel) handle.getChannel()).force(isdatasync == 0);
+            }
+            return 0;
+        } catch (IOException e) {
+logger.log(Level.ERROR, e.getMessage(), e);
+            return -ErrorCodes.EIO();
+        }
+    }
+
     @Override
     public int release(String path, FuseFileInfo info) {
 logger.log(Level.DEBUG, "release: " + path + ", fh: " + info.fh.get());
         try {
-            if (fileHandles.containsKey(info.fh.get())) {
-                SeekableByteChannel channel = fileHandles.get(info.fh.get());
-                channel.close();
+            FileHandle handle = fileHandles.remove(info.fh.get());
+            if (handle != null) {
+                if (!handle.isOpened()) {
+                    untouchedOpens.increment();
+                }
+                handle.close();
                 return 0;
             } else {
 logger.log(Level.DEBUG, "release: no fh: " + path);
@@ -407,7 +889,7 @@ logger.log(Level.DEBUG, "release: no fh: " + path);
 logger.log(Level.ERROR, e.getMessage(), e);
             return -ErrorCodes.EIO();
         } finally {
-            fileHandles.remove(info.fh.get());
+            attributeCache.invalidate(path);
         }
     }
 
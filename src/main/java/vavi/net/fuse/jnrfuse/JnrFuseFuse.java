@@ -12,6 +12,7 @@ import java.lang.System.Logger.Level;
 import java.nio.file.FileSystem;
 import java.nio.file.Paths;
 import java.nio.file.attribute.PosixFilePermission;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Map;
 import java.util.Set;
@@ -21,6 +22,9 @@ import java.util.concurrent.Executors;
 import co.paralleluniverse.fuse.TypeMode;
 import ru.serce.jnrfuse.FuseStubFS;
 import vavi.net.fuse.Fuse;
+import vavi.net.fuse.MountOptions;
+import vavi.net.fuse.io.StripedExecutor;
+import vavi.net.fuse.io.VirtualThreadExecutor;
 
 import static java.lang.System.getLogger;
 
@@ -47,35 +51,71 @@ public class JnrFuseFuse implements Fuse {
     private FuseStubFS fuse;
 
     /** non-daemon thread */
-    private final ExecutorService es = Executors.newSingleThreadExecutor();
+    private ExecutorService es;
+
+    /** the executor is shared by mounts */
+    private boolean sharedExecutor;
 
     @Override
     public void mount(FileSystem fs, String mountPoint, Map<String, Object> env) throws IOException {
-        if (env.containsKey(ENV_SINGLE_THREAD) && (Boolean) env.get(ENV_SINGLE_THREAD)) {
+        MountOptions options = MountOptions.of(env);
+        String[] arguments = options != null ? MountOptions.toArguments(options.toOptions()) : new String[0];
+logger.log(Level.DEBUG, "mount options: " + String.join(" ", arguments));
+        // a shared dispatcher decides the mode
+        Object dispatcher = env.get(ENV_DISPATCHER);
+        if (dispatcher != null ? dispatcher instanceof ExecutorService : env.containsKey(ENV_SINGLE_THREAD) && (Boolean) env.get(ENV_SINGLE_THREAD)) {
             fuse = new SingleThreadJavaNioFileFS(fs, env);
 logger.log(Level.INFO, "use single thread");
+        } else if (dispatcher != null ? dispatcher instanceof StripedExecutor : Fuse.getLong(ENV_STRIPED_LANES, env, 0) > 0) {
+            int lanes = dispatcher != null ? ((StripedExecutor) dispatcher).getLanes() : (int) Fuse.getLong(ENV_STRIPED_LANES, env, 0);
+            fuse = new StripedJavaNioFileFS(fs, env, lanes);
+logger.log(Level.INFO, "use striped lanes: " + lanes);
+        } else if (dispatcher != null ? dispatcher instanceof VirtualThreadExecutor : isEnabled(ENV_VIRTUAL_THREADS, env)) {
+            int permits = (int) Fuse.getLong(ENV_VIRTUAL_THREADS_PERMITS, env, 256);
+            fuse = new VirtualThreadJavaNioFileFS(fs, env, permits);
+logger.log(Level.INFO, "use virtual threads: " + permits);
         } else {
-            fuse = new JavaNioFileFS(fs, env);
+            fuse = new MeteredJavaNioFileFS(fs, env);
         }
+        ((MeteredJavaNioFileFS) fuse).register(mountPoint);
+        Object executor = env.get(ENV_MOUNT_EXECUTOR);
+        sharedExecutor = executor instanceof ExecutorService;
+        es = sharedExecutor ? (ExecutorService) executor : Executors.newSingleThreadExecutor();
         es.submit(() -> {
             // jnrfuse non-blocking thread is daemon
             // so make mount blocking and make own non-daemon thread
-            fuse.mount(Paths.get(mountPoint), true);
+            fuse.mount(Paths.get(mountPoint), true, false, arguments);
         });
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> { try { close(); } catch (IOException e) { e.printStackTrace(); }}));
+        if (!isEnabled(ENV_NO_SHUTDOWN_HOOK, env)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> { try { close(); } catch (IOException e) { e.printStackTrace(); }}));
+        }
     }
 
     @Override
     public void close() throws IOException {
         if (fuse != null) {
 logger.log(Level.INFO, "unmount...");
-            es.shutdown();
+            if (!sharedExecutor) {
+                es.shutdown();
+            }
             fuse.umount();
+            if (fuse instanceof JavaNioFileFS) {
+                ((JavaNioFileFS) fuse).dispose();
+            }
             fuse = null;
 logger.log(Level.INFO, "unmount done");
         }
     }
 
+    @Override
+    public Map<String, Object> getStatistics() {
+        if (fuse instanceof JavaNioFileFS) {
+            return ((JavaNioFileFS) fuse).getStatistics();
+        } else {
+            return Collections.emptyMap();
+        }
+    }
+
     /** */
     static long permissionsToMode(Set<PosixFilePermission> permissions) {
         long mode = 0;
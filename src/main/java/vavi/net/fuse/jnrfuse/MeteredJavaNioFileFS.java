@@ -0,0 +1,448 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.jnrfuse;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.file.FileSystem;
+import java.util.Map;
+
+import jnr.ffi.Pointer;
+import jnr.ffi.types.mode_t;
+import jnr.ffi.types.off_t;
+import jnr.ffi.types.size_t;
+import ru.serce.jnrfuse.FuseFillDir;
+import ru.serce.jnrfuse.struct.FileStat;
+import ru.serce.jnrfuse.struct.Flock;
+import ru.serce.jnrfuse.struct.FuseFileInfo;
+import ru.serce.jnrfuse.struct.Statvfs;
+import vavi.net.fuse.Fuse;
+import vavi.net.fuse.jfr.FuseEvents;
+import vavi.net.fuse.jfr.FuseOperationEvent;
+import vavi.net.fuse.metrics.FuseMetrics;
+import vavi.net.fuse.metrics.OperationMetrics;
+import vavi.net.fuse.trace.TraceWriter;
+
+import static java.lang.System.getLogger;
+
+
+/**
+ * MeteredJavaNioFileFS. (jnr-fuse)
+ * <p>
+ * records latency, errno and bytes of each callback, and emits jfr events of them when enabled.
+ * callbacks are also written into a trace file when {@link Fuse#ENV_TRACE} is specified.
+ * dispatching subclasses extend this, so the latency doesn't include waiting for a thread.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see FuseMetrics
+ * @see FuseOperationEvent
+ * @see TraceWriter
+ */
+class MeteredJavaNioFileFS extends JavaNioFileFS {
+
+    private static final Logger logger = getLogger(MeteredJavaNioFileFS.class.getName());
+
+    /** */
+    private final FuseMetrics metrics;
+
+    /** emits jfr events */
+    private final boolean events;
+
+    /** null when not traced */
+    private final TraceWriter trace;
+
+    private final OperationMetrics accessMetrics;
+    private final OperationMetrics createMetrics;
+    private final OperationMetrics getattrMetrics;
+    private final OperationMetrics fgetattrMetrics;
+    private final OperationMetrics mkdirMetrics;
+    private final OperationMetrics openMetrics;
+    private final OperationMetrics readMetrics;
+    private final OperationMetrics opendirMetrics;
+    private final OperationMetrics readdirMetrics;
+    private final OperationMetrics releasedirMetrics;
+    private final OperationMetrics renameMetrics;
+    private final OperationMetrics rmdirMetrics;
+    private final OperationMetrics truncateMetrics;
+    private final OperationMetrics ftruncateMetrics;
+    private final OperationMetrics unlinkMetrics;
+    private final OperationMetrics writeMetrics;
+    private final OperationMetrics statfsMetrics;
+    private final OperationMetrics chmodMetrics;
+    private final OperationMetrics flushMetrics;
+    private final OperationMetrics fsyncMetrics;
+    private final OperationMetrics releaseMetrics;
+    private final OperationMetrics lockMetrics;
+
+    /** */
+    public MeteredJavaNioFileFS(FileSystem fileSystem, Map<String, Object> env) throws IOException {
+        super(fileSystem, env);
+        metrics = FuseMetrics.of(env);
+        events = Fuse.isEnabled(Fuse.ENV_JFR, env);
+        trace = TraceWriter.of(env);
+        accessMetrics = metrics.operation("access");
+        createMetrics = metrics.operation("create");
+        getattrMetrics = metrics.operation("getattr");
+        fgetattrMetrics = metrics.operation("fgetattr");
+        mkdirMetrics = metrics.operation("mkdir");
+        openMetrics = metrics.operation("open");
+        readMetrics = metrics.operation("read");
+        opendirMetrics = metrics.operation("opendir");
+        readdirMetrics = metrics.operation("readdir");
+        releasedirMetrics = metrics.operation("releasedir");
+        renameMetrics = metrics.operation("rename");
+        rmdirMetrics = metrics.operation("rmdir");
+        truncateMetrics = metrics.operation("truncate");
+        ftruncateMetrics = metrics.operation("ftruncate");
+        unlinkMetrics = metrics.operation("unlink");
+        writeMetrics = metrics.operation("write");
+        statfsMetrics = metrics.operation("statfs");
+        chmodMetrics = metrics.operation("chmod");
+        flushMetrics = metrics.operation("flush");
+        fsyncMetrics = metrics.operation("fsync");
+        releaseMetrics = metrics.operation("release");
+        lockMetrics = metrics.operation("lock");
+    }
+
+    /** publishes the metrics of the mount */
+    void register(String mountPoint) {
+        metrics.register(mountPoint);
+    }
+
+    @Override
+    void dispose() {
+        metrics.close();
+        super.dispose();
+        if (trace != null) {
+            try {
+                trace.close();
+            } catch (IOException e) {
+logger.log(Level.WARNING, "close trace: " + e);
+            }
+        }
+    }
+
+    @Override
+    Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = super.getStatistics();
+        metrics.putStatistics(statistics, "ops");
+        if (trace != null) {
+            trace.putStatistics(statistics, "trace");
+        }
+        return statistics;
+    }
+
+    @Override
+    public int access(String path, int access) {
+        FuseOperationEvent event = events ? FuseEvents.start("access") : null;
+        long start = System.nanoTime();
+        int result = accessMetrics.record(start, super.access(path, access));
+        if (event != null) {
+            event.complete(path, 0, 0, 0, result);
+        }
+        if (trace != null) {
+            trace.write("access", start, path, null, 0, 0, 0, access, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int create(String path, @mode_t long mode, FuseFileInfo info) {
+        FuseOperationEvent event = events ? FuseEvents.start("create") : null;
+        long start = System.nanoTime();
+        int result = createMetrics.record(start, super.create(path, mode, info));
+        if (event != null) {
+            event.complete(path, info.fh.get(), 0, 0, result);
+        }
+        if (trace != null) {
+            trace.write("create", start, path, null, info.fh.get(), 0, mode, (int) info.flags.get(), result);
+        }
+        return result;
+    }
+
+    @Override
+    public int getattr(String path, FileStat stat) {
+        FuseOperationEvent event = events ? FuseEvents.start("getattr") : null;
+        long start = System.nanoTime();
+        int result = getattrMetrics.record(start, super.getattr(path, stat));
+        if (event != null) {
+            event.complete(path, 0, 0, 0, result);
+        }
+        if (trace != null) {
+            trace.write("getattr", start, path, null, 0, 0, 0, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int fgetattr(String path, FileStat stat, FuseFileInfo info) {
+        FuseOperationEvent event = events ? FuseEvents.start("fgetattr") : null;
+        long start = System.nanoTime();
+        int result = fgetattrMetrics.record(start, super.fgetattr(path, stat, info));
+        if (event != null) {
+            event.complete(path, info.fh.get(), 0, 0, result);
+        }
+        if (trace != null) {
+            trace.write("fgetattr", start, path, null, info.fh.get(), 0, 0, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int mkdir(String path, @mode_t long mode) {
+        FuseOperationEvent event = events ? FuseEvents.start("mkdir") : null;
+        long start = System.nanoTime();
+        int result = mkdirMetrics.record(start, super.mkdir(path, mode));
+        if (event != null) {
+            event.complete(path, 0, 0, 0, result);
+        }
+        if (trace != null) {
+            trace.write("mkdir", start, path, null, 0, 0, mode, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int open(String path, FuseFileInfo info) {
+        FuseOperationEvent event = events ? FuseEvents.start("open") : null;
+        long start = System.nanoTime();
+        int result = openMetrics.record(start, super.open(path, info));
+        if (event != null) {
+            event.complete(path, info.fh.get(), 0, 0, result);
+        }
+        if (trace != null) {
+            trace.write("open", start, path, null, info.fh.get(), 0, 0, (int) info.flags.get(), result);
+        }
+        return result;
+    }
+
+    @Override
+    public int read(String path, Pointer buf, @size_t long size, @off_t long offset, FuseFileInfo info) {
+        FuseOperationEvent event = events ? FuseEvents.start("read") : null;
+        long start = System.nanoTime();
+        int result = readMetrics.record(start, super.read(path, buf, size, offset, info));
+        if (event != null) {
+            event.complete(path, info.fh.get(), offset, size, result);
+        }
+        if (trace != null) {
+            trace.write("read", start, path, null, info.fh.get(), offset, size, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int opendir(String path, FuseFileInfo info) {
+        FuseOperationEvent event = events ? FuseEvents.start("opendir") : null;
+        long start = System.nanoTime();
+        int result = opendirMetrics.record(start, super.opendir(path, info));
+        if (event != null) {
+            event.complete(path, info.fh.get(), 0, 0, result);
+        }
+        if (trace != null) {
+            trace.write("opendir", start, path, null, info.fh.get(), 0, 0, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int readdir(String path, Pointer buf, FuseFillDir filler, @off_t long offset, FuseFileInfo info) {
+        FuseOperationEvent event = events ? FuseEvents.start("readdir") : null;
+        long start = System.nanoTime();
+        int result = readdirMetrics.record(start, super.readdir(path, buf, filler, offset, info));
+        if (event != null) {
+            event.complete(path, info.fh.get(), offset, 0, result);
+        }
+        if (trace != null) {
+            trace.write("readdir", start, path, null, info.fh.get(), offset, 0, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int releasedir(String path, FuseFileInfo info) {
+        FuseOperationEvent event = events ? FuseEvents.start("releasedir") : null;
+        long start = System.nanoTime();
+        int result = releasedirMetrics.record(start, super.releasedir(path, info));
+        if (event != null) {
+            event.complete(path, info.fh.get(), 0, 0, result);
+        }
+        if (trace != null) {
+            trace.write("releasedir", start, path, null, info.fh.get(), 0, 0, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int rename(String path, String newName) {
+        FuseOperationEvent event = events ? FuseEvents.start("rename") : null;
+        long start = System.nanoTime();
+        int result = renameMetrics.record(start, super.rename(path, newName));
+        if (event != null) {
+            event.complete(path, 0, 0, 0, result);
+        }
+        if (trace != null) {
+            trace.write("rename", start, path, newName, 0, 0, 0, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int rmdir(String path) {
+        FuseOperationEvent event = events ? FuseEvents.start("rmdir") : null;
+        long start = System.nanoTime();
+        int result = rmdirMetrics.record(start, super.rmdir(path));
+        if (event != null) {
+            event.complete(path, 0, 0, 0, result);
+        }
+        if (trace != null) {
+            trace.write("rmdir", start, path, null, 0, 0, 0, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int truncate(String path, @off_t long offset) {
+        FuseOperationEvent event = events ? FuseEvents.start("truncate") : null;
+        long start = System.nanoTime();
+        int result = truncateMetrics.record(start, super.truncate(path, offset));
+        if (event != null) {
+            event.complete(path, 0, offset, 0, result);
+        }
+        if (trace != null) {
+            trace.write("truncate", start, path, null, 0, offset, 0, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int ftruncate(String path, @off_t long offset, FuseFileInfo info) {
+        FuseOperationEvent event = events ? FuseEvents.start("ftruncate") : null;
+        long start = System.nanoTime();
+        int result = ftruncateMetrics.record(start, super.ftruncate(path, offset, info));
+        if (event != null) {
+            event.complete(path, info.fh.get(), offset, 0, result);
+        }
+        if (trace != null) {
+            trace.write("ftruncate", start, path, null, info.fh.get(), offset, 0, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int unlink(String path) {
+        FuseOperationEvent event = events ? FuseEvents.start("unlink") : null;
+        long start = System.nanoTime();
+        int result = unlinkMetrics.record(start, super.unlink(path));
+        if (event != null) {
+            event.complete(path, 0, 0, 0, result);
+        }
+        if (trace != null) {
+            trace.write("unlink", start, path, null, 0, 0, 0, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int write(String path, Pointer buf, @size_t long size, @off_t long offset, FuseFileInfo info) {
+        FuseOperationEvent event = events ? FuseEvents.start("write") : null;
+        long start = System.nanoTime();
+        int result = writeMetrics.record(start, super.write(path, buf, size, offset, info));
+        if (event != null) {
+            event.complete(path, info.fh.get(), offset, size, result);
+        }
+        if (trace != null) {
+            trace.write("write", start, path, null, info.fh.get(), offset, size, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int statfs(String path, Statvfs stbuf) {
+        FuseOperationEvent event = events ? FuseEvents.start("statfs") : null;
+        long start = System.nanoTime();
+        int result = statfsMetrics.record(start, super.statfs(path, stbuf));
+        if (event != null) {
+            event.complete(path, 0, 0, 0, result);
+        }
+        if (trace != null) {
+            trace.write("statfs", start, path, null, 0, 0, 0, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int chmod(String path, @mode_t long mode) {
+        FuseOperationEvent event = events ? FuseEvents.start("chmod") : null;
+        long start = System.nanoTime();
+        int result = chmodMetrics.record(start, super.chmod(path, mode));
+        if (event != null) {
+            event.complete(path, 0, 0, 0, result);
+        }
+        if (trace != null) {
+            trace.write("chmod", start, path, null, 0, 0, mode, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int flush(String path, FuseFileInfo info) {
+        FuseOperationEvent event = events ? FuseEvents.start("flush") : null;
+        long start = System.nanoTime();
+        int result = flushMetrics.record(start, super.flush(path, info));
+        if (event != null) {
+            event.complete(path, info.fh.get(), 0, 0, result);
+        }
+        if (trace != null) {
+            trace.write("flush", start, path, null, info.fh.get(), 0, 0, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int fsync(String path, int isdatasync, FuseFileInfo info) {
+        FuseOperationEvent event = events ? FuseEvents.start("fsync") : null;
+        long start = System.nanoTime();
+        int result = fsyncMetrics.record(start, super.fsync(path, isdatasync, info));
+        if (event != null) {
+            event.complete(path, info.fh.get(), 0, 0, result);
+        }
+        if (trace != null) {
+            trace.write("fsync", start, path, null, info.fh.get(), 0, 0, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int release(String path, FuseFileInfo info) {
+        FuseOperationEvent event = events ? FuseEvents.start("release") : null;
+        long start = System.nanoTime();
+        int result = releaseMetrics.record(start, super.release(path, info));
+        if (event != null) {
+            event.complete(path, info.fh.get(), 0, 0, result);
+        }
+        if (trace != null) {
+            trace.write("release", start, path, null, info.fh.get(), 0, 0, 0, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int lock(String path, FuseFileInfo info, int cmd, Flock flock) {
+        FuseOperationEvent event = events ? FuseEvents.start("lock") : null;
+        long start = System.nanoTime();
+        int result = lockMetrics.record(start, super.lock(path, info, cmd, flock));
+        if (event != null) {
+            event.complete(path, info.fh.get(), 0, 0, result);
+        }
+        if (trace != null) {
+            trace.write("lock", start, path, null, info.fh.get(), 0, 0, 0, result);
+        }
+        return result;
+    }
+}
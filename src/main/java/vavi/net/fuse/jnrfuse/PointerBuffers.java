@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.jnrfuse;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.ByteBuffer;
+
+import com.kenai.jffi.MemoryIO;
+import jnr.ffi.Pointer;
+import jnr.ffi.Runtime;
+import vavi.net.fuse.cache.BufferPool;
+
+import static java.lang.System.getLogger;
+
+
+/**
+ * PointerBuffers. byte buffers for the native fuse buffers without per call heap allocation.
+ * <p>
+ * a native fuse buffer is viewed as a direct byte buffer which shares the memory (zero-copy).
+ * when a view cannot be made, a pooled direct buffer is used and copied natively
+ * from/to the fuse buffer. the pool is not per thread, so it works with virtual threads.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+final class PointerBuffers {
+
+    private static final Logger logger = getLogger(PointerBuffers.class.getName());
+
+    private PointerBuffers() {
+    }
+
+    /** null when direct buffer views are not available */
+    private static final MemoryIO memoryIO;
+
+    static {
+        MemoryIO io = null;
+        try {
+            io = MemoryIO.getInstance();
+        } catch (Throwable t) {
+logger.log(Level.WARNING, "direct buffer view is not available: " + t);
+        }
+        memoryIO = io;
+    }
+
+    /** direct buffers for pointers which cannot be viewed, grow as needed */
+    private static final BufferPool scratches = new BufferPool(0x20000, true);
+
+    /** */
+    private static boolean isViewable(Pointer pointer) {
+        return memoryIO != null && pointer.isDirect() && pointer.address() != 0;
+    }
+
+    /**
+     * @return a direct byte buffer sharing the native memory of the pointer,
+     *         position 0 and limit size. null when not available
+     */
+    static ByteBuffer view(Pointer pointer, long size) {
+        if (!isViewable(pointer) || size > Integer.MAX_VALUE) {
+            return null;
+        }
+        return memoryIO.newDirectByteBuffer(pointer.address(), (int) size);
+    }
+
+    /** @return a native pointer of the scratch buffer */
+    private static Pointer pointer(ByteBuffer scratch) {
+        return Runtime.getSystemRuntime().getMemoryManager().newPointer(scratch);
+    }
+
+    /**
+     * for reading into the pointer.
+     * @return a view of the pointer, or a pooled buffer which should be {@link #flush flushed}
+     *         and {@link #release released}
+     */
+    static ByteBuffer forRead(Pointer pointer, long size) {
+        ByteBuffer buffer = view(pointer, size);
+        return buffer != null ? buffer : scratches.acquire((int) size);
+    }
+
+    /**
+     * copies the first n bytes of the buffer into the pointer when the buffer is not a view of it.
+     * @param buffer a buffer returned by {@link #forRead(Pointer, long)}
+     */
+    static void flush(ByteBuffer buffer, Pointer pointer, int n) {
+        if (!isViewable(pointer) && n > 0) {
+            pointer.transferFrom(0, pointer(buffer), 0, n);
+        }
+    }
+
+    /**
+     * for writing from the pointer.
+     * @return a view of the pointer, or a pooled buffer filled from the pointer
+     *         which should be {@link #release released}
+     */
+    static ByteBuffer forWrite(Pointer pointer, long size) {
+        ByteBuffer buffer = view(pointer, size);
+        if (buffer == null) {
+            buffer = scratches.acquire((int) size);
+            pointer.transferTo(0, pointer(buffer), 0, size);
+        }
+        return buffer;
+    }
+
+    /**
+     * gives the buffer back to the pool when it is not a view of the pointer.
+     * @param buffer a buffer returned by {@link #forRead(Pointer, long)} or {@link #forWrite(Pointer, long)},
+     *               must not be used after this
+     */
+    static void release(ByteBuffer buffer, Pointer pointer) {
+        if (!isViewable(pointer)) {
+            scratches.release(buffer);
+        }
+    }
+}
@@ -19,6 +19,7 @@ import jnr.ffi.types.off_t;
 import ru.serce.jnrfuse.FuseFillDir;
 import ru.serce.jnrfuse.struct.FileStat;
 import ru.serce.jnrfuse.struct.FuseFileInfo;
+import vavi.net.fuse.Fuse;
 
 
 /**
@@ -27,19 +28,35 @@ import ru.serce.jnrfuse.struct.FuseFileInfo;
  * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
  * @version 0.00 2016/02/29 umjammer initial version <br>
  */
-class SingleThreadJavaNioFileFS extends JavaNioFileFS {
+class SingleThreadJavaNioFileFS extends MeteredJavaNioFileFS {
 
     /** */
-    private ExecutorService singleService = Executors.newSingleThreadExecutor();
+    private final ExecutorService singleService;
+
+    /** the single thread is shared by mounts */
+    private final boolean sharedService;
 
     /** */
     private ExecutorService multiService = Executors.newCachedThreadPool();
 
     /**
      * @param fileSystem
+     * @param env the single thread is shared when {@link Fuse#ENV_DISPATCHER} is an executor service
      */
     public SingleThreadJavaNioFileFS(FileSystem fileSystem, Map<String, Object> env) throws IOException {
         super(fileSystem, env);
+        Object dispatcher = env.get(Fuse.ENV_DISPATCHER);
+        this.sharedService = dispatcher instanceof ExecutorService;
+        this.singleService = sharedService ? (ExecutorService) dispatcher : Executors.newSingleThreadExecutor();
+    }
+
+    @Override
+    void dispose() {
+        if (!sharedService) {
+            singleService.shutdown();
+        }
+        multiService.shutdown();
+        super.dispose();
     }
 
     @Override
@@ -108,6 +125,26 @@ class SingleThreadJavaNioFileFS extends JavaNioFileFS {
         }
     }
 
+    @Override
+    public int flush(final String path, final FuseFileInfo info) {
+        Future<Integer> f = singleService.submit(() -> super.flush(path, info));
+        try {
+            return f.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public int fsync(final String path, final int isdatasync, final FuseFileInfo info) {
+        Future<Integer> f = singleService.submit(() -> super.fsync(path, isdatasync, info));
+        try {
+            return f.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Override
     public int release(final String path, final FuseFileInfo info) {
         Future<Integer> f = singleService.submit(() -> super.release(path, info));
@@ -148,6 +185,16 @@ class SingleThreadJavaNioFileFS extends JavaNioFileFS {
         }
     }
 
+    @Override
+    public int opendir(final String path, final FuseFileInfo info) {
+        Future<Integer> f = singleService.submit(() -> super.opendir(path, info));
+        try {
+            return f.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Override
     public int readdir(final String path, Pointer buf, final FuseFillDir filler, @off_t long offset, FuseFileInfo info) {
         Future<Integer> f = singleService.submit(() -> super.readdir(path, buf, filler, offset, info));
@@ -158,6 +205,16 @@ class SingleThreadJavaNioFileFS extends JavaNioFileFS {
         }
     }
 
+    @Override
+    public int releasedir(final String path, final FuseFileInfo info) {
+        Future<Integer> f = singleService.submit(() -> super.releasedir(path, info));
+        try {
+            return f.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Override
     public int rename(final String path, final String newName) {
         Future<Integer> f = singleService.submit(() -> super.rename(path, newName));
@@ -178,6 +235,16 @@ class SingleThreadJavaNioFileFS extends JavaNioFileFS {
         }
     }
 
+    @Override
+    public int ftruncate(final String path, final long offset, final FuseFileInfo info) {
+        Future<Integer> f = singleService.submit(() -> super.ftruncate(path, offset, info));
+        try {
+            return f.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Override
     public int unlink(final String path) {
         Future<Integer> f = singleService.submit(() -> super.unlink(path));
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.jnrfuse;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.util.Map;
+
+import jnr.ffi.Pointer;
+import jnr.ffi.types.mode_t;
+import jnr.ffi.types.off_t;
+import jnr.ffi.types.size_t;
+import ru.serce.jnrfuse.FuseFillDir;
+import ru.serce.jnrfuse.struct.FileStat;
+import ru.serce.jnrfuse.struct.Flock;
+import ru.serce.jnrfuse.struct.FuseFileInfo;
+import ru.serce.jnrfuse.struct.Statvfs;
+import vavi.net.fuse.Fuse;
+import vavi.net.fuse.io.StripedExecutor;
+
+
+/**
+ * StripedJavaNioFileFS. (jnr-fuse)
+ * <p>
+ * runs callbacks on lanes chosen by the path instead of one thread of the mount,
+ * callbacks of a file are serialized and unrelated files proceed in parallel.
+ * handle based callbacks use the path too, fuse gives the current path of the handle.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see StripedExecutor
+ */
+class StripedJavaNioFileFS extends MeteredJavaNioFileFS {
+
+    /** */
+    private final StripedExecutor lanes;
+
+    /** the lanes are shared by mounts */
+    private final boolean sharedLanes;
+
+    /** @param lanes number of lanes, not used when lanes are shared by {@link Fuse#ENV_DISPATCHER} */
+    public StripedJavaNioFileFS(FileSystem fileSystem, Map<String, Object> env, int lanes) throws IOException {
+        super(fileSystem, env);
+        Object dispatcher = env.get(Fuse.ENV_DISPATCHER);
+        this.sharedLanes = dispatcher instanceof StripedExecutor;
+        this.lanes = sharedLanes ? (StripedExecutor) dispatcher : new StripedExecutor(lanes);
+    }
+
+    @Override
+    void dispose() {
+        if (!sharedLanes) {
+            lanes.close();
+        }
+        super.dispose();
+    }
+
+    @Override
+    Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = super.getStatistics();
+        lanes.putStatistics(statistics, "lanes");
+        return statistics;
+    }
+
+    @Override
+    public int access(String path, int access) {
+        return lanes.execute(path, () -> super.access(path, access));
+    }
+
+    @Override
+    public int create(String path, @mode_t long mode, FuseFileInfo info) {
+        return lanes.execute(path, () -> super.create(path, mode, info));
+    }
+
+    @Override
+    public int getattr(String path, FileStat stat) {
+        return lanes.execute(path, () -> super.getattr(path, stat));
+    }
+
+    @Override
+    public int fgetattr(String path, FileStat stat, FuseFileInfo info) {
+        return lanes.execute(path, () -> super.fgetattr(path, stat, info));
+    }
+
+    @Override
+    public int mkdir(String path, @mode_t long mode) {
+        return lanes.execute(path, () -> super.mkdir(path, mode));
+    }
+
+    @Override
+    public int open(String path, FuseFileInfo info) {
+        return lanes.execute(path, () -> super.open(path, info));
+    }
+
+    @Override
+    public int read(String path, Pointer buf, @size_t long size, @off_t long offset, FuseFileInfo info) {
+        return lanes.execute(path, () -> super.read(path, buf, size, offset, info));
+    }
+
+    @Override
+    public int opendir(String path, FuseFileInfo info) {
+        return lanes.execute(path, () -> super.opendir(path, info));
+    }
+
+    @Override
+    public int readdir(String path, Pointer buf, FuseFillDir filler, @off_t long offset, FuseFileInfo info) {
+        return lanes.execute(path, () -> super.readdir(path, buf, filler, offset, info));
+    }
+
+    @Override
+    public int releasedir(String path, FuseFileInfo info) {
+        return lanes.execute(path, () -> super.releasedir(path, info));
+    }
+
+    @Override
+    public int rename(String path, String newName) {
+        return lanes.execute(path, newName, () -> super.rename(path, newName));
+    }
+
+    @Override
+    public int rmdir(String path) {
+        return lanes.execute(path, () -> super.rmdir(path));
+    }
+
+    @Override
+    public int truncate(String path, @off_t long offset) {
+        return lanes.execute(path, () -> super.truncate(path, offset));
+    }
+
+    @Override
+    public int ftruncate(String path, @off_t long offset, FuseFileInfo info) {
+        return lanes.execute(path, () -> super.ftruncate(path, offset, info));
+    }
+
+    @Override
+    public int unlink(String path) {
+        return lanes.execute(path, () -> super.unlink(path));
+    }
+
+    @Override
+    public int write(String path, Pointer buf, @size_t long size, @off_t long offset, FuseFileInfo info) {
+        return lanes.execute(path, () -> super.write(path, buf, size, offset, info));
+    }
+
+    @Override
+    public int statfs(String path, Statvfs stbuf) {
+        return lanes.execute(path, () -> super.statfs(path, stbuf));
+    }
+
+    @Override
+    public int chmod(String path, @mode_t long mode) {
+        return lanes.execute(path, () -> super.chmod(path, mode));
+    }
+
+    @Override
+    public int flush(String path, FuseFileInfo info) {
+        return lanes.execute(path, () -> super.flush(path, info));
+    }
+
+    @Override
+    public int fsync(String path, int isdatasync, FuseFileInfo info) {
+        return lanes.execute(path, () -> super.fsync(path, isdatasync, info));
+    }
+
+    @Override
+    public int release(String path, FuseFileInfo info) {
+        return lanes.execute(path, () -> super.release(path, info));
+    }
+
+    @Override
+    public int lock(String path, FuseFileInfo info, int cmd, Flock flock) {
+        return lanes.execute(path, () -> super.lock(path, info, cmd, flock));
+    }
+}
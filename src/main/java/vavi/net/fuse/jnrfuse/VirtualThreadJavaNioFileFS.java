@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.jnrfuse;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.util.Map;
+
+import jnr.ffi.Pointer;
+import jnr.ffi.types.mode_t;
+import jnr.ffi.types.off_t;
+import jnr.ffi.types.size_t;
+import ru.serce.jnrfuse.FuseFillDir;
+import ru.serce.jnrfuse.struct.FileStat;
+import ru.serce.jnrfuse.struct.Flock;
+import ru.serce.jnrfuse.struct.FuseFileInfo;
+import ru.serce.jnrfuse.struct.Statvfs;
+import vavi.net.fuse.Fuse;
+import vavi.net.fuse.io.VirtualThreadExecutor;
+
+
+/**
+ * VirtualThreadJavaNioFileFS. (jnr-fuse)
+ * <p>
+ * runs each callback on a virtual thread, in flight callbacks are bounded per operation.
+ * the fuse thread still waits for the result because the callbacks are synchronous.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see VirtualThreadExecutor
+ */
+class VirtualThreadJavaNioFileFS extends MeteredJavaNioFileFS {
+
+    /** */
+    private final VirtualThreadExecutor threads;
+
+    /** the threads are shared by mounts */
+    private final boolean sharedThreads;
+
+    /** @param permits max in flight callbacks per operation, not used when threads are shared by {@link Fuse#ENV_DISPATCHER} */
+    public VirtualThreadJavaNioFileFS(FileSystem fileSystem, Map<String, Object> env, int permits) throws IOException {
+        super(fileSystem, env);
+        Object dispatcher = env.get(Fuse.ENV_DISPATCHER);
+        this.sharedThreads = dispatcher instanceof VirtualThreadExecutor;
+        this.threads = sharedThreads ? (VirtualThreadExecutor) dispatcher : new VirtualThreadExecutor(permits);
+    }
+
+    @Override
+    void dispose() {
+        if (!sharedThreads) {
+            threads.close();
+        }
+        super.dispose();
+    }
+
+    @Override
+    Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = super.getStatistics();
+        threads.putStatistics(statistics, "threads");
+        return statistics;
+    }
+
+    @Override
+    public int access(String path, int access) {
+        return threads.execute("access", () -> super.access(path, access));
+    }
+
+    @Override
+    public int create(String path, @mode_t long mode, FuseFileInfo info) {
+        return threads.execute("create", () -> super.create(path, mode, info));
+    }
+
+    @Override
+    public int getattr(String path, FileStat stat) {
+        return threads.execute("getattr", () -> super.getattr(path, stat));
+    }
+
+    @Override
+    public int fgetattr(String path, FileStat stat, FuseFileInfo info) {
+        return threads.execute("fgetattr", () -> super.fgetattr(path, stat, info));
+    }
+
+    @Override
+    public int mkdir(String path, @mode_t long mode) {
+        return threads.execute("mkdir", () -> super.mkdir(path, mode));
+    }
+
+    @Override
+    public int open(String path, FuseFileInfo info) {
+        return threads.execute("open", () -> super.open(path, info));
+    }
+
+    @Override
+    public int read(String path, Pointer buf, @size_t long size, @off_t long offset, FuseFileInfo info) {
+        return threads.execute("read", () -> super.read(path, buf, size, offset, info));
+    }
+
+    @Override
+    public int opendir(String path, FuseFileInfo info) {
+        return threads.execute("opendir", () -> super.opendir(path, info));
+    }
+
+    @Override
+    public int readdir(String path, Pointer buf, FuseFillDir filler, @off_t long offset, FuseFileInfo info) {
+        return threads.execute("readdir", () -> super.readdir(path, buf, filler, offset, info));
+    }
+
+    @Override
+    public int releasedir(String path, FuseFileInfo info) {
+        return threads.execute("releasedir", () -> super.releasedir(path, info));
+    }
+
+    @Override
+    public int rename(String path, String newName) {
+        return threads.execute("rename", () -> super.rename(path, newName));
+    }
+
+    @Override
+    public int rmdir(String path) {
+        return threads.execute("rmdir", () -> super.rmdir(path));
+    }
+
+    @Override
+    public int truncate(String path, @off_t long offset) {
+        return threads.execute("truncate", () -> super.truncate(path, offset));
+    }
+
+    @Override
+    public int ftruncate(String path, @off_t long offset, FuseFileInfo info) {
+        return threads.execute("ftruncate", () -> super.ftruncate(path, offset, info));
+    }
+
+    @Override
+    public int unlink(String path) {
+        return threads.execute("unlink", () -> super.unlink(path));
+    }
+
+    @Override
+    public int write(String path, Pointer buf, @size_t long size, @off_t long offset, FuseFileInfo info) {
+        return threads.execute("write", () -> super.write(path, buf, size, offset, info));
+    }
+
+    @Override
+    public int statfs(String path, Statvfs stbuf) {
+        return threads.execute("statfs", () -> super.statfs(path, stbuf));
+    }
+
+    @Override
+    public int chmod(String path, @mode_t long mode) {
+        return threads.execute("chmod", () -> super.chmod(path, mode));
+    }
+
+    @Override
+    public int flush(String path, FuseFileInfo info) {
+        return threads.execute("flush", () -> super.flush(path, info));
+    }
+
+    @Override
+    public int fsync(String path, int isdatasync, FuseFileInfo info) {
+        return threads.execute("fsync", () -> super.fsync(path, isdatasync, info));
+    }
+
+    @Override
+    public int release(String path, FuseFileInfo info) {
+        return threads.execute("release", () -> super.release(path, info));
+    }
+
+    @Override
+    public int lock(String path, FuseFileInfo info, int cmd, Flock flock) {
+        return threads.execute("lock", () -> super.lock(path, info, cmd, flock));
+    }
+}
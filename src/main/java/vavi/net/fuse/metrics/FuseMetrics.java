@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.metrics;
+
+import java.io.Closeable;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import vavi.net.fuse.Fuse;
+
+import static java.lang.System.getLogger;
+
+
+/**
+ * FuseMetrics. per operation metrics of a mount, published as an MXBean.
+ * <p>
+ * the object name is {@code vavi.net.fuse:type=Metrics,mountPoint="..."}.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see Fuse#ENV_METRICS
+ */
+public class FuseMetrics implements FuseMetricsMXBean, Closeable {
+
+    private static final Logger logger = getLogger(FuseMetrics.class.getName());
+
+    /** */
+    private final boolean enabled;
+
+    /** key is an operation name */
+    private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+    /** null when not registered */
+    private ObjectName name;
+
+    /** */
+    private String mountPoint;
+
+    /** @param enabled false means nothing is recorded */
+    public FuseMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /** creates metrics from mount env */
+    public static FuseMetrics of(Map<String, Object> env) {
+        return new FuseMetrics(Fuse.isEnabled(Fuse.ENV_METRICS, env));
+    }
+
+    /** */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** @return metrics of the operation, keep it for recording without lookup */
+    public OperationMetrics operation(String name) {
+        return operations.computeIfAbsent(name, k -> new OperationMetrics(enabled));
+    }
+
+    /** registers the mxbean of the mount, does nothing when disabled */
+    public synchronized void register(String mountPoint) {
+        if (!enabled || name != null) {
+            return;
+        }
+        this.mountPoint = mountPoint;
+        try {
+            ObjectName name = new ObjectName("vavi.net.fuse:type=Metrics,mountPoint=" + ObjectName.quote(mountPoint));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, name);
+            this.name = name;
+logger.log(Level.DEBUG, "metrics: " + name);
+        } catch (JMException e) {
+logger.log(Level.WARNING, "metrics: " + mountPoint + ": " + e);
+        }
+    }
+
+    @Override
+    public String getMountPoint() {
+        return mountPoint;
+    }
+
+    @Override
+    public Map<String, OperationMetrics> getOperations() {
+        return new TreeMap<>(operations);
+    }
+
+    @Override
+    public void reset() {
+        operations.values().forEach(OperationMetrics::reset);
+    }
+
+    /** puts statistics into the map with keys prefixed by {@code prefix} */
+    public void putStatistics(Map<String, Object> statistics, String prefix) {
+        if (!enabled) {
+            return;
+        }
+        new TreeMap<>(operations).forEach((name, op) -> {
+            if (op.getCalls() > 0) {
+                statistics.put(prefix + "." + name + ".calls", op.getCalls());
+                statistics.put(prefix + "." + name + ".errors", op.getErrors());
+                statistics.put(prefix + "." + name + ".p99", op.getP99Micros());
+            }
+        });
+    }
+
+    /** unregisters the mxbean */
+    @Override
+    public synchronized void close() {
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (JMException e) {
+logger.log(Level.WARNING, "metrics: " + name + ": " + e);
+            }
+            name = null;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.metrics;
+
+import java.util.Map;
+
+
+/**
+ * FuseMetricsMXBean. metrics of fuse operations of a mount.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+public interface FuseMetricsMXBean {
+
+    /** */
+    String getMountPoint();
+
+    /** @return key is an operation name */
+    Map<String, OperationMetrics> getOperations();
+
+    /** clears all counters and histograms */
+    void reset();
+}
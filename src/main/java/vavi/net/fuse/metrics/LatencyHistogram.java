@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * LatencyHistogram. a lock free log linear histogram of nanoseconds.
+ * <p>
+ * a power of 2 range is divided into 8 buckets, so a percentile is within 12.5% of the value.
+ * recording is an atomic increment, reading is not a consistent snapshot while recording.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+public class LatencyHistogram {
+
+    /** sub buckets of a power of 2 in bits */
+    private static final int SUB_BITS = 3;
+
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    /** */
+    private final AtomicLongArray buckets = new AtomicLongArray(index(Long.MAX_VALUE) + 1);
+
+    /** */
+    private final AtomicLong max = new AtomicLong();
+
+    /** @return the bucket index of the value */
+    static int index(long value) {
+        if (value < SUB_COUNT) {
+            return (int) Math.max(0, value);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    /** @return the highest value of the bucket */
+    static long highest(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_COUNT + SUB_BITS - 1;
+        long sub = index % SUB_COUNT;
+        long next = (SUB_COUNT + sub + 1) << (exponent - SUB_BITS);
+        return next < 0 ? Long.MAX_VALUE : next - 1;
+    }
+
+    /** @param nanos a latency */
+    public void record(long nanos) {
+        buckets.incrementAndGet(index(nanos));
+        long current;
+        while (nanos > (current = max.get())) {
+            if (max.compareAndSet(current, nanos)) {
+                break;
+            }
+        }
+    }
+
+    /** */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /** */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param quantile 0 ~ 1, e.g. 0.99
+     * @return nanoseconds, 0 when nothing is recorded
+     */
+    public long getPercentile(double quantile) {
+        long[] counts = new long[buckets.length()];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highest(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /** */
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        max.set(0);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * OperationMetrics. counters and latencies of a fuse operation.
+ * <p>
+ * a negative result of a callback is counted as an error by its errno,
+ * a positive result is counted as bytes moved (read, write).
+ * getters are published as attributes of {@link FuseMetricsMXBean}.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+public class OperationMetrics {
+
+    /** */
+    private final boolean enabled;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    /** key is errno */
+    private final ConcurrentMap<Integer, LongAdder> errnos = new ConcurrentHashMap<>();
+
+    /** */
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /** @param enabled false means {@link #record(long, int)} does nothing */
+    OperationMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @param start {@link System#nanoTime()} at the start of the callback
+     * @param result the result of the callback
+     * @return {@code result}
+     */
+    public int record(long start, int result) {
+        if (enabled) {
+            latencies.record(System.nanoTime() - start);
+            calls.increment();
+            if (result < 0) {
+                errors.increment();
+                errnos.computeIfAbsent(-result, k -> new LongAdder()).increment();
+            } else if (result > 0) {
+                bytes.add(result);
+            }
+        }
+        return result;
+    }
+
+    /** */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /** */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /** @return key is errno */
+    public Map<Integer, Long> getErrorsByErrno() {
+        Map<Integer, Long> result = new TreeMap<>();
+        errnos.forEach((errno, count) -> result.put(errno, count.sum()));
+        return result;
+    }
+
+    /** */
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /** */
+    public long getP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(latencies.getPercentile(0.5));
+    }
+
+    /** */
+    public long getP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(latencies.getPercentile(0.99));
+    }
+
+    /** */
+    public long getP999Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(latencies.getPercentile(0.999));
+    }
+
+    /** */
+    public long getMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(latencies.getMax());
+    }
+
+    /** */
+    void reset() {
+        calls.reset();
+        errors.reset();
+        bytes.reset();
+        errnos.clear();
+        latencies.reset();
+    }
+}
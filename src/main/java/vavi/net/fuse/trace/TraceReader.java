@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.trace;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * TraceReader. reads a trace file written by {@link TraceWriter}.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+public class TraceReader implements Closeable {
+
+    /** */
+    private final DataInputStream in;
+
+    /** epoch milliseconds */
+    private final long startTime;
+
+    /** index is a path ref - 2 */
+    private final List<String> paths = new ArrayList<>();
+
+    /** */
+    public TraceReader(Path path) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024));
+        if (in.readInt() != TraceWriter.MAGIC) {
+            in.close();
+            throw new IOException("not a trace: " + path);
+        }
+        short version = in.readShort();
+        if (version < 1 || version > TraceWriter.VERSION) {
+            in.close();
+            throw new IOException("unsupported version: " + version);
+        }
+        startTime = in.readLong();
+    }
+
+    /** @return epoch milliseconds when the trace started */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /** @return null at the end of the trace */
+    public TraceRecord read() throws IOException {
+        int code = in.read();
+        while (code == TraceWriter.RESET) {
+            paths.clear();
+            code = in.read();
+        }
+        if (code < 0) {
+            return null;
+        }
+        try {
+            if (code >= TraceRecord.OPERATIONS.size()) {
+                throw new IOException("unknown operation: " + code);
+            }
+            String operation = TraceRecord.OPERATIONS.get(code);
+            long time = readVarLong();
+            long duration = readVarLong();
+            long thread = readVarLong();
+            String path = readPath();
+            String path2 = readPath();
+            long fh = readVarLong();
+            long offset = readVarLong();
+            long size = readVarLong();
+            int flags = unzigzag(readVarLong());
+            int result = unzigzag(readVarLong());
+            return new TraceRecord(operation, time, duration, thread, path, path2, fh, offset, size, flags, result);
+        } catch (EOFException e) {
+            // the last record is truncated, e.g. the mount was killed
+            return null;
+        }
+    }
+
+    /** @return all records */
+    public List<TraceRecord> readAll() throws IOException {
+        List<TraceRecord> records = new ArrayList<>();
+        TraceRecord record;
+        while ((record = read()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    /** */
+    private String readPath() throws IOException {
+        int ref = (int) readVarLong();
+        switch (ref) {
+        case 0:
+            return null;
+        case 1:
+            String path = in.readUTF();
+            paths.add(path);
+            return path;
+        default:
+            return paths.get(ref - 2);
+        }
+    }
+
+    /** */
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed var long");
+    }
+
+    /** */
+    static int unzigzag(long value) {
+        int v = (int) value;
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.trace;
+
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * TraceRecord. a fuse callback in a trace.
+ * <p>
+ * {@link #size} is the mode for create, mkdir and chmod, {@link #offset} is the size for truncate and ftruncate.
+ * {@link #flags} is open flags for open and create, and the access mode for access.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+public final class TraceRecord {
+
+    /** operations, the index is the code in a trace file, append only */
+    static final List<String> OPERATIONS = Arrays.asList(
+        "access", "create", "getattr", "fgetattr", "mkdir", "open", "read", "opendir", "readdir", "releasedir",
+        "rename", "rmdir", "truncate", "ftruncate", "unlink", "write", "statfs", "chmod", "flush", "fsync",
+        "release", "lock");
+
+    /** e.g. "read" */
+    public final String operation;
+    /** nanoseconds from the start of the trace to the start of the callback */
+    public final long time;
+    /** nanoseconds of the callback */
+    public final long duration;
+    /** id of the thread which called the callback */
+    public final long thread;
+    /** */
+    public final String path;
+    /** the new path of rename, otherwise null */
+    public final String path2;
+    /** */
+    public final long fh;
+    /** */
+    public final long offset;
+    /** */
+    public final long size;
+    /** */
+    public final int flags;
+    /** the result of the callback, a negative value is an errno */
+    public final int result;
+
+    /** */
+    public TraceRecord(String operation, long time, long duration, long thread, String path, String path2, long fh, long offset, long size, int flags, int result) {
+        this.operation = operation;
+        this.time = time;
+        this.duration = duration;
+        this.thread = thread;
+        this.path = path;
+        this.path2 = path2;
+        this.fh = fh;
+        this.offset = offset;
+        this.size = size;
+        this.flags = flags;
+        this.result = result;
+    }
+
+    @Override
+    public String toString() {
+        return operation + " " + path + (path2 != null ? " " + path2 : "") + " fh=" + fh + " offset=" + offset + " size=" + size +
+                " flags=" + flags + " result=" + result + " time=" + time + " duration=" + duration + " thread=" + thread;
+    }
+}
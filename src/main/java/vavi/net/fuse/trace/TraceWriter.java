@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.trace;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import vavi.net.fuse.Fuse;
+
+import static java.lang.System.getLogger;
+
+
+/**
+ * TraceWriter. writes fuse callbacks into a compact binary trace file.
+ * <p>
+ * format
+ * <pre>
+ * header: "VFTR", version (short), start time (epoch milliseconds, long)
+ * record: operation (byte), time, duration, thread (var long),
+ *         path, path2 (path ref), fh, offset, size (var long), flags, result (zigzag var int)
+ *       | reset (byte 0xff), new paths are counted from 0 again (since version 2)
+ * path ref: 0 is null, 1 is a new path followed by utf, n is the (n - 2)th new path
+ * </pre>
+ * a var long is 7 bits per byte, little endian, the top bit means more bytes follow.
+ * the path dictionary is reset when it is full, so memory is bounded for long mounts.
+ * a failure of writing is logged once and following records are dropped.
+ * <p>
+ * records are serialized by one lock which also covers flushing the buffer,
+ * callbacks wait for each other while tracing.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ * @see Fuse#ENV_TRACE
+ * @see TraceReader
+ */
+public class TraceWriter implements Closeable {
+
+    private static final Logger logger = getLogger(TraceWriter.class.getName());
+
+    /** */
+    static final int MAGIC = 0x56465452; // "VFTR"
+
+    /** */
+    static final short VERSION = 2;
+
+    /** the record code to clear the path dictionary */
+    static final int RESET = 0xff;
+
+    /** */
+    static final int DEFAULT_MAX_PATHS = 0x10000;
+
+    /** operation code */
+    private static final Map<String, Integer> codes = new HashMap<>();
+
+    static {
+        for (int i = 0; i < TraceRecord.OPERATIONS.size(); i++) {
+            codes.put(TraceRecord.OPERATIONS.get(i), i);
+        }
+    }
+
+    /** guarded by this */
+    private final DataOutputStream out;
+
+    /** nano time at the start */
+    private final long start = System.nanoTime();
+
+    /** guarded by this, value is a path ref - 2 */
+    private final Map<String, Integer> paths = new HashMap<>();
+
+    /** */
+    private final int maxPaths;
+
+    /** guarded by this */
+    private long records;
+
+    /** guarded by this, null when writing failed */
+    private IOException error;
+
+    /** @param path a trace file, overwritten */
+    public TraceWriter(Path path) throws IOException {
+        this(path, DEFAULT_MAX_PATHS);
+    }
+
+    /**
+     * @param path a trace file, overwritten
+     * @param maxPaths paths kept in the dictionary, at least 2
+     */
+    TraceWriter(Path path, int maxPaths) throws IOException {
+        this.maxPaths = Math.max(2, maxPaths);
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(System.currentTimeMillis());
+    }
+
+    /** @return null when {@link Fuse#ENV_TRACE} is not specified */
+    public static TraceWriter of(Map<String, Object> env) throws IOException {
+        Object path = env.get(Fuse.ENV_TRACE);
+        return path != null ? new TraceWriter(Paths.get(String.valueOf(path))) : null;
+    }
+
+    /**
+     * @param operation one of fuse callback names
+     * @param start {@link System#nanoTime()} at the start of the callback
+     * @param path2 nullable
+     * @see TraceRecord
+     */
+    public synchronized void write(String operation, long start, String path, String path2, long fh, long offset, long size, int flags, int result) {
+        if (error != null) {
+            return;
+        }
+        long now = System.nanoTime();
+        try {
+            if (paths.size() + 2 > maxPaths) {
+                out.writeByte(RESET);
+                paths.clear();
+            }
+            out.writeByte(codes.get(operation));
+            writeVarLong(start - this.start);
+            writeVarLong(now - start);
+            writeVarLong(Thread.currentThread().getId());
+            writePath(path);
+            writePath(path2);
+            writeVarLong(fh);
+            writeVarLong(offset);
+            writeVarLong(size);
+            writeVarLong(zigzag(flags));
+            writeVarLong(zigzag(result));
+            records++;
+        } catch (IOException e) {
+            error = e;
+logger.log(Level.WARNING, "trace is stopped: " + e);
+        }
+    }
+
+    /** */
+    private void writePath(String path) throws IOException {
+        if (path == null) {
+            writeVarLong(0);
+            return;
+        }
+        Integer index = paths.get(path);
+        if (index != null) {
+            writeVarLong(index + 2);
+        } else {
+            paths.put(path, paths.size());
+            writeVarLong(1);
+            out.writeUTF(path);
+        }
+    }
+
+    /** */
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /** */
+    static long zigzag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xffffffffL;
+    }
+
+    /** number of records written */
+    public synchronized long getRecords() {
+        return records;
+    }
+
+    /** puts statistics into the map with keys prefixed by {@code prefix} */
+    public void putStatistics(Map<String, Object> statistics, String prefix) {
+        statistics.put(prefix + ".records", getRecords());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
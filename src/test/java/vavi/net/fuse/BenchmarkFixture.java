@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+
+
+/**
+ * BenchmarkFixture. a file system and files for benchmarks which call fuse callbacks in process.
+ * <p>
+ * fuse paths are absolute paths of the file system, on the default file system they are
+ * under a temporary directory.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+public class BenchmarkFixture {
+
+    /** number of files in {@link #dir} */
+    public static final int FILES = 100;
+
+    /** bytes of {@link #file} */
+    public static final int FILE_SIZE = 8 * 1024 * 1024;
+
+    /** */
+    public final FileSystem fileSystem;
+
+    /** null for jimfs */
+    private final Path temporary;
+
+    /** fuse path of a directory which has {@link #FILES} files */
+    public final String dir;
+
+    /** fuse path of a {@link #FILE_SIZE} bytes file */
+    public final String file;
+
+    /** fuse path of a file to write */
+    public final String output;
+
+    /** @param name "jimfs" or "default" */
+    public BenchmarkFixture(String name) throws IOException {
+        String root;
+        switch (name) {
+        case "jimfs":
+            fileSystem = Jimfs.newFileSystem(Configuration.unix());
+            temporary = null;
+            root = "";
+            break;
+        case "default":
+            fileSystem = FileSystems.getDefault();
+            temporary = Files.createTempDirectory("fuse-benchmark");
+            root = temporary.toString();
+            break;
+        default:
+            throw new IllegalArgumentException(name);
+        }
+        dir = root + "/dir";
+        file = root + "/file";
+        output = root + "/output";
+        Files.createDirectories(fileSystem.getPath(dir));
+        for (int i = 0; i < FILES; i++) {
+            Files.write(fileSystem.getPath(dir, "file" + i), new byte[i]);
+        }
+        byte[] bytes = new byte[FILE_SIZE];
+        new Random(0).nextBytes(bytes);
+        Files.write(fileSystem.getPath(file), bytes);
+        Files.createFile(fileSystem.getPath(output));
+    }
+
+    /**
+     * @param env comma separated {@code key} or {@code key=value}, e.g. "attr_cache_ttl=1000,readahead"
+     * @return mount env
+     */
+    public static Map<String, Object> env(String env) {
+        Map<String, Object> map = new HashMap<>();
+        for (String entry : env.split(",")) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int p = entry.indexOf('=');
+            if (p < 0) {
+                map.put(entry, null);
+            } else {
+                String value = entry.substring(p + 1);
+                map.put(entry.substring(0, p), value.equals("true") || value.equals("false") ? (Object) Boolean.valueOf(value) : value);
+            }
+        }
+        return map;
+    }
+
+    /** deletes files */
+    public void close() throws IOException {
+        if (temporary != null) {
+            try (Stream<Path> paths = Files.walk(temporary)) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(path);
+                }
+            }
+        } else {
+            fileSystem.close();
+        }
+    }
+}
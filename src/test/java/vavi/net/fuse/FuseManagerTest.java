@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystem;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import vavi.net.fuse.cache.BlockCache;
+import vavi.net.fuse.io.StripedExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * FuseManagerTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class FuseManagerTest {
+
+    /** records its env, unmounts in {@link #closeTime} milliseconds */
+    static class TestFuse implements Fuse {
+        final long closeTime;
+        Map<String, Object> env;
+        volatile boolean closed;
+        TestFuse(long closeTime) {
+            this.closeTime = closeTime;
+        }
+        @Override
+        public void mount(FileSystem fs, String mountPoint, Map<String, Object> env) throws IOException {
+            this.env = env;
+        }
+        @Override
+        public Map<String, Object> getStatistics() {
+            return Collections.singletonMap("closed", closed);
+        }
+        @Override
+        public void close() throws IOException {
+            try {
+                Thread.sleep(closeTime);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            closed = true;
+        }
+    }
+
+    @Test
+    void test01() throws Exception {
+        Map<String, Object> env = new HashMap<>();
+        env.put(Fuse.ENV_BLOCK_CACHE_SIZE, "1048576");
+        try (FuseManager manager = new FuseManager(env)) {
+            TestFuse fuse1 = new TestFuse(0);
+            TestFuse fuse2 = new TestFuse(0);
+            manager.mount(fuse1, null, "/mnt/a", new HashMap<>());
+            manager.mount(fuse2, null, "/mnt/b", new HashMap<>());
+            assertThrows(IllegalStateException.class, () -> manager.mount(new TestFuse(0), null, "/mnt/a", new HashMap<>()));
+
+            assertTrue(fuse1.env.get(Fuse.ENV_BLOCK_CACHE) instanceof BlockCache);
+            assertTrue(fuse1.env.get(Fuse.ENV_MOUNT_EXECUTOR) instanceof ExecutorService);
+            assertTrue(Fuse.isEnabled(Fuse.ENV_NO_SHUTDOWN_HOOK, fuse1.env));
+            assertEquals(fuse1.env.get(Fuse.ENV_MOUNT_EXECUTOR), fuse2.env.get(Fuse.ENV_MOUNT_EXECUTOR));
+
+            // views of the shared cache don't see each other's paths
+            BlockCache view1 = BlockCache.of(fuse1.env);
+            BlockCache view2 = BlockCache.of(fuse2.env);
+            assertNotEquals(view1, view2);
+            ByteBuffer bb = ByteBuffer.allocate(10);
+            view1.read("/x", bb, 0, (dst, position) -> { dst.put(new byte[10]); return 10; });
+            bb.clear();
+            view2.read("/x", bb, 0, (dst, position) -> { dst.put(new byte[10]); return 10; });
+            assertEquals(2L, manager.getStatistics().get("block.misses"));
+
+            assertEquals("[/mnt/a, /mnt/b]", manager.getMounts().keySet().toString());
+            assertEquals(2, manager.getStatistics().get("mounts"));
+
+            manager.unmount("/mnt/a");
+            assertTrue(fuse1.closed);
+            assertEquals("[/mnt/b]", manager.getMounts().keySet().toString());
+        }
+    }
+
+    @Test
+    void test02() throws Exception {
+        FuseManager manager = new FuseManager(new HashMap<>());
+        TestFuse[] fuses = new TestFuse[4];
+        for (int i = 0; i < fuses.length; i++) {
+            fuses[i] = new TestFuse(300);
+            manager.mount(fuses[i], null, "/mnt/" + i, new HashMap<>());
+        }
+        long start = System.nanoTime();
+        assertTrue(manager.shutdown(5, TimeUnit.SECONDS));
+        // in parallel
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        for (TestFuse fuse : fuses) {
+            assertTrue(fuse.closed);
+        }
+        assertThrows(IllegalStateException.class, () -> manager.mount(new TestFuse(0), null, "/mnt/x", new HashMap<>()));
+
+        FuseManager manager2 = new FuseManager(new HashMap<>());
+        TestFuse slow = new TestFuse(10000);
+        manager2.mount(new TestFuse(0), null, "/mnt/fast", new HashMap<>());
+        manager2.mount(slow, null, "/mnt/slow", new HashMap<>());
+        start = System.nanoTime();
+        assertFalse(manager2.shutdown(200, TimeUnit.MILLISECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertFalse(slow.closed);
+    }
+
+    @Test
+    void test03() throws Exception {
+        Map<String, Object> env = new HashMap<>();
+        env.put(Fuse.ENV_STRIPED_LANES, "4");
+        FuseManager manager = new FuseManager(env);
+        TestFuse fuse1 = new TestFuse(0);
+        TestFuse fuse2 = new TestFuse(0);
+        manager.mount(fuse1, null, "/mnt/a", new HashMap<>());
+        manager.mount(fuse2, null, "/mnt/b", new HashMap<>());
+
+        // one dispatcher for all mounts
+        assertTrue(fuse1.env.get(Fuse.ENV_DISPATCHER) instanceof StripedExecutor);
+        assertEquals(fuse1.env.get(Fuse.ENV_DISPATCHER), fuse2.env.get(Fuse.ENV_DISPATCHER));
+        assertEquals(4, manager.getStatistics().get("lanes.lanes"));
+
+        assertTrue(manager.shutdown(5, TimeUnit.SECONDS));
+
+        // no dispatcher by default
+        FuseManager manager2 = new FuseManager(new HashMap<>());
+        TestFuse fuse3 = new TestFuse(0);
+        manager2.mount(fuse3, null, "/mnt/c", new HashMap<>());
+        assertFalse(fuse3.env.containsKey(Fuse.ENV_DISPATCHER));
+        assertTrue(manager2.shutdown(5, TimeUnit.SECONDS));
+    }
+}
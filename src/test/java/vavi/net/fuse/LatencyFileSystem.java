@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AccessMode;
+import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.UserPrincipalLookupService;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * LatencyFileSystem. wraps a file system and sleeps before each call to its provider and
+ * each read or write of its channels, simulates a remote file system on e.g. jimfs.
+ * <p>
+ * paths are of the wrapped file system, only the provider of this file system sleeps.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+public class LatencyFileSystem extends FileSystem {
+
+    /** */
+    private final FileSystem fileSystem;
+
+    /** */
+    private final FileSystemProvider provider;
+
+    /** microseconds per call */
+    private final long latency;
+
+    /** @param latency microseconds per call */
+    public LatencyFileSystem(FileSystem fileSystem, long latency) {
+        this.fileSystem = fileSystem;
+        this.latency = latency;
+        this.provider = new Provider(fileSystem.provider());
+    }
+
+    /** */
+    private void sleep() throws IOException {
+        try {
+            TimeUnit.MICROSECONDS.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /** sleeps before reads and writes */
+    private class Channel implements SeekableByteChannel {
+        final SeekableByteChannel channel;
+        Channel(SeekableByteChannel channel) {
+            this.channel = channel;
+        }
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            sleep();
+            return channel.read(dst);
+        }
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            sleep();
+            return channel.write(src);
+        }
+        @Override
+        public long position() throws IOException {
+            return channel.position();
+        }
+        @Override
+        public SeekableByteChannel position(long newPosition) throws IOException {
+            channel.position(newPosition);
+            return this;
+        }
+        @Override
+        public long size() throws IOException {
+            return channel.size();
+        }
+        @Override
+        public SeekableByteChannel truncate(long size) throws IOException {
+            sleep();
+            channel.truncate(size);
+            return this;
+        }
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /** sleeps before calls to the backend */
+    private class Provider extends FileSystemProvider {
+        final FileSystemProvider provider;
+        Provider(FileSystemProvider provider) {
+            this.provider = provider;
+        }
+        @Override
+        public String getScheme() {
+            return provider.getScheme();
+        }
+        @Override
+        public FileSystem newFileSystem(URI uri, Map<String, ?> env) throws IOException {
+            return provider.newFileSystem(uri, env);
+        }
+        @Override
+        public FileSystem getFileSystem(URI uri) {
+            return provider.getFileSystem(uri);
+        }
+        @Override
+        public Path getPath(URI uri) {
+            return provider.getPath(uri);
+        }
+        @Override
+        public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+            sleep();
+            return new Channel(provider.newByteChannel(path, options, attrs));
+        }
+        @Override
+        public DirectoryStream<Path> newDirectoryStream(Path dir, DirectoryStream.Filter<? super Path> filter) throws IOException {
+            sleep();
+            return provider.newDirectoryStream(dir, filter);
+        }
+        @Override
+        public void createDirectory(Path dir, FileAttribute<?>... attrs) throws IOException {
+            sleep();
+            provider.createDirectory(dir, attrs);
+        }
+        @Override
+        public void delete(Path path) throws IOException {
+            sleep();
+            provider.delete(path);
+        }
+        @Override
+        public void copy(Path source, Path target, CopyOption... options) throws IOException {
+            sleep();
+            provider.copy(source, target, options);
+        }
+        @Override
+        public void move(Path source, Path target, CopyOption... options) throws IOException {
+            sleep();
+            provider.move(source, target, options);
+        }
+        @Override
+        public boolean isSameFile(Path path, Path path2) throws IOException {
+            return provider.isSameFile(path, path2);
+        }
+        @Override
+        public boolean isHidden(Path path) throws IOException {
+            return provider.isHidden(path);
+        }
+        @Override
+        public FileStore getFileStore(Path path) throws IOException {
+            sleep();
+            return provider.getFileStore(path);
+        }
+        @Override
+        public void checkAccess(Path path, AccessMode... modes) throws IOException {
+            sleep();
+            provider.checkAccess(path, modes);
+        }
+        @Override
+        public <V extends FileAttributeView> V getFileAttributeView(Path path, Class<V> type, LinkOption... options) {
+            return provider.getFileAttributeView(path, type, options);
+        }
+        @Override
+        public <A extends BasicFileAttributes> A readAttributes(Path path, Class<A> type, LinkOption... options) throws IOException {
+            sleep();
+            return provider.readAttributes(path, type, options);
+        }
+        @Override
+        public Map<String, Object> readAttributes(Path path, String attributes, LinkOption... options) throws IOException {
+            sleep();
+            return provider.readAttributes(path, attributes, options);
+        }
+        @Override
+        public void setAttribute(Path path, String attribute, Object value, LinkOption... options) throws IOException {
+            sleep();
+            provider.setAttribute(path, attribute, value, options);
+        }
+    }
+
+    @Override
+    public FileSystemProvider provider() {
+        return provider;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileSystem.close();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return fileSystem.isOpen();
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return fileSystem.isReadOnly();
+    }
+
+    @Override
+    public String getSeparator() {
+        return fileSystem.getSeparator();
+    }
+
+    @Override
+    public Iterable<Path> getRootDirectories() {
+        return fileSystem.getRootDirectories();
+    }
+
+    @Override
+    public Iterable<FileStore> getFileStores() {
+        return fileSystem.getFileStores();
+    }
+
+    @Override
+    public Set<String> supportedFileAttributeViews() {
+        return fileSystem.supportedFileAttributeViews();
+    }
+
+    @Override
+    public Path getPath(String first, String... more) {
+        return fileSystem.getPath(first, more);
+    }
+
+    @Override
+    public PathMatcher getPathMatcher(String syntaxAndPattern) {
+        return fileSystem.getPathMatcher(syntaxAndPattern);
+    }
+
+    @Override
+    public UserPrincipalLookupService getUserPrincipalLookupService() {
+        return fileSystem.getUserPrincipalLookupService();
+    }
+
+    @Override
+    public WatchService newWatchService() throws IOException {
+        return fileSystem.newWatchService();
+    }
+}
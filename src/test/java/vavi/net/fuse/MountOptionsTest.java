@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * MountOptionsTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class MountOptionsTest {
+
+    @Test
+    void test01() throws Exception {
+        MountOptions options = MountOptions.builder()
+                .attrTimeout(60)
+                .entryTimeout(0.5)
+                .kernelCache(true)
+                .maxRead(128 * 1024)
+                .maxWrite(128 * 1024)
+                .maxBackground(64)
+                .asyncRead(false)
+                .build();
+
+        List<String> unsupported = new ArrayList<>();
+        Map<String, String> libfuse = options.toOptions(MountOptions.LIBFUSE_OPTIONS, unsupported);
+        assertTrue(unsupported.isEmpty());
+        assertEquals("[-o, attr_timeout=60,entry_timeout=0.5,kernel_cache,max_read=131072,max_write=131072,big_writes,max_background=64,sync_read]",
+                Arrays.toString(MountOptions.toArguments(libfuse)));
+
+        Map<String, String> macfuse = options.toOptions(MountOptions.MACFUSE_OPTIONS, unsupported);
+        assertEquals("[attr_timeout, entry_timeout, kernel_cache]", macfuse.keySet().toString());
+        assertEquals("[max_read, max_write, big_writes, max_background, sync_read]", unsupported.toString());
+
+        assertEquals((int) 0, MountOptions.toArguments(MountOptions.builder().build().toOptions(MountOptions.LIBFUSE_OPTIONS, unsupported)).length);
+        // explicitly disabled
+        assertNull(MountOptions.builder().maxWrite(65536).bigWrites(false).build()
+                .toOptions(MountOptions.LIBFUSE_OPTIONS, unsupported).get(MountOptions.BIG_WRITES));
+    }
+
+    @Test
+    void test02() throws Exception {
+        MountOptions strict = MountOptions.builder().maxWrite(65536).strict().build();
+        assertThrows(IllegalArgumentException.class, () -> strict.toOptions(MountOptions.MACFUSE_OPTIONS, new ArrayList<>()));
+        assertThrows(IllegalArgumentException.class, () -> MountOptions.builder().attrTimeout(-1));
+        assertThrows(IllegalArgumentException.class, () -> MountOptions.builder().maxRead(0));
+
+        Map<String, Object> env = new HashMap<>();
+        assertNull(MountOptions.of(env));
+        env.put(Fuse.ENV_MOUNT_OPTIONS, strict);
+        assertEquals(strict, MountOptions.of(env));
+        env.put(Fuse.ENV_MOUNT_OPTIONS, "attr_timeout=1");
+        assertThrows(IllegalArgumentException.class, () -> MountOptions.of(env));
+    }
+}
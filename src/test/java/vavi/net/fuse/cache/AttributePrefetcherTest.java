@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.cache;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vavi.net.fuse.Fuse;
+import vavi.net.fuse.jfr.EventFileSystemProvider;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * AttributePrefetcherTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class AttributePrefetcherTest {
+
+    static final FileSystem fs = FileSystems.getDefault();
+
+    Path dir;
+
+    @BeforeEach
+    void setup() throws Exception {
+        dir = Files.createTempDirectory("prefetch");
+    }
+
+    @AfterEach
+    void teardown() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    void test01() throws Exception {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Files.write(dir.resolve("file" + i), new byte[i]);
+            names.add("file" + i);
+        }
+        AttributeCache cache = new AttributeCache(1, TimeUnit.MINUTES, 100);
+        try (AttributePrefetcher prefetcher = new AttributePrefetcher(fs, cache, 2)) {
+            prefetcher.prefetch(dir.toString(), names);
+            BasicFileAttributes attributes = prefetcher.await(dir + "/file5");
+            if (attributes == null) {
+                // already done
+                attributes = cache.get(dir + "/file5");
+            }
+            assertNotNull(attributes);
+            assertEquals(5, attributes.size());
+            for (int i = 0; i < 100 && prefetcher.getPrefetchCount() < 10; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(10, prefetcher.getPrefetchCount());
+            assertNotNull(cache.get(dir + "/file9"));
+            assertTrue(prefetcher.getSavedCount() >= 1);
+        }
+    }
+
+    @Test
+    void test02() throws Exception {
+        // attributes read before an invalidation are not put
+        AttributeCache cache = new AttributeCache(1, TimeUnit.MINUTES, 100);
+        Path file = Files.write(dir.resolve("file"), new byte[1]);
+        String path = file.toString();
+        long generation = cache.generation(path);
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        cache.invalidate(path); // written
+        assertFalse(cache.putPrefetched(path, attributes, generation));
+        assertNull(cache.get(path));
+        assertTrue(cache.putPrefetched(path, attributes, cache.generation(path)));
+        assertNotNull(cache.get(path));
+
+        generation = cache.generation(path);
+        cache.invalidateTree(dir.toString()); // renamed
+        assertFalse(cache.putPrefetched(path, attributes, generation));
+    }
+
+    @Test
+    void test03() throws Exception {
+        // entries over the queue are left to getattr
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < AttributePrefetcher.MAX_QUEUED * 2; i++) {
+            names.add("none" + i);
+        }
+        AttributeCache cache = new AttributeCache(1, TimeUnit.MINUTES, 100);
+        Map<String, Object> statistics = new HashMap<>();
+        try (AttributePrefetcher prefetcher = new AttributePrefetcher(fs, cache, 1)) {
+            prefetcher.prefetch(dir.toString(), names);
+            prefetcher.putStatistics(statistics, "readdirplus");
+        }
+        assertTrue((long) statistics.get("readdirplus.skipped") > 0);
+    }
+
+    @Test
+    void test04() {
+        Map<String, Object> env = new HashMap<>();
+        AttributeCache cache = AttributeCache.of(env);
+        assertFalse(AttributePrefetcher.of(fs, cache, env).isEnabled());
+        env.put(Fuse.ENV_READDIR_PLUS, null);
+        cache = AttributeCache.of(env);
+        assertTrue(cache.isEnabled());
+        try (AttributePrefetcher prefetcher = AttributePrefetcher.of(fs, cache, env)) {
+            assertTrue(prefetcher.isEnabled());
+        }
+    }
+
+    @Test
+    void test05() throws Exception {
+        // getattr doesn't cache attributes read before a write
+        AttributeCache cache = new AttributeCache(1, TimeUnit.MINUTES, 100);
+        Path file = Files.write(dir.resolve("file"), new byte[1]);
+        String path = file.toString();
+        long generation = cache.generation(path);
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        cache.invalidate(path); // written
+        assertFalse(cache.put(path, attributes, generation));
+        assertNull(cache.get(path));
+        assertTrue(cache.put(path, attributes, cache.generation(path)));
+        assertNotNull(cache.get(path));
+        assertEquals(0L, cache.getMarkedHitCount());
+    }
+
+    @Test
+    void test06() throws Exception {
+        // attributes are read by the provider of the mount
+        Files.write(dir.resolve("file"), new byte[1]);
+        AtomicInteger reads = new AtomicInteger();
+        FileSystemProvider provider = new EventFileSystemProvider(fs.provider()) {
+            @Override
+            public <A extends BasicFileAttributes> A readAttributes(Path path, Class<A> type, LinkOption... options) throws IOException {
+                reads.incrementAndGet();
+                return super.readAttributes(path, type, options);
+            }
+        };
+        AttributeCache cache = new AttributeCache(1, TimeUnit.MINUTES, 100);
+        try (AttributePrefetcher prefetcher = new AttributePrefetcher(fs, provider, cache, 1)) {
+            prefetcher.prefetch(dir.toString(), Collections.singletonList("file"));
+            for (int i = 0; i < 100 && prefetcher.getPrefetchCount() < 1; i++) {
+                Thread.sleep(10);
+            }
+        }
+        assertEquals(1, reads.get());
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * BlockCacheTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class BlockCacheTest {
+
+    byte[] data = new byte[10000];
+    AtomicInteger loads = new AtomicInteger();
+
+    {
+        new Random(1).nextBytes(data);
+    }
+
+    /** a loader over {@link #data} */
+    int load(ByteBuffer dst, long position) {
+        loads.incrementAndGet();
+        int n = (int) Math.max(0, Math.min(dst.remaining(), data.length - position));
+        if (n > 0) {
+            dst.put(data, (int) position, n);
+        }
+        return n;
+    }
+
+    byte[] read(BlockCache cache, String path, int offset, int size) throws Exception {
+        ByteBuffer bb = ByteBuffer.allocate(size);
+        int n = cache.read(path, bb, offset, this::load);
+        byte[] result = new byte[n];
+        System.arraycopy(bb.array(), 0, result, 0, n);
+        return result;
+    }
+
+    byte[] expected(int offset, int size) {
+        int n = Math.max(0, Math.min(size, data.length - offset));
+        byte[] result = new byte[n];
+        System.arraycopy(data, offset, result, 0, n);
+        return result;
+    }
+
+    @Test
+    void test01() throws Exception {
+        BlockCache cache = new BlockCache(4096 * 4, 4096);
+        assertArrayEquals(expected(100, 5000), read(cache, "/a", 100, 5000));
+        assertEquals(2, loads.get());
+        assertArrayEquals(expected(4000, 200), read(cache, "/a", 4000, 200));
+        assertEquals(2, loads.get());
+        assertEquals(2, cache.getHitCount());
+
+        // eof
+        assertArrayEquals(expected(9000, 5000), read(cache, "/a", 9000, 5000));
+        assertEquals(0, read(cache, "/a", 20000, 100).length);
+
+        cache.invalidate("/a");
+        int before = loads.get();
+        read(cache, "/a", 0, 10);
+        assertEquals(before + 1, loads.get());
+    }
+
+    @Test
+    void test02() throws Exception {
+        BlockCache cache = new BlockCache(1024 * 2, 1024);
+        for (int i = 0; i < 8; i++) {
+            assertArrayEquals(expected(i * 1024, 1024), read(cache, "/a", i * 1024, 1024));
+        }
+        assertTrue(cache.getEvictionCount() > 0);
+        assertEquals(2048, cache.getAllocatedBytes());
+    }
+
+    @Test
+    void test03() throws Exception {
+        BlockCache cache = new BlockCache(1024 * 8, 1024);
+        read(cache, "/dir/a", 0, 2048);
+        read(cache, "/dir/sub/b", 0, 1024);
+        read(cache, "/c", 0, 1024);
+        assertEquals(4, loads.get());
+
+        // only blocks of the file
+        cache.invalidate("/dir");
+        read(cache, "/dir/a", 0, 2048);
+        read(cache, "/c", 0, 1024);
+        assertEquals(4, loads.get());
+
+        cache.invalidateTree("/dir");
+        read(cache, "/dir/a", 0, 2048);
+        read(cache, "/dir/sub/b", 0, 1024);
+        read(cache, "/c", 0, 1024);
+        assertEquals(7, loads.get());
+    }
+
+    @Test
+    void test04() throws Exception {
+        // slots of evicted blocks are not freed again by an invalidation
+        BlockCache cache = new BlockCache(1024 * 2, 1024);
+        read(cache, "/a", 0, 2048);
+        read(cache, "/b", 0, 2048);
+        cache.invalidate("/a");
+        read(cache, "/c", 0, 1024);
+        cache.invalidate("/b");
+        read(cache, "/c", 0, 1024);
+        read(cache, "/b", 0, 1024);
+        assertArrayEquals(expected(0, 1024), read(cache, "/c", 0, 1024));
+    }
+
+    @Test
+    void test05() throws Exception {
+        // closing a view drops blocks of the view only
+        BlockCache shared = new BlockCache(1024 * 8, 1024);
+        BlockCache view1 = shared.view();
+        BlockCache view2 = shared.view();
+        read(view1, "/a", 0, 1024);
+        read(view2, "/a", 0, 1024);
+        assertEquals(2, loads.get());
+
+        view1.close();
+        read(view2, "/a", 0, 1024);
+        assertEquals(2, loads.get());
+        read(view1, "/a", 0, 1024);
+        assertEquals(3, loads.get());
+
+        shared.close();
+        read(view2, "/a", 0, 1024);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void test06() throws Exception {
+        // blocks of another version of the file are not served
+        BlockCache cache = new BlockCache(1024 * 8, 1024);
+        DiskBlockCache.Version version1 = new DiskBlockCache.Version(data.length, 1);
+        DiskBlockCache.Version version2 = new DiskBlockCache.Version(data.length, 2);
+        ByteBuffer bb = ByteBuffer.allocate(1024);
+        cache.read("/a", version1, bb, 0, this::load);
+        bb.clear();
+        cache.read("/a", version1, bb, 0, this::load);
+        assertEquals(1, loads.get());
+        bb.clear();
+        cache.read("/a", version2, bb, 0, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void test07() throws Exception {
+        // a block of a descendant loaded while its directory is renamed is not cached
+        BlockCache cache = new BlockCache(1024 * 8, 1024);
+        ByteBuffer bb = ByteBuffer.allocate(1024);
+        cache.read("/dir/sub/a", bb, 0, (dst, position) -> {
+            cache.invalidateTree("/dir");
+            return load(dst, position);
+        });
+        bb.clear();
+        cache.read("/dir/sub/a", bb, 0, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void test08() throws Exception {
+        // hits are copied outside the lock, slots being copied are not reused
+        BlockCache cache = new BlockCache(1024 * 4, 1024);
+        Thread[] threads = new Thread[8];
+        AtomicInteger errors = new AtomicInteger();
+        for (int t = 0; t < threads.length; t++) {
+            int seed = t;
+            threads[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    for (int i = 0; i < 2000; i++) {
+                        int offset = random.nextInt(data.length - 100);
+                        if (!Arrays.equals(expected(offset, 100), read(cache, "/a", offset, 100))) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, errors.get());
+        assertTrue(cache.getHitCount() > 0);
+    }
+
+    @Test
+    void test09() throws Exception {
+        // statistics of a view are of its own
+        BlockCache shared = new BlockCache(1024 * 2, 1024);
+        BlockCache view1 = shared.view();
+        BlockCache view2 = shared.view();
+        read(view1, "/a", 0, 1024);
+        read(view1, "/a", 0, 1024);
+        read(view2, "/a", 0, 1024);
+        assertEquals(1, view1.getHitCount());
+        assertEquals(1, view1.getMissCount());
+        assertEquals(0, view2.getHitCount());
+        assertEquals(1, view2.getMissCount());
+        assertEquals(1, shared.getHitCount());
+        assertEquals(2, shared.getMissCount());
+        assertEquals(1024, view1.getAllocatedBytes());
+        assertEquals(1024, view2.getAllocatedBytes());
+
+        read(view2, "/b", 0, 1024);
+        assertEquals(1, view2.getEvictionCount());
+        assertEquals(0, view1.getEvictionCount());
+        assertEquals(1, shared.getEvictionCount());
+        assertEquals(2048, view1.getAllocatedBytes() + view2.getAllocatedBytes());
+
+        view2.close();
+        assertEquals(0, view2.getAllocatedBytes());
+        assertEquals(2048, shared.getAllocatedBytes());
+    }
+}
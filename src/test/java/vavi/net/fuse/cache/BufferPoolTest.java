@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * BufferPoolTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class BufferPoolTest {
+
+    @Test
+    void test01() {
+        BufferPool pool = new BufferPool(100, true, 1);
+        ByteBuffer buffer1 = pool.acquire();
+        assertTrue(buffer1.isDirect());
+        assertEquals(100, buffer1.remaining());
+        buffer1.put((byte) 1);
+        ByteBuffer buffer2 = pool.acquire();
+        assertNotSame(buffer1, buffer2);
+        pool.release(buffer1);
+        pool.release(buffer2); // over the max, dropped
+        assertEquals(2, pool.getAllocationCount());
+
+        ByteBuffer buffer3 = pool.acquire(50);
+        assertSame(buffer1, buffer3);
+        assertEquals(0, buffer3.position());
+        assertEquals(50, buffer3.limit());
+        pool.release(buffer3);
+
+        // larger than the pool size
+        ByteBuffer buffer4 = pool.acquire(200);
+        assertEquals(200, buffer4.remaining());
+        assertEquals(3, pool.getAllocationCount());
+    }
+
+    @Test
+    void test02() throws Exception {
+        // allocations follow the concurrency, not the number of threads
+        BufferPool pool = new BufferPool(100, false, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(executor.submit(() -> {
+                ByteBuffer buffer = pool.acquire();
+                buffer.put(new byte[100]);
+                pool.release(buffer);
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(pool.getAllocationCount() <= 2, "allocations: " + pool.getAllocationCount());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+
+/**
+ * DirectoryCacheTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class DirectoryCacheTest {
+
+    /** a readdir buffer of a few entries */
+    static class Page implements DirectoryCache.Filler {
+        final int capacity;
+        final List<String> names = new ArrayList<>();
+        long next;
+        Page(int capacity) {
+            this.capacity = capacity;
+        }
+        @Override
+        public boolean fill(String name, long offset) {
+            if (names.size() == capacity) {
+                return true;
+            }
+            names.add(name);
+            next = offset;
+            return false;
+        }
+    }
+
+    static final List<String> names = List.of("a", "b", "c", "d", "e");
+
+    @Test
+    void test01() {
+        // pages resume at the offset of the last entry filled
+        List<String> all = new ArrayList<>();
+        long offset = 0;
+        int pages = 0;
+        while (true) {
+            Page page = new Page(2);
+            int n = DirectoryCache.fill(names, offset, page);
+            if (n == 0) {
+                break;
+            }
+            assertEquals(page.names.size(), n);
+            all.addAll(page.names);
+            offset = page.next;
+            pages++;
+        }
+        assertEquals(names, all);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void test02() {
+        Page page = new Page(10);
+        assertEquals(5, DirectoryCache.fill(names, 0, page));
+        assertEquals(5, page.next);
+        assertEquals(0, DirectoryCache.fill(names, 5, new Page(10)));
+        assertEquals(0, DirectoryCache.fill(names, 100, new Page(10)));
+        page = new Page(10);
+        assertEquals(2, DirectoryCache.fill(names, 3, page));
+        assertEquals(List.of("d", "e"), page.names);
+    }
+
+    @Test
+    void test03() {
+        DirectoryCache cache = new DirectoryCache(1, TimeUnit.MINUTES, 100);
+        cache.put("/dir", names);
+        cache.put("/dir/sub", List.of("x"));
+        assertSame(names, cache.get("/dir"));
+        // a file created in /dir/sub
+        cache.invalidateParent("/dir/sub/y");
+        assertNull(cache.get("/dir/sub"));
+        assertSame(names, cache.get("/dir"));
+    }
+}
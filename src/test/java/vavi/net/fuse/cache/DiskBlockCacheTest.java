@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vavi.net.fuse.Fuse;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * DiskBlockCacheTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class DiskBlockCacheTest {
+
+    static final int BLOCK_SIZE = 1024;
+
+    byte[] data = new byte[10000];
+    AtomicInteger loads = new AtomicInteger();
+    DiskBlockCache.Version version = new DiskBlockCache.Version(data.length, 1);
+    Path dir;
+
+    {
+        new Random(1).nextBytes(data);
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        dir = Files.createTempDirectory("diskcache");
+    }
+
+    @AfterEach
+    void teardown() throws Exception {
+        try (Stream<Path> s = Files.walk(dir)) {
+            s.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /** a loader over {@link #data} */
+    int load(ByteBuffer dst, long position) {
+        loads.incrementAndGet();
+        int n = (int) Math.max(0, Math.min(dst.remaining(), data.length - position));
+        if (n > 0) {
+            dst.put(data, (int) position, n);
+        }
+        return n;
+    }
+
+    byte[] read(DiskBlockCache cache, DiskBlockCache.Version version, int offset, int size) throws Exception {
+        return read(cache, "/a", version, offset, size);
+    }
+
+    byte[] read(DiskBlockCache cache, String path, DiskBlockCache.Version version, int offset, int size) throws Exception {
+        ByteBuffer bb = ByteBuffer.allocate(size);
+        int n = cache.read(path, version, bb, offset, this::load);
+        byte[] result = new byte[n];
+        System.arraycopy(bb.array(), 0, result, 0, n);
+        return result;
+    }
+
+    byte[] expected(int offset, int size) {
+        int n = Math.max(0, Math.min(size, data.length - offset));
+        byte[] result = new byte[n];
+        System.arraycopy(data, offset, result, 0, n);
+        return result;
+    }
+
+    @Test
+    void test01() throws Exception {
+        DiskBlockCache cache = new DiskBlockCache(dir, 100 * BLOCK_SIZE, BLOCK_SIZE);
+        assertTrue(cache.isEnabled());
+        assertArrayEquals(expected(500, 3000), read(cache, version, 500, 3000));
+        assertEquals((int) 4, loads.get());
+        assertArrayEquals(expected(9500, 1000), read(cache, version, 9500, 1000));
+        assertEquals((int) 5, loads.get());
+        assertArrayEquals(expected(1000, 2000), read(cache, version, 1000, 2000));
+        assertEquals((int) 5, loads.get());
+        // locked by this process
+        assertFalse(DiskBlockCache.of(Collections.singletonMap(Fuse.ENV_DISK_CACHE, dir.toString())).isEnabled());
+        cache.close();
+
+        // restart, restored and validated
+        cache = new DiskBlockCache(dir, 100 * BLOCK_SIZE, BLOCK_SIZE);
+        assertArrayEquals(expected(0, 4096), read(cache, version, 0, 4096));
+        assertArrayEquals(expected(9500, 1000), read(cache, version, 9500, 1000));
+        assertEquals((int) 5, loads.get());
+        assertEquals(0L, cache.getInvalidCount());
+
+        // the file is changed
+        DiskBlockCache.Version version2 = new DiskBlockCache.Version(data.length, 2);
+        assertArrayEquals(expected(0, 1024), read(cache, version2, 0, 1024));
+        assertEquals((int) 6, loads.get());
+        assertEquals((long) BLOCK_SIZE, cache.getUsedBytes());
+        cache.close();
+    }
+
+    @Test
+    void test02() throws Exception {
+        DiskBlockCache cache = new DiskBlockCache(dir, 100 * BLOCK_SIZE, BLOCK_SIZE);
+        read(cache, version, 0, 2048);
+        cache.close();
+
+        // a torn write before a crash
+        try (FileChannel channel = FileChannel.open(dir.resolve("blocks"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[16]), 100);
+        }
+        // a truncated record
+        Files.write(dir.resolve("journal"), new byte[] {1, 0, 0}, StandardOpenOption.APPEND);
+
+        cache = new DiskBlockCache(dir, 100 * BLOCK_SIZE, BLOCK_SIZE);
+        loads.set(0);
+        assertArrayEquals(expected(0, 2048), read(cache, version, 0, 2048));
+        assertEquals((int) 1, loads.get());
+        assertEquals(1L, cache.getInvalidCount());
+        cache.close();
+
+        // another block size discards the cache
+        cache = new DiskBlockCache(dir, 100 * BLOCK_SIZE, BLOCK_SIZE * 2);
+        assertEquals(0L, cache.getUsedBytes());
+        cache.close();
+    }
+
+    @Test
+    void test03() throws Exception {
+        DiskBlockCache cache = new DiskBlockCache(dir, 4 * BLOCK_SIZE, BLOCK_SIZE);
+        read(cache, version, 0, 4096);
+        read(cache, version, 0, 1024); // touches block 0
+        read(cache, version, 4096, 1024); // evicts block 1
+        assertEquals(1L, cache.getEvictionCount());
+        assertEquals((long) 4 * BLOCK_SIZE, cache.getUsedBytes());
+        loads.set(0);
+        read(cache, version, 0, 1024);
+        assertEquals((int) 0, loads.get());
+        read(cache, version, 1024, 1024);
+        assertEquals((int) 1, loads.get());
+
+        cache.invalidateTree("/");
+        assertEquals(0L, cache.getUsedBytes());
+        cache.close();
+        assertTrue(Files.size(dir.resolve("blocks")) <= 4 * BLOCK_SIZE);
+
+        assertFalse(new DiskBlockCache(null, 4 * BLOCK_SIZE, BLOCK_SIZE).isEnabled());
+        assertThrows(IOException.class, () -> new DiskBlockCache(dir.resolve("blocks"), 4 * BLOCK_SIZE, BLOCK_SIZE));
+    }
+
+    @Test
+    void test04() throws Exception {
+        DiskBlockCache cache = new DiskBlockCache(dir, 100 * BLOCK_SIZE, BLOCK_SIZE);
+        read(cache, "/a", version, 0, 2048);
+        read(cache, "/dir/b", version, 0, 1024);
+        read(cache, "/dir/sub/c", version, 0, 1024);
+        read(cache, "/dir2", version, 0, 1024);
+        assertEquals(5, loads.get());
+
+        // only blocks of the file, an uncached path doesn't touch the journal
+        long journal = Files.size(dir.resolve("journal"));
+        cache.invalidate("/dir");
+        cache.invalidate("/x");
+        assertEquals(journal, Files.size(dir.resolve("journal")));
+        assertEquals((long) 5 * BLOCK_SIZE, cache.getUsedBytes());
+        cache.invalidate("/a");
+        assertEquals((long) 3 * BLOCK_SIZE, cache.getUsedBytes());
+        cache.close();
+
+        // the index is restored
+        cache = new DiskBlockCache(dir, 100 * BLOCK_SIZE, BLOCK_SIZE);
+        cache.invalidateTree("/dir");
+        assertEquals((long) BLOCK_SIZE, cache.getUsedBytes());
+        read(cache, "/dir2", version, 0, 1024);
+        assertEquals(5, loads.get());
+        read(cache, "/dir/b", version, 0, 1024);
+        assertEquals(6, loads.get());
+        cache.close();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import vavi.net.fuse.Fuse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * NegativeCacheTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class NegativeCacheTest {
+
+    @Test
+    void test01() throws Exception {
+        NegativeCache cache = new NegativeCache(50, TimeUnit.MILLISECONDS, 100);
+        assertFalse(cache.contains("/a"));
+        cache.add("/a");
+        assertTrue(cache.contains("/a"));
+        assertFalse(cache.contains("/b"));
+
+        Thread.sleep(100);
+        assertFalse(cache.contains("/a")); // expired
+    }
+
+    @Test
+    void test02() {
+        NegativeCache cache = new NegativeCache(1, TimeUnit.MINUTES, 100);
+        cache.add("/dir/a");
+        cache.add("/dir/b");
+        cache.add("/other");
+        // created by create or mkdir
+        cache.invalidate("/dir/a");
+        assertFalse(cache.contains("/dir/a"));
+        assertTrue(cache.contains("/dir/b"));
+        // renamed to
+        cache.invalidateTree("/dir");
+        assertFalse(cache.contains("/dir/b"));
+        assertTrue(cache.contains("/other"));
+    }
+
+    @Test
+    void test03() {
+        NegativeCache cache = new NegativeCache(1, TimeUnit.MINUTES, 2);
+        cache.add("/a");
+        cache.add("/b");
+        cache.add("/c");
+        assertFalse(cache.contains("/a")); // evicted as eldest
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void test04() {
+        Map<String, Object> env = new HashMap<>();
+        NegativeCache cache = NegativeCache.of(env);
+        assertFalse(cache.isEnabled());
+        cache.add("/a");
+        assertFalse(cache.contains("/a"));
+
+        env.put(Fuse.ENV_NEGATIVE_CACHE_TTL, "1000");
+        assertTrue(NegativeCache.of(env).isEnabled());
+        env.put(Fuse.ENV_NEGATIVE_CACHE_SIZE, 0);
+        assertFalse(NegativeCache.of(env).isEnabled());
+    }
+}
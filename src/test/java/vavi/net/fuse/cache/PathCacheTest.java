@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import vavi.net.fuse.Fuse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * PathCacheTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class PathCacheTest {
+
+    @Test
+    void test01() throws Exception {
+        PathCache<String> cache = new PathCache<>(50, TimeUnit.MILLISECONDS, 2);
+        assertNull(cache.get("/a"));
+        cache.put("/a", "A");
+        assertEquals("A", cache.get("/a"));
+        cache.put("/b", "B");
+        cache.put("/c", "C");
+        assertNull(cache.get("/a")); // evicted as eldest
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        Thread.sleep(100);
+        assertNull(cache.get("/b")); // expired
+    }
+
+    @Test
+    void test02() {
+        PathCache<String> cache = new PathCache<>(1, TimeUnit.MINUTES, 100);
+        cache.put("/", "root");
+        cache.put("/dir", "dir");
+        cache.put("/dir/file", "file");
+        cache.put("/dir2", "dir2");
+        cache.invalidateTree("/dir");
+        assertNull(cache.get("/dir"));
+        assertNull(cache.get("/dir/file"));
+        assertEquals("dir2", cache.get("/dir2"));
+        cache.invalidateParent("/dir2");
+        assertNull(cache.get("/"));
+    }
+
+    @Test
+    void test03() {
+        assertNull(PathCache.parentOf("/"));
+        assertEquals("/", PathCache.parentOf("/a"));
+        assertEquals("/a", PathCache.parentOf("/a/b"));
+    }
+
+    @Test
+    void test04() {
+        Map<String, Object> env = new HashMap<>();
+        assertFalse(AttributeCache.of(env).isEnabled());
+        env.put(Fuse.ENV_ATTRIBUTE_CACHE_TTL, "1000");
+        assertTrue(AttributeCache.of(env).isEnabled());
+    }
+
+    @Test
+    void test05() {
+        PathCache<String> cache = new PathCache<>(1, TimeUnit.MINUTES, 100);
+        cache.put("/a", "A", true);
+        cache.put("/b", "B");
+        cache.get("/a");
+        cache.get("/a");
+        cache.get("/b");
+        assertEquals(1, cache.getMarkedHitCount());
+        assertEquals(3, cache.getHitCount());
+    }
+}
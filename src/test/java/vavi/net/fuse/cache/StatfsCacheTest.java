@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.cache;
+
+import java.nio.file.FileSystems;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import vavi.net.fuse.Fuse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * StatfsCacheTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class StatfsCacheTest {
+
+    @Test
+    void test01() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+        StatfsCache cache = new StatfsCache(() -> {
+            fetches.incrementAndGet();
+            return new StatfsCache.Space(100_000, 60_000);
+        }, 100, TimeUnit.MILLISECONDS);
+        try {
+            assertTrue(cache.isEnabled());
+            assertEquals(60_000, cache.get().getUsable());
+
+            cache.written(4096);
+            assertEquals(60_000 - 4096, cache.get().getUsable());
+            cache.deleted(4096);
+            assertEquals(60_000, cache.get().getUsable());
+            cache.written(1_000_000);
+            assertEquals(0, cache.get().getUsable());
+            assertEquals(1, fetches.get());
+
+            // expired, returned as is and refreshed in the background
+            Thread.sleep(150);
+            cache.get();
+            Map<String, Object> statistics = new HashMap<>();
+            long limit = System.currentTimeMillis() + 5000;
+            do {
+                Thread.sleep(10);
+                cache.putStatistics(statistics, "statfs");
+            } while ((Long) statistics.get("statfs.refreshes") < 2 && System.currentTimeMillis() < limit);
+            assertEquals(2, fetches.get());
+            assertEquals(60_000, cache.get().getUsable());
+
+            cache.putStatistics(statistics, "statfs");
+            assertEquals(2L, statistics.get("statfs.refreshes"));
+            assertEquals(5L, statistics.get("statfs.hits"));
+            assertEquals(0L, statistics.get("statfs.failures"));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    void test02() throws Exception {
+        StatfsCache cache = StatfsCache.of(FileSystems.getDefault(), new HashMap<>());
+        assertFalse(cache.isEnabled());
+        assertTrue(cache.get().getTotal() >= 0);
+        cache.close();
+
+        Map<String, Object> env = new HashMap<>();
+        env.put(Fuse.ENV_STATFS_TTL, "1000");
+        cache = StatfsCache.of(FileSystems.getDefault(), env);
+        assertTrue(cache.isEnabled());
+        cache.close();
+    }
+}
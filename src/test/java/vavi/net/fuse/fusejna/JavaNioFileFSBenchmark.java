@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.fusejna;
+
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import net.fusejna.DirectoryFiller;
+import net.fusejna.StructFuseFileInfo;
+import net.fusejna.StructFuseFileInfo.FileInfoWrapper;
+import net.fusejna.StructStat.StatWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import vavi.net.fuse.BenchmarkFixture;
+
+import static jnr.constants.platform.OpenFlags.O_RDONLY;
+import static jnr.constants.platform.OpenFlags.O_WRONLY;
+
+
+/**
+ * JavaNioFileFSBenchmark. calls fuse-jna callbacks in process.
+ * <p>
+ * wrappers of fuse structs are made by reflection as fuse-jna does in its native bridge,
+ * buffers are direct buffers like ones fuse-jna wraps native memory with.
+ * run with {@code mvn -P benchmark test-compile exec:exec}, {@code -prof gc} reports allocations per op.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JavaNioFileFSBenchmark {
+
+    @Param({"jimfs", "default"})
+    String fileSystem;
+
+    /** mount env, see {@link BenchmarkFixture#env(String)} */
+    @Param({""})
+    String env;
+
+    @Param({"4096", "131072"})
+    int size;
+
+    BenchmarkFixture fixture;
+    MeteredJavaNioFileFS fuse;
+
+    ByteBuffer buffer;
+    StatWrapper stat;
+    FileInfoWrapper readInfo;
+    FileInfoWrapper writeInfo;
+    FileInfoWrapper info;
+    long readOffset;
+    long writeOffset;
+
+    /** counts entries */
+    int entries;
+    final DirectoryFiller filler = new DirectoryFiller() {
+        @Override
+        public boolean add(Iterable<String> files) {
+            files.forEach(file -> entries++);
+            return true;
+        }
+        @Override
+        public boolean add(String... files) {
+            entries += files.length;
+            return true;
+        }
+    };
+
+    /**
+     * @param args arguments after the path, missing ones are created by their no arg constructors
+     * @return a wrapper made by a constructor whose first parameter is the path
+     */
+    static <T> T newWrapper(Class<T> type, String path, Object... args) throws ReflectiveOperationException {
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            Class<?>[] types = constructor.getParameterTypes();
+            if (types.length == 0 || types[0] != String.class || types.length < args.length + 1) {
+                continue;
+            }
+            Object[] values = new Object[types.length];
+            values[0] = path;
+            for (int i = 1; i < types.length; i++) {
+                values[i] = i - 1 < args.length ? args[i - 1] : types[i].getDeclaredConstructor().newInstance();
+            }
+            constructor.setAccessible(true);
+            return type.cast(constructor.newInstance(values));
+        }
+        throw new NoSuchMethodException(type.getName() + "(String, ...)");
+    }
+
+    /** @return a file info of the open flags */
+    static FileInfoWrapper newInfo(String path, int flags) throws ReflectiveOperationException {
+        StructFuseFileInfo info = StructFuseFileInfo.class.getDeclaredConstructor().newInstance();
+        StructFuseFileInfo.class.getField("flags").setInt(info, flags);
+        return newWrapper(FileInfoWrapper.class, path, info);
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        fixture = new BenchmarkFixture(fileSystem);
+        fuse = new MeteredJavaNioFileFS(fixture.fileSystem, BenchmarkFixture.env(env));
+        buffer = ByteBuffer.allocateDirect(size);
+        stat = newWrapper(StatWrapper.class, fixture.file);
+        info = newInfo(fixture.file, O_RDONLY.intValue());
+
+        readInfo = newInfo(fixture.file, O_RDONLY.intValue());
+        check(fuse.open(fixture.file, readInfo));
+        writeInfo = newInfo(fixture.output, O_WRONLY.intValue());
+        check(fuse.open(fixture.output, writeInfo));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fuse.release(fixture.file, readInfo);
+        fuse.release(fixture.output, writeInfo);
+        fuse.dispose();
+        fixture.close();
+    }
+
+    /** */
+    static int check(int result) {
+        if (result < 0) {
+            throw new IllegalStateException("errno: " + -result);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int getattr() {
+        return fuse.getattr(fixture.file, stat);
+    }
+
+    @Benchmark
+    public int readdir() {
+        entries = 0;
+        check(fuse.readdir(fixture.dir, filler));
+        return entries;
+    }
+
+    @Benchmark
+    public int openRelease() {
+        check(fuse.open(fixture.file, info));
+        return fuse.release(fixture.file, info);
+    }
+
+    /** sequential reads through an open handle */
+    @Benchmark
+    public int read() {
+        buffer.clear();
+        int n = check(fuse.read(fixture.file, buffer, size, readOffset, readInfo));
+        readOffset = readOffset + size < BenchmarkFixture.FILE_SIZE ? readOffset + size : 0;
+        return n;
+    }
+
+    /** sequential writes through an open handle, wraps at the size of the read file */
+    @Benchmark
+    public int write() {
+        buffer.clear();
+        int n = check(fuse.write(fixture.output, buffer, size, writeOffset, writeInfo));
+        writeOffset = writeOffset + size < BenchmarkFixture.FILE_SIZE ? writeOffset + size : 0;
+        return n;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.fusejna;
+
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import net.fusejna.ErrorCodes;
+import net.fusejna.StructFuseFileInfo.FileInfoWrapper;
+import net.fusejna.StructStat.StatWrapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vavi.net.fuse.Fuse;
+import vavi.net.fuse.io.StripedExecutor;
+
+import static jnr.constants.platform.OpenFlags.O_RDONLY;
+import static jnr.constants.platform.OpenFlags.O_RDWR;
+import static jnr.constants.platform.OpenFlags.O_TRUNC;
+import static jnr.constants.platform.OpenFlags.O_WRONLY;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static vavi.net.fuse.fusejna.JavaNioFileFSBenchmark.newInfo;
+import static vavi.net.fuse.fusejna.JavaNioFileFSBenchmark.newWrapper;
+
+
+/**
+ * JavaNioFileFSTest. callbacks called in process on the default file system.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class JavaNioFileFSTest {
+
+    Path file;
+
+    JavaNioFileFS fuse;
+
+    @BeforeEach
+    void setup() throws Exception {
+        file = Files.createTempFile("fuse", ".bin");
+        Files.write(file, new byte[] {1, 2, 3, 4, 5});
+        fuse = new JavaNioFileFS(FileSystems.getDefault(), new HashMap<>());
+    }
+
+    @AfterEach
+    void teardown() throws Exception {
+        fuse.dispose();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void test01() throws Exception {
+        assertEquals(0, fuse.truncate(file.toString(), 3));
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(file));
+        // extended by zero
+        assertEquals(0, fuse.truncate(file.toString(), 6));
+        assertArrayEquals(new byte[] {1, 2, 3, 0, 0, 0}, Files.readAllBytes(file));
+
+        assertEquals(-ErrorCodes.ENOENT(), fuse.truncate(file + ".none", 0));
+    }
+
+    @Test
+    void test02() throws Exception {
+        FileInfoWrapper info = newInfo(file.toString(), O_RDWR.intValue());
+        assertEquals(0, fuse.open(file.toString(), info));
+        assertEquals(0, fuse.ftruncate(file.toString(), 2, info));
+        ByteBuffer buffer = ByteBuffer.allocate(10);
+        assertEquals(2, fuse.read(file.toString(), buffer, 10, 0, info));
+        assertEquals(0, fuse.ftruncate(file.toString(), 4, info));
+        assertEquals(0, fuse.release(file.toString(), info));
+        assertArrayEquals(new byte[] {1, 2, 0, 0}, Files.readAllBytes(file));
+    }
+
+    @Test
+    void test03() throws Exception {
+        // a read only handle is truncated by the path
+        FileInfoWrapper info = newInfo(file.toString(), O_RDONLY.intValue());
+        assertEquals(0, fuse.open(file.toString(), info));
+        assertEquals(0, fuse.ftruncate(file.toString(), 1, info));
+        assertEquals(0, fuse.release(file.toString(), info));
+        assertArrayEquals(new byte[] {1}, Files.readAllBytes(file));
+    }
+
+    @Test
+    void test04() throws Exception {
+        // open flags are honoured
+        FileInfoWrapper info = newInfo(file.toString(), O_WRONLY.intValue() | O_TRUNC.intValue());
+        assertEquals(0, fuse.open(file.toString(), info));
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[] {9, 9});
+        assertEquals(2, fuse.write(file.toString(), buffer, 2, 0, info));
+        assertEquals(0, fuse.release(file.toString(), info));
+        assertArrayEquals(new byte[] {9, 9}, Files.readAllBytes(file));
+
+        info = newInfo(file.toString(), O_RDONLY.intValue());
+        assertEquals(0, fuse.open(file.toString(), info));
+        assertEquals(-ErrorCodes.EIO(), fuse.write(file.toString(), ByteBuffer.wrap(new byte[1]), 1, 0, info));
+        assertEquals(0, fuse.release(file.toString(), info));
+    }
+
+    @Test
+    void test05() throws Exception {
+        // callbacks by a handle are not metered as ones by the path also
+        Map<String, Object> env = new HashMap<>();
+        env.put(Fuse.ENV_METRICS, true);
+        MeteredJavaNioFileFS fuse = new MeteredJavaNioFileFS(FileSystems.getDefault(), env);
+        FileInfoWrapper info = newInfo(file.toString(), O_RDONLY.intValue());
+        assertEquals(0, fuse.open(file.toString(), info));
+        assertEquals(0, fuse.fgetattr(file.toString(), newWrapper(StatWrapper.class, file.toString()), info));
+        assertEquals(0, fuse.ftruncate(file.toString(), 1, info)); // falls back to the path
+        assertEquals(0, fuse.release(file.toString(), info));
+        Map<String, Object> statistics = fuse.getStatistics();
+        assertEquals(1L, statistics.get("ops.fgetattr.calls"));
+        assertEquals(1L, statistics.get("ops.ftruncate.calls"));
+        assertFalse(statistics.containsKey("ops.getattr.calls"));
+        assertFalse(statistics.containsKey("ops.truncate.calls"));
+        fuse.dispose();
+    }
+
+    @Test
+    void test06() throws Exception {
+        // the fall back doesn't wait for the single thread which runs it
+        SingleThreadJavaNioFileFS fuse = new SingleThreadJavaNioFileFS(FileSystems.getDefault(), new HashMap<>());
+        FileInfoWrapper info = newInfo(file.toString(), O_RDONLY.intValue());
+        assertEquals(0, fuse.open(file.toString(), info));
+        CompletableFuture<Integer> result = CompletableFuture.supplyAsync(() -> fuse.ftruncate(file.toString(), 1, info));
+        assertEquals(0, (int) result.get(5, TimeUnit.SECONDS));
+        assertEquals(0, fuse.release(file.toString(), info));
+        fuse.dispose();
+    }
+
+    @Test
+    void test07() throws Exception {
+        // a shared dispatcher is used and not closed by a mount
+        StripedExecutor lanes = new StripedExecutor(2);
+        Map<String, Object> env = new HashMap<>();
+        env.put(Fuse.ENV_DISPATCHER, lanes);
+        StripedJavaNioFileFS fuse1 = new StripedJavaNioFileFS(FileSystems.getDefault(), env, 8);
+        StripedJavaNioFileFS fuse2 = new StripedJavaNioFileFS(FileSystems.getDefault(), env, 8);
+        assertEquals(2, fuse1.getStatistics().get("lanes.lanes"));
+        fuse1.dispose();
+        assertEquals(0, fuse2.getattr(file.toString(), newWrapper(StatWrapper.class, file.toString())));
+        assertEquals(1, lanes.execute("/a", () -> 1));
+        fuse2.dispose();
+        lanes.close();
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.fusejna;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import net.fusejna.DirectoryFiller;
+import net.fusejna.StructFuseFileInfo.FileInfoWrapper;
+import net.fusejna.StructStat.StatWrapper;
+import net.fusejna.StructStatvfs.StatvfsWrapper;
+import net.fusejna.types.TypeMode.ModeWrapper;
+import vavi.net.fuse.BenchmarkFixture;
+import vavi.net.fuse.LatencyFileSystem;
+import vavi.net.fuse.trace.TraceReader;
+import vavi.net.fuse.trace.TraceRecord;
+
+import static jnr.constants.platform.OpenFlags.O_RDONLY;
+import static vavi.net.fuse.fusejna.JavaNioFileFSBenchmark.newInfo;
+import static vavi.net.fuse.fusejna.JavaNioFileFSBenchmark.newWrapper;
+
+
+/**
+ * TraceReplay. replays a trace file recorded by {@code trace} env on fuse-jna callbacks in process.
+ * <p>
+ * files and directories the trace touches are made before the replay, file contents are zeros.
+ * records of a thread are replayed in order on a thread, at the original pace or as fast as possible.
+ * file handles of the trace are mapped to ones of the replay, a callback waits for the open of its handle.
+ * <pre>
+ * $ mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=vavi.net.fuse.fusejna.TraceReplay \
+ *     -Dexec.args="fuse.trace --fs=latency --latency=500 --speed=fast --env=metrics,attr_cache_ttl=1000"
+ * </pre>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+public class TraceReplay {
+
+    /** */
+    private final MeteredJavaNioFileFS fuse;
+
+    /** false means as fast as possible */
+    private final boolean original;
+
+    /** trace fh to replay handle */
+    private final Map<Long, CompletableFuture<FileInfoWrapper>> handles = new ConcurrentHashMap<>();
+
+    /** */
+    private final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(128 * 1024));
+
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder mismatched = new LongAdder();
+
+    /** */
+    private final DirectoryFiller filler = new DirectoryFiller() {
+        @Override
+        public boolean add(Iterable<String> files) {
+            return true;
+        }
+        @Override
+        public boolean add(String... files) {
+            return true;
+        }
+    };
+
+    /** @param original true means the original pace of the trace */
+    public TraceReplay(MeteredJavaNioFileFS fuse, boolean original) {
+        this.fuse = fuse;
+        this.original = original;
+    }
+
+    /** makes files and directories which exist before the trace */
+    static void prepare(FileSystem fileSystem, List<TraceRecord> records) throws IOException {
+        Set<String> directories = new HashSet<>();
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        // created or renamed to during the trace
+        Set<String> absents = new HashSet<>();
+        for (TraceRecord record : records) {
+            String path = record.path;
+            if (record.path2 != null) {
+                absents.add(record.path2);
+            }
+            if (sizes.containsKey(path)) {
+                if (record.operation.equals("read") && record.result > 0) {
+                    sizes.merge(path, record.offset + record.result, Math::max);
+                }
+            } else if (absents.contains(path)) {
+                continue;
+            } else if (record.operation.equals("create") || record.operation.equals("mkdir") || record.result < 0) {
+                absents.add(path);
+            } else {
+                sizes.put(path, record.operation.equals("read") ? record.offset + Math.max(record.result, 0) : 0);
+            }
+            switch (record.operation) {
+            case "readdir":
+            case "opendir":
+            case "releasedir":
+            case "rmdir":
+            case "mkdir":
+                directories.add(path);
+                break;
+            }
+        }
+        for (String path : sizes.keySet()) {
+            Path parent = fileSystem.getPath(path).getParent();
+            while (parent != null) {
+                directories.add(parent.toString());
+                parent = parent.getParent();
+            }
+        }
+        for (String path : absents) {
+            Path parent = fileSystem.getPath(path).getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+        }
+        for (Map.Entry<String, Long> entry : sizes.entrySet()) {
+            Path path = fileSystem.getPath(entry.getKey());
+            if (directories.contains(entry.getKey())) {
+                Files.createDirectories(path);
+            } else if (!Files.exists(path)) {
+                Files.createDirectories(path.getParent());
+                Files.write(path, new byte[(int) Math.min(entry.getValue(), Integer.MAX_VALUE)]);
+            }
+        }
+    }
+
+    /** replays the records, @return elapsed nanoseconds */
+    public long replay(List<TraceRecord> records) throws InterruptedException {
+        Map<Long, List<TraceRecord>> threads = new LinkedHashMap<>();
+        for (TraceRecord record : records) {
+            threads.computeIfAbsent(record.thread, k -> new ArrayList<>()).add(record);
+        }
+        long first = records.isEmpty() ? 0 : records.get(0).time;
+        CountDownLatch ready = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads.size());
+        long[] start = new long[1];
+        for (List<TraceRecord> thread : threads.values()) {
+            new Thread(() -> {
+                try {
+                    ready.await();
+                    for (TraceRecord record : thread) {
+                        if (original) {
+                            long wait = start[0] + (record.time - first) - System.nanoTime();
+                            if (wait > 0) {
+                                TimeUnit.NANOSECONDS.sleep(wait);
+                            }
+                        }
+                        execute(record);
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    done.countDown();
+                }
+            }, "replay-" + thread.get(0).thread).start();
+        }
+        start[0] = System.nanoTime();
+        ready.countDown();
+        done.await();
+        return System.nanoTime() - start[0];
+    }
+
+    /** @return the replay handle for the trace fh */
+    private FileInfoWrapper handle(TraceRecord record) throws Exception {
+        CompletableFuture<FileInfoWrapper> handle = handles.computeIfAbsent(record.fh, k -> new CompletableFuture<>());
+        try {
+            return handle.get(10, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            // opened before the trace started
+            handle.complete(newInfo(record.path, O_RDONLY.intValue()));
+            return handle.get();
+        }
+    }
+
+    /** */
+    private void opened(TraceRecord record, FileInfoWrapper info) {
+        handles.computeIfAbsent(record.fh, k -> new CompletableFuture<>()).complete(info);
+    }
+
+    /** */
+    private ByteBuffer buffer(long size) {
+        ByteBuffer buffer = buffers.get();
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocateDirect((int) size);
+            buffers.set(buffer);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /** */
+    private void execute(TraceRecord record) throws Exception {
+        String path = record.path;
+        FileInfoWrapper info;
+        int result;
+        switch (record.operation) {
+        case "access":
+            result = fuse.access(path, record.flags);
+            break;
+        case "create":
+            info = newInfo(path, record.flags);
+            result = fuse.create(path, new ModeWrapper(record.size), info);
+            opened(record, info);
+            break;
+        case "getattr":
+            result = fuse.getattr(path, newWrapper(StatWrapper.class, path));
+            break;
+        case "fgetattr":
+            result = fuse.fgetattr(path, newWrapper(StatWrapper.class, path), handle(record));
+            break;
+        case "mkdir":
+            result = fuse.mkdir(path, new ModeWrapper(record.size));
+            break;
+        case "open":
+            info = newInfo(path, record.flags);
+            result = fuse.open(path, info);
+            opened(record, info);
+            break;
+        case "read":
+            result = fuse.read(path, buffer(record.size), record.size, record.offset, handle(record));
+            break;
+        case "readdir":
+            result = fuse.readdir(path, filler);
+            break;
+        case "rename":
+            result = fuse.rename(path, record.path2);
+            break;
+        case "rmdir":
+            result = fuse.rmdir(path);
+            break;
+        case "truncate":
+            result = fuse.truncate(path, record.offset);
+            break;
+        case "ftruncate":
+            result = fuse.ftruncate(path, record.offset, handle(record));
+            break;
+        case "unlink":
+            result = fuse.unlink(path);
+            break;
+        case "write":
+            result = fuse.write(path, buffer(record.size), record.size, record.offset, handle(record));
+            break;
+        case "statfs":
+            result = fuse.statfs(path, newWrapper(StatvfsWrapper.class, path));
+            break;
+        case "chmod":
+            result = fuse.chmod(path, new ModeWrapper(record.size));
+            break;
+        case "flush":
+            result = fuse.flush(path, handle(record));
+            break;
+        case "fsync":
+            result = fuse.fsync(path, 0, handle(record));
+            break;
+        case "release":
+            result = fuse.release(path, handle(record));
+            handles.remove(record.fh);
+            break;
+        default:
+            // opendir, releasedir and lock are not callbacks of fuse-jna
+            skipped.increment();
+            return;
+        }
+        replayed.increment();
+        if ((result < 0) != (record.result < 0)) {
+            mismatched.increment();
+        }
+    }
+
+    /**
+     * @param args 0: trace file, options: --fs=jimfs|latency, --latency=microseconds (default 1000),
+     *             --speed=original|fast (default original), --env=mount env, see {@link BenchmarkFixture#env(String)}
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            int p = args[i].indexOf('=');
+            options.put(args[i].substring(2, p), args[i].substring(p + 1));
+        }
+        List<TraceRecord> records;
+        try (TraceReader reader = new TraceReader(Paths.get(args[0]))) {
+            records = reader.readAll();
+        }
+
+        FileSystem fileSystem = Jimfs.newFileSystem(Configuration.unix());
+        prepare(fileSystem, records);
+        switch (options.getOrDefault("fs", "jimfs")) {
+        case "jimfs":
+            break;
+        case "latency":
+            fileSystem = new LatencyFileSystem(fileSystem, Long.parseLong(options.getOrDefault("latency", "1000")));
+            break;
+        default:
+            throw new IllegalArgumentException(options.get("fs"));
+        }
+        boolean original = options.getOrDefault("speed", "original").equals("original");
+
+        MeteredJavaNioFileFS fuse = new MeteredJavaNioFileFS(fileSystem, BenchmarkFixture.env(options.getOrDefault("env", "metrics")));
+        TraceReplay replay = new TraceReplay(fuse, original);
+        long elapsed = replay.replay(records);
+        long span = records.isEmpty() ? 0 : records.get(records.size() - 1).time - records.get(0).time;
+
+        System.out.printf("records: %d, replayed: %d, skipped: %d, mismatched: %d%n",
+                records.size(), replay.replayed.sum(), replay.skipped.sum(), replay.mismatched.sum());
+        System.out.printf("elapsed: %d ms, original: %d ms%n", elapsed / 1_000_000, span / 1_000_000);
+        fuse.getStatistics().forEach((k, v) -> System.out.println(k + ": " + v));
+        fuse.dispose();
+        fileSystem.close();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * ChannelPoolTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class ChannelPoolTest {
+
+    byte[] data = new byte[100000];
+
+    {
+        new Random(1).nextBytes(data);
+    }
+
+    /** short reads */
+    MemoryChannel newChannel() {
+        return new MemoryChannel(data).maxRead(777);
+    }
+
+    @Test
+    void test01() throws Exception {
+        AtomicInteger opened = new AtomicInteger();
+        List<MemoryChannel> channels = new ArrayList<>();
+        MemoryChannel primary = newChannel();
+        ChannelPool pool = new ChannelPool(primary, () -> {
+            opened.incrementAndGet();
+            MemoryChannel channel = newChannel();
+            synchronized (channels) {
+                channels.add(channel);
+            }
+            return channel;
+        }, 4);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int seed = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 200; i++) {
+                    int offset = random.nextInt(data.length);
+                    ByteBuffer bb = ByteBuffer.allocate(4096);
+                    int n = pool.read(bb, offset);
+                    assertEquals(Math.min(4096, data.length - offset), n);
+                    byte[] expected = new byte[n];
+                    System.arraycopy(data, offset, expected, 0, n);
+                    byte[] actual = new byte[n];
+                    bb.flip().get(actual);
+                    assertArrayEquals(expected, actual);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertTrue(opened.get() <= 3, "opened: " + opened.get());
+        assertEquals(0, pool.read(ByteBuffer.allocate(10), data.length));
+
+        pool.close();
+        assertTrue(primary.isOpen());
+        channels.forEach(c -> assertTrue(!c.isOpen()));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * FileHandleTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class FileHandleTest {
+
+    @Test
+    void test01() throws Exception {
+        Path file = Files.createTempFile("fh", ".bin");
+        try {
+            Files.write(file, new byte[] {1, 2, 3, 4});
+            AtomicInteger opens = new AtomicInteger();
+            FileHandle.Opener opener = () -> {
+                opens.incrementAndGet();
+                SeekableByteChannel channel = Files.newByteChannel(file);
+                return new FileHandle("/a", channel, new ChannelPool(channel, null, 1), null, null);
+            };
+
+            // closed without access
+            FileHandle handle = FileHandle.lazy("/a", opener);
+            assertFalse(handle.isOpened());
+            handle.close();
+            assertEquals(0, opens.get());
+
+            // opened once at the first access
+            handle = FileHandle.lazy("/a", opener);
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            assertEquals(4, handle.getChannels().read(buffer, 0));
+            assertTrue(handle.isOpened());
+            assertEquals(3, buffer.get(2));
+            handle.getChannel();
+            assertEquals(1, opens.get());
+            SeekableByteChannel channel = handle.getChannel();
+            handle.close();
+            assertFalse(channel.isOpen());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void test02() throws Exception {
+        MemoryChannel channel = new MemoryChannel(new byte[100]);
+        FileHandle handle = new FileHandle("/a", channel, new ChannelPool(channel, null, 1), null, null);
+        assertEquals(0, handle.written(200)); // not known yet
+        assertEquals(100, handle.getSize());
+        // overwrites don't grow the file
+        assertEquals(0, handle.written(50));
+        assertEquals(0, handle.written(100));
+        assertEquals(10, handle.written(110));
+        assertEquals(5, handle.written(115));
+        handle.truncated(20);
+        assertEquals(20, handle.getSize());
+        assertEquals(10, handle.written(30));
+        handle.close();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * HandleTableTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class HandleTableTest {
+
+    @Test
+    void test01() throws Exception {
+        HandleTable<String> table = new HandleTable<>(2);
+        long a = table.add("a");
+        long b = table.add("b");
+        long c = table.add("c"); // grows
+        assertNotEquals(0, a);
+        assertEquals("a", table.get(a));
+        assertEquals("b", table.get(b));
+        assertEquals("c", table.get(c));
+        assertEquals(3, table.size());
+
+        assertEquals("b", table.remove(b));
+        assertNull(table.get(b));
+        assertNull(table.remove(b));
+        assertEquals(2, table.size());
+
+        // the slot is reused with a new generation
+        long d = table.add("d");
+        assertEquals((int) b, (int) d);
+        assertNotEquals(b, d);
+        assertNull(table.get(b));
+        assertEquals("d", table.get(d));
+
+        assertNull(table.get(0));
+        assertNull(table.get(-1));
+        assertNull(table.get(1000));
+    }
+
+    @Test
+    void test02() throws Exception {
+        HandleTable<Integer> table = new HandleTable<>();
+        List<Thread> threads = new ArrayList<>();
+        Set<Long> handles = new HashSet<>();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        for (int t = 0; t < 8; t++) {
+            int base = t * 10000;
+            Thread thread = new Thread(() -> {
+                List<Long> mine = new ArrayList<>();
+                for (int i = 0; i < 10000; i++) {
+                    long fh = table.add(base + i);
+                    mine.add(fh);
+                    if (i % 2 == 0) {
+                        assertEquals(base + i, (int) table.remove(fh));
+                    }
+                }
+                for (int i = 0; i < mine.size(); i++) {
+                    if (i % 2 == 1) {
+                        assertEquals(base + i, (int) table.get(mine.get(i)));
+                    }
+                }
+                synchronized (handles) {
+                    handles.addAll(mine);
+                }
+            });
+            thread.setUncaughtExceptionHandler((th, e) -> error.set(e));
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(error.get());
+        assertEquals(8 * 5000, table.size());
+        assertTrue(handles.size() == 8 * 10000, "handles are unique");
+    }
+}
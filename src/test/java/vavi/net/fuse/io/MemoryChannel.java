@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+
+
+/**
+ * MemoryChannel. a non thread safe, non file channel over a byte array for tests.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+public class MemoryChannel implements SeekableByteChannel {
+
+    /** */
+    private volatile byte[] data;
+
+    /** */
+    private long position;
+
+    /** */
+    private volatile boolean open = true;
+
+    /** written after data for visibility from other threads */
+    private volatile int writes;
+
+    /** max bytes of a read */
+    private int maxRead = Integer.MAX_VALUE;
+
+    /** */
+    private boolean sequential;
+
+    /** an empty channel */
+    public MemoryChannel() {
+        this(new byte[0]);
+    }
+
+    /** @param data copied */
+    public MemoryChannel(byte[] data) {
+        this.data = data.clone();
+    }
+
+    /** makes reads short, a read yields also for races */
+    public MemoryChannel maxRead(int maxRead) {
+        this.maxRead = maxRead;
+        return this;
+    }
+
+    /** makes the channel unable to seek like an upload stream */
+    public MemoryChannel sequential() {
+        this.sequential = true;
+        return this;
+    }
+
+    /** */
+    public byte[] getData() {
+        return data;
+    }
+
+    /** */
+    public int getWrites() {
+        return writes;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        byte[] data = this.data;
+        if (position >= data.length) {
+            return -1;
+        }
+        int n = (int) Math.min(Math.min(dst.remaining(), maxRead), data.length - position);
+        dst.put(data, (int) position, n);
+        if (maxRead != Integer.MAX_VALUE) {
+            Thread.yield();
+        }
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        ensureOpen();
+        int n = src.remaining();
+        byte[] data = this.data;
+        if (position + n > data.length) {
+            data = Arrays.copyOf(data, (int) position + n);
+        }
+        src.get(data, (int) position, n);
+        this.data = data;
+        position += n;
+        writes++;
+        return n;
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (sequential && newPosition != position) {
+            throw new IOException("cannot seek");
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return data.length;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) throws IOException {
+        ensureOpen();
+        if (size < data.length) {
+            data = Arrays.copyOf(data, (int) size);
+        }
+        position = Math.min(position, size);
+        return this;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        open = false;
+    }
+
+    /** */
+    private void ensureOpen() throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
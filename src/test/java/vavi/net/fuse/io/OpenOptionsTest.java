@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static jnr.constants.platform.OpenFlags.O_APPEND;
+import static jnr.constants.platform.OpenFlags.O_CREAT;
+import static jnr.constants.platform.OpenFlags.O_RDONLY;
+import static jnr.constants.platform.OpenFlags.O_RDWR;
+import static jnr.constants.platform.OpenFlags.O_TRUNC;
+import static jnr.constants.platform.OpenFlags.O_WRONLY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * OpenOptionsTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class OpenOptionsTest {
+
+    @Test
+    void test01() {
+        assertEquals(Set.of(StandardOpenOption.READ), OpenOptions.of(O_RDONLY.intValue()));
+        assertEquals(Set.of(StandardOpenOption.WRITE), OpenOptions.of(O_WRONLY.intValue()));
+        assertEquals(Set.of(StandardOpenOption.READ, StandardOpenOption.WRITE), OpenOptions.of(O_RDWR.intValue()));
+        // the kernel handles creation before open
+        assertEquals(Set.of(StandardOpenOption.READ), OpenOptions.of(O_RDONLY.intValue() | O_CREAT.intValue()));
+    }
+
+    @Test
+    void test02() {
+        assertEquals(Set.of(StandardOpenOption.WRITE, StandardOpenOption.APPEND),
+                OpenOptions.of(O_WRONLY.intValue() | O_APPEND.intValue()));
+        // nio doesn't read with append, the kernel gives the end of file as the offset
+        assertEquals(Set.of(StandardOpenOption.READ, StandardOpenOption.WRITE),
+                OpenOptions.of(O_RDWR.intValue() | O_APPEND.intValue()));
+    }
+
+    @Test
+    void test03() {
+        assertEquals(Set.of(StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING),
+                OpenOptions.of(O_WRONLY.intValue() | O_TRUNC.intValue()));
+        assertEquals(Set.of(StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING),
+                OpenOptions.of(O_RDWR.intValue() | O_TRUNC.intValue()));
+        // truncation needs writing
+        assertEquals(Set.of(StandardOpenOption.READ), OpenOptions.of(O_RDONLY.intValue() | O_TRUNC.intValue()));
+    }
+
+    @Test
+    void test04() {
+        assertFalse(OpenOptions.isWritable(O_RDONLY.intValue()));
+        assertFalse(OpenOptions.isWritable(O_RDONLY.intValue() | O_TRUNC.intValue()));
+        assertTrue(OpenOptions.isWritable(O_WRONLY.intValue()));
+        assertTrue(OpenOptions.isWritable(O_RDWR.intValue() | O_APPEND.intValue()));
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * ReadAheadTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class ReadAheadTest {
+
+    byte[] data = new byte[100000];
+
+    {
+        new Random(1).nextBytes(data);
+    }
+
+    /** a thread safe positional reader over {@link #data} */
+    int load(ByteBuffer dst, long position) {
+        int n = (int) Math.max(0, Math.min(dst.remaining(), data.length - position));
+        if (n > 0) {
+            dst.put(data, (int) position, n);
+        }
+        return n;
+    }
+
+    @Test
+    void test01() throws Exception {
+        try (ReadAheadPool pool = new ReadAheadPool(1, 1024, 8192)) {
+            ReadAhead readAhead = pool.newReadAhead(this::load);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            long offset = 0;
+            while (true) {
+                ByteBuffer bb = ByteBuffer.allocate(1000);
+                int n = readAhead.read(bb, offset);
+                if (n == 0) {
+                    break;
+                }
+                baos.write(bb.array(), 0, n);
+                offset += n;
+            }
+            readAhead.close();
+            assertArrayEquals(data, baos.toByteArray());
+
+            Map<String, Object> statistics = new HashMap<>();
+            pool.putStatistics(statistics, "ra");
+            assertTrue((long) statistics.get("ra.hitBytes") > 0);
+        }
+    }
+
+    @Test
+    void test02() throws Exception {
+        try (ReadAheadPool pool = new ReadAheadPool(1, 1024, 8192)) {
+            ReadAhead readAhead = pool.newReadAhead(this::load);
+            ByteBuffer bb = ByteBuffer.allocate(1000);
+            readAhead.read(bb, 0);
+            bb.clear();
+            readAhead.read(bb, 1000);
+            bb.clear();
+            assertEquals(1000, readAhead.read(bb, 50000)); // random
+            byte[] expected = new byte[1000];
+            System.arraycopy(data, 50000, expected, 0, 1000);
+            assertArrayEquals(expected, bb.array());
+
+            Map<String, Object> statistics = new HashMap<>();
+            pool.putStatistics(statistics, "ra");
+            assertEquals(1L, statistics.get("ra.cancels"));
+            readAhead.close();
+        }
+    }
+
+    @Test
+    void test03() throws Exception {
+        // a read waiting for the backend doesn't block another read of the handle
+        CountDownLatch second = new CountDownLatch(1);
+        try (ReadAheadPool pool = new ReadAheadPool(1, 1024, 8192)) {
+            ReadAhead readAhead = pool.newReadAhead((dst, position) -> {
+                if (position == 50000) {
+                    try {
+                        if (!second.await(5, TimeUnit.SECONDS)) {
+                            throw new IOException("serialized");
+                        }
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+                return load(dst, position);
+            });
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            Future<Integer> first = executor.submit(() -> readAhead.read(ByteBuffer.allocate(1000), 50000));
+            Thread.sleep(100);
+            assertEquals(1000, readAhead.read(ByteBuffer.allocate(1000), 70000));
+            second.countDown();
+            assertEquals(1000, (int) first.get(5, TimeUnit.SECONDS));
+            executor.shutdown();
+            readAhead.close();
+        }
+    }
+
+    @Test
+    void test04() throws Exception {
+        // concurrent sequential reads, window buffers are reused
+        try (ReadAheadPool pool = new ReadAheadPool(2, 1024, 4096)) {
+            ReadAhead readAhead = pool.newReadAhead(this::load);
+            byte[] result = new byte[data.length];
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int start = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = start; i * 1000 < data.length; i += 4) {
+                        ByteBuffer bb = ByteBuffer.allocate(1000);
+                        int n = readAhead.read(bb, i * 1000L);
+                        System.arraycopy(bb.array(), 0, result, i * 1000, n);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+            readAhead.close();
+            assertArrayEquals(data, result);
+        }
+    }
+
+    @Test
+    void test05() throws Exception {
+        // reads of a handle after the pool is shut down fall back to the backend
+        ReadAheadPool pool = new ReadAheadPool(1, 1024, 8192);
+        ReadAhead readAhead = pool.newReadAhead(this::load);
+        ByteBuffer bb = ByteBuffer.allocate(1000);
+        readAhead.read(bb, 0);
+        pool.close();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        baos.write(bb.array(), 0, 1000);
+        long offset = 1000;
+        while (true) {
+            bb.clear();
+            int n = readAhead.read(bb, offset);
+            if (n == 0) {
+                break;
+            }
+            baos.write(bb.array(), 0, n);
+            offset += n;
+        }
+        readAhead.close();
+        assertArrayEquals(data, baos.toByteArray());
+    }
+
+    @Test
+    void test06() throws Exception {
+        // readers of a prefetch dropped by the shutdown don't wait forever
+        CountDownLatch latch = new CountDownLatch(1);
+        ReadAheadPool pool = new ReadAheadPool(1, 1024, 8192);
+        ReadAhead readAhead = pool.newReadAhead((dst, position) -> {
+            if (Thread.currentThread().getName().startsWith("readahead-")) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    // load anyway
+                }
+            }
+            return load(dst, position);
+        });
+        ByteBuffer bb = ByteBuffer.allocate(1000);
+        readAhead.read(bb, 0); // the first prefetch is stuck
+        readAhead.read(ByteBuffer.allocate(0), 1000); // the second prefetch is queued
+        pool.close();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        baos.write(bb.array(), 0, 1000);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> future = executor.submit(() -> {
+            long offset = 1000;
+            while (true) {
+                ByteBuffer b = ByteBuffer.allocate(1000);
+                int n = readAhead.read(b, offset);
+                if (n == 0) {
+                    break;
+                }
+                baos.write(b.array(), 0, n);
+                offset += n;
+            }
+            return null;
+        });
+        future.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+        readAhead.close();
+        assertArrayEquals(data, baos.toByteArray());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * SharedChannelsTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class SharedChannelsTest {
+
+    AtomicInteger opens = new AtomicInteger();
+    List<MemoryChannel> channels = new ArrayList<>();
+
+    SeekableByteChannel open() {
+        opens.incrementAndGet();
+        MemoryChannel channel = new MemoryChannel();
+        channels.add(channel);
+        return channel;
+    }
+
+    @Test
+    void test01() throws Exception {
+        SharedChannels shared = new SharedChannels(true, 0, false);
+        SharedChannels.Lease lease1 = shared.acquire("/a", this::open, 1);
+        SharedChannels.Lease lease2 = shared.acquire("/a", this::open, 1);
+        SharedChannels.Lease lease3 = shared.acquire("/b", this::open, 1);
+        assertEquals(2, opens.get());
+        assertSame(lease1.getChannel(), lease2.getChannel());
+        assertNotSame(lease1.getChannel(), lease3.getChannel());
+
+        lease1.close();
+        lease1.close(); // twice is ignored
+        assertTrue(lease2.getChannel().isOpen());
+        lease2.close();
+        assertFalse(channels.get(0).isOpen());
+
+        // modified while opened
+        shared.invalidate("/b");
+        assertTrue(lease3.getChannel().isOpen());
+        SharedChannels.Lease lease4 = shared.acquire("/b", this::open, 1);
+        assertNotSame(lease3.getChannel(), lease4.getChannel());
+        lease3.close();
+        assertFalse(channels.get(1).isOpen());
+        lease4.close();
+        assertEquals(0, shared.size());
+        shared.close();
+    }
+
+    @Test
+    void test02() throws Exception {
+        SharedChannels shared = new SharedChannels(true, 100, false);
+        SharedChannels.Lease lease1 = shared.acquire("/a", this::open, 1);
+        lease1.close();
+        assertTrue(channels.get(0).isOpen()); // lingering
+        SharedChannels.Lease lease2 = shared.acquire("/a", this::open, 1);
+        assertEquals(1, opens.get());
+        lease2.close();
+        long limit = System.currentTimeMillis() + 5000;
+        while (channels.get(0).isOpen() && System.currentTimeMillis() < limit) {
+            Thread.sleep(10);
+        }
+        assertFalse(channels.get(0).isOpen());
+        assertEquals(0, shared.size());
+        shared.close();
+    }
+
+    @Test
+    void test03() throws Exception {
+        SharedChannels shared = new SharedChannels(false, 0, false);
+        SharedChannels.Lease lease1 = shared.acquire("/a", this::open, 1);
+        SharedChannels.Lease lease2 = shared.acquire("/a", this::open, 1);
+        assertEquals(2, opens.get());
+        lease1.close();
+        assertFalse(channels.get(0).isOpen());
+        lease2.close();
+        assertFalse(channels.get(1).isOpen());
+        shared.close();
+    }
+}
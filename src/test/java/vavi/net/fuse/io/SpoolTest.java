@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import vavi.net.fuse.Fuse;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * SpoolTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class SpoolTest {
+
+    byte[] backend = new byte[0];
+    AtomicInteger uploads = new AtomicInteger();
+
+    /** a backend channel which cannot seek while writing */
+    MemoryChannel target(String path) {
+        return new MemoryChannel() {
+            @Override public void close() throws IOException {
+                super.close();
+                backend = getData();
+                uploads.incrementAndGet();
+            }
+        }.sequential();
+    }
+
+    static long files(Path dir) throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.count();
+        }
+    }
+
+    @Test
+    void test01() throws Exception {
+        Path dir = Files.createTempDirectory("spool");
+        Map<String, Object> env = new HashMap<>();
+        env.put(Fuse.ENV_SPOOL, dir.toString());
+        SpoolPool pool = SpoolPool.of(env);
+        assertTrue(pool.isEnabled());
+
+        byte[] data = new byte[300000];
+        new Random(1).nextBytes(data);
+        AtomicInteger uploaded = new AtomicInteger();
+        Spool spool = pool.newSpool("/a", null, this::target, p -> uploaded.incrementAndGet());
+        // out of order, e.g. a zip writer updates headers at last
+        for (int offset : new int[] {200000, 0, 100000}) {
+            ChannelUtil.write(spool, ByteBuffer.wrap(data, offset, 100000), offset);
+        }
+        assertEquals((long) data.length, pool.getSize("/a"));
+        ByteBuffer bb = ByteBuffer.allocate(1000);
+        spool.read(bb, 150000);
+        assertArrayEquals(Arrays.copyOfRange(data, 150000, 151000), bb.array());
+        assertEquals((int) 0, uploads.get());
+
+        spool.upload();
+        assertArrayEquals(data, backend);
+        assertEquals((int) 1, uploaded.get());
+        assertEquals(-1L, pool.getSize("/a"));
+        spool.close();
+        assertEquals((int) 1, uploads.get());
+        assertEquals(0L, files(dir));
+
+        Map<String, Object> statistics = new HashMap<>();
+        pool.putStatistics(statistics, "spool");
+        assertEquals(1L, statistics.get("spool.uploads"));
+        assertEquals((long) data.length, statistics.get("spool.uploadedBytes"));
+        assertEquals(0, statistics.get("spool.open"));
+        Files.delete(dir);
+    }
+
+    @Test
+    void test02() throws Exception {
+        Path dir = Files.createTempDirectory("spool");
+        SpoolPool pool = new SpoolPool(dir);
+        byte[] existing = new byte[5000];
+        new Random(2).nextBytes(existing);
+        AtomicInteger loads = new AtomicInteger();
+
+        Spool spool = pool.newSpool("/b", p -> {
+            loads.incrementAndGet();
+            return new MemoryChannel(existing).sequential();
+        }, this::target, p -> {});
+        assertEquals((int) 0, loads.get());
+        ChannelUtil.write(spool, ByteBuffer.wrap(new byte[] {1, 2, 3}), 10);
+        assertEquals((int) 1, loads.get());
+        ChannelUtil.truncate(spool, 4000);
+        assertEquals(4000L, pool.getSize("/b"));
+        spool.close();
+
+        byte[] expected = Arrays.copyOf(existing, 4000);
+        expected[10] = 1;
+        expected[11] = 2;
+        expected[12] = 3;
+        assertArrayEquals(expected, backend);
+        assertThrows(IOException.class, () -> spool.size());
+
+        // not written, not uploaded
+        Spool spool2 = pool.newSpool("/c", null, this::target, p -> {});
+        spool2.close();
+        assertEquals((int) 1, uploads.get());
+        assertEquals(0L, files(dir));
+
+        assertFalse(SpoolPool.of(new HashMap<>()).isEnabled());
+        Files.delete(dir);
+    }
+
+    @Test
+    void test03() throws Exception {
+        Path dir = Files.createTempDirectory("spool");
+        Map<String, Object> env = new HashMap<>();
+        env.put(Fuse.ENV_SPOOL, dir.toString());
+        env.put(Fuse.ENV_SPOOL_UPLOAD_THREADS, "2");
+        env.put(Fuse.ENV_SPOOL_UPLOAD_QUEUE, "4");
+        SpoolPool pool = SpoolPool.of(env);
+        assertTrue(pool.isAsync());
+
+        // a slow backend
+        Map<String, byte[]> backends = new ConcurrentHashMap<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            String path = "/" + i;
+            Spool spool = pool.newSpool(path, null, p -> new MemoryChannel() {
+                @Override public void close() throws IOException {
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    super.close();
+                    backends.put(path, getData());
+                }
+            }.sequential(), p -> {});
+            ChannelUtil.write(spool, ByteBuffer.wrap(new byte[] {(byte) i, 1, 2}), 0);
+            pool.release(spool);
+        }
+        // returned before uploads
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 200);
+        Map<String, Object> statistics = new HashMap<>();
+        pool.putStatistics(statistics, "spool");
+        assertEquals(4, statistics.get("spool.queued"));
+
+        // readable and stat-able from the local copy
+        assertEquals(3L, pool.getSize("/3"));
+        FileChannel channel = pool.openPending("/3");
+        pool.await("/3");
+        assertArrayEquals(new byte[] {3, 1, 2}, backends.get("/3"));
+        ByteBuffer bb = ByteBuffer.allocate(3);
+        assertEquals((int) 3, ChannelUtil.read(channel, bb, 0));
+        assertArrayEquals(new byte[] {3, 1, 2}, bb.array());
+        channel.close();
+
+        pool.close();
+        assertEquals((int) 4, backends.size());
+        assertNull(pool.openPending("/0"));
+        assertEquals(-1L, pool.getSize("/0"));
+        pool.putStatistics(statistics, "spool");
+        assertEquals(0, statistics.get("spool.queued"));
+        assertEquals(4L, statistics.get("spool.uploads"));
+        assertEquals(0L, files(dir));
+        Files.delete(dir);
+    }
+
+    @Test
+    void test04() throws Exception {
+        Path dir = Files.createTempDirectory("spool");
+        SpoolPool pool = new SpoolPool(dir, 1, 1);
+        AtomicInteger attempts = new AtomicInteger();
+        Spool spool = pool.newSpool("/d", null, p -> {
+            attempts.incrementAndGet();
+            throw new IOException("backend is down");
+        }, p -> {});
+        ChannelUtil.write(spool, ByteBuffer.wrap(new byte[10]), 0);
+        pool.release(spool);
+        pool.close();
+
+        Map<String, Object> statistics = new HashMap<>();
+        pool.putStatistics(statistics, "spool");
+        assertEquals((int) 3, attempts.get());
+        assertEquals(3L, statistics.get("spool.failures"));
+        assertEquals(1L, statistics.get("spool.quarantined"));
+        assertEquals(0, statistics.get("spool.open"));
+        // kept for a recovery
+        Path quarantine = dir.resolve(SpoolPool.QUARANTINE);
+        assertEquals(1L, files(dir));
+        assertEquals(1L, files(quarantine));
+        try (Stream<Path> s = Files.list(quarantine)) {
+            Path file = s.findFirst().get();
+            assertEquals(10L, Files.size(file));
+            Files.delete(file);
+        }
+        Files.delete(quarantine);
+        Files.delete(dir);
+    }
+
+    @Test
+    void test05() throws Exception {
+        // a failed release keeps the local copy
+        Path dir = Files.createTempDirectory("spool");
+        SpoolPool pool = new SpoolPool(dir);
+        AtomicInteger attempts = new AtomicInteger();
+        Spool spool = pool.newSpool("/e", null, p -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IOException("backend is down");
+            }
+            return target(p);
+        }, p -> {});
+        ChannelUtil.write(spool, ByteBuffer.wrap(new byte[] {1, 2, 3}), 0);
+        assertThrows(IOException.class, () -> pool.release(spool));
+        assertTrue(spool.isOpen());
+        assertEquals(1L, files(dir));
+        assertEquals(3L, pool.getSize("/e"));
+
+        // discarded after uploaded
+        pool.release(spool);
+        assertArrayEquals(new byte[] {1, 2, 3}, backend);
+        assertFalse(spool.isOpen());
+        assertEquals(0L, files(dir));
+        Files.delete(dir);
+    }
+
+    @Test
+    void test06() throws Exception {
+        // an open spool follows rename of its parent
+        Path dir = Files.createTempDirectory("spool");
+        SpoolPool pool = new SpoolPool(dir);
+        Map<String, String> opened = new ConcurrentHashMap<>();
+        Spool spool = pool.newSpool("/dir/f", p -> {
+            opened.put("source", p);
+            return new MemoryChannel(new byte[] {9, 9});
+        }, p -> {
+            opened.put("target", p);
+            return target(p);
+        }, p -> opened.put("uploaded", p));
+        Spool other = pool.newSpool("/dir2", null, this::target, p -> {});
+
+        pool.rename("/dir", "/new");
+        assertEquals("/new/f", spool.getPath());
+        assertEquals("/dir2", other.getPath());
+        ChannelUtil.write(spool, ByteBuffer.wrap(new byte[] {1}), 0);
+        assertEquals(2L, pool.getSize("/new/f"));
+        assertEquals(-1L, pool.getSize("/dir/f"));
+        spool.close();
+        other.close();
+        assertEquals("/new/f", opened.get("source"));
+        assertEquals("/new/f", opened.get("target"));
+        assertEquals("/new/f", opened.get("uploaded"));
+        assertArrayEquals(new byte[] {1, 9}, backend);
+        Files.delete(dir);
+    }
+
+    @Test
+    void test07() throws Exception {
+        Path dir = Files.createTempDirectory("spool");
+        SpoolPool pool = new SpoolPool(dir, 1, 2, 200);
+        // a backend which doesn't respond
+        Spool stuck = pool.newSpool("/f", null, p -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                // keeps the status as an interruptible channel does
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            return target(p);
+        }, p -> {});
+        ChannelUtil.write(stuck, ByteBuffer.wrap(new byte[10]), 0);
+        pool.release(stuck);
+        // still open at close, not written
+        Spool open = pool.newSpool("/g", null, this::target, p -> {});
+        // still open at close, written
+        Spool written = pool.newSpool("/h", null, this::target, p -> {});
+        ChannelUtil.write(written, ByteBuffer.wrap(new byte[] {1}), 0);
+
+        long start = System.nanoTime();
+        pool.close();
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+        assertFalse(stuck.isOpen());
+        assertFalse(open.isOpen());
+        assertFalse(written.isOpen());
+        assertArrayEquals(new byte[] {1}, backend);
+
+        Map<String, Object> statistics = new HashMap<>();
+        pool.putStatistics(statistics, "spool");
+        assertEquals(1L, statistics.get("spool.quarantined"));
+        assertEquals(0, statistics.get("spool.open"));
+        assertEquals(0, statistics.get("spool.queued"));
+        Path quarantine = dir.resolve(SpoolPool.QUARANTINE);
+        assertEquals(1L, files(dir));
+        assertEquals(1L, files(quarantine));
+        try (Stream<Path> s = Files.list(quarantine)) {
+            s.forEach(p -> p.toFile().delete());
+        }
+        Files.delete(quarantine);
+        Files.delete(dir);
+    }
+
+    @Test
+    void test08() throws Exception {
+        // spools of a deleted file or directory are not uploaded
+        Path dir = Files.createTempDirectory("spool");
+        SpoolPool pool = new SpoolPool(dir, 1, 2);
+        Spool file = pool.newSpool("/i", null, this::target, p -> {});
+        Spool child = pool.newSpool("/dir/j", null, this::target, p -> {});
+        Spool other = pool.newSpool("/dir2", null, this::target, p -> {});
+        for (Spool spool : new Spool[] {file, child, other}) {
+            ChannelUtil.write(spool, ByteBuffer.wrap(new byte[] {1}), 0);
+        }
+
+        pool.deleted("/i");
+        pool.deleted("/dir");
+        assertEquals(-1L, pool.getSize("/i"));
+        assertEquals(-1L, pool.getSize("/dir/j"));
+        assertEquals(1L, pool.getSize("/dir2"));
+        // still usable until released
+        ChannelUtil.write(file, ByteBuffer.wrap(new byte[] {2}), 1);
+        file.upload();
+        pool.release(file);
+        pool.release(child);
+        assertFalse(file.isOpen());
+        assertFalse(child.isOpen());
+        assertEquals((int) 0, uploads.get());
+
+        pool.release(other);
+        pool.close();
+        assertEquals((int) 1, uploads.get());
+        assertEquals(0L, files(dir));
+        Files.delete(dir);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * StripedExecutorTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class StripedExecutorTest {
+
+    /** @return a path on the other lane than {@code path} */
+    static String other(StripedExecutor lanes, String path) {
+        for (int i = 0; ; i++) {
+            String other = "/other" + i;
+            if (lanes.lane(other) != lanes.lane(path)) {
+                return other;
+            }
+        }
+    }
+
+    @Test
+    void test01() throws Exception {
+        StripedExecutor lanes = new StripedExecutor(4);
+        ExecutorService callers = Executors.newCachedThreadPool();
+        try {
+            // the same path is serialized in order
+            List<Integer> order = new ArrayList<>();
+            List<Future<Integer>> fs = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                int n = i;
+                fs.add(callers.submit(() -> lanes.execute("/a", () -> { order.add(n); return n; })));
+                Thread.sleep(1);
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, (int) fs.get(i).get());
+            }
+            assertEquals(100, order.size());
+
+            // a blocked path doesn't block an unrelated path
+            CountDownLatch blocked = new CountDownLatch(1);
+            Future<Integer> f = callers.submit(() -> lanes.execute("/a", () -> {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return 1;
+            }));
+            assertEquals(2, lanes.execute(other(lanes, "/a"), () -> 2));
+            blocked.countDown();
+            assertEquals(1, (int) f.get(1, TimeUnit.SECONDS));
+
+            // a nested call runs inline
+            assertEquals(3, lanes.execute("/a", () -> lanes.execute("/a", () -> 3)));
+        } finally {
+            callers.shutdownNow();
+            lanes.close();
+        }
+    }
+
+    @Test
+    void test02() throws Exception {
+        StripedExecutor lanes = new StripedExecutor(4);
+        ExecutorService callers = Executors.newCachedThreadPool();
+        try {
+            String a = "/a";
+            String b = other(lanes, a);
+            assertNotEquals(lanes.lane(a), lanes.lane(b));
+
+            // two path callbacks in opposite orders don't deadlock and exclude single path ones
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger overlapped = new AtomicInteger();
+            List<Future<Integer>> fs = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String from = i % 2 == 0 ? a : b;
+                String to = i % 2 == 0 ? b : a;
+                fs.add(callers.submit(() -> lanes.execute(from, to, () -> {
+                    if (running.incrementAndGet() > 1) {
+                        overlapped.incrementAndGet();
+                    }
+                    running.decrementAndGet();
+                    return 0;
+                })));
+                fs.add(callers.submit(() -> lanes.execute(a, () -> {
+                    if (running.incrementAndGet() > 1) {
+                        overlapped.incrementAndGet();
+                    }
+                    running.decrementAndGet();
+                    return 0;
+                })));
+            }
+            for (Future<Integer> f : fs) {
+                f.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(0, overlapped.get());
+
+            Map<String, Object> statistics = new HashMap<>();
+            lanes.putStatistics(statistics, "lanes");
+            assertEquals(4, statistics.get("lanes.lanes"));
+            assertTrue(statistics.containsKey("lanes.lane.3.depth"));
+        } finally {
+            callers.shutdownNow();
+            lanes.close();
+        }
+    }
+
+    @Test
+    void test03() throws Exception {
+        StripedExecutor lanes = new StripedExecutor(4);
+        ExecutorService callers = Executors.newCachedThreadPool();
+        try {
+            String a = "/a";
+            String b = other(lanes, a);
+
+            // a call nested in a two path callback (e.g. rename calls getattr) runs inline on the held lanes
+            Future<Integer> f = callers.submit(() -> lanes.execute(a, b, () ->
+                    lanes.execute(a, () -> 1) + lanes.execute(b, () -> 2) + lanes.execute(b, a, () -> 3)));
+            assertEquals(6, (int) f.get(5, TimeUnit.SECONDS));
+
+            // the caller is not on a lane after that
+            AtomicInteger inline = new AtomicInteger();
+            Thread caller = Thread.currentThread();
+            assertEquals(0, lanes.execute(a, b, () -> 0));
+            lanes.execute(a, () -> {
+                if (Thread.currentThread() == caller) {
+                    inline.incrementAndGet();
+                }
+                return 0;
+            });
+            assertEquals(0, inline.get());
+        } finally {
+            callers.shutdownNow();
+            lanes.close();
+        }
+    }
+}
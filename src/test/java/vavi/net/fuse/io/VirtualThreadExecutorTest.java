@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * VirtualThreadExecutorTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class VirtualThreadExecutorTest {
+
+    @Test
+    void test01() throws Exception {
+        VirtualThreadExecutor threads = new VirtualThreadExecutor(2);
+        ExecutorService callers = Executors.newCachedThreadPool();
+        try {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger max = new AtomicInteger();
+            List<Future<Integer>> fs = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                int n = i;
+                fs.add(callers.submit(() -> threads.execute("read", () -> {
+                    max.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    running.decrementAndGet();
+                    return n;
+                })));
+            }
+            for (int i = 0; i < fs.size(); i++) {
+                assertEquals(i, (int) fs.get(i).get(10, TimeUnit.SECONDS));
+            }
+            assertTrue(max.get() <= 2, "max: " + max.get());
+
+            // permits are per operation
+            assertEquals(1, threads.execute("getattr", () -> 1));
+
+            // a nested call runs inline
+            assertEquals(2, threads.execute("fgetattr", () -> threads.execute("getattr", () -> 2)));
+
+            // an exception of the callback is thrown
+            assertThrows(IllegalStateException.class, () -> threads.execute("read", () -> { throw new UnsupportedOperationException(); }));
+
+            Map<String, Object> statistics = new HashMap<>();
+            threads.putStatistics(statistics, "threads");
+            assertEquals(21L, statistics.get("threads.read.calls"));
+            assertEquals(1L, statistics.get("threads.getattr.calls"));
+            assertEquals(1L, statistics.get("threads.fgetattr.calls"));
+            assertEquals(0, statistics.get("threads.read.inflight"));
+        } finally {
+            callers.shutdownNow();
+            threads.close();
+        }
+    }
+}
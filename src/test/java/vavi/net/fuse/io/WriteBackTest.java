@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.io;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * WriteBackTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class WriteBackTest {
+
+    @Test
+    void test01() throws Exception {
+        byte[] data = new byte[100000];
+        new Random(1).nextBytes(data);
+
+        MemoryChannel channel = new MemoryChannel();
+        AtomicInteger flushed = new AtomicInteger();
+        WriteBackPool pool = new WriteBackPool(0x8000, 0x100000, 0, false);
+        WriteBack writeBack = pool.newWriteBack("/a", channel, flushed::incrementAndGet);
+        for (int offset = 0; offset < data.length; offset += 4096) {
+            int n = Math.min(4096, data.length - offset);
+            assertEquals(n, writeBack.write(ByteBuffer.wrap(data, offset, n), offset));
+        }
+        assertEquals(3, channel.getWrites()); // 3 full buffers
+        assertEquals(data.length, pool.getDirtyEnd("/a"));
+        assertEquals(-1, pool.getDirtyEnd("/b"));
+
+        writeBack.flush();
+        assertEquals(4, channel.getWrites());
+        assertEquals(-1, pool.getDirtyEnd("/a"));
+        assertArrayEquals(data, channel.getData());
+        assertEquals(4, flushed.get());
+
+        // not contiguous
+        writeBack.write(ByteBuffer.wrap(new byte[] {1, 2}), 10);
+        writeBack.write(ByteBuffer.wrap(new byte[] {3, 4}), 0);
+        assertEquals(5, channel.getWrites());
+        writeBack.close();
+        assertEquals(6, channel.getWrites());
+        assertEquals(3, channel.getData()[0]);
+        assertEquals(1, channel.getData()[10]);
+
+        Map<String, Object> statistics = new HashMap<>();
+        pool.putStatistics(statistics, "writeback");
+        assertEquals(0L, statistics.get("writeback.dirtyBytes"));
+        pool.close();
+    }
+
+    @Test
+    void test02() throws Exception {
+        MemoryChannel channel1 = new MemoryChannel();
+        MemoryChannel channel2 = new MemoryChannel();
+        WriteBackPool pool = new WriteBackPool(0x1000, 0x1800, 0, false);
+        WriteBack writeBack1 = pool.newWriteBack("/a", channel1, () -> {});
+        WriteBack writeBack2 = pool.newWriteBack("/b", channel2, () -> {});
+        writeBack1.write(ByteBuffer.wrap(new byte[0x1000 - 1]), 0);
+        assertEquals(0, channel1.getWrites());
+        // over the cap of the mount
+        writeBack2.write(ByteBuffer.wrap(new byte[0x1000]), 0);
+        assertTrue(channel2.getWrites() > 0);
+        Map<String, Object> statistics = new HashMap<>();
+        pool.putStatistics(statistics, "writeback");
+        assertEquals(1L, statistics.get("writeback.throttles"));
+        writeBack1.close();
+        writeBack2.close();
+        pool.close();
+    }
+
+    @Test
+    void test03() throws Exception {
+        MemoryChannel channel = new MemoryChannel();
+        WriteBackPool pool = new WriteBackPool(0x1000, 0x10000, 50, false);
+        WriteBack writeBack = pool.newWriteBack("/a", channel, () -> {});
+        writeBack.write(ByteBuffer.wrap(new byte[] {1, 2, 3}), 0);
+        assertEquals(0, channel.getWrites());
+        long limit = System.currentTimeMillis() + 5000;
+        while (channel.getWrites() == 0 && System.currentTimeMillis() < limit) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, channel.getWrites()); // by max age
+        assertArrayEquals(new byte[] {1, 2, 3}, channel.getData());
+        writeBack.close();
+        pool.close();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.jfr;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import vavi.net.fuse.io.ChannelUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * FuseOperationEventTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class FuseOperationEventTest {
+
+    @Test
+    void test01() throws Exception {
+        Path file = Files.createTempFile("jfr", ".bin");
+        Path jfr = Files.createTempFile("jfr", ".jfr");
+        try (Recording recording = new Recording()) {
+            Files.write(file, new byte[100]);
+            recording.enable("vavi.net.fuse.FuseRead");
+            recording.enable("vavi.net.fuse.FuseOperation");
+            recording.enable("vavi.net.fuse.Backend");
+            recording.start();
+
+            EventFileSystemProvider provider = new EventFileSystemProvider(FileSystems.getDefault().provider());
+            FuseOperationEvent event = FuseEvents.start("read");
+            int n;
+            try (SeekableByteChannel channel = provider.newByteChannel(file, Set.of(StandardOpenOption.READ))) {
+                n = ChannelUtil.read(channel, ByteBuffer.allocate(10), 5, true);
+                // a local channel or jfr disabled
+                ChannelUtil.read(channel, ByteBuffer.allocate(10), 5);
+                ChannelUtil.read(channel, ByteBuffer.allocate(10), 5, false);
+            }
+            event.complete("/a", 3, 5, 10, n);
+            FuseEvents.start("statfs").complete("/", 0, 0, 0, -2);
+
+            recording.stop();
+            recording.dump(jfr);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(jfr);
+            RecordedEvent read = events.stream().filter(e -> e.getEventType().getName().equals("vavi.net.fuse.FuseRead")).findFirst().get();
+            assertEquals("/a", read.getString("path"));
+            assertEquals(3, read.getLong("fh"));
+            assertEquals(10, read.getLong("size"));
+            assertEquals(0, read.getInt("errno"));
+            RecordedEvent other = events.stream().filter(e -> e.getEventType().getName().equals("vavi.net.fuse.FuseOperation")).findFirst().get();
+            assertEquals("statfs", other.getString("operation"));
+            assertEquals(2, other.getInt("errno"));
+
+            // backend events are nested in the fuse event
+            long backends = events.stream()
+                    .filter(e -> e.getEventType().getName().equals("vavi.net.fuse.Backend"))
+                    .peek(e -> assertTrue(!e.getStartTime().isBefore(read.getStartTime()) && !e.getEndTime().isAfter(read.getEndTime())))
+                    .count();
+            assertEquals(2, backends); // open, read
+        } finally {
+            Files.delete(file);
+            Files.delete(jfr);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.jnrfuse;
+
+import java.util.concurrent.TimeUnit;
+
+import jnr.ffi.Pointer;
+import jnr.ffi.Runtime;
+import jnr.ffi.Struct;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.serce.jnrfuse.FuseFillDir;
+import ru.serce.jnrfuse.struct.FileStat;
+import ru.serce.jnrfuse.struct.FuseFileInfo;
+import vavi.net.fuse.BenchmarkFixture;
+
+import static jnr.constants.platform.OpenFlags.O_RDONLY;
+import static jnr.constants.platform.OpenFlags.O_WRONLY;
+
+
+/**
+ * JavaNioFileFSBenchmark. calls jnr-fuse callbacks in process, fuse buffers are native memory
+ * allocated here. libfuse is loaded by {@code FuseStubFS}, but nothing is mounted.
+ * <p>
+ * run with {@code mvn -P benchmark test-compile exec:exec}, {@code -prof gc} reports allocations per op.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JavaNioFileFSBenchmark {
+
+    @Param({"jimfs", "default"})
+    String fileSystem;
+
+    /** mount env, see {@link BenchmarkFixture#env(String)} */
+    @Param({""})
+    String env;
+
+    @Param({"4096", "131072"})
+    int size;
+
+    BenchmarkFixture fixture;
+    MeteredJavaNioFileFS fuse;
+
+    Pointer buffer;
+    FileStat stat;
+    FuseFileInfo readInfo;
+    FuseFileInfo writeInfo;
+    FuseFileInfo dirInfo;
+    FuseFileInfo info;
+    long readOffset;
+    long writeOffset;
+
+    /** counts entries */
+    int entries;
+    final FuseFillDir filler = (buf, name, stbuf, off) -> {
+        entries++;
+        return 0;
+    };
+
+    /** @return native memory for the struct */
+    static Pointer allocate(Struct struct) {
+        return Runtime.getSystemRuntime().getMemoryManager().allocateDirect(Struct.size(struct));
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        fixture = new BenchmarkFixture(fileSystem);
+        fuse = new MeteredJavaNioFileFS(fixture.fileSystem, BenchmarkFixture.env(env));
+        Runtime runtime = Runtime.getSystemRuntime();
+        buffer = runtime.getMemoryManager().allocateDirect(size);
+        stat = FileStat.of(allocate(new FileStat(runtime)));
+        readInfo = FuseFileInfo.of(allocate(new FuseFileInfo(runtime)));
+        writeInfo = FuseFileInfo.of(allocate(new FuseFileInfo(runtime)));
+        dirInfo = FuseFileInfo.of(allocate(new FuseFileInfo(runtime)));
+        info = FuseFileInfo.of(allocate(new FuseFileInfo(runtime)));
+
+        readInfo.flags.set(O_RDONLY.intValue());
+        check(fuse.open(fixture.file, readInfo));
+        writeInfo.flags.set(O_WRONLY.intValue());
+        check(fuse.open(fixture.output, writeInfo));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fuse.release(fixture.file, readInfo);
+        fuse.release(fixture.output, writeInfo);
+        fuse.dispose();
+        fixture.close();
+    }
+
+    /** */
+    static int check(int result) {
+        if (result < 0) {
+            throw new IllegalStateException("errno: " + -result);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int getattr() {
+        return fuse.getattr(fixture.file, stat);
+    }
+
+    /** opendir, readdir and releasedir of a directory */
+    @Benchmark
+    public int readdir() {
+        entries = 0;
+        check(fuse.opendir(fixture.dir, dirInfo));
+        fuse.readdir(fixture.dir, buffer, filler, 0, dirInfo);
+        fuse.releasedir(fixture.dir, dirInfo);
+        return entries;
+    }
+
+    @Benchmark
+    public int openRelease() {
+        info.flags.set(O_RDONLY.intValue());
+        check(fuse.open(fixture.file, info));
+        return fuse.release(fixture.file, info);
+    }
+
+    /** sequential reads through an open handle */
+    @Benchmark
+    public int read() {
+        int n = check(fuse.read(fixture.file, buffer, size, readOffset, readInfo));
+        readOffset = readOffset + size < BenchmarkFixture.FILE_SIZE ? readOffset + size : 0;
+        return n;
+    }
+
+    /** sequential writes through an open handle, wraps at the size of the read file */
+    @Benchmark
+    public int write() {
+        int n = check(fuse.write(fixture.output, buffer, size, writeOffset, writeInfo));
+        writeOffset = writeOffset + size < BenchmarkFixture.FILE_SIZE ? writeOffset + size : 0;
+        return n;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.jnrfuse;
+
+import java.nio.ByteBuffer;
+
+import jnr.ffi.Pointer;
+import jnr.ffi.Runtime;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+/**
+ * PointerBuffersTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class PointerBuffersTest {
+
+    static final int SIZE = 4096;
+
+    /** @param direct a native buffer as fuse gives, or a heap backed one which cannot be viewed */
+    static Pointer pointer(boolean direct) {
+        return direct ? Runtime.getSystemRuntime().getMemoryManager().allocateDirect(SIZE)
+                      : Runtime.getSystemRuntime().getMemoryManager().allocate(SIZE);
+    }
+
+    /** reading into fuse's buffer */
+    static void read(Pointer pointer) {
+        ByteBuffer buffer = PointerBuffers.forRead(pointer, 100);
+        assertEquals(0, buffer.position());
+        assertEquals(100, buffer.remaining());
+        for (int i = 0; i < 100; i++) {
+            buffer.put((byte) i);
+        }
+        PointerBuffers.flush(buffer, pointer, 100);
+        PointerBuffers.release(buffer, pointer);
+        for (int i = 0; i < 100; i++) {
+            assertEquals((byte) i, pointer.getByte(i));
+        }
+    }
+
+    /** writing from fuse's buffer */
+    static void write(Pointer pointer) {
+        for (int i = 0; i < 200; i++) {
+            pointer.putByte(i, (byte) (i * 3));
+        }
+        ByteBuffer buffer = PointerBuffers.forWrite(pointer, 200);
+        assertEquals(200, buffer.remaining());
+        for (int i = 0; i < 200; i++) {
+            assertEquals((byte) (i * 3), buffer.get());
+        }
+        PointerBuffers.release(buffer, pointer);
+    }
+
+    @Test
+    void test01() throws Exception {
+        read(pointer(true));
+        write(pointer(true));
+    }
+
+    @Test
+    void test02() throws Exception {
+        read(pointer(false));
+        write(pointer(false));
+    }
+
+    @Test
+    void test03() throws Exception {
+        // a short read copies only the bytes read, the rest of fuse's buffer is untouched
+        Pointer pointer = pointer(false);
+        pointer.putByte(50, (byte) 0x55);
+        ByteBuffer buffer = PointerBuffers.forRead(pointer, 100);
+        buffer.put(new byte[10]);
+        PointerBuffers.flush(buffer, pointer, 10);
+        PointerBuffers.release(buffer, pointer);
+        assertEquals((byte) 0x55, pointer.getByte(50));
+
+        // a larger request after a smaller one
+        Pointer large = Runtime.getSystemRuntime().getMemoryManager().allocate(SIZE * 4);
+        buffer = PointerBuffers.forRead(large, SIZE * 4);
+        assertEquals(SIZE * 4, buffer.remaining());
+        buffer.put(SIZE * 4 - 1, (byte) 1);
+        PointerBuffers.flush(buffer, large, SIZE * 4);
+        PointerBuffers.release(buffer, large);
+        assertEquals((byte) 1, large.getByte(SIZE * 4 - 1));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * FuseMetricsTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class FuseMetricsTest {
+
+    @Test
+    void test01() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        long p50 = histogram.getPercentile(0.5);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.125, "p50: " + p50);
+        long p99 = histogram.getPercentile(0.99);
+        assertTrue(p99 >= 990_000 && p99 <= 1_000_000, "p99: " + p99);
+
+        // bucket bounds
+        for (long v : new long[] {0, 1, 7, 8, 9, 15, 16, 1000, 123456789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.index(v);
+            assertTrue(LatencyHistogram.highest(index) >= v, "v: " + v);
+            assertTrue(index == 0 || LatencyHistogram.highest(index - 1) < v, "v: " + v);
+        }
+
+        histogram.reset();
+        assertEquals(0, histogram.getPercentile(0.99));
+    }
+
+    @Test
+    void test02() throws Exception {
+        FuseMetrics metrics = new FuseMetrics(true);
+        OperationMetrics read = metrics.operation("read");
+        OperationMetrics getattr = metrics.operation("getattr");
+        assertEquals(100, read.record(System.nanoTime(), 100));
+        read.record(System.nanoTime(), 50);
+        read.record(System.nanoTime(), -5);
+        getattr.record(System.nanoTime(), -2);
+        getattr.record(System.nanoTime(), -2);
+        assertEquals(3, read.getCalls());
+        assertEquals(150, read.getBytes());
+        assertEquals(1, read.getErrors());
+        assertEquals(Map.of(2, 2L), getattr.getErrorsByErrno());
+
+        metrics.register("/tmp/mnt");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("vavi.net.fuse:type=Metrics,mountPoint=" + ObjectName.quote("/tmp/mnt"));
+            TabularData operations = (TabularData) server.getAttribute(name, "Operations");
+            CompositeData row = operations.get(new Object[] {"read"});
+            CompositeData value = (CompositeData) row.get("value");
+            assertEquals(3L, value.get("calls"));
+
+            server.invoke(name, "reset", null, null);
+            assertEquals(0, read.getCalls());
+        } finally {
+            metrics.close();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().queryNames(new ObjectName("vavi.net.fuse:type=Metrics,*"), null).iterator().hasNext());
+
+        // disabled
+        FuseMetrics disabled = new FuseMetrics(false);
+        disabled.operation("read").record(System.nanoTime(), 100);
+        assertEquals(0, disabled.operation("read").getCalls());
+    }
+}
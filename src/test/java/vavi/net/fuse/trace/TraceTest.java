@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.net.fuse.trace;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import vavi.net.fuse.Fuse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * TraceTest.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/18 umjammer initial version <br>
+ */
+class TraceTest {
+
+    @Test
+    void test01() throws Exception {
+        Path file = Files.createTempFile("fuse", ".trace");
+        try {
+            Map<String, Object> env = new HashMap<>();
+            env.put(Fuse.ENV_TRACE, file.toString());
+            try (TraceWriter writer = TraceWriter.of(env)) {
+                writer.write("open", System.nanoTime(), "/a", null, 1, 0, 0, 0x8000, 0);
+                writer.write("read", System.nanoTime(), "/a", null, 1, 1L << 40, 131072, 0, 131072);
+                writer.write("getattr", System.nanoTime(), "/b", null, 0, 0, 0, 0, -2);
+                writer.write("rename", System.nanoTime(), "/a", "/b", 0, 0, 0, 0, 0);
+                writer.write("release", System.nanoTime(), "/b", null, 1, 0, 0, 0, Integer.MIN_VALUE);
+                assertEquals(5, writer.getRecords());
+            }
+
+            try (TraceReader reader = new TraceReader(file)) {
+                assertTrue(reader.getStartTime() > 0);
+                List<TraceRecord> records = reader.readAll();
+                assertEquals(5, records.size());
+
+                TraceRecord read = records.get(1);
+                assertEquals("read", read.operation);
+                assertEquals("/a", read.path);
+                assertNull(read.path2);
+                assertEquals(1, read.fh);
+                assertEquals(1L << 40, read.offset);
+                assertEquals(131072, read.size);
+                assertEquals((int) 131072, read.result);
+                assertEquals(Thread.currentThread().getId(), read.thread);
+                assertTrue(read.time >= records.get(0).time);
+
+                assertEquals((int) 0x8000, records.get(0).flags);
+                assertEquals((int) -2, records.get(2).result);
+                assertEquals("/b", records.get(3).path2);
+                assertEquals("/b", records.get(4).path);
+                assertEquals((int) Integer.MIN_VALUE, records.get(4).result);
+
+                assertNull(reader.read());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void test02() throws Exception {
+        assertNull(TraceWriter.of(new HashMap<>()));
+        for (int v : new int[] {0, 1, -1, 63, -64, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+            assertEquals((int) v, TraceReader.unzigzag(TraceWriter.zigzag(v)));
+        }
+    }
+
+    @Test
+    void test03() throws Exception {
+        // the path dictionary is reset when it is full
+        Path file = Files.createTempFile("fuse", ".trace");
+        try {
+            try (TraceWriter writer = new TraceWriter(file, 4)) {
+                for (int i = 0; i < 10; i++) {
+                    writer.write("rename", System.nanoTime(), "/a" + i, "/b" + i, 0, 0, 0, 0, 0);
+                    writer.write("getattr", System.nanoTime(), "/b" + i, null, 0, 0, 0, 0, 0);
+                }
+            }
+
+            try (TraceReader reader = new TraceReader(file)) {
+                List<TraceRecord> records = reader.readAll();
+                assertEquals(20, records.size());
+                for (int i = 0; i < 10; i++) {
+                    assertEquals("/a" + i, records.get(i * 2).path);
+                    assertEquals("/b" + i, records.get(i * 2).path2);
+                    assertEquals("/b" + i, records.get(i * 2 + 1).path);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}